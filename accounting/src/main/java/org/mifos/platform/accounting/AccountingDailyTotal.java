@@ -0,0 +1,87 @@
+/*
+ * Copyright (c) 2005-2011 Grameen Foundation USA
+ * All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * See also http://www.apache.org/licenses/LICENSE-2.0.html for an
+ * explanation of the license and how it is applied.
+ */
+
+package org.mifos.platform.accounting;
+
+import java.math.BigDecimal;
+
+import org.joda.time.LocalDate;
+
+/**
+ * Debit and credit totals of the financial transactions posted on a single day for one voucher line. These are the
+ * building blocks of the incremental export: any date range is answered by summing the totals of its days.
+ */
+public class AccountingDailyTotal {
+
+    private final LocalDate postedDate;
+    private final String branchName;
+    private final String voucherDate;
+    private final String voucherType;
+    private final String glCode;
+    private final String glCodeName;
+    private final BigDecimal debit;
+    private final BigDecimal credit;
+
+    public AccountingDailyTotal(LocalDate postedDate, String branchName, String voucherDate, String voucherType,
+            String glCode, String glCodeName, BigDecimal debit, BigDecimal credit) {
+        super();
+        this.postedDate = postedDate;
+        this.branchName = branchName;
+        this.voucherDate = voucherDate;
+        this.voucherType = voucherType;
+        this.glCode = glCode;
+        this.glCodeName = glCodeName;
+        this.debit = debit;
+        this.credit = credit;
+    }
+
+    public final LocalDate getPostedDate() {
+        return postedDate;
+    }
+
+    public final String getBranchName() {
+        return branchName;
+    }
+
+    public final String getVoucherDate() {
+        return voucherDate;
+    }
+
+    public final String getVoucherType() {
+        return voucherType;
+    }
+
+    public final String getGlCode() {
+        return glCode;
+    }
+
+    public final String getGlCodeName() {
+        return glCodeName;
+    }
+
+    public final BigDecimal getDebit() {
+        return debit;
+    }
+
+    public final BigDecimal getCredit() {
+        return credit;
+    }
+
+}
@@ -23,6 +23,7 @@ package org.mifos.platform.accounting.dao;
 import java.util.List;
 
 import org.joda.time.LocalDate;
+import org.mifos.platform.accounting.AccountingDailyTotal;
 import org.mifos.platform.accounting.AccountingDto;
 
 public interface AccountingDao {
@@ -34,4 +35,35 @@ public interface AccountingDao {
     Integer getNumberOfTrxnByDate(LocalDate startDate, LocalDate endDate);
 
     List<LocalDate> getTenTxnDate(LocalDate startDate, LocalDate endDate, Integer offset);
+
+    /**
+     * Highest financial transaction id posted before the given date, or 0 if there is none.
+     */
+    Long getLastTrxnIdPostedBefore(LocalDate date);
+
+    /**
+     * Per posted day totals of the financial transactions with an id in (afterTrxnId, upToTrxnId].
+     */
+    List<AccountingDailyTotal> getDailyTotalsForTrxnIds(Long afterTrxnId, Long upToTrxnId);
+
+    /**
+     * Folds the financial transactions posted before today that are not in gl_daily_balance yet into it.
+     */
+    void refreshGlDailyBalances();
+
+    /**
+     * Same rows as {@link #getAccountingDataByDate(LocalDate, LocalDate)}, read from gl_daily_balance plus the
+     * transactions that are not aggregated yet.
+     */
+    List<AccountingDto> getAccountingDataFromGlDailyBalances(LocalDate startDate, LocalDate endDate);
+
+    /**
+     * Posted dates in the range whose totals in gl_daily_balance differ from the aggregated financial transactions.
+     */
+    List<LocalDate> getGlDailyBalanceMismatches(LocalDate startDate, LocalDate endDate);
+
+    /**
+     * Recomputes the gl_daily_balance rows of the posted dates in the range from the financial transactions.
+     */
+    void rebuildGlDailyBalances(LocalDate startDate, LocalDate endDate);
 }
@@ -20,11 +20,14 @@
 
 package org.mifos.platform.accounting.dao;
 
+import java.math.BigDecimal;
 import java.sql.Date;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import javax.sql.DataSource;
 
@@ -32,10 +35,16 @@ import org.apache.commons.lang.StringUtils;
 import org.joda.time.LocalDate;
 import org.joda.time.format.DateTimeFormat;
 import org.mifos.framework.persistence.SqlExecutor;
+import org.mifos.platform.accounting.AccountingDailyTotal;
 import org.mifos.platform.accounting.AccountingDto;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.core.simple.ParameterizedRowMapper;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionCallbackWithoutResult;
+import org.springframework.transaction.support.TransactionTemplate;
 
 public class AccountingDaoImpl implements AccountingDao {
 
@@ -47,6 +56,25 @@ public class AccountingDaoImpl implements AccountingDao {
     private static final int DEBIT = 6;
     private static final int CREDIT = 7;
 
+    /**
+     * Number of financial transaction ids folded into gl_daily_balance per transaction, so that the first refresh
+     * of a large database does not aggregate the whole table in one statement.
+     */
+    private static final long GL_DAILY_BALANCE_REFRESH_TRXN_IDS = 100000;
+
+    /**
+     * Filter of the gl_daily_balance aggregation used by the refresh: the transactions after the watermark, up to the
+     * given id.
+     */
+    private static final String TRXN_ID_RANGE = "fintrxn.trxn_id > ? and fintrxn.trxn_id <= ?";
+
+    /**
+     * Filter of the gl_daily_balance aggregation used by the rebuild: the transactions posted in the date range, up
+     * to the watermark.
+     */
+    private static final String POSTED_DATE_RANGE = "fintrxn.posted_date between date(?) and date(?) "
+            + "and fintrxn.trxn_id <= ?";
+
     private JdbcTemplate jdbcTemplate;
 
     @Autowired
@@ -92,10 +120,149 @@ public class AccountingDaoImpl implements AccountingDao {
         return lDate;
     }
 
+    @Override
+    public final Long getLastTrxnIdPostedBefore(LocalDate date) {
+        Object[] parameter = new Object[] { date.toString() };
+        Long lastTrxnId = jdbcTemplate.queryForObject(
+                "select max(trxn_id) from financial_trxn where posted_date < date(?)", parameter, Long.class);
+        return lastTrxnId == null ? Long.valueOf(0) : lastTrxnId;
+    }
+
+    @Override
+    public final List<AccountingDailyTotal> getDailyTotalsForTrxnIds(Long afterTrxnId, Long upToTrxnId) {
+        Object[] parameter = new Object[] { afterTrxnId, upToTrxnId };
+        return jdbcTemplate.query(getDailyTotalsQuery(), parameter, DAILY_TOTAL_MAPPER);
+    }
+
+    @Override
+    public final void refreshGlDailyBalances() {
+        final long lastPostedTrxnId = getLastTrxnIdPostedBefore(new LocalDate());
+        boolean moreToRefresh = true;
+        while (moreToRefresh) {
+            moreToRefresh = getTransactionTemplate().execute(new TransactionCallback<Boolean>() {
+                @Override
+                public Boolean doInTransaction(TransactionStatus status) {
+                    long lastAggregatedTrxnId = lockLastAggregatedTrxnId();
+                    if (lastAggregatedTrxnId >= lastPostedTrxnId) {
+                        return Boolean.FALSE;
+                    }
+                    long upToTrxnId = Math.min(lastAggregatedTrxnId + GL_DAILY_BALANCE_REFRESH_TRXN_IDS, lastPostedTrxnId);
+                    jdbcTemplate.update(getDailyBalanceAggregation(TRXN_ID_RANGE), new Object[] { lastAggregatedTrxnId,
+                            upToTrxnId });
+                    jdbcTemplate.update("update gl_daily_balance_progress set last_trxn_id = ? where id = 1",
+                            new Object[] { upToTrxnId });
+                    return Boolean.valueOf(upToTrxnId < lastPostedTrxnId);
+                }
+            });
+        }
+    }
+
+    @Override
+    public final List<AccountingDto> getAccountingDataFromGlDailyBalances(LocalDate startDate, LocalDate endDate) {
+        Object[] parameter = new Object[] { startDate.toString(), endDate.toString(), startDate.toString(),
+                endDate.toString() };
+        return jdbcTemplate.query(getDailyBalanceQuery(), parameter, MAPPER);
+    }
+
+    @Override
+    public final List<LocalDate> getGlDailyBalanceMismatches(LocalDate startDate, LocalDate endDate) {
+        final Object[] parameter = new Object[] { startDate.toString(), endDate.toString() };
+        // both sides are read in one transaction so they see the same watermark
+        return getTransactionTemplate().execute(new TransactionCallback<List<LocalDate>>() {
+            @Override
+            public List<LocalDate> doInTransaction(TransactionStatus status) {
+                List<Object[]> summarized = jdbcTemplate.query(
+                        "select posted_date, sum(debit), sum(credit), sum(trxn_count) from gl_daily_balance "
+                                + "where posted_date between date(?) and date(?) group by posted_date order by posted_date",
+                        parameter, DAY_TOTALS_MAPPER);
+                List<Object[]> posted = jdbcTemplate.query(getDailyBalanceCheckQuery(), parameter, DAY_TOTALS_MAPPER);
+
+                Map<LocalDate, Object[]> postedByDay = new HashMap<LocalDate, Object[]>();
+                for (Object[] dayTotals : posted) {
+                    postedByDay.put((LocalDate) dayTotals[0], dayTotals);
+                }
+                List<LocalDate> mismatches = new ArrayList<LocalDate>();
+                for (Object[] dayTotals : summarized) {
+                    Object[] postedTotals = postedByDay.remove(dayTotals[0]);
+                    if (postedTotals == null || !sameTotals(dayTotals, postedTotals)) {
+                        mismatches.add((LocalDate) dayTotals[0]);
+                    }
+                }
+                mismatches.addAll(postedByDay.keySet());
+                return mismatches;
+            }
+        });
+    }
+
+    @Override
+    public final void rebuildGlDailyBalances(final LocalDate startDate, final LocalDate endDate) {
+        getTransactionTemplate().execute(new TransactionCallbackWithoutResult() {
+            @Override
+            protected void doInTransactionWithoutResult(TransactionStatus status) {
+                long lastAggregatedTrxnId = lockLastAggregatedTrxnId();
+                jdbcTemplate.update("delete from gl_daily_balance where posted_date between date(?) and date(?)",
+                        new Object[] { startDate.toString(), endDate.toString() });
+                jdbcTemplate.update(getDailyBalanceAggregation(POSTED_DATE_RANGE), new Object[] { startDate.toString(),
+                        endDate.toString(), lastAggregatedTrxnId });
+            }
+        });
+    }
+
+    /**
+     * Reads the gl_daily_balance watermark, locking it until the current transaction ends so that concurrent
+     * refreshes and rebuilds never aggregate the same transactions twice.
+     */
+    private long lockLastAggregatedTrxnId() {
+        return jdbcTemplate.queryForObject("select last_trxn_id from gl_daily_balance_progress where id = 1 for update",
+                Long.class);
+    }
+
+    private static boolean sameTotals(Object[] dayTotals, Object[] otherDayTotals) {
+        for (int i = 1; i < dayTotals.length; i++) {
+            if (((BigDecimal) dayTotals[i]).compareTo((BigDecimal) otherDayTotals[i]) != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private TransactionTemplate getTransactionTemplate() {
+        return new TransactionTemplate(new DataSourceTransactionManager(jdbcTemplate.getDataSource()));
+    }
+
     private String getAccountingDataQuery() {
-        return SqlExecutor.readFile(AccountingDaoImpl.class.getResourceAsStream("AccountingGLIntegrationQuery.sql"))[0];
+        return readVoucherQuery("AccountingGLIntegrationQuery.sql");
     }
     
+    private String getDailyTotalsQuery() {
+        return readVoucherQuery("AccountingGLIncrementalQuery.sql");
+    }
+
+    /**
+     * The aggregation that adds the financial transactions selected by the given filter to gl_daily_balance.
+     */
+    private String getDailyBalanceAggregation(String trxnFilter) {
+        return readVoucherQuery("AccountingGLDailyBalanceAggregation.sql").replace("${trxnFilter}", trxnFilter);
+    }
+
+    private String getDailyBalanceQuery() {
+        return readVoucherQuery("AccountingGLDailyBalanceQuery.sql");
+    }
+
+    private String getDailyBalanceCheckQuery() {
+        return SqlExecutor.readFile(AccountingDaoImpl.class.getResourceAsStream("AccountingGLDailyBalanceCheckQuery.sql"))[0];
+    }
+
+    /**
+     * Reads a query that classifies financial transactions into vouchers, the voucher type expression is kept once in
+     * AccountingGLVoucherType.sql and spliced in where the query says ${voucherType}.
+     */
+    private static String readVoucherQuery(String fileName) {
+        String voucherType = SqlExecutor.readFile(AccountingDaoImpl.class.getResourceAsStream("AccountingGLVoucherType.sql"))[0];
+        String query = SqlExecutor.readFile(AccountingDaoImpl.class.getResourceAsStream(fileName))[0];
+        return query.replace("${voucherType}", voucherType);
+    }
+
     private String getTenTrxDataQuery() {
         return SqlExecutor.readFile(AccountingDaoImpl.class.getResourceAsStream("AccountingPostedDateQuery.sql"))[0];
     }
@@ -107,5 +274,31 @@ public class AccountingDaoImpl implements AccountingDao {
                     rs.getString(GL_CODE), rs.getString(GL_CODE_NAME), rs.getString(DEBIT), rs.getString(CREDIT));
         }
     };
-    
+
+    public static final ParameterizedRowMapper<AccountingDailyTotal> DAILY_TOTAL_MAPPER = new ParameterizedRowMapper<AccountingDailyTotal>() {
+        @Override
+        public AccountingDailyTotal mapRow(ResultSet rs, int rowNum) throws SQLException {
+            // posted date comes first, the remaining columns are those of the integration query shifted by one
+            LocalDate postedDate = DateTimeFormat.forPattern("yyyy-MM-dd").parseDateTime(rs.getString(1)).toLocalDate();
+            return new AccountingDailyTotal(postedDate, rs.getString(BRANCH_NAME + 1), rs.getString(VOUCHER_DATE + 1),
+                    rs.getString(VOUCHER_TYPE + 1), rs.getString(GL_CODE + 1), rs.getString(GL_CODE_NAME + 1),
+                    toAmount(rs.getBigDecimal(DEBIT + 1)), toAmount(rs.getBigDecimal(CREDIT + 1)));
+        }
+    };
+
+    /**
+     * Posted date followed by debit, credit and number of transactions of that day.
+     */
+    private static final ParameterizedRowMapper<Object[]> DAY_TOTALS_MAPPER = new ParameterizedRowMapper<Object[]>() {
+        @Override
+        public Object[] mapRow(ResultSet rs, int rowNum) throws SQLException {
+            return new Object[] { new LocalDate(rs.getDate(1).getTime()), toAmount(rs.getBigDecimal(2)),
+                    toAmount(rs.getBigDecimal(3)), toAmount(rs.getBigDecimal(4)) };
+        }
+    };
+
+    private static BigDecimal toAmount(BigDecimal amount) {
+        return amount == null ? BigDecimal.ZERO : amount;
+    }
+
 }
@@ -0,0 +1,322 @@
+/*
+ * Copyright (c) 2005-2011 Grameen Foundation USA
+ * All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * See also http://www.apache.org/licenses/LICENSE-2.0.html for an
+ * explanation of the license and how it is applied.
+ */
+
+package org.mifos.platform.accounting.service;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+import org.joda.time.LocalDate;
+import org.mifos.platform.accounting.AccountingDailyTotal;
+import org.mifos.platform.accounting.AccountingDto;
+import org.mifos.platform.accounting.AccountingRuntimeException;
+
+/**
+ * Per posted day debit and credit totals of every financial transaction up to {@link #getLastTrxnId()}.
+ *
+ * The totals are kept in a compact binary file: a header with the last aggregated transaction id, a table of the
+ * distinct branch, voucher and gl strings and one fixed layout record per day and voucher line referring to that
+ * table. New transactions are folded in with {@link #add(List, long)} so financial_trxn never has to be aggregated
+ * twice.
+ */
+public class AccountingDailyTotalsStore {
+
+    private static final int MAGIC = 0x4d414454;
+    private static final short VERSION = 1;
+    private static final String ENCODING = "UTF-8";
+
+    private long lastTrxnId;
+
+    private final SortedMap<LocalDate, Map<VoucherLine, BigDecimal[]>> totalsByDay = new TreeMap<LocalDate, Map<VoucherLine, BigDecimal[]>>();
+
+    public final long getLastTrxnId() {
+        return lastTrxnId;
+    }
+
+    public final boolean isEmpty() {
+        return totalsByDay.isEmpty();
+    }
+
+    public final void add(List<AccountingDailyTotal> totals, long upToTrxnId) {
+        for (AccountingDailyTotal total : totals) {
+            Map<VoucherLine, BigDecimal[]> dayTotals = totalsByDay.get(total.getPostedDate());
+            if (dayTotals == null) {
+                dayTotals = new TreeMap<VoucherLine, BigDecimal[]>();
+                totalsByDay.put(total.getPostedDate(), dayTotals);
+            }
+            VoucherLine line = new VoucherLine(total.getBranchName(), total.getVoucherDate(), total.getVoucherType(),
+                    total.getGlCode(), total.getGlCodeName());
+            addTo(dayTotals, line, total.getDebit(), total.getCredit());
+        }
+        lastTrxnId = Math.max(lastTrxnId, upToTrxnId);
+    }
+
+    /**
+     * Sums the daily totals posted between the given dates (inclusive) into one row per voucher line, ordered like
+     * the rows of the full accounting export query. Amounts are returned unformatted.
+     */
+    public final List<AccountingDto> getAccountingData(LocalDate startDate, LocalDate endDate) {
+        Map<VoucherLine, BigDecimal[]> rangeTotals = new TreeMap<VoucherLine, BigDecimal[]>();
+        for (Map<VoucherLine, BigDecimal[]> dayTotals : totalsByDay.subMap(startDate, endDate.plusDays(1)).values()) {
+            for (Map.Entry<VoucherLine, BigDecimal[]> entry : dayTotals.entrySet()) {
+                addTo(rangeTotals, entry.getKey(), entry.getValue()[0], entry.getValue()[1]);
+            }
+        }
+        List<AccountingDto> accountingData = new ArrayList<AccountingDto>();
+        for (Map.Entry<VoucherLine, BigDecimal[]> entry : rangeTotals.entrySet()) {
+            VoucherLine line = entry.getKey();
+            accountingData.add(new AccountingDto(line.branchName, line.voucherDate, line.voucherType, line.glCode,
+                    line.glCodeName, entry.getValue()[0].toPlainString(), entry.getValue()[1].toPlainString()));
+        }
+        return accountingData;
+    }
+
+    private static void addTo(Map<VoucherLine, BigDecimal[]> totals, VoucherLine line, BigDecimal debit,
+            BigDecimal credit) {
+        BigDecimal[] amounts = totals.get(line);
+        if (amounts == null) {
+            totals.put(line, new BigDecimal[] { debit, credit });
+        } else {
+            amounts[0] = amounts[0].add(debit);
+            amounts[1] = amounts[1].add(credit);
+        }
+    }
+
+    public static AccountingDailyTotalsStore load(File file) {
+        AccountingDailyTotalsStore store = new AccountingDailyTotalsStore();
+        if (!file.isFile()) {
+            return store;
+        }
+        FileInputStream in = null;
+        try {
+            in = new FileInputStream(file);
+            FileChannel channel = in.getChannel();
+            ByteBuffer buffer = ByteBuffer.allocate((int) channel.size());
+            while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+                // keep reading until the whole file is in the buffer
+            }
+            buffer.flip();
+            store.read(buffer);
+        } catch (IOException e) {
+            throw new AccountingRuntimeException(file.toString(), e);
+        } finally {
+            closeQuietly(in);
+        }
+        return store;
+    }
+
+    private void read(ByteBuffer buffer) throws UnsupportedEncodingException {
+        if (buffer.getInt() != MAGIC || buffer.getShort() != VERSION) {
+            throw new IllegalStateException("not an accounting daily totals file");
+        }
+        lastTrxnId = buffer.getLong();
+        String[] strings = new String[buffer.getInt()];
+        for (int i = 0; i < strings.length; i++) {
+            byte[] bytes = new byte[buffer.getInt()];
+            buffer.get(bytes);
+            strings[i] = new String(bytes, ENCODING);
+        }
+        int records = buffer.getInt();
+        for (int i = 0; i < records; i++) {
+            LocalDate postedDate = toDate(buffer.getInt());
+            VoucherLine line = new VoucherLine(strings[buffer.getInt()], strings[buffer.getInt()],
+                    strings[buffer.getInt()], strings[buffer.getInt()], strings[buffer.getInt()]);
+            BigDecimal debit = readAmount(buffer);
+            BigDecimal credit = readAmount(buffer);
+            Map<VoucherLine, BigDecimal[]> dayTotals = totalsByDay.get(postedDate);
+            if (dayTotals == null) {
+                dayTotals = new TreeMap<VoucherLine, BigDecimal[]>();
+                totalsByDay.put(postedDate, dayTotals);
+            }
+            dayTotals.put(line, new BigDecimal[] { debit, credit });
+        }
+    }
+
+    /**
+     * Writes to a temporary file first so that a failed save never leaves a truncated store behind.
+     */
+    public final void save(File file) {
+        File parent = file.getAbsoluteFile().getParentFile();
+        if (!parent.isDirectory()) {
+            parent.mkdirs();
+        }
+        File temporary = new File(parent, file.getName() + ".tmp");
+        DataOutputStream out = null;
+        try {
+            out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temporary)));
+            write(out);
+            out.close();
+            out = null;
+        } catch (IOException e) {
+            throw new AccountingRuntimeException(temporary.toString(), e);
+        } finally {
+            closeQuietly(out);
+        }
+        if (!temporary.renameTo(file) && !(file.delete() && temporary.renameTo(file))) {
+            throw new AccountingRuntimeException(file.toString(), new IOException("could not replace " + file));
+        }
+    }
+
+    private void write(DataOutputStream out) throws IOException {
+        Map<String, Integer> stringIndexes = new HashMap<String, Integer>();
+        List<String> strings = new ArrayList<String>();
+        int records = 0;
+        for (Map<VoucherLine, BigDecimal[]> dayTotals : totalsByDay.values()) {
+            for (VoucherLine line : dayTotals.keySet()) {
+                for (String value : line.values()) {
+                    if (!stringIndexes.containsKey(value)) {
+                        stringIndexes.put(value, strings.size());
+                        strings.add(value);
+                    }
+                }
+                records++;
+            }
+        }
+
+        out.writeInt(MAGIC);
+        out.writeShort(VERSION);
+        out.writeLong(lastTrxnId);
+        out.writeInt(strings.size());
+        for (String value : strings) {
+            byte[] bytes = value.getBytes(ENCODING);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+        out.writeInt(records);
+        for (Map.Entry<LocalDate, Map<VoucherLine, BigDecimal[]>> day : totalsByDay.entrySet()) {
+            int postedDate = fromDate(day.getKey());
+            for (Map.Entry<VoucherLine, BigDecimal[]> entry : day.getValue().entrySet()) {
+                out.writeInt(postedDate);
+                for (String value : entry.getKey().values()) {
+                    out.writeInt(stringIndexes.get(value));
+                }
+                writeAmount(out, entry.getValue()[0]);
+                writeAmount(out, entry.getValue()[1]);
+            }
+        }
+    }
+
+    private static void writeAmount(DataOutputStream out, BigDecimal amount) throws IOException {
+        byte[] unscaled = amount.unscaledValue().toByteArray();
+        out.writeByte(amount.scale());
+        out.writeByte(unscaled.length);
+        out.write(unscaled);
+    }
+
+    private static BigDecimal readAmount(ByteBuffer buffer) {
+        int scale = buffer.get();
+        byte[] unscaled = new byte[buffer.get()];
+        buffer.get(unscaled);
+        return new BigDecimal(new BigInteger(unscaled), scale);
+    }
+
+    private static int fromDate(LocalDate date) {
+        return date.getYear() * 10000 + date.getMonthOfYear() * 100 + date.getDayOfMonth();
+    }
+
+    private static LocalDate toDate(int date) {
+        return new LocalDate(date / 10000, date / 100 % 100, date % 100);
+    }
+
+    private static void closeQuietly(Closeable closeable) {
+        if (closeable != null) {
+            try {
+                closeable.close();
+            } catch (IOException e) {
+                // nothing more can be done here
+            }
+        }
+    }
+
+    /**
+     * One row of the export. Ordered the way the export query orders its rows, case insensitive first as the
+     * database collation does.
+     */
+    private static class VoucherLine implements Comparable<VoucherLine> {
+
+        private final String branchName;
+        private final String voucherDate;
+        private final String voucherType;
+        private final String glCode;
+        private final String glCodeName;
+
+        VoucherLine(String branchName, String voucherDate, String voucherType, String glCode, String glCodeName) {
+            this.branchName = nullToEmpty(branchName);
+            this.voucherDate = nullToEmpty(voucherDate);
+            this.voucherType = nullToEmpty(voucherType);
+            this.glCode = nullToEmpty(glCode);
+            this.glCodeName = nullToEmpty(glCodeName);
+        }
+
+        private static String nullToEmpty(String value) {
+            return value == null ? "" : value;
+        }
+
+        String[] values() {
+            return new String[] { branchName, voucherDate, voucherType, glCode, glCodeName };
+        }
+
+        @Override
+        public int compareTo(VoucherLine other) {
+            String[] values = values();
+            String[] otherValues = other.values();
+            for (int i = 0; i < values.length; i++) {
+                int result = String.CASE_INSENSITIVE_ORDER.compare(values[i], otherValues[i]);
+                if (result != 0) {
+                    return result;
+                }
+            }
+            for (int i = 0; i < values.length; i++) {
+                int result = values[i].compareTo(otherValues[i]);
+                if (result != 0) {
+                    return result;
+                }
+            }
+            return 0;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return obj instanceof VoucherLine && compareTo((VoucherLine) obj) == 0;
+        }
+
+        @Override
+        public int hashCode() {
+            return Arrays.hashCode(values());
+        }
+    }
+}
@@ -37,6 +37,7 @@ import org.apache.commons.io.FileUtils;
 import org.joda.time.DateTime;
 import org.joda.time.LocalDate;
 import org.mifos.framework.util.ConfigurationLocator;
+import org.mifos.platform.accounting.AccountingDailyTotal;
 import org.mifos.platform.accounting.AccountingDto;
 import org.mifos.platform.accounting.AccountingRuntimeException;
 import org.slf4j.Logger;
@@ -53,8 +54,14 @@ public class AccountingDataCacheManager {
 
     private static final String EXPORT_FILENAME_PREFIX = "Mifos Accounting Export ";
 
+    private static final String DAILY_TOTALS_FILENAME = "daily-totals.dat";
+
     private String accountingDataPath;
     private Integer digitsAfterDecimal;
+    private Boolean incrementalExport;
+
+    private Boolean glDailyBalances;
+    private AccountingDailyTotalsStore dailyTotals;
 
     public final List<AccountingDto> getExportDetails(String fileName) {
 
@@ -107,9 +114,45 @@ public class AccountingDataCacheManager {
         return accountingDataPath;
     }
 
-    public final Boolean deleteCacheDir() {
+    /**
+     * The daily totals live next to, not inside, the data directory as every file in there is listed as an export.
+     */
+    private File getDailyTotalsFile() {
+        File dataDirectory = new File(getAccoutingDataCachePath()).getAbsoluteFile();
+        return new File(new File(dataDirectory.getParentFile(), "aggregates"), DAILY_TOTALS_FILENAME);
+    }
+
+    private AccountingDailyTotalsStore getDailyTotals() {
+        if (dailyTotals == null) {
+            dailyTotals = AccountingDailyTotalsStore.load(getDailyTotalsFile());
+        }
+        return dailyTotals;
+    }
+
+    public final synchronized long getLastAggregatedTrxnId() {
+        return getDailyTotals().getLastTrxnId();
+    }
+
+    public final synchronized void addDailyTotals(List<AccountingDailyTotal> totals, long upToTrxnId) {
+        AccountingDailyTotalsStore store = getDailyTotals();
+        store.add(totals, upToTrxnId);
+        store.save(getDailyTotalsFile());
+    }
+
+    public final synchronized List<AccountingDto> getExportDetailsFromDailyTotals(LocalDate startDate, LocalDate endDate) {
+        List<AccountingDto> accountingData = new ArrayList<AccountingDto>();
+        for (AccountingDto row : getDailyTotals().getAccountingData(startDate, endDate)) {
+            accountingData.add(new AccountingDto(row.getBranchName(), row.getVoucherDate(), row.getVoucherType(),
+                    row.getGlCode(), row.getGlCodeName(), parseNumber(row.getDebit()), parseNumber(row.getCredit())));
+        }
+        return accountingData;
+    }
+
+    public final synchronized Boolean deleteCacheDir() {
+        dailyTotals = null;
         try {
             FileUtils.deleteDirectory(new File(getAccoutingDataCachePath()));
+            FileUtils.deleteDirectory(getDailyTotalsFile().getParentFile());
         } catch (IOException e) {
             LOGGER.error(e.getMessage(), e);
             return false;
@@ -117,11 +160,51 @@ public class AccountingDataCacheManager {
         return true;
     }
 
+    /**
+     * Whether exports are answered from the per day totals, aggregating only the transactions posted since the last
+     * export, instead of querying the whole date range. Enabled with AccountingRules.IncrementalExport=true in
+     * applicationConfiguration.custom.properties.
+     */
+    public final boolean isIncrementalExport() {
+        if (incrementalExport == null) {
+            incrementalExport = Boolean.valueOf(getCustomProperties().getProperty("AccountingRules.IncrementalExport",
+                    "false").trim());
+        }
+        return incrementalExport;
+    }
+
+    protected final void setIncrementalExport(Boolean incrementalExport) {
+        this.incrementalExport = incrementalExport;
+    }
+
+    /**
+     * Whether exports are read from the gl_daily_balance table kept in the database, instead of aggregating the
+     * financial transactions of the range. Enabled with AccountingRules.GlDailyBalances=true in
+     * applicationConfiguration.custom.properties, takes precedence over AccountingRules.IncrementalExport.
+     */
+    public final boolean isGlDailyBalances() {
+        if (glDailyBalances == null) {
+            glDailyBalances = Boolean.valueOf(getCustomProperties().getProperty("AccountingRules.GlDailyBalances",
+                    "false").trim());
+        }
+        return glDailyBalances;
+    }
+
+    protected final void setGlDailyBalances(Boolean glDailyBalances) {
+        this.glDailyBalances = glDailyBalances;
+    }
+
     private int getDigitsAfterDecimal() {
         if (digitsAfterDecimal != null) {
             // Already read, avoid reading again to reduce processing
             return digitsAfterDecimal;
         }
+        Properties properties = getCustomProperties();
+        digitsAfterDecimal = Integer.parseInt(properties.getProperty("AccountingRules.DigitsAfterDecimal", "1"));
+        return digitsAfterDecimal;
+    }
+
+    private Properties getCustomProperties() {
         ConfigurationLocator configurationLocator = new ConfigurationLocator();
         String customApplicationPropertyFile = configurationLocator.getConfigurationDirectory()
                 + "/applicationConfiguration.custom.properties";
@@ -133,13 +216,10 @@ public class AccountingDataCacheManager {
             } catch (Exception e) {
                 LOGGER.error(e.getMessage(), e);
             }
-        } else {
-            // FIXME hardcoded default value, using property file only for custom value
-            // There should be a way to read application properties across modules
-            digitsAfterDecimal = 1;
         }
-        digitsAfterDecimal = Integer.parseInt(properties.getProperty("AccountingRules.DigitsAfterDecimal", "1"));
-        return digitsAfterDecimal;
+        // FIXME hardcoded default values, using property file only for custom values
+        // There should be a way to read application properties across modules
+        return properties;
     }
 
     protected final void setAccoutingDataCachePath(String path) {
@@ -48,4 +48,17 @@ public interface AccountingService {
 
     @PreAuthorize("isFullyAuthenticated() and hasRole('ROLE_CAN_USE_ACCOUNTING_INTEGRATION')")
     Boolean deleteCacheDir();
+
+    /**
+     * Folds the financial transactions of the completed days into gl_daily_balance when exports are read from it.
+     * Called by the GlDailyBalanceTask batch job, so it is not restricted to users of the accounting integration.
+     */
+    void refreshGlDailyBalances();
+
+    /**
+     * Compares the gl_daily_balance totals of the posted dates in the range with the financial transactions and
+     * returns the days that differ. With rebuild those days are recomputed from the financial transactions.
+     */
+    @PreAuthorize("isFullyAuthenticated() and hasRole('ROLE_CAN_USE_ACCOUNTING_INTEGRATION')")
+    List<LocalDate> reconcileGlDailyBalances(LocalDate startDate, LocalDate endDate, boolean rebuild);
 }
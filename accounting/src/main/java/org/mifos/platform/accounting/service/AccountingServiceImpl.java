@@ -36,6 +36,12 @@ public class AccountingServiceImpl implements AccountingService {
 
     private final AccountingDao accountingDao;
 
+    /**
+     * Guards reading the last aggregated transaction, aggregating the transactions after it and storing the totals,
+     * two exports folding at the same time would otherwise both add the same transactions.
+     */
+    private final Object dailyTotalsLock = new Object();
+
     @Autowired
     public AccountingServiceImpl(AccountingDataCacheManager cacheManager, AccountingDao accountingDao) {
         this.cacheManager = cacheManager;
@@ -57,6 +63,12 @@ public class AccountingServiceImpl implements AccountingService {
 
     @Override
     public final List<AccountingDto> getExportDetails(LocalDate startDate, LocalDate endDate) {
+        if (cacheManager.isGlDailyBalances()) {
+            return getExportDetailsFromGlDailyBalances(startDate, endDate);
+        }
+        if (cacheManager.isIncrementalExport()) {
+            return getExportDetailsFromDailyTotals(startDate, endDate);
+        }
         String fileName = cacheManager.getCacheFileName(startDate, endDate);
         if (!cacheManager.isAccountingDataAlreadyInCache(fileName)) {
             if(!writeToCache(startDate, endDate)) {
@@ -75,6 +87,59 @@ public class AccountingServiceImpl implements AccountingService {
         return false;
     }
 
+    /**
+     * Folds the transactions posted since the last export into the per day totals and answers the range from those.
+     * Only completed days are aggregated, the transactions of today are picked up once the day is over. An export of
+     * completed days is written to the cache directory so it shows up in the list of generated exports, one reaching
+     * today is not as it lacks the transactions of today that a cached full export would contain.
+     */
+    private List<AccountingDto> getExportDetailsFromDailyTotals(LocalDate startDate, LocalDate endDate) {
+        LocalDate today = new LocalDate();
+        synchronized (dailyTotalsLock) {
+            long lastAggregatedTrxnId = cacheManager.getLastAggregatedTrxnId();
+            long lastPostedTrxnId = accountingDao.getLastTrxnIdPostedBefore(today);
+            if (lastPostedTrxnId > lastAggregatedTrxnId) {
+                cacheManager.addDailyTotals(accountingDao.getDailyTotalsForTrxnIds(lastAggregatedTrxnId,
+                        lastPostedTrxnId), lastPostedTrxnId);
+            }
+        }
+        List<AccountingDto> accountingData = cacheManager.getExportDetailsFromDailyTotals(startDate, endDate);
+        if (!accountingData.isEmpty() && endDate.isBefore(today)) {
+            cacheManager.writeAccountingDataToCache(accountingData, cacheManager.getCacheFileName(startDate, endDate));
+        }
+        return accountingData;
+    }
+
+    /**
+     * Reads the range from gl_daily_balance, the transactions that the GlDailyBalanceTask batch job has not folded
+     * into it yet are aggregated on the fly, so the export is complete.
+     */
+    private List<AccountingDto> getExportDetailsFromGlDailyBalances(LocalDate startDate, LocalDate endDate) {
+        List<AccountingDto> accountingData = accountingDao.getAccountingDataFromGlDailyBalances(startDate, endDate);
+        if (!accountingData.isEmpty()) {
+            cacheManager.writeAccountingDataToCache(accountingData, cacheManager.getCacheFileName(startDate, endDate));
+        }
+        return accountingData;
+    }
+
+    @Override
+    public final void refreshGlDailyBalances() {
+        if (cacheManager.isGlDailyBalances()) {
+            accountingDao.refreshGlDailyBalances();
+        }
+    }
+
+    @Override
+    public final List<LocalDate> reconcileGlDailyBalances(LocalDate startDate, LocalDate endDate, boolean rebuild) {
+        List<LocalDate> mismatches = accountingDao.getGlDailyBalanceMismatches(startDate, endDate);
+        if (rebuild) {
+            for (LocalDate postedDate : mismatches) {
+                accountingDao.rebuildGlDailyBalances(postedDate, postedDate);
+            }
+        }
+        return mismatches;
+    }
+
     @Override
     public final String getExportOutputFileName(LocalDate startDate, LocalDate endDate) {
         return cacheManager.getTallyOutputFileName(startDate, endDate);
@@ -103,6 +103,18 @@ public class AccountingDataController {
         return mav;
     }
 
+    @RequestMapping("reconcileGlDailyBalances.ftl")
+    public final ModelAndView reconcileGlDailyBalances(@RequestParam(value = FROM_DATE) String paramFromDate,
+            @RequestParam(value = TO_DATE) String paramToDate,
+            @RequestParam(value = "rebuild", required = false, defaultValue = "false") Boolean rebuild) {
+        DateTimeFormatter fmt = DateTimeFormat.forPattern("yyyy-MM-dd");
+        LocalDate fromDate = fmt.parseDateTime(paramFromDate).toLocalDate();
+        LocalDate toDate = fmt.parseDateTime(paramToDate).toLocalDate();
+        ModelAndView mav = new ModelAndView("reconcileGlDailyBalances");
+        mav.addObject("mismatches", accountingService.reconcileGlDailyBalances(fromDate, toDate, rebuild));
+        return mav;
+    }
+
     @RequestMapping("generateExportsList.ftl")
     public final ModelAndView generateList(@RequestParam(value = LIST_START_DAY) Integer listStartDay, @RequestParam(value = "type") String type) {
         ModelAndView mav = new ModelAndView("generateExportsList");
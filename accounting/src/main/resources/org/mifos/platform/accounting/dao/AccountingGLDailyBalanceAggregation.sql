@@ -0,0 +1,31 @@
+insert into gl_daily_balance (posted_date, office_id, action_date, voucher_type, glcode_id, debit, credit, trxn_count)
+select totals.posted_date, totals.office_id, totals.action_date, totals.voucher_type, totals.glcode_id, totals.debit, totals.credit, totals.trxn_count
+
+from
+(
+/* Note: the totals are a sub-select so that the update clause below only sees the columns of gl_daily_balance */
+select fintrxn.posted_date as "posted_date",
+o.office_id as "office_id",
+fintrxn.action_date as "action_date",
+
+${voucherType} as "voucher_type",
+
+gl.glcode_id as "glcode_id",
+sum( case when fintrxn.debit_credit_flag = 0 then abs(fintrxn.posted_amount) else 0 end ) as "debit",
+sum( case when fintrxn.debit_credit_flag = 1 then abs(fintrxn.posted_amount) else 0 end ) as "credit",
+count(*) as "trxn_count"
+
+from financial_trxn fintrxn
+inner join gl_code gl on gl.glcode_id = fintrxn.glcode_id
+inner join coa on coa.glcode_id = gl.glcode_id
+inner join account_trxn atrxn on atrxn.account_trxn_id = fintrxn.account_trxn_id
+inner join account a on a.account_id = atrxn.account_id
+inner join office o on o.office_id = a.office_id
+inner join loan_account l on l.account_id = atrxn.account_id
+where ${trxnFilter} and l.parent_account_id is null
+group by fintrxn.posted_date, o.office_id, fintrxn.action_date, voucher_type, gl.glcode_id) totals
+
+on duplicate key update
+gl_daily_balance.debit = gl_daily_balance.debit + values(debit),
+gl_daily_balance.credit = gl_daily_balance.credit + values(credit),
+gl_daily_balance.trxn_count = gl_daily_balance.trxn_count + values(trxn_count);
\ No newline at end of file
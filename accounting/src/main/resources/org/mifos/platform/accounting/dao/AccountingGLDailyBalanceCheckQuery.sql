@@ -0,0 +1,16 @@
+select fintrxn.posted_date,
+sum( case when fintrxn.debit_credit_flag = 0 then abs(fintrxn.posted_amount) else 0 end ) as "debit",
+sum( case when fintrxn.debit_credit_flag = 1 then abs(fintrxn.posted_amount) else 0 end ) as "credit",
+count(*) as "trxn_count"
+
+from financial_trxn fintrxn
+inner join gl_code gl on gl.glcode_id = fintrxn.glcode_id
+inner join coa on coa.glcode_id = gl.glcode_id
+inner join account_trxn atrxn on atrxn.account_trxn_id = fintrxn.account_trxn_id
+inner join account a on a.account_id = atrxn.account_id
+inner join office o on o.office_id = a.office_id
+inner join loan_account l on l.account_id = atrxn.account_id
+where fintrxn.posted_date between date(?) and date(?) and l.parent_account_id is null
+and fintrxn.trxn_id <= (select progress.last_trxn_id from gl_daily_balance_progress progress where progress.id = 1)
+group by fintrxn.posted_date
+order by fintrxn.posted_date;
@@ -0,0 +1,41 @@
+select balances.branchname, balances.voucherdate, balances.vouchertype, balances.glcode, balances.glname, sum(balances.debit), sum(balances.credit)
+
+from
+(
+/* summarized days, plus the transactions that the batch job has not folded into them yet */
+select o.display_name as "branchname",
+DATE_FORMAT(balance.action_date, '%Y-%m-%d') as "voucherdate",
+balance.voucher_type as "vouchertype",
+gl.glcode_value as "glcode", coa.coa_name as "glname",
+balance.debit as "debit",
+balance.credit as "credit"
+
+from gl_daily_balance balance
+inner join gl_code gl on gl.glcode_id = balance.glcode_id
+inner join coa on coa.glcode_id = gl.glcode_id
+inner join office o on o.office_id = balance.office_id
+where balance.posted_date between date(?) and date(?)
+
+union all
+
+select o.display_name as "branchname",
+DATE_FORMAT(fintrxn.action_date, '%Y-%m-%d') as "voucherdate",
+
+${voucherType} as "vouchertype",
+
+gl.glcode_value as "glcode", coa.coa_name as "glname",
+case when fintrxn.debit_credit_flag = 0 then abs(fintrxn.posted_amount) else 0 end as "debit",
+case when fintrxn.debit_credit_flag = 1 then abs(fintrxn.posted_amount) else 0 end as "credit"
+
+from financial_trxn fintrxn
+inner join gl_code gl on gl.glcode_id = fintrxn.glcode_id
+inner join coa on coa.glcode_id = gl.glcode_id
+inner join account_trxn atrxn on atrxn.account_trxn_id = fintrxn.account_trxn_id
+inner join account a on a.account_id = atrxn.account_id
+inner join office o on o.office_id = a.office_id
+inner join loan_account l on l.account_id = atrxn.account_id
+where fintrxn.posted_date between date(?) and date(?) and l.parent_account_id is null
+and fintrxn.trxn_id > (select progress.last_trxn_id from gl_daily_balance_progress progress where progress.id = 1)
+) balances
+group by balances.branchname, balances.voucherdate, balances.vouchertype, balances.glcode, balances.glname
+order by balances.branchname, balances.voucherdate, balances.vouchertype, balances.glcode, balances.glname;
\ No newline at end of file
@@ -0,0 +1,25 @@
+select tally.posteddate, tally.branchname, tally.voucherdate, tally.vouchertype, tally.glcode, tally.glname, tally.debit, tally.credit
+
+from
+(
+/* Note: the query is has been made into a sub-select because some output columns were not being picked up on the ubuntu platform */
+select  DATE_FORMAT(fintrxn.posted_date, '%Y-%m-%d') as "posteddate",
+o.display_name as "branchname",
+DATE_FORMAT(fintrxn.action_date, '%Y-%m-%d') as "voucherdate",
+
+${voucherType} as "vouchertype",
+
+gl.glcode_value as "glcode", coa.coa_name as "glname",
+sum( case when fintrxn.debit_credit_flag = 0 then abs(fintrxn.posted_amount) else 0 end ) as "debit",
+sum( case when fintrxn.debit_credit_flag = 1 then abs(fintrxn.posted_amount) else 0 end ) as "credit"
+
+from financial_trxn fintrxn
+inner join gl_code gl on gl.glcode_id = fintrxn.glcode_id
+inner join coa on coa.glcode_id = gl.glcode_id
+inner join account_trxn atrxn on atrxn.account_trxn_id = fintrxn.account_trxn_id
+inner join account a on a.account_id = atrxn.account_id
+inner join office o on o.office_id = a.office_id
+inner join loan_account l on l.account_id = atrxn.account_id 
+where fintrxn.trxn_id > ? and fintrxn.trxn_id <= ? and l.parent_account_id is null
+group by posteddate, branchname, voucherdate, vouchertype, glcode, glname
+order by posteddate, branchname, voucherdate, vouchertype, glcode, glname) tally;
\ No newline at end of file
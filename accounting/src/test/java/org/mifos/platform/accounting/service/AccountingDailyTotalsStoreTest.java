@@ -0,0 +1,115 @@
+/*
+ * Copyright (c) 2005-2011 Grameen Foundation USA
+ * All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * See also http://www.apache.org/licenses/LICENSE-2.0.html for an
+ * explanation of the license and how it is applied.
+ */
+
+package org.mifos.platform.accounting.service;
+
+import java.io.File;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.Assert;
+
+import org.joda.time.LocalDate;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mifos.platform.accounting.AccountingDailyTotal;
+import org.mifos.platform.accounting.AccountingDto;
+
+public class AccountingDailyTotalsStoreTest {
+
+    private static final LocalDate FIRST_DAY = new LocalDate(2011, 2, 9);
+    private static final LocalDate SECOND_DAY = new LocalDate(2011, 2, 10);
+
+    private File storeFile;
+
+    @Before
+    public void setUp() {
+        storeFile = new File(System.getProperty("java.io.tmpdir") + "/accounting/aggregates/daily-totals-test.dat");
+        storeFile.delete();
+    }
+
+    @After
+    public void tearDown() {
+        storeFile.delete();
+    }
+
+    @Test
+    public void shouldSumDailyTotalsOfRange() {
+        AccountingDailyTotalsStore store = new AccountingDailyTotalsStore();
+        store.add(firstBatch(), 10);
+
+        List<AccountingDto> firstDay = store.getAccountingData(FIRST_DAY, FIRST_DAY);
+        Assert.assertEquals(1, firstDay.size());
+        Assert.assertEquals("branch;2011-02-09;RECEIPT;11201;Cash;100.5000;0.0000", firstDay.get(0).toString());
+
+        List<AccountingDto> bothDays = store.getAccountingData(FIRST_DAY, SECOND_DAY);
+        Assert.assertEquals(2, bothDays.size());
+        Assert.assertEquals("branch;2011-02-09;RECEIPT;11201;Cash;125.5000;0.0000", bothDays.get(0).toString());
+        Assert.assertEquals("branch;2011-02-09;RECEIPT;13101;Loans;0.0000;125.5000", bothDays.get(1).toString());
+        Assert.assertEquals(10, store.getLastTrxnId());
+    }
+
+    @Test
+    public void shouldAddNewTransactionsToExistingTotals() {
+        AccountingDailyTotalsStore store = new AccountingDailyTotalsStore();
+        store.add(firstBatch(), 10);
+        List<AccountingDailyTotal> secondBatch = new ArrayList<AccountingDailyTotal>();
+        secondBatch.add(total(SECOND_DAY, "11201", "Cash", "4.5", "0"));
+        store.add(secondBatch, 12);
+
+        List<AccountingDto> secondDay = store.getAccountingData(SECOND_DAY, SECOND_DAY);
+        Assert.assertEquals("branch;2011-02-09;RECEIPT;11201;Cash;29.5000;0.0000", secondDay.get(0).toString());
+        Assert.assertEquals(12, store.getLastTrxnId());
+    }
+
+    @Test
+    public void shouldReadBackSavedTotals() {
+        AccountingDailyTotalsStore store = new AccountingDailyTotalsStore();
+        store.add(firstBatch(), 10);
+        store.save(storeFile);
+
+        AccountingDailyTotalsStore loaded = AccountingDailyTotalsStore.load(storeFile);
+        Assert.assertEquals(10, loaded.getLastTrxnId());
+        Assert.assertEquals(store.getAccountingData(FIRST_DAY, SECOND_DAY).toString(),
+                loaded.getAccountingData(FIRST_DAY, SECOND_DAY).toString());
+    }
+
+    @Test
+    public void shouldLoadEmptyStoreWhenThereIsNoFile() {
+        AccountingDailyTotalsStore store = AccountingDailyTotalsStore.load(storeFile);
+        Assert.assertTrue(store.isEmpty());
+        Assert.assertEquals(0, store.getLastTrxnId());
+    }
+
+    private List<AccountingDailyTotal> firstBatch() {
+        List<AccountingDailyTotal> totals = new ArrayList<AccountingDailyTotal>();
+        totals.add(total(FIRST_DAY, "11201", "Cash", "100.5000", "0.0000"));
+        totals.add(total(SECOND_DAY, "13101", "Loans", "0.0000", "125.5000"));
+        totals.add(total(SECOND_DAY, "11201", "Cash", "25.0000", "0.0000"));
+        return totals;
+    }
+
+    private AccountingDailyTotal total(LocalDate postedDate, String glCode, String glName, String debit, String credit) {
+        return new AccountingDailyTotal(postedDate, "branch", "2011-02-09", "RECEIPT", glCode, glName,
+                new BigDecimal(debit), new BigDecimal(credit));
+    }
+}
@@ -21,6 +21,8 @@
 package org.mifos.platform.accounting.service;
 
 import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.util.ArrayList;
@@ -36,6 +38,7 @@ import org.junit.Before;
 import org.junit.Ignore;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mifos.platform.accounting.AccountingDailyTotal;
 import org.mifos.platform.accounting.AccountingDto;
 import org.mifos.platform.accounting.dao.AccountingDao;
 import org.mockito.Mock;
@@ -89,6 +92,73 @@ public class AccountingServiceTest {
         Assert.assertTrue("Date should be set to 20101012", output.contains("<DATE>20101012</DATE>"));
     }
 
+    @Test
+    public void shouldOnlyAggregateNewTransactionsForIncrementalExport() throws Exception {
+        LocalDate exportDate = new LocalDate(2011, 2, 10);
+        List<AccountingDailyTotal> newTotals = new ArrayList<AccountingDailyTotal>();
+        List<AccountingDto> dataFromTotals = new ArrayList<AccountingDto>();
+        dataFromTotals.add(new AccountingDto("branch", "2011-02-10", "RECEIPT", "234324", "GLCODE NAME", "5", "546"));
+        when(cacheManager.isIncrementalExport()).thenReturn(true);
+        when(cacheManager.getLastAggregatedTrxnId()).thenReturn(Long.valueOf(120));
+        when(accountingDao.getLastTrxnIdPostedBefore(new LocalDate())).thenReturn(Long.valueOf(150));
+        when(accountingDao.getDailyTotalsForTrxnIds(Long.valueOf(120), Long.valueOf(150))).thenReturn(newTotals);
+        when(cacheManager.getExportDetailsFromDailyTotals(exportDate, exportDate)).thenReturn(dataFromTotals);
+
+        Assert.assertEquals(dataFromTotals, accountingService.getExportDetails(exportDate, exportDate));
+        verify(cacheManager).addDailyTotals(newTotals, 150);
+        verify(accountingDao, never()).getAccountingDataByDate(any(LocalDate.class), any(LocalDate.class));
+    }
+
+    @Test
+    public void shouldNotCacheIncrementalExportReachingToday() throws Exception {
+        LocalDate today = new LocalDate();
+        List<AccountingDto> dataFromTotals = new ArrayList<AccountingDto>();
+        dataFromTotals.add(new AccountingDto("branch", today.toString(), "RECEIPT", "234324", "GLCODE NAME", "5", "546"));
+        when(cacheManager.isIncrementalExport()).thenReturn(true);
+        when(cacheManager.getExportDetailsFromDailyTotals(today.minusDays(1), today)).thenReturn(dataFromTotals);
+
+        Assert.assertEquals(dataFromTotals, accountingService.getExportDetails(today.minusDays(1), today));
+        verify(cacheManager, never()).writeAccountingDataToCache(any(List.class), any(String.class));
+    }
+
+    @Test
+    public void shouldReadExportFromGlDailyBalancesWithoutRefreshingThem() throws Exception {
+        LocalDate exportDate = new LocalDate(2011, 2, 10);
+        List<AccountingDto> dataFromBalances = new ArrayList<AccountingDto>();
+        dataFromBalances.add(new AccountingDto("branch", "2011-02-10", "RECEIPT", "234324", "GLCODE NAME", "5", "546"));
+        when(cacheManager.isGlDailyBalances()).thenReturn(true);
+        when(accountingDao.getAccountingDataFromGlDailyBalances(exportDate, exportDate)).thenReturn(dataFromBalances);
+
+        Assert.assertEquals(dataFromBalances, accountingService.getExportDetails(exportDate, exportDate));
+        verify(accountingDao, never()).refreshGlDailyBalances();
+        verify(accountingDao, never()).getAccountingDataByDate(any(LocalDate.class), any(LocalDate.class));
+    }
+
+    @Test
+    public void shouldRefreshGlDailyBalancesOnlyWhenExportsReadThem() throws Exception {
+        accountingService.refreshGlDailyBalances();
+        verify(accountingDao, never()).refreshGlDailyBalances();
+
+        when(cacheManager.isGlDailyBalances()).thenReturn(true);
+        accountingService.refreshGlDailyBalances();
+        verify(accountingDao).refreshGlDailyBalances();
+    }
+
+    @Test
+    public void shouldRebuildOnlyMismatchedGlDailyBalances() throws Exception {
+        LocalDate startDate = new LocalDate(2011, 2, 1);
+        LocalDate endDate = new LocalDate(2011, 2, 10);
+        List<LocalDate> mismatches = new ArrayList<LocalDate>();
+        mismatches.add(new LocalDate(2011, 2, 3));
+        when(accountingDao.getGlDailyBalanceMismatches(startDate, endDate)).thenReturn(mismatches);
+
+        Assert.assertEquals(mismatches, accountingService.reconcileGlDailyBalances(startDate, endDate, false));
+        verify(accountingDao, never()).rebuildGlDailyBalances(any(LocalDate.class), any(LocalDate.class));
+
+        accountingService.reconcileGlDailyBalances(startDate, endDate, true);
+        verify(accountingDao).rebuildGlDailyBalances(new LocalDate(2011, 2, 3), new LocalDate(2011, 2, 3));
+    }
+
     @SuppressWarnings("serial")
     @Test
     public void testGetExports() {
@@ -21,13 +21,17 @@
 package org.mifos.accounts.api;
 
 import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 
 import org.mifos.accounts.business.AccountOverpaymentEntity;
 import org.mifos.dto.domain.AccountPaymentParametersDto;
 import org.mifos.dto.domain.AccountReferenceDto;
 import org.mifos.dto.domain.AccountTrxDto;
+import org.mifos.dto.domain.BulkPaymentResultDto;
+import org.mifos.dto.domain.LoanAccountReferenceDto;
 import org.mifos.dto.domain.OverpaymentDto;
 import org.mifos.dto.domain.PaymentTypeDto;
 import org.mifos.framework.exceptions.PersistenceException;
@@ -61,6 +65,22 @@ public interface AccountService {
      * @return 
      */
     List<AccountTrxDto> makePaymentsForImport(List<AccountPaymentParametersDto> accountPaymentParametersDtoList) throws Exception;
+
+    /**
+     * Make a large number of account payments, committing them in chunks of
+     * <b>GeneralConfig.BulkPaymentCommitSize</b>. A payment that fails does not stop the others.
+     *
+     * @param accountPaymentParametersDtoList a list of payment parameters
+     * @return the outcome of each payment, in the same order
+     */
+    List<BulkPaymentResultDto> makeBulkPayments(List<AccountPaymentParametersDto> accountPaymentParametersDtoList);
+
+    /**
+     * @return the id, customer and state of the loan accounts with the given global account numbers, by global
+     *         account number
+     */
+    Map<String, LoanAccountReferenceDto> lookupLoanAccountsFromGlobalAccountNumbers(Collection<String> globalAccountNumbers)
+            throws PersistenceException;
     
 
     /**
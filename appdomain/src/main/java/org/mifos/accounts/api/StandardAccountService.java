@@ -22,9 +22,13 @@ package org.mifos.accounts.api;
 
 import java.math.BigDecimal;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 import java.util.Set;
 
 import org.hibernate.NonUniqueResultException;
@@ -36,6 +40,7 @@ import org.mifos.accounts.business.AccountOverpaymentEntity;
 import org.mifos.accounts.business.AccountPaymentEntity;
 import org.mifos.accounts.business.AccountTrxnEntity;
 import org.mifos.accounts.exceptions.AccountException;
+import org.mifos.accounts.financial.business.service.FinancialTransactionBatch;
 import org.mifos.accounts.loan.business.LoanBO;
 import org.mifos.accounts.loan.business.service.LoanBusinessService;
 import org.mifos.accounts.loan.business.service.LoanScheduleGenerationDto;
@@ -53,6 +58,7 @@ import org.mifos.application.master.persistence.LegacyMasterDao;
 import org.mifos.application.servicefacade.ApplicationContextProvider;
 import org.mifos.application.servicefacade.SavingsServiceFacade;
 import org.mifos.application.util.helpers.TrxnTypes;
+import org.mifos.config.GeneralConfig;
 import org.mifos.config.Localization;
 import org.mifos.config.business.MifosConfigurationManager;
 import org.mifos.config.persistence.ConfigurationPersistence;
@@ -66,6 +72,8 @@ import org.mifos.customers.personnel.persistence.PersonnelDao;
 import org.mifos.dto.domain.AccountPaymentParametersDto;
 import org.mifos.dto.domain.AccountReferenceDto;
 import org.mifos.dto.domain.AccountTrxDto;
+import org.mifos.dto.domain.BulkPaymentResultDto;
+import org.mifos.dto.domain.LoanAccountReferenceDto;
 import org.mifos.dto.domain.OverpaymentDto;
 import org.mifos.dto.domain.PaymentDto;
 import org.mifos.dto.domain.PaymentTypeDto;
@@ -191,22 +199,19 @@ public class StandardAccountService implements AccountService {
 
     public void makePaymentNoCommit(AccountPaymentParametersDto accountPaymentParametersDto, Integer savingsPaymentId)
             throws PersistenceException, AccountException {
-    	
+        makePaymentNoCommit(accountPaymentParametersDto, savingsPaymentId, new PaymentContext());
+    }
+
+    private void makePaymentNoCommit(AccountPaymentParametersDto accountPaymentParametersDto, Integer savingsPaymentId,
+            PaymentContext context) throws PersistenceException, AccountException {
+
         final int accountId = accountPaymentParametersDto.getAccountId();
         final AccountBO account = this.legacyAccountDao.getAccount(accountId);
-        MifosUser mifosUser = (MifosUser) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
-        UserContext userContext = new UserContextFactory().create(mifosUser);
-        
-        try {
-            personnelDao.checkAccessPermission(userContext, account.getOfficeId(), account.getCustomer().getLoanOfficerId());
-        } catch (AccountException e) {
-            throw new MifosRuntimeException(SecurityConstants.KEY_ACTIVITY_NOT_ALLOWED, e);
-        }
+        context.checkAccessPermission(account);
+        context.validateTransactionDate(accountPaymentParametersDto.getPaymentDate());
 
-        monthClosingServiceFacade.validateTransactionDate(accountPaymentParametersDto.getPaymentDate().toDateMidnight().toDate());
-        
-        PersonnelBO loggedInUser = ApplicationContextProvider.getBean(LegacyPersonnelDao.class).findPersonnelById(accountPaymentParametersDto.getUserMakingPayment().getUserId());
-        List<InvalidPaymentReason> validationErrors = validatePayment(accountPaymentParametersDto);
+        PersonnelBO loggedInUser = context.getPersonnel(accountPaymentParametersDto.getUserMakingPayment().getUserId());
+        List<InvalidPaymentReason> validationErrors = validatePayment(accountPaymentParametersDto, account, context);
         if (!(account instanceof CustomerAccountBO) && validationErrors.contains(InvalidPaymentReason.INVALID_DATE)) {
             throw new AccountException("errors.invalidTxndate");
         }
@@ -245,7 +250,98 @@ public class StandardAccountService implements AccountService {
 
         this.legacyAccountDao.createOrUpdate(account);
     }
-    
+
+    @Override
+    public List<BulkPaymentResultDto> makeBulkPayments(List<AccountPaymentParametersDto> accountPaymentParametersDtoList) {
+        return makeBulkPayments(accountPaymentParametersDtoList, GeneralConfig.getBulkPaymentCommitSize());
+    }
+
+    /**
+     * Makes the payments in transactions of up to commitSize payments. The accounts of each chunk are loaded with one
+     * query, and the user, permissions, closed month, meeting dates and payment types are looked up once for all
+     * payments. When a payment of a chunk fails the chunk is rolled back and its payments are made one transaction
+     * each, so that only the failing ones are left out.
+     */
+    public List<BulkPaymentResultDto> makeBulkPayments(List<AccountPaymentParametersDto> accountPaymentParametersDtoList,
+            int commitSize) {
+        PaymentContext context = new PaymentContext();
+        List<BulkPaymentResultDto> results = new ArrayList<BulkPaymentResultDto>(accountPaymentParametersDtoList.size());
+        for (int from = 0; from < accountPaymentParametersDtoList.size(); from += commitSize) {
+            List<AccountPaymentParametersDto> chunk = accountPaymentParametersDtoList.subList(from, Math.min(from
+                    + commitSize, accountPaymentParametersDtoList.size()));
+            if (makePaymentsInOneTransaction(chunk, context)) {
+                for (AccountPaymentParametersDto payment : chunk) {
+                    results.add(BulkPaymentResultDto.success(payment.getAccountId()));
+                }
+            } else {
+                for (AccountPaymentParametersDto payment : chunk) {
+                    results.add(makePaymentInOwnTransaction(payment, context));
+                }
+            }
+        }
+        return results;
+    }
+
+    private boolean makePaymentsInOneTransaction(List<AccountPaymentParametersDto> chunk, PaymentContext context) {
+        FinancialTransactionBatch financialTransactionBatch = null;
+        if (GeneralConfig.getBatchedFinancialTransactionInserts()) {
+            financialTransactionBatch = FinancialTransactionBatch.begin();
+        }
+        try {
+            transactionHelper.startTransaction();
+            Set<Integer> accountIds = new HashSet<Integer>();
+            for (AccountPaymentParametersDto payment : chunk) {
+                accountIds.add(payment.getAccountId());
+            }
+            this.legacyAccountDao.findAccountsByIds(accountIds);
+            for (AccountPaymentParametersDto payment : chunk) {
+                makePaymentNoCommit(payment, null, context);
+            }
+            if (financialTransactionBatch != null) {
+                financialTransactionBatch.write(StaticHibernateUtil.getSessionTL());
+            }
+            transactionHelper.commitTransaction();
+            return true;
+        } catch (Exception e) {
+            transactionHelper.rollbackTransaction();
+            return false;
+        } finally {
+            if (financialTransactionBatch != null) {
+                FinancialTransactionBatch.end();
+            }
+            closeSession(context);
+        }
+    }
+
+    private BulkPaymentResultDto makePaymentInOwnTransaction(AccountPaymentParametersDto payment, PaymentContext context) {
+        try {
+            transactionHelper.startTransaction();
+            makePaymentNoCommit(payment, null, context);
+            transactionHelper.commitTransaction();
+            return BulkPaymentResultDto.success(payment.getAccountId());
+        } catch (AccountException e) {
+            transactionHelper.rollbackTransaction();
+            return BulkPaymentResultDto.failure(payment.getAccountId(), e.getKey());
+        } catch (BusinessRuleException e) {
+            transactionHelper.rollbackTransaction();
+            return BulkPaymentResultDto.failure(payment.getAccountId(), e.getMessageKey());
+        } catch (Exception e) {
+            transactionHelper.rollbackTransaction();
+            return BulkPaymentResultDto.failure(payment.getAccountId(), e.getMessage());
+        } finally {
+            closeSession(context);
+        }
+    }
+
+    /**
+     * Starts each transaction with an empty session, so that the session does not grow with the number of payments
+     * and nothing is left of a rolled back transaction.
+     */
+    private void closeSession(PaymentContext context) {
+        transactionHelper.closeSession();
+        context.sessionClosed();
+    }
+
     /**
      * method created for undo transaction import ability MIFOS-5702
      * changed return type 
@@ -473,11 +569,15 @@ public class StandardAccountService implements AccountService {
     @Override
     public List<InvalidPaymentReason> validatePayment(AccountPaymentParametersDto payment) throws PersistenceException,
             AccountException {
+        return validatePayment(payment, this.legacyAccountDao.getAccount(payment.getAccountId()), new PaymentContext());
+    }
+
+    private List<InvalidPaymentReason> validatePayment(AccountPaymentParametersDto payment, AccountBO accountBo,
+            PaymentContext context) throws PersistenceException {
         List<InvalidPaymentReason> errors = new ArrayList<InvalidPaymentReason>();
-        AccountBO accountBo = this.legacyAccountDao.getAccount(payment.getAccountId());
 
-        Date meetingDate = new CustomerPersistence().getLastMeetingDateForCustomer(accountBo.getCustomer().getCustomerId());
-        boolean repaymentIndependentOfMeetingEnabled = new ConfigurationPersistence().isRepaymentIndepOfMeetingEnabled();
+        Date meetingDate = context.getLastMeetingDate(accountBo.getCustomer().getCustomerId());
+        boolean repaymentIndependentOfMeetingEnabled = context.isRepaymentIndependentOfMeetingEnabled();
         if (!accountBo.isTrxnDateValid(payment.getPaymentDate().toDateMidnight().toDate(), meetingDate, repaymentIndependentOfMeetingEnabled)) {
             errors.add(InvalidPaymentReason.INVALID_DATE);
         }
@@ -491,16 +591,10 @@ public class StandardAccountService implements AccountService {
                 errors.add(InvalidPaymentReason.INVALID_LOAN_STATE);
             }
         }
-        if (AccountTypes.getAccountType(accountBo.getAccountType().getAccountTypeId()) == AccountTypes.LOAN_ACCOUNT) {
-            if (!getLoanPaymentTypes().contains(payment.getPaymentType())) {
-                errors.add(InvalidPaymentReason.UNSUPPORTED_PAYMENT_TYPE);
-            }
-        } else if (AccountTypes.getAccountType(accountBo.getAccountType().getAccountTypeId()) == AccountTypes.SAVINGS_ACCOUNT) {
-            if (!getSavingsPaymentTypes().contains(payment.getPaymentType())) {
-                errors.add(InvalidPaymentReason.UNSUPPORTED_PAYMENT_TYPE);
-            }
-        } else if (AccountTypes.getAccountType(accountBo.getAccountType().getAccountTypeId()) == AccountTypes.CUSTOMER_ACCOUNT) {
-            if (!getFeePaymentTypes().contains(payment.getPaymentType())) {
+        AccountTypes accountType = AccountTypes.getAccountType(accountBo.getAccountType().getAccountTypeId());
+        if (accountType == AccountTypes.LOAN_ACCOUNT || accountType == AccountTypes.SAVINGS_ACCOUNT
+                || accountType == AccountTypes.CUSTOMER_ACCOUNT) {
+            if (!context.getPaymentTypes(accountType).contains(payment.getPaymentType())) {
                 errors.add(InvalidPaymentReason.UNSUPPORTED_PAYMENT_TYPE);
             }
         }
@@ -587,6 +681,12 @@ public class StandardAccountService implements AccountService {
         return new AccountReferenceDto(accountBo.getAccountId());
     }
 
+    @Override
+    public Map<String, LoanAccountReferenceDto> lookupLoanAccountsFromGlobalAccountNumbers(
+            Collection<String> globalAccountNumbers) throws PersistenceException {
+        return this.legacyAccountDao.findLoanAccountReferencesBySystemIds(globalAccountNumbers);
+    }
+
     @Override
     public AccountReferenceDto lookupLoanAccountReferenceFromClientGovernmentIdAndLoanProductShortName(
             String clientGovernmentId, String loanProductShortName) throws Exception {
@@ -715,4 +815,89 @@ public class StandardAccountService implements AccountService {
         }
         return withdrawAmount;
     }
+
+    /**
+     * What making a payment looks up that does not depend on the payment itself, kept so that it is looked up once
+     * when many payments are made together.
+     */
+    private class PaymentContext {
+
+        private UserContext userContext;
+        private final Set<String> permittedOfficesAndLoanOfficers = new HashSet<String>();
+        private final Set<LocalDate> openTransactionDates = new HashSet<LocalDate>();
+        private final Map<Short, PersonnelBO> personnel = new HashMap<Short, PersonnelBO>();
+        private final Map<Integer, Date> lastMeetingDates = new HashMap<Integer, Date>();
+        private final Map<AccountTypes, List<PaymentTypeDto>> paymentTypes = new HashMap<AccountTypes, List<PaymentTypeDto>>();
+        private Boolean repaymentIndependentOfMeetingEnabled;
+
+        void checkAccessPermission(AccountBO account) {
+            Short loanOfficerId = account.getCustomer().getLoanOfficerId();
+            String officeAndLoanOfficer = account.getOfficeId() + ":" + loanOfficerId;
+            if (permittedOfficesAndLoanOfficers.contains(officeAndLoanOfficer)) {
+                return;
+            }
+            if (userContext == null) {
+                MifosUser mifosUser = (MifosUser) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+                userContext = new UserContextFactory().create(mifosUser);
+            }
+            try {
+                personnelDao.checkAccessPermission(userContext, account.getOfficeId(), loanOfficerId);
+            } catch (AccountException e) {
+                throw new MifosRuntimeException(SecurityConstants.KEY_ACTIVITY_NOT_ALLOWED, e);
+            }
+            permittedOfficesAndLoanOfficers.add(officeAndLoanOfficer);
+        }
+
+        void validateTransactionDate(LocalDate paymentDate) {
+            if (!openTransactionDates.contains(paymentDate)) {
+                monthClosingServiceFacade.validateTransactionDate(paymentDate.toDateMidnight().toDate());
+                openTransactionDates.add(paymentDate);
+            }
+        }
+
+        PersonnelBO getPersonnel(Short personnelId) {
+            PersonnelBO loggedInUser = personnel.get(personnelId);
+            if (loggedInUser == null) {
+                loggedInUser = ApplicationContextProvider.getBean(LegacyPersonnelDao.class).findPersonnelById(personnelId);
+                personnel.put(personnelId, loggedInUser);
+            }
+            return loggedInUser;
+        }
+
+        Date getLastMeetingDate(Integer customerId) throws PersistenceException {
+            if (!lastMeetingDates.containsKey(customerId)) {
+                lastMeetingDates.put(customerId, new CustomerPersistence().getLastMeetingDateForCustomer(customerId));
+            }
+            return lastMeetingDates.get(customerId);
+        }
+
+        boolean isRepaymentIndependentOfMeetingEnabled() throws PersistenceException {
+            if (repaymentIndependentOfMeetingEnabled == null) {
+                repaymentIndependentOfMeetingEnabled = new ConfigurationPersistence().isRepaymentIndepOfMeetingEnabled();
+            }
+            return repaymentIndependentOfMeetingEnabled;
+        }
+
+        List<PaymentTypeDto> getPaymentTypes(AccountTypes accountType) throws PersistenceException {
+            List<PaymentTypeDto> types = paymentTypes.get(accountType);
+            if (types == null) {
+                if (accountType == AccountTypes.LOAN_ACCOUNT) {
+                    types = getLoanPaymentTypes();
+                } else if (accountType == AccountTypes.SAVINGS_ACCOUNT) {
+                    types = getSavingsPaymentTypes();
+                } else {
+                    types = getFeePaymentTypes();
+                }
+                paymentTypes.put(accountType, types);
+            }
+            return types;
+        }
+
+        /**
+         * Entities loaded by a closed session are not used again.
+         */
+        void sessionClosed() {
+            personnel.clear();
+        }
+    }
 }
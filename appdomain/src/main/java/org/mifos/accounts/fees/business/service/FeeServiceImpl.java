@@ -178,6 +178,8 @@ public class FeeServiceImpl implements FeeService {
             feeBo.updateFeeChangeType(feeChangeType);
 
             this.feeDao.save(feeBo);
+            // a partly applied earlier change must not let the new one skip accounts
+            this.feeDao.removeFeeChangeProgress(feeBo.getFeeId());
             hibernateTransactionHelper.commitTransaction();
         } catch (ApplicationException e) {
             hibernateTransactionHelper.rollbackTransaction();
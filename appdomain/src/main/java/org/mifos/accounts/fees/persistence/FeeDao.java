@@ -20,8 +20,10 @@
 
 package org.mifos.accounts.fees.persistence;
 
+import java.util.Date;
 import java.util.List;
 
+import org.mifos.accounts.fees.business.AmountFeeBO;
 import org.mifos.accounts.fees.business.CategoryTypeEntity;
 import org.mifos.accounts.fees.business.FeeBO;
 import org.mifos.accounts.fees.business.FeeFormulaEntity;
@@ -80,4 +82,20 @@ public interface FeeDao {
 	Short findFeeInSchedule(Short feeId);
 	
 	RateFeeBO findRateFeeById(Short feeId);
+
+    /**
+     * Returns the id of the last customer account a pending change of this fee was applied to, or null if the change
+     * has not been started.
+     */
+    Integer findFeeChangeProgress(Short feeId);
+
+    void saveFeeChangeProgress(Short feeId, Integer lastAccountId);
+
+    void removeFeeChangeProgress(Short feeId);
+
+    /**
+     * Sets the amount of the fee, and of its schedule entries due on or after <code>fromDate</code>, on the customer
+     * accounts with ids in (<code>fromAccountId</code>, <code>toAccountId</code>] without loading them.
+     */
+    void updateCustomerFeeAmounts(AmountFeeBO fee, Integer fromAccountId, Integer toAccountId, Date fromDate);
 }
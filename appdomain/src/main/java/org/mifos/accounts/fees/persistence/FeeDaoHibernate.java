@@ -21,6 +21,7 @@
 package org.mifos.accounts.fees.persistence;
 
 import java.util.ArrayList;
+import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -30,6 +31,7 @@ import org.hibernate.FetchMode;
 import org.hibernate.Hibernate;
 import org.hibernate.Session;
 import org.hibernate.criterion.Restrictions;
+import org.mifos.accounts.fees.business.AmountFeeBO;
 import org.mifos.accounts.fees.business.CategoryTypeEntity;
 import org.mifos.accounts.fees.business.FeeBO;
 import org.mifos.accounts.fees.business.FeeFormulaEntity;
@@ -251,4 +253,39 @@ public class FeeDaoHibernate implements FeeDao {
 
         return (RateFeeBO) this.genericDao.executeUniqueResultNamedQuery("findRateFeeById", queryParameters);
 	}
+
+    @Override
+    public Integer findFeeChangeProgress(Short feeId) {
+        Map<String, Object> queryParameters = new HashMap<String, Object>();
+        queryParameters.put("FEEID", feeId);
+        return (Integer) this.genericDao.executeUniqueResultNamedQuery("findFeeChangeProgress", queryParameters);
+    }
+
+    @Override
+    public void saveFeeChangeProgress(Short feeId, Integer lastAccountId) {
+        Map<String, Object> queryParameters = new HashMap<String, Object>();
+        queryParameters.put("FEEID", feeId);
+        queryParameters.put("LASTACCOUNTID", lastAccountId);
+        this.genericDao.executeNamedQueryDelete("saveFeeChangeProgress", queryParameters);
+    }
+
+    @Override
+    public void removeFeeChangeProgress(Short feeId) {
+        Map<String, Object> queryParameters = new HashMap<String, Object>();
+        queryParameters.put("FEEID", feeId);
+        this.genericDao.executeNamedQueryDelete("removeFeeChangeProgress", queryParameters);
+    }
+
+    @Override
+    public void updateCustomerFeeAmounts(AmountFeeBO fee, Integer fromAccountId, Integer toAccountId, Date fromDate) {
+        Map<String, Object> queryParameters = new HashMap<String, Object>();
+        queryParameters.put("FEEID", fee.getFeeId());
+        queryParameters.put("AMOUNT", fee.getFeeAmount().getAmount());
+        queryParameters.put("FROMACCOUNTID", fromAccountId);
+        queryParameters.put("TOACCOUNTID", toAccountId);
+        this.genericDao.executeNamedQueryDelete("updateAccountFeeAmountsForFee", queryParameters);
+
+        queryParameters.put("FROMDATE", fromDate);
+        this.genericDao.executeNamedQueryDelete("updateFutureCustomerFeeScheduleAmountsForFee", queryParameters);
+    }
 }
\ No newline at end of file
@@ -21,7 +21,9 @@
 package org.mifos.accounts.financial.business.service;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import org.mifos.accounts.business.AccountTrxnEntity;
@@ -57,6 +59,102 @@ import org.mifos.security.util.UserContext;
 
 public class FinancialBusinessService implements BusinessService {
 
+    /**
+     * Creates the financial activity building the accounting entries of an account transaction.
+     */
+    private interface FinancialActivityFactory {
+        BaseFinancialActivity create(AccountTrxnEntity accountTrxn);
+    }
+
+    private static final Map<Short, FinancialActivityFactory> FINANCIAL_ACTIVITIES = new HashMap<Short, FinancialActivityFactory>();
+
+    static {
+        register(AccountActionTypes.LOAN_REPAYMENT, new FinancialActivityFactory() {
+            @Override
+            public BaseFinancialActivity create(AccountTrxnEntity accountTrxn) {
+                return new LoanRepaymentFinancialActivity(accountTrxn);
+            }
+        });
+        register(AccountActionTypes.SAVINGS_INTEREST_POSTING, new FinancialActivityFactory() {
+            @Override
+            public BaseFinancialActivity create(AccountTrxnEntity accountTrxn) {
+                return new SavingsInterestPostingFinancialActivity(accountTrxn);
+            }
+        });
+        register(AccountActionTypes.SAVINGS_WITHDRAWAL, new FinancialActivityFactory() {
+            @Override
+            public BaseFinancialActivity create(AccountTrxnEntity accountTrxn) {
+                return new SavingsWithdrawalFinancialActivity(accountTrxn);
+            }
+        });
+        register(AccountActionTypes.SAVINGS_DEPOSIT, new FinancialActivityFactory() {
+            @Override
+            public BaseFinancialActivity create(AccountTrxnEntity accountTrxn) {
+                return new SavingsDepositFinancialActivity(accountTrxn);
+            }
+        });
+        register(AccountActionTypes.DISBURSAL, new FinancialActivityFactory() {
+            @Override
+            public BaseFinancialActivity create(AccountTrxnEntity accountTrxn) {
+                return new LoanDisbursementFinantialActivity(accountTrxn);
+            }
+        });
+        register(AccountActionTypes.FEE_REPAYMENT, new FinancialActivityFactory() {
+            @Override
+            public BaseFinancialActivity create(AccountTrxnEntity accountTrxn) {
+                return new FeeRepaymentFinancialActivity(accountTrxn);
+            }
+        });
+        register(AccountActionTypes.CUSTOMER_ACCOUNT_REPAYMENT, new FinancialActivityFactory() {
+            @Override
+            public BaseFinancialActivity create(AccountTrxnEntity accountTrxn) {
+                return new CustomerAccountRepaymentFinancialActivity(accountTrxn);
+            }
+        });
+        register(AccountActionTypes.SAVINGS_ADJUSTMENT, new FinancialActivityFactory() {
+            @Override
+            public BaseFinancialActivity create(AccountTrxnEntity accountTrxn) {
+                return new SavingsAdjustmentFinancialActivity(accountTrxn);
+            }
+        });
+        register(AccountActionTypes.CUSTOMER_ADJUSTMENT, new FinancialActivityFactory() {
+            @Override
+            public BaseFinancialActivity create(AccountTrxnEntity accountTrxn) {
+                return new CustomerAdjustmentFinancialActivity(accountTrxn);
+            }
+        });
+        FinancialActivityFactory loanAdjustment = new FinancialActivityFactory() {
+            @Override
+            public BaseFinancialActivity create(AccountTrxnEntity accountTrxn) {
+                return new LoanAdjustmentFinancialActivity(accountTrxn);
+            }
+        };
+        register(AccountActionTypes.LOAN_ADJUSTMENT, loanAdjustment);
+        register(AccountActionTypes.LOAN_REVERSAL, loanAdjustment);
+        register(AccountActionTypes.WRITEOFF, new FinancialActivityFactory() {
+            @Override
+            public BaseFinancialActivity create(AccountTrxnEntity accountTrxn) {
+                return new WriteOffFinancialActivity(accountTrxn);
+            }
+        });
+        register(AccountActionTypes.LOAN_RESCHEDULED, new FinancialActivityFactory() {
+            @Override
+            public BaseFinancialActivity create(AccountTrxnEntity accountTrxn) {
+                return new RescheduleFinancialActivity(accountTrxn);
+            }
+        });
+        register(AccountActionTypes.LOAN_DISBURSAL_AMOUNT_REVERSAL, new FinancialActivityFactory() {
+            @Override
+            public BaseFinancialActivity create(AccountTrxnEntity accountTrxn) {
+                return new DisbursalAmountReversalFinancialActivity(accountTrxn);
+            }
+        });
+    }
+
+    private static void register(AccountActionTypes accountAction, FinancialActivityFactory factory) {
+        FINANCIAL_ACTIVITIES.put(accountAction.getValue(), factory);
+    }
+
     public COABO getGlAccount(String glcode) throws FinancialException {
         return ChartOfAccountsCache.get(glcode);
     }
@@ -76,47 +174,9 @@ public class FinancialBusinessService implements BusinessService {
     }
 
     public void buildAccountingEntries(AccountTrxnEntity accounttrxn) throws FinancialException {
-        BaseFinancialActivity baseFinancialActivity = null;
-        if (accounttrxn.getAccountActionEntity().getId().shortValue() == AccountActionTypes.LOAN_REPAYMENT.getValue()) {
-            baseFinancialActivity = new LoanRepaymentFinancialActivity(accounttrxn);
-        } else if (accounttrxn.getAccountActionEntity().getId().shortValue() == (AccountActionTypes.SAVINGS_INTEREST_POSTING.getValue())) {
-            baseFinancialActivity = new SavingsInterestPostingFinancialActivity(accounttrxn);
-        } else if (accounttrxn.getAccountActionEntity().getId().shortValue() == (AccountActionTypes.SAVINGS_WITHDRAWAL
-                .getValue())) {
-            baseFinancialActivity = new SavingsWithdrawalFinancialActivity(accounttrxn);
-        } else if (accounttrxn.getAccountActionEntity().getId().shortValue() == AccountActionTypes.SAVINGS_DEPOSIT
-                .getValue()) {
-            baseFinancialActivity = new SavingsDepositFinancialActivity(accounttrxn);
-        } else if (accounttrxn.getAccountActionEntity().getId().shortValue() == AccountActionTypes.DISBURSAL.getValue()) {
-            baseFinancialActivity = new LoanDisbursementFinantialActivity(accounttrxn);
-        } else if (accounttrxn.getAccountActionEntity().getId().shortValue() == AccountActionTypes.FEE_REPAYMENT
-                .getValue()) {
-            baseFinancialActivity = new FeeRepaymentFinancialActivity(accounttrxn);
-        } else if (accounttrxn.getAccountActionEntity().getId().shortValue() == AccountActionTypes.CUSTOMER_ACCOUNT_REPAYMENT
-                .getValue()) {
-            baseFinancialActivity = new CustomerAccountRepaymentFinancialActivity(accounttrxn);
-        } else if (accounttrxn.getAccountActionEntity().getId().shortValue() == AccountActionTypes.SAVINGS_ADJUSTMENT
-                .getValue()) {
-            baseFinancialActivity = new SavingsAdjustmentFinancialActivity(accounttrxn);
-        } else if (accounttrxn.getAccountActionEntity().getId().shortValue() == AccountActionTypes.CUSTOMER_ADJUSTMENT
-                .getValue()) {
-            baseFinancialActivity = new CustomerAdjustmentFinancialActivity(accounttrxn);
-        } else if (accounttrxn.getAccountActionEntity().getId().shortValue() == AccountActionTypes.LOAN_ADJUSTMENT
-                .getValue()
-                || accounttrxn.getAccountActionEntity().getId().shortValue() == AccountActionTypes.LOAN_REVERSAL
-                        .getValue()) {
-            baseFinancialActivity = new LoanAdjustmentFinancialActivity(accounttrxn);
-        } else if (accounttrxn.getAccountActionEntity().getId().shortValue() == AccountActionTypes.WRITEOFF.getValue()) {
-            baseFinancialActivity = new WriteOffFinancialActivity(accounttrxn);
-        } else if (accounttrxn.getAccountActionEntity().getId().shortValue() == AccountActionTypes.LOAN_RESCHEDULED
-                .getValue()) {
-            baseFinancialActivity = new RescheduleFinancialActivity(accounttrxn);
-        } else if (accounttrxn.getAccountActionEntity().getId().shortValue() == AccountActionTypes.LOAN_DISBURSAL_AMOUNT_REVERSAL
-                .getValue()) {
-            baseFinancialActivity = new DisbursalAmountReversalFinancialActivity(accounttrxn);
-        }
-        if (baseFinancialActivity != null) {
-            baseFinancialActivity.buildAccountEntries();
+        FinancialActivityFactory factory = FINANCIAL_ACTIVITIES.get(accounttrxn.getAccountActionEntity().getId());
+        if (factory != null) {
+            factory.create(accounttrxn).buildAccountEntries();
         }
     }
 
@@ -0,0 +1,179 @@
+/*
+ * Copyright (c) 2005-2011 Grameen Foundation USA
+ * All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * See also http://www.apache.org/licenses/LICENSE-2.0.html for an
+ * explanation of the license and how it is applied.
+ */
+
+package org.mifos.accounts.financial.business.service;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.hibernate.Session;
+import org.hibernate.jdbc.Work;
+import org.mifos.accounts.financial.business.FinancialTransactionBO;
+import org.mifos.framework.util.helpers.Money;
+
+/**
+ * Collects the accounting entries built on the current thread during one unit of work, such as saving a collection
+ * sheet, and inserts them together with JDBC batching once the account transactions they belong to are saved.
+ * <p>
+ * While a batch is open, {@link org.mifos.accounts.financial.business.service.activity.BaseFinancialActivity} hands
+ * its entries to the batch instead of adding them to the account transaction, so they are not cascaded one insert at a
+ * time by hibernate. They are therefore not in the account transaction's set of financial transactions for the rest of
+ * the session.
+ */
+public class FinancialTransactionBatch {
+
+    static final int JDBC_BATCH_SIZE = 50;
+
+    private static final String INSERT_FINANCIAL_TRXN = "insert into financial_trxn (account_trxn_id, related_fin_trxn, "
+            + "fin_action_id, glcode_id, posted_amount_currency_id, posted_amount, balance_amount_currency_id, "
+            + "balance_amount, action_date, posted_date, posted_by, accounting_updated, notes, debit_credit_flag) "
+            + "values (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final ThreadLocal<FinancialTransactionBatch> current = new ThreadLocal<FinancialTransactionBatch>();
+
+    private final List<FinancialTransactionBO> financialTransactions = new ArrayList<FinancialTransactionBO>();
+
+    private int depth;
+
+    FinancialTransactionBatch() {
+    }
+
+    /**
+     * Opens a batch on this thread. When one is already open the entries join it, and it stays open until the
+     * matching {@link #end()} of the outermost unit of work.
+     */
+    public static FinancialTransactionBatch begin() {
+        FinancialTransactionBatch batch = current.get();
+        if (batch == null) {
+            batch = new FinancialTransactionBatch();
+            current.set(batch);
+        }
+        batch.depth++;
+        return batch;
+    }
+
+    /**
+     * @return the batch open on this thread, or null when accounting entries are saved with their account transaction
+     */
+    public static FinancialTransactionBatch current() {
+        return current.get();
+    }
+
+    /**
+     * Closes the unit of work opened by the matching {@link #begin()}. Closing the outermost one discards any entries
+     * that were not written.
+     */
+    public static void end() {
+        FinancialTransactionBatch batch = current.get();
+        if (batch != null && --batch.depth <= 0) {
+            current.remove();
+        }
+    }
+
+    public void add(FinancialTransactionBO financialTransaction) {
+        financialTransactions.add(financialTransaction);
+    }
+
+    public List<FinancialTransactionBO> getFinancialTransactions() {
+        return Collections.unmodifiableList(financialTransactions);
+    }
+
+    /**
+     * Flushes the session, so that the account transactions have their ids, and inserts the collected entries in the
+     * transaction of the session. Entries of account transactions that were not saved are left out, as hibernate
+     * would have left them out.
+     *
+     * @return the number of entries inserted
+     */
+    public int write(Session session) {
+        session.flush();
+        final List<FinancialTransactionBO> entries = new ArrayList<FinancialTransactionBO>();
+        for (FinancialTransactionBO financialTransaction : financialTransactions) {
+            if (financialTransaction.getAccountTrxn().getAccountTrxnId() != null) {
+                entries.add(financialTransaction);
+            }
+        }
+        financialTransactions.clear();
+        if (entries.isEmpty()) {
+            return 0;
+        }
+
+        session.doWork(new Work() {
+            @Override
+            public void execute(Connection connection) throws SQLException {
+                PreparedStatement statement = connection.prepareStatement(INSERT_FINANCIAL_TRXN);
+                try {
+                    int batched = 0;
+                    for (FinancialTransactionBO entry : entries) {
+                        bind(statement, entry);
+                        statement.addBatch();
+                        if (++batched % JDBC_BATCH_SIZE == 0) {
+                            statement.executeBatch();
+                        }
+                    }
+                    if (batched % JDBC_BATCH_SIZE != 0) {
+                        statement.executeBatch();
+                    }
+                } finally {
+                    statement.close();
+                }
+            }
+        });
+        return entries.size();
+    }
+
+    private static void bind(PreparedStatement statement, FinancialTransactionBO entry) throws SQLException {
+        statement.setInt(1, entry.getAccountTrxn().getAccountTrxnId());
+        FinancialTransactionBO related = entry.getRelatedFinancialTrxn();
+        if (related == null || related.getTrxnId() == null) {
+            statement.setNull(2, Types.INTEGER);
+        } else {
+            statement.setInt(2, related.getTrxnId());
+        }
+        statement.setShort(3, entry.getFinancialAction().getId());
+        statement.setShort(4, entry.getGlcode().getGlcodeId());
+        setMoney(statement, 5, entry.getPostedAmount());
+        setMoney(statement, 7, entry.getBalanceAmount());
+        statement.setDate(9, new java.sql.Date(entry.getActionDate().getTime()));
+        statement.setDate(10, new java.sql.Date(entry.getPostedDate().getTime()));
+        if (entry.getPostedBy() == null) {
+            statement.setNull(11, Types.SMALLINT);
+        } else {
+            statement.setShort(11, entry.getPostedBy().getPersonnelId());
+        }
+        if (entry.getAccountingUpdated() == null) {
+            statement.setNull(12, Types.SMALLINT);
+        } else {
+            statement.setShort(12, entry.getAccountingUpdated());
+        }
+        statement.setString(13, entry.getNotes());
+        statement.setShort(14, entry.getDebitCreditFlag());
+    }
+
+    private static void setMoney(PreparedStatement statement, int index, Money amount) throws SQLException {
+        statement.setShort(index, amount.getCurrency().getCurrencyId());
+        statement.setBigDecimal(index + 1, amount.getAmount());
+    }
+}
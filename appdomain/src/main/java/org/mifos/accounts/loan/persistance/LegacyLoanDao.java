@@ -27,6 +27,7 @@ import java.util.Collection;
 import java.util.Date;
 import java.util.GregorianCalendar;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -128,7 +129,61 @@ public class LegacyLoanDao extends LegacyGenericDao {
     @SuppressWarnings("unchecked")
     public List<Integer> getLoanAccountsInArrearsInGoodStanding(final Short latenessDays) throws PersistenceException,
             InvalidDateException {
+        return executeNamedQuery(NamedQueryConstants.GET_LOAN_ACOUNTS_IN_ARREARS_IN_GOOD_STANDING,
+                loanAccountsInArrearsQueryParameters(latenessDays));
+    }
+
+    /**
+     * Same selection as {@link #getLoanAccountsInArrearsInGoodStanding(Short)} but keyed by the branch office of each
+     * account, so that batch jobs can process branches independently of each other.
+     */
+    @SuppressWarnings("unchecked")
+    public Map<Short, List<Integer>> getLoanAccountsInArrearsInGoodStandingByOffice(final Short latenessDays)
+            throws PersistenceException, InvalidDateException {
+        List<Object[]> queryResult = executeNamedQuery(
+                NamedQueryConstants.GET_LOAN_ACOUNTS_IN_ARREARS_IN_GOOD_STANDING_WITH_OFFICE,
+                loanAccountsInArrearsQueryParameters(latenessDays));
+        return groupAccountIdsByOffice(queryResult);
+    }
 
+    /**
+     * Returns the next <code>maxResults</code> loan accounts with penalties and installments due before
+     * <code>currentDate</code>, in account id order after <code>lastAccountId</code>, keyed by branch office. Paging
+     * on the account id lets batch jobs walk the whole portfolio without loading it into one session.
+     */
+    @SuppressWarnings("unchecked")
+    public Map<Short, List<Integer>> getLoanAccountIdsWithLateInstallmentsByOffice(final Date currentDate,
+            final Integer lastAccountId, final int maxResults) throws PersistenceException {
+        List<Object[]> queryResult;
+        try {
+            Query query = createdNamedQuery(NamedQueryConstants.GET_LOAN_ACCOUNT_IDS_WITH_PENALTIES_AND_OFFICE);
+            query.setDate("currentDate", currentDate);
+            query.setInteger("lastAccountId", lastAccountId);
+            query.setMaxResults(maxResults);
+            queryResult = query.list();
+        } catch (HibernateException e) {
+            throw new PersistenceException(e);
+        }
+        return groupAccountIdsByOffice(queryResult);
+    }
+
+    private Map<Short, List<Integer>> groupAccountIdsByOffice(List<Object[]> queryResult) {
+        Map<Short, List<Integer>> accountIdsByOffice = new LinkedHashMap<Short, List<Integer>>();
+        for (Object[] row : queryResult) {
+            Integer accountId = (Integer) row[0];
+            Short officeId = (Short) row[1];
+            List<Integer> accountIds = accountIdsByOffice.get(officeId);
+            if (accountIds == null) {
+                accountIds = new ArrayList<Integer>();
+                accountIdsByOffice.put(officeId, accountIds);
+            }
+            accountIds.add(accountId);
+        }
+        return accountIdsByOffice;
+    }
+
+    private Map<String, Object> loanAccountsInArrearsQueryParameters(final Short latenessDays)
+            throws InvalidDateException {
         /*
          * TODO: refactor to use Joda Time This code appears to be trying to just get a date that is "latenessDays"
          * before the current date.
@@ -148,8 +203,7 @@ public class LegacyLoanDao extends LegacyGenericDao {
         queryParameters.put("PAYMENTSTATUS", Short.valueOf(PaymentStatus.UNPAID.getValue()));
         queryParameters.put("LOANACTIVEINGOODSTAND", Short.valueOf(AccountStates.LOANACC_ACTIVEINGOODSTANDING));
         queryParameters.put("CHECKDATE", date);
-
-        return executeNamedQuery(NamedQueryConstants.GET_LOAN_ACOUNTS_IN_ARREARS_IN_GOOD_STANDING, queryParameters);
+        return queryParameters;
     }
 
     public LoanBO getAccount(final Integer accountId) throws PersistenceException {
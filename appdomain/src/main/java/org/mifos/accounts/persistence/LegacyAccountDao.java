@@ -22,8 +22,10 @@ package org.mifos.accounts.persistence;
 
 import java.io.StringWriter;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -62,6 +64,7 @@ import org.mifos.customers.personnel.exceptions.PersonnelException;
 import org.mifos.customers.util.helpers.CustomerSearchConstants;
 import org.mifos.customers.util.helpers.Param;
 import org.mifos.customers.util.helpers.QueryParamConstants;
+import org.mifos.dto.domain.LoanAccountReferenceDto;
 import org.mifos.framework.exceptions.HibernateSearchException;
 import org.mifos.framework.exceptions.PersistenceException;
 import org.mifos.framework.hibernate.helper.QueryFactory;
@@ -103,6 +106,40 @@ public class LegacyAccountDao extends LegacyGenericDao {
         return queryResult == null ? null : (AccountBO) queryResult;
     }
 
+    /**
+     * Loads the accounts into the session with a single query, so that later {@link #getAccount(Integer)} calls for
+     * them do not go to the database.
+     */
+    @SuppressWarnings("unchecked")
+    public List<AccountBO> findAccountsByIds(Collection<Integer> accountIds) throws PersistenceException {
+        if (accountIds.isEmpty()) {
+            return new ArrayList<AccountBO>();
+        }
+        Map<String, Object> queryParameters = new HashMap<String, Object>();
+        queryParameters.put("accountIds", accountIds);
+        return executeNamedQuery(NamedQueryConstants.FIND_ACCOUNTS_BY_IDS, queryParameters);
+    }
+
+    /**
+     * @return the loan accounts by global account number, without the numbers of no loan account
+     */
+    @SuppressWarnings("unchecked")
+    public Map<String, LoanAccountReferenceDto> findLoanAccountReferencesBySystemIds(Collection<String> globalAccountNumbers)
+            throws PersistenceException {
+        Map<String, LoanAccountReferenceDto> accounts = new HashMap<String, LoanAccountReferenceDto>();
+        if (globalAccountNumbers.isEmpty()) {
+            return accounts;
+        }
+        Map<String, Object> queryParameters = new HashMap<String, Object>();
+        queryParameters.put("globalAccountNumbers", globalAccountNumbers);
+        List<Object[]> rows = executeNamedQuery(NamedQueryConstants.FIND_LOAN_ACCOUNT_IDS_BY_SYSTEM_IDS,
+                queryParameters);
+        for (Object[] row : rows) {
+            accounts.put((String) row[0], new LoanAccountReferenceDto((Integer) row[1], (Integer) row[2], (Short) row[3]));
+        }
+        return accounts;
+    }
+
     public AccountBO findSavingsByClientGovernmentIdAndProductShortName(String clientGovernmentId,
             String productShortName) throws PersistenceException {
         Map<String, Object> queryParameters = new HashMap<String, Object>();
@@ -182,18 +219,39 @@ public class LegacyAccountDao extends LegacyGenericDao {
         return notesResult;
     }
 
-    public List<Integer> getActiveCustomerAndSavingsAccountIdsForGenerateMeetingTask() throws PersistenceException {
+    /**
+     * Active customer and savings accounts whose schedules have to be extended by the generate meetings task, keyed by
+     * the branch office of each account, customer accounts before savings accounts within an office.
+     */
+    @SuppressWarnings("unchecked")
+    public Map<Short, List<Integer>> getActiveCustomerAndSavingsAccountIdsForGenerateMeetingTaskByOffice()
+            throws PersistenceException {
 
         LocalDate date = new LocalDate();
         HashMap<String, Object> queryParameters = new HashMap<String, Object>();
         queryParameters.put("DATE", date.toString());
-        List<Integer> customerIds = executeNamedQuery("getActiveCustomerAccountIdsForGenerateMeetingsTask",
-                queryParameters);
-        List<Integer> savingsIds = executeNamedQuery("getActiveSavingsAccountIdsForGenerateMeetingsTask",
-                queryParameters);
-
-        customerIds.addAll(savingsIds);
-        return customerIds;
+        List<Object[]> customerAccounts = executeNamedQuery(
+                "getActiveCustomerAccountIdsForGenerateMeetingsTask", queryParameters);
+        List<Object[]> savingsAccounts = executeNamedQuery(
+                "getActiveSavingsAccountIdsForGenerateMeetingsTask", queryParameters);
+
+        Map<Short, List<Integer>> accountIdsByOffice = new LinkedHashMap<Short, List<Integer>>();
+        addAccountIdsByOffice(accountIdsByOffice, customerAccounts);
+        addAccountIdsByOffice(accountIdsByOffice, savingsAccounts);
+        return accountIdsByOffice;
+    }
+
+    private void addAccountIdsByOffice(Map<Short, List<Integer>> accountIdsByOffice, List<Object[]> queryResult) {
+        for (Object[] row : queryResult) {
+            Integer accountId = (Integer) row[0];
+            Short officeId = (Short) row[1];
+            List<Integer> accountIds = accountIdsByOffice.get(officeId);
+            if (accountIds == null) {
+                accountIds = new ArrayList<Integer>();
+                accountIdsByOffice.put(officeId, accountIds);
+            }
+            accountIds.add(accountId);
+        }
     }
 
     public List<AccountStateEntity> retrieveAllAccountStateList(Short prdTypeId) throws PersistenceException {
@@ -260,6 +318,14 @@ public class LegacyAccountDao extends LegacyGenericDao {
                 || accountBO.getType() == AccountTypes.INDIVIDUAL_LOAN_ACCOUNT) {
             return null;
         }
+        return accountIdSearch(queryString, officeId);
+    }
+
+    /**
+     * Builds the search for the customer owning the account with the given number, for callers that already know
+     * the account is a loan or savings account.
+     */
+    public QueryResult accountIdSearch(String queryString, Short officeId) throws PersistenceException {
         QueryResult queryResult = QueryFactory.getQueryResult(CustomerSearchConstants.LOANACCOUNTIDSEARCH);
         ((QueryResultAccountIdSearch) queryResult).setSearchString(queryString);
         String[] namedQuery = new String[2];
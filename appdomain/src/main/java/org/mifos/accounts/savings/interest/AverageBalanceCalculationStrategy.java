@@ -25,6 +25,7 @@ import java.util.List;
 import org.joda.time.Days;
 import org.joda.time.LocalDate;
 import org.mifos.framework.util.helpers.Money;
+import org.mifos.framework.util.helpers.MoneyAccumulator;
 import org.mifos.framework.util.helpers.MoneyUtils;
 
 public class AverageBalanceCalculationStrategy implements PrincipalCalculationStrategy {
@@ -46,7 +47,7 @@ public class AverageBalanceCalculationStrategy implements PrincipalCalculationSt
         int duration = interestCalculationPeriodDetail.getDuration();
         LocalDate prevDate = startDate;
         LocalDate nextDate = endOfDayDetails.get(0).getDate();
-        Money runningBalance = interestCalculationPeriodDetail.getBalanceBeforeInterval();
+        MoneyAccumulator runningBalance = MoneyAccumulator.from(interestCalculationPeriodDetail.getBalanceBeforeInterval());
 
         //Calculation of effect of previous balance till the first activity in the calculation interval
         int subDuration = Days.daysBetween(prevDate, nextDate).getDays();
@@ -56,7 +57,7 @@ public class AverageBalanceCalculationStrategy implements PrincipalCalculationSt
             subDuration++;
         }
 
-        Money totalBalance = runningBalance.multiply(subDuration);
+        MoneyAccumulator totalBalance = new MoneyAccumulator(runningBalance.getCurrency()).addProduct(runningBalance, subDuration);
 
         prevDate = nextDate;
 
@@ -75,17 +76,18 @@ public class AverageBalanceCalculationStrategy implements PrincipalCalculationSt
                 duration -= 1;
             }
 
-            runningBalance = runningBalance.add(endOfDayDetails.get(count).getResultantAmountForDay());
+            runningBalance.add(endOfDayDetails.get(count).getResultantAmountForDay());
 
-            totalBalance = totalBalance.add(runningBalance.multiply(subDuration));
+            totalBalance.addProduct(runningBalance, subDuration);
 
             prevDate = nextDate;
         }
 
+        Money averageBalance = totalBalance.toMoney();
         if (duration != 0) {
-            totalBalance = totalBalance.divide(duration);
+            averageBalance = averageBalance.divide(duration);
         }
 
-        return MoneyUtils.currencyRound(totalBalance);
+        return MoneyUtils.currencyRound(averageBalance);
     }
 }
\ No newline at end of file
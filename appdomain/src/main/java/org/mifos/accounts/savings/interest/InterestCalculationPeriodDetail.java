@@ -25,6 +25,7 @@ import java.util.List;
 
 import org.joda.time.Days;
 import org.mifos.framework.util.helpers.Money;
+import org.mifos.framework.util.helpers.MoneyAccumulator;
 
 /**
  * I represent a valid Interest Calculation Period.
@@ -102,22 +103,22 @@ public class InterestCalculationPeriodDetail {
     }
 
     public Money sumOfPrincipal() {
-        Money principalForPeriod = zeroAmount();
+        MoneyAccumulator principalForPeriod = new MoneyAccumulator(this.balanceBeforeInterval.getCurrency());
 
         for (EndOfDayDetail daysDetail : this.dailyDetails) {
-            principalForPeriod = principalForPeriod.add(daysDetail.getResultantAmountForDay());
+            principalForPeriod.add(daysDetail.getResultantAmountForDay());
         }
 
-        return principalForPeriod;
+        return principalForPeriod.toMoney();
     }
 
     public Money sumOfInterest() {
-        Money interestForPeriod = zeroAmount();
+        MoneyAccumulator interestForPeriod = new MoneyAccumulator(this.balanceBeforeInterval.getCurrency());
 
         for (EndOfDayDetail daysDetail : this.dailyDetails) {
-            interestForPeriod = interestForPeriod.add(daysDetail.getInterest());
+            interestForPeriod.add(daysDetail.getInterest());
         }
 
-        return interestForPeriod;
+        return interestForPeriod.toMoney();
     }
 }
\ No newline at end of file
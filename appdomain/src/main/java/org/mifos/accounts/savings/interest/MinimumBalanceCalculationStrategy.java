@@ -22,6 +22,7 @@ package org.mifos.accounts.savings.interest;
 
 import org.apache.commons.collections.CollectionUtils;
 import org.mifos.framework.util.helpers.Money;
+import org.mifos.framework.util.helpers.MoneyAccumulator;
 
 public class MinimumBalanceCalculationStrategy implements PrincipalCalculationStrategy {
 
@@ -30,24 +31,25 @@ public class MinimumBalanceCalculationStrategy implements PrincipalCalculationSt
 
         validateInterestCalculationPeriodDetail(interestCalculationPeriodDetail);
 
-        Money minimumBalance = interestCalculationPeriodDetail.getBalanceBeforeInterval();
+        Money initialMinimumBalance = interestCalculationPeriodDetail.getBalanceBeforeInterval();
 
         if(!interestCalculationPeriodDetail.isFirstActivityBeforeInterval() && CollectionUtils.isNotEmpty(interestCalculationPeriodDetail.getDailyDetails())){
-            minimumBalance = interestCalculationPeriodDetail.getDailyDetails().get(0).getResultantAmountForDay();
+            initialMinimumBalance = interestCalculationPeriodDetail.getDailyDetails().get(0).getResultantAmountForDay();
         }
 
-        Money runningBalance = interestCalculationPeriodDetail.getBalanceBeforeInterval();
+        MoneyAccumulator minimumBalance = MoneyAccumulator.from(initialMinimumBalance);
+        MoneyAccumulator runningBalance = MoneyAccumulator.from(interestCalculationPeriodDetail.getBalanceBeforeInterval());
 
         for (EndOfDayDetail daily : interestCalculationPeriodDetail.getDailyDetails()) {
-                runningBalance = runningBalance.add(daily.getResultantAmountForDay());
+            runningBalance.add(daily.getResultantAmountForDay());
 
             if (minimumBalance.isGreaterThan(runningBalance)) {
-                minimumBalance = runningBalance;
+                minimumBalance.set(runningBalance);
             }
 
         }
 
-        return minimumBalance;
+        return minimumBalance.toMoney();
     }
 
     private void validateInterestCalculationPeriodDetail(InterestCalculationPeriodDetail interestCalculationPeriodDetail) {
@@ -21,6 +21,7 @@ package org.mifos.accounts.savings.persistence;
 
 import java.util.Date;
 import java.util.List;
+import java.util.Map;
 
 import org.joda.time.LocalDate;
 import org.mifos.accounts.savings.business.SavingsBO;
@@ -60,6 +61,14 @@ public interface SavingsDao {
 
     List<EndOfDayDetail> retrieveAllEndOfDayDetailsFor(MifosCurrency currency, Long savingsId);
 
+    /**
+     * Retrieves the end of day details of several savings accounts with one query.
+     *
+     * @param currencyByAccountId the savings accounts to retrieve details for together with their currency
+     * @return end of day details keyed by savings account id, an empty list for accounts without transactions
+     */
+    Map<Integer, List<EndOfDayDetail>> retrieveAllEndOfDayDetailsFor(Map<Integer, MifosCurrency> currencyByAccountId);
+
     List<Integer> retrieveAllActiveAndInActiveSavingsAccountsPendingInterestPostingOn(LocalDate interestPostingDate);
 
     SavingsBO findBySystemId(String globalAccountNum);
@@ -272,6 +272,42 @@ public class SavingsDaoHibernate implements SavingsDao {
         return allEndOfDayDetailsForAccount;
     }
 
+    @SuppressWarnings("unchecked")
+    @Override
+    public Map<Integer, List<EndOfDayDetail>> retrieveAllEndOfDayDetailsFor(
+            Map<Integer, MifosCurrency> currencyByAccountId) {
+
+        Map<Integer, List<EndOfDayDetail>> endOfDayDetailsByAccountId = new HashMap<Integer, List<EndOfDayDetail>>();
+        if (currencyByAccountId.isEmpty()) {
+            return endOfDayDetailsByAccountId;
+        }
+        for (Integer accountId : currencyByAccountId.keySet()) {
+            endOfDayDetailsByAccountId.put(accountId, new ArrayList<EndOfDayDetail>());
+        }
+
+        Map<String, Object> queryParameters = new HashMap<String, Object>();
+        queryParameters.put("ACCOUNT_IDS", new ArrayList<Integer>(currencyByAccountId.keySet()));
+        List<Object[]> queryResult = (List<Object[]>) this.baseDao.executeNamedQuery(
+                "savings.retrieveAllEndOfDayTransactionDetailsForAccounts", queryParameters);
+
+        if (queryResult != null) {
+            for (Object[] dailyRecord : queryResult) {
+                Integer accountId = (Integer) dailyRecord[0];
+                Date dayOfYear = (Date) dailyRecord[1];
+                BigDecimal totalDeposits = (BigDecimal) dailyRecord[2];
+                BigDecimal totalWithdrawals = (BigDecimal) dailyRecord[3];
+                BigDecimal totalInterest = (BigDecimal) dailyRecord[4];
+
+                MifosCurrency currency = currencyByAccountId.get(accountId);
+                EndOfDayDetail endOfDayDetail = new EndOfDayDetail(new LocalDate(dayOfYear), new Money(currency,
+                        totalDeposits), new Money(currency, totalWithdrawals), new Money(currency, totalInterest));
+                endOfDayDetailsByAccountId.get(accountId).add(endOfDayDetail);
+            }
+        }
+
+        return endOfDayDetailsByAccountId;
+    }
+
     @SuppressWarnings("unchecked")
     @Override
     public List<Integer> retrieveAllActiveAndInActiveSavingsAccountsPendingInterestPostingOn(LocalDate interestPostingDate) {
@@ -151,6 +151,7 @@ public interface NamedQueryConstants {
     String GET_LOAN_SUMMARY_CURRENCIES_FOR_GROUP = "Customer.getLoanSummaryCurrenciesForGroup";
     String GET_TOTAL_AMOUNT_FOR_ALL_CLIENTS_OF_GROUP = "Customer.getTotalAmountForAllClientsOfGroup";
     String GET_ALL_BASIC_GROUP_INFO = "Customer.getAllBasicGroupInfo";
+    String GET_PORTFOLIO_AT_RISK_AMOUNTS_FOR_ALL_GROUPS = "Customer.getPortfolioAtRiskAmountsForAllGroups";
 
     /* Office Queries */
     String OFFICE_GET_SEARCHID = "office.getOfficeSearchId";
@@ -168,6 +169,8 @@ public interface NamedQueryConstants {
     // accounts
     String GET_MAX_ACCOUNT_ID = "accounts.getMaxAccountId";
     String FIND_ACCOUNT_BY_SYSTEM_ID = "accounts.findBySystemId";
+    String FIND_ACCOUNTS_BY_IDS = "accounts.findByIds";
+    String FIND_LOAN_ACCOUNT_IDS_BY_SYSTEM_IDS = "accounts.findLoanIdsBySystemIds";
     String FIND_LOAN_ACCOUNT_BY_SYSTEM_ID = "accounts.findLoanBySystemId";
     String FIND_LOAN_ACCOUNT_BY_EXTERNAL_ID = "accounts.findLoanByExternalId";
     String FIND_LOAN_ACCOUNT_BY_CLIENT_GOVERNMENT_ID_AND_PRODUCT_SHORT_NAME = "accounts.findLoanByClientGovernmentIdAndProductShortName";
@@ -197,6 +200,7 @@ public interface NamedQueryConstants {
     String CUSTOMER_FIND_ACCOUNT_BY_SYSTEM_ID = "customer.findBySystemId";
     String CUSTOMER_FIND_COUNT_BY_SYSTEM_ID = "customer.findCountBySystemId";
     String CUSTOMER_FIND_COUNT_BY_GOVERNMENT_ID = "customer.findCountByGovernmentId";
+    String CUSTOMER_FIND_SEARCH_STRATEGY_MATCHES = "customer.findSearchStrategyMatches";
     String GET_CUSTOMER_STATUS_LIST = "customer.getStatusForCustomer";
     String GET_CENTER_BY_SYSTEMID = "customer.findCenterSystemId";
     String GET_GROUP_BY_SYSTEMID = "customer.findGroupSystemId";
@@ -216,11 +220,13 @@ public interface NamedQueryConstants {
     String RETRIEVE_TOTAL_AMOUNT_IN_ARREARS = "customers.retrieveTotalAmountInArrears";
 
     String GET_LOAN_ACOUNTS_IN_ARREARS_IN_GOOD_STANDING = "accounts.GetLoanArrearsInGoodStanding";
+    String GET_LOAN_ACOUNTS_IN_ARREARS_IN_GOOD_STANDING_WITH_OFFICE = "accounts.GetLoanArrearsInGoodStandingWithOffice";
     String GET_LATENESS_FOR_LOANS = "productdefenition.GetLatenessDaysForLoans";
     String GET_DORMANCY_DAYS = "productdefenition.getDormancyDays";
     String GET_ACCOUNT_STATES = "accounts.getStates";
     String GET_CUSTOMER_STATES = "customer.getStates";
     String GET_ALL_OFFICES = "office.getAllOffices";
+    String GET_OFFICE_FOR_HIERARCHY = "office.getOfficeForHierarchy";
     String GET_OFFICES_TILL_BRANCHOFFICE = "office.getOfficesTillBranchOffice";
     String GET_BRANCH_OFFICES = "office.getBranchOffices";
 
@@ -234,6 +240,7 @@ public interface NamedQueryConstants {
 
     // fee related m2
     String GET_CUSTOMER_ACCOUNTS_FOR_FEE = "getCustomerAccountsForFee";
+    String GET_CUSTOMER_ACCOUNT_IDS_FOR_FEE = "getCustomerAccountIdsForFee";
 
     // Seems not to be used by anything
     String GET_FEE_UPDATETYPE = "getFeeUpdateType";
@@ -326,6 +333,8 @@ public interface NamedQueryConstants {
     String CUSTOMER_SEARCH = "Customer.cust_search";
     String CUSTOMER_SEARCH_NOOFFICEID = "Customer.cust_search_noofficeid";
     String CUSTOMER_SEARCH_COUNT_NOOFFICEID = "Customer.cust_count_search_noofficeid";
+    String CUSTOMER_SEARCH_BY_IDS = "Customer.cust_search_by_ids";
+    String CUSTOMER_SEARCH_COUNT_BY_IDS = "Customer.cust_count_search_by_ids";
 
     String CUSTOMER_ID_SEARCH_NOOFFICEID = "Customer.cust_idsearch_withoutoffice";
     String CUSTOMER_ID_SEARCH_NOOFFICEID_COUNT = "Customer.cust_idsearch_withoutoffice_count";
@@ -464,7 +473,7 @@ public interface NamedQueryConstants {
     String GET_ALL_OFFICES_FOR_CUSTOM_FIELD = "office.getAllOfficesForCustomField";
     String GET_ALL_PERSONNEL = "personnel.getAllPersonnel";
     String GET_ALL_LOAN_ACCOUNTS = "accounts.getAllLoanAccounts";
-    String GET_ALL_LOAN_ACCOUNTS_WITH_PENALTIES = "accounts.getAllLoanAccountsWithLateInstallments";
+    String GET_LOAN_ACCOUNT_IDS_WITH_PENALTIES_AND_OFFICE = "accounts.getLoanAccountIdsWithLateInstallmentsAndOffice";
 
     String GET_BRANCH_REPORT_FOR_DATE_AND_BRANCH = "branchReport.getBranchReportForDateAndBranch";
     String GET_BRANCH_REPORT_FOR_DATE = "branchReport.getBranchReportForDate";
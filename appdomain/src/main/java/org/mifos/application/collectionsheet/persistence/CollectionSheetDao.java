@@ -30,6 +30,7 @@ import org.mifos.application.servicefacade.CollectionSheetCustomerLoanDto;
 import org.mifos.application.servicefacade.CollectionSheetCustomerSavingDto;
 import org.mifos.application.servicefacade.CollectionSheetCustomerSavingsAccountDto;
 import org.mifos.application.servicefacade.CollectionSheetLoanFeeDto;
+import org.mifos.application.servicefacade.CustomerHierarchyAccountsDto;
 import org.mifos.application.servicefacade.CustomerHierarchyParams;
 
 /**
@@ -54,6 +55,8 @@ public interface CollectionSheetDao {
     Map<Integer, List<CollectionSheetCustomerLoanDto>> findLoanDisbursementsForCustomerHierarchy(Short branchId,
             String searchId, LocalDate transactionDate, Integer customerId);
 
+    CustomerHierarchyAccountsDto findAccountsForWholeCustomerHierarchy(CustomerHierarchyParams customerHierarchyParams);
+
     Map<Integer, List<CollectionSheetCustomerSavingDto>> findSavingsDepositsforCustomerHierarchy(
             CustomerHierarchyParams customerHierarchyParams);
 
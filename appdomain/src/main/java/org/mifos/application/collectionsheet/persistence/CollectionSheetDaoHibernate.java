@@ -26,8 +26,10 @@ import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import org.joda.time.LocalDate;
 import org.mifos.accounts.loan.persistance.LegacyLoanDao;
@@ -38,6 +40,7 @@ import org.mifos.application.servicefacade.CollectionSheetCustomerLoanDto;
 import org.mifos.application.servicefacade.CollectionSheetCustomerSavingDto;
 import org.mifos.application.servicefacade.CollectionSheetCustomerSavingsAccountDto;
 import org.mifos.application.servicefacade.CollectionSheetLoanFeeDto;
+import org.mifos.application.servicefacade.CustomerHierarchyAccountsDto;
 import org.mifos.application.servicefacade.CustomerHierarchyParams;
 import org.mifos.core.MifosRuntimeException;
 import org.mifos.framework.exceptions.PersistenceException;
@@ -355,6 +358,115 @@ public class CollectionSheetDaoHibernate extends LegacyGenericDao implements Col
         return loanDisbursementsGroupedByCustomerId;
     }
 
+    /**
+     * Retrieves each category of loan and customer account data for the customer at the top of the hierarchy and
+     * the customers within it in one query, instead of one query for the top customer and one for the rest.
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public CustomerHierarchyAccountsDto findAccountsForWholeCustomerHierarchy(
+            final CustomerHierarchyParams customerHierarchyParams) {
+
+        final Map<String, Object> queryParameters = new HashMap<String, Object>();
+        queryParameters.put("CUSTOMER_ID", customerHierarchyParams.getCustomerAtTopOfHierarchyId());
+        queryParameters.put("BRANCH_ID", customerHierarchyParams.getBranchId());
+        queryParameters.put("SEARCH_ID", customerHierarchyParams.getSearchId());
+        queryParameters.put("TRANSACTION_DATE", customerHierarchyParams.getTransactionDate().toString());
+
+        final List<CollectionSheetCustomerLoanDto> loanRepayments = executeNamedQueryWithResultTransformer(
+                "findLoanRepaymentsforWholeCustomerHierarchyAsDto", queryParameters,
+                CollectionSheetCustomerLoanDto.class);
+        final Map<Integer, List<CollectionSheetCustomerLoanDto>> loanRepaymentsByCustomerId = groupLoansByCustomerId(loanRepayments);
+
+        final List<CollectionSheetCustomerLoanDto> activeLoans = executeNamedQueryWithResultTransformer(
+                "findActiveLoansforCustomerHierarchyAsDto", queryParameters, CollectionSheetCustomerLoanDto.class);
+        addActiveLoansWithoutRepaymentsDue(loanRepaymentsByCustomerId, loanRepayments, activeLoans);
+
+        final Map<Integer, Map<Integer, List<CollectionSheetLoanFeeDto>>> loanFeesByCustomerIdAndAccountId = new HashMap<Integer, Map<Integer, List<CollectionSheetLoanFeeDto>>>();
+        final List<CollectionSheetLoanFeeDto> outstandingLoanFees = executeNamedQueryWithResultTransformer(
+                "findOutstandingFeesForLoansOnWholeCustomerHierarchyAsDto", queryParameters,
+                CollectionSheetLoanFeeDto.class);
+        populateLoanFeesMap(loanFeesByCustomerIdAndAccountId, outstandingLoanFees);
+
+        final Map<Integer, List<CollectionSheetCustomerLoanDto>> loanDisbursementsByCustomerId = new HashMap<Integer, List<CollectionSheetCustomerLoanDto>>();
+        final List<CollectionSheetCustomerLoanDto> loanDisbursements = executeNamedQueryWithResultTransformer(
+                "findLoanDisbursementsforWholeCustomerHierarchyAsDto", queryParameters,
+                CollectionSheetCustomerLoanDto.class);
+        populateLoanDisbursement(loanDisbursementsByCustomerId, loanDisbursements);
+
+        final List<CollectionSheetCustomerAccountCollectionDto> accountCollections = executeNamedQueryWithResultTransformer(
+                "findAccountCollectionsOnCustomerAccountForWholeCustomerHierarchyAsDto", queryParameters,
+                CollectionSheetCustomerAccountCollectionDto.class);
+
+        final List<CollectionSheetCustomerAccountCollectionDto> accountCollectionFees = executeNamedQueryWithResultTransformer(
+                "findOutstandingFeesForCustomerAccountOnWholeCustomerHierarchyAsDto", queryParameters,
+                CollectionSheetCustomerAccountCollectionDto.class);
+
+        return new CustomerHierarchyAccountsDto(loanRepaymentsByCustomerId, loanFeesByCustomerIdAndAccountId,
+                loanDisbursementsByCustomerId, groupAccountCollectionsByCustomerId(accountCollections),
+                groupAccountCollectionsByCustomerId(accountCollectionFees));
+    }
+
+    private Map<Integer, List<CollectionSheetCustomerLoanDto>> groupLoansByCustomerId(
+            final List<CollectionSheetCustomerLoanDto> loans) {
+
+        final Map<Integer, List<CollectionSheetCustomerLoanDto>> loansGroupedByCustomerId = new HashMap<Integer, List<CollectionSheetCustomerLoanDto>>();
+
+        for (CollectionSheetCustomerLoanDto loan : loans) {
+            List<CollectionSheetCustomerLoanDto> loansForCustomer = loansGroupedByCustomerId.get(loan.getCustomerId());
+            if (loansForCustomer == null) {
+                loansForCustomer = new ArrayList<CollectionSheetCustomerLoanDto>();
+                loansGroupedByCustomerId.put(loan.getCustomerId(), loansForCustomer);
+            }
+            loansForCustomer.add(loan);
+        }
+        return loansGroupedByCustomerId;
+    }
+
+    /*
+     * Active loans with nothing due are shown with zero amounts; the account ids already due are looked up in a set
+     * rather than by sorting and searching the customer's list for each active loan.
+     */
+    private void addActiveLoansWithoutRepaymentsDue(
+            final Map<Integer, List<CollectionSheetCustomerLoanDto>> loanRepaymentsGroupedByCustomerId,
+            final List<CollectionSheetCustomerLoanDto> loanRepayments,
+            final List<CollectionSheetCustomerLoanDto> activeLoans) {
+
+        final Set<Integer> accountIdsWithRepaymentsDue = new HashSet<Integer>();
+        for (CollectionSheetCustomerLoanDto loanRepayment : loanRepayments) {
+            accountIdsWithRepaymentsDue.add(loanRepayment.getAccountId());
+        }
+
+        for (CollectionSheetCustomerLoanDto activeLoan : activeLoans) {
+            if (accountIdsWithRepaymentsDue.add(activeLoan.getAccountId())) {
+                List<CollectionSheetCustomerLoanDto> loansForCustomer = loanRepaymentsGroupedByCustomerId
+                        .get(activeLoan.getCustomerId());
+                if (loansForCustomer == null) {
+                    loansForCustomer = new ArrayList<CollectionSheetCustomerLoanDto>();
+                    loanRepaymentsGroupedByCustomerId.put(activeLoan.getCustomerId(), loansForCustomer);
+                }
+                loansForCustomer.add(activeLoan);
+            }
+        }
+    }
+
+    private Map<Integer, List<CollectionSheetCustomerAccountCollectionDto>> groupAccountCollectionsByCustomerId(
+            final List<CollectionSheetCustomerAccountCollectionDto> accountCollections) {
+
+        final Map<Integer, List<CollectionSheetCustomerAccountCollectionDto>> accountCollectionsGroupedByCustomerId = new HashMap<Integer, List<CollectionSheetCustomerAccountCollectionDto>>();
+
+        for (CollectionSheetCustomerAccountCollectionDto accountCollection : accountCollections) {
+            List<CollectionSheetCustomerAccountCollectionDto> collectionsForCustomer = accountCollectionsGroupedByCustomerId
+                    .get(accountCollection.getCustomerId());
+            if (collectionsForCustomer == null) {
+                collectionsForCustomer = new ArrayList<CollectionSheetCustomerAccountCollectionDto>();
+                accountCollectionsGroupedByCustomerId.put(accountCollection.getCustomerId(), collectionsForCustomer);
+            }
+            collectionsForCustomer.add(accountCollection);
+        }
+        return accountCollectionsGroupedByCustomerId;
+    }
+
     @Override
 	public Map<Integer, List<CollectionSheetCustomerSavingDto>> findSavingsDepositsforCustomerHierarchy(
             final CustomerHierarchyParams customerHierarchyParams) {
@@ -440,7 +552,7 @@ public class CollectionSheetDaoHibernate extends LegacyGenericDao implements Col
         }
     }
 
-    private void populateLoanFeesMap(
+    static void populateLoanFeesMap(
             final Map<Integer, Map<Integer, List<CollectionSheetLoanFeeDto>>> outstandingLoanFeesGroupedByCustomerId,
             final List<CollectionSheetLoanFeeDto> outstandingLoanFees) {
 
@@ -461,6 +573,7 @@ public class CollectionSheetDaoHibernate extends LegacyGenericDao implements Col
                 } else {
                     final List<CollectionSheetLoanFeeDto> loanFeesForAccount = new ArrayList<CollectionSheetLoanFeeDto>();
                     loanFeesForAccount.add(loanFee);
+                    loanFeesGroupedByAccountId.put(accountId, loanFeesForAccount);
                 }
             } else {
                 final List<CollectionSheetLoanFeeDto> loanFeesForAccount = new ArrayList<CollectionSheetLoanFeeDto>();
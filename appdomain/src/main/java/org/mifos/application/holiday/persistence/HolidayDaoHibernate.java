@@ -64,6 +64,7 @@ public class HolidayDaoHibernate implements HolidayDao {
     @Override
     public final void save(final Holiday holiday) {
         this.genericDao.createOrUpdate(holiday);
+        HolidayIndexCache.invalidateAfterTransaction();
     }
 
     @Override
@@ -0,0 +1,115 @@
+/*
+ * Copyright (c) 2005-2011 Grameen Foundation USA
+ * All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * See also http://www.apache.org/licenses/LICENSE-2.0.html for an
+ * explanation of the license and how it is applied.
+ */
+
+package org.mifos.application.holiday.persistence;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.transaction.Synchronization;
+
+import org.hibernate.Transaction;
+import org.mifos.calendar.HolidayIndex;
+import org.mifos.framework.cache.CacheRegion;
+import org.mifos.framework.cache.MifosCacheManager;
+import org.mifos.framework.hibernate.helper.StaticHibernateUtil;
+import org.mifos.framework.util.DateTimeService;
+
+/**
+ * Shares the {@link HolidayIndex} of the current and future holidays of each office between batch jobs. The indexes
+ * are held in the {@value #REGION_NAME} region of the {@link MifosCacheManager}, keyed by office and by today's date
+ * so that holidays which have ended drop out at midnight.
+ *
+ * <p>{@link HolidayDao#save(org.mifos.application.holiday.business.Holiday)} and
+ * {@link org.mifos.customers.office.persistence.OfficePersistence#addHoliday(Short,
+ * org.mifos.application.holiday.business.HolidayBO)} invalidate the region once their transaction has ended, so new
+ * and applied holidays are seen by the first lookup after they are committed.</p>
+ */
+public final class HolidayIndexCache {
+
+    public static final String REGION_NAME = "officeHolidayIndex";
+
+    private static final int MAX_ENTRIES = 1000;
+
+    /**
+     * Guards against holidays of a parent office changing without going through the holiday dao.
+     */
+    private static final long TIME_TO_LIVE_IN_MILLIS = 60 * 60 * 1000L;
+
+    private static final AtomicLong VERSION = new AtomicLong();
+
+    private HolidayIndexCache() {
+        // static helper
+    }
+
+    public static HolidayIndex getCurrentAndFutureHolidays(Short officeId, HolidayDao holidayDao) {
+        CacheRegion<String, HolidayIndex> region = region();
+        String key = officeId + ":" + new DateTimeService().getCurrentDateTime().toLocalDate();
+
+        HolidayIndex holidays = region.get(key);
+        if (holidays == null) {
+            long version = VERSION.get();
+            holidays = new HolidayIndex(holidayDao.findCurrentAndFutureOfficeHolidaysEarliestFirst(officeId));
+            // holidays read while they were being changed are used but not kept
+            if (version == VERSION.get()) {
+                region.put(key, holidays);
+            }
+        }
+        return holidays;
+    }
+
+    public static void invalidate() {
+        VERSION.incrementAndGet();
+        MifosCacheManager.getInstance().invalidate(REGION_NAME);
+    }
+
+    /**
+     * Invalidates when the transaction of the current session ends, as invalidating before the holiday changes are
+     * committed would let a lookup in between cache the old holidays again. Invalidates at once outside a transaction.
+     */
+    public static void invalidateAfterTransaction() {
+        Transaction transaction = StaticHibernateUtil.getSessionTL().getTransaction();
+        if (transaction == null || !transaction.isActive()) {
+            invalidate();
+            return;
+        }
+        transaction.registerSynchronization(new Synchronization() {
+            @Override
+            public void beforeCompletion() {
+                // nothing to do before the commit
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                invalidate();
+            }
+        });
+    }
+
+    /**
+     * Changes whenever the region is invalidated, for caches of values computed from the holidays.
+     */
+    public static long getVersion() {
+        return VERSION.get();
+    }
+
+    private static CacheRegion<String, HolidayIndex> region() {
+        return MifosCacheManager.getInstance().getOrCreateRegion(REGION_NAME, MAX_ENTRIES, TIME_TO_LIVE_IN_MILLIS);
+    }
+}
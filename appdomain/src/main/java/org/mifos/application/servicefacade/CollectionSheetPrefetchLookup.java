@@ -0,0 +1,88 @@
+/*
+ * Copyright (c) 2005-2011 Grameen Foundation USA
+ * All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * See also http://www.apache.org/licenses/LICENSE-2.0.html for an
+ * explanation of the license and how it is applied.
+ */
+
+package org.mifos.application.servicefacade;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.mifos.accounts.business.AccountBO;
+import org.mifos.customers.business.CustomerBO;
+
+/**
+ * The customers and accounts prefetched by {@link SaveCollectionSheetSessionCache}, indexed by id so that assembling
+ * the save does not have to query for them one at a time.
+ *
+ * The entities belong to the session they were prefetched in; a lookup must not outlive it.
+ */
+public class CollectionSheetPrefetchLookup {
+
+    private final Map<Integer, CustomerBO> customersById = new HashMap<Integer, CustomerBO>();
+    private final Map<Integer, AccountBO> accountsById = new HashMap<Integer, AccountBO>();
+
+    public static CollectionSheetPrefetchLookup empty() {
+        return new CollectionSheetPrefetchLookup();
+    }
+
+    /**
+     * @param rows query results; rows of HQL queries with plain (non fetch) joins are arrays with the entity first
+     */
+    void addCustomers(List<Object> rows) {
+        for (Object row : rows) {
+            CustomerBO customer = (CustomerBO) entityOf(row);
+            customersById.put(customer.getCustomerId(), customer);
+        }
+    }
+
+    void addAccounts(List<Object> rows) {
+        for (Object row : rows) {
+            AccountBO account = (AccountBO) entityOf(row);
+            accountsById.put(account.getAccountId(), account);
+        }
+    }
+
+    private Object entityOf(Object row) {
+        return (row instanceof Object[]) ? ((Object[]) row)[0] : row;
+    }
+
+    /**
+     * @return the prefetched customer or null if it was not prefetched
+     */
+    public CustomerBO getCustomer(Integer customerId) {
+        return customersById.get(customerId);
+    }
+
+    /**
+     * @return the prefetched account if it was prefetched and is of the given type, otherwise null
+     */
+    public <T extends AccountBO> T getAccount(Integer accountId, Class<T> accountType) {
+        AccountBO account = accountsById.get(accountId);
+        return accountType.isInstance(account) ? accountType.cast(account) : null;
+    }
+
+    public int getCustomerCount() {
+        return customersById.size();
+    }
+
+    public int getAccountCount() {
+        return accountsById.size();
+    }
+}
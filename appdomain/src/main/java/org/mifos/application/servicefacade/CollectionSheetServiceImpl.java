@@ -30,6 +30,7 @@ import org.hibernate.HibernateException;
 import org.joda.time.LocalDate;
 import org.mifos.accounts.business.AccountBO;
 import org.mifos.accounts.business.AccountPaymentEntity;
+import org.mifos.accounts.financial.business.service.FinancialTransactionBatch;
 import org.mifos.accounts.loan.business.LoanBO;
 import org.mifos.accounts.loan.persistance.ClientAttendanceDao;
 import org.mifos.accounts.loan.persistance.LegacyLoanDao;
@@ -37,11 +38,13 @@ import org.mifos.accounts.persistence.LegacyAccountDao;
 import org.mifos.accounts.savings.business.SavingsBO;
 import org.mifos.accounts.savings.persistence.SavingsDao;
 import org.mifos.application.collectionsheet.persistence.CollectionSheetDao;
+import org.mifos.config.GeneralConfig;
 import org.mifos.core.MifosRuntimeException;
 import org.mifos.customers.api.CustomerLevel;
 import org.mifos.customers.client.business.ClientAttendanceBO;
 import org.mifos.customers.persistence.CustomerPersistence;
 import org.mifos.framework.hibernate.helper.StaticHibernateUtil;
+import org.mifos.framework.metrics.MetricsRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -142,40 +145,55 @@ public class CollectionSheetServiceImpl implements CollectionSheetService {
         final List<String> failedLoanRepaymentAccountNumbers = new ArrayList<String>();
         final List<String> failedCustomerAccountPaymentNums = new ArrayList<String>();
 
-        final List<ClientAttendanceBO> clientAttendances = saveCollectionSheetAssembler
-                .clientAttendanceAssemblerfromDto(saveCollectionSheet.getSaveCollectionSheetCustomers(),
-                        saveCollectionSheet.getTransactionDate(), branchId, searchId);
-
-        final AccountPaymentEntity payment = saveCollectionSheetAssembler.accountPaymentAssemblerFromDto(
-                saveCollectionSheet.getTransactionDate(), saveCollectionSheet.getPaymentType(), saveCollectionSheet
-                        .getReceiptId(), saveCollectionSheet.getReceiptDate(), saveCollectionSheet.getUserId());
-
-        final List<SavingsBO> savingsAccounts = saveCollectionSheetAssembler.savingsAccountAssemblerFromDto(
-                saveCollectionSheet.getSaveCollectionSheetCustomers(), payment, failedSavingsDepositAccountNums,
-                failedSavingsWithdrawalNums);
-
-        final List<LoanBO> loanAccounts = saveCollectionSheetAssembler.loanAccountAssemblerFromDto(saveCollectionSheet
-                .getSaveCollectionSheetCustomers(), payment, failedLoanDisbursementAccountNumbers,
-                failedLoanRepaymentAccountNumbers);
-
-        final List<AccountBO> customerAccounts = saveCollectionSheetAssembler.customerAccountAssemblerFromDto(
-                saveCollectionSheet.getSaveCollectionSheetCustomers(), payment, failedCustomerAccountPaymentNums);
-
         boolean databaseErrorOccurred = false;
         Throwable databaseError = null;
-        readTime = System.currentTimeMillis() - totalTimeStart;
 
+        boolean batchedFinancialTransactions = GeneralConfig.getBatchedFinancialTransactionInserts();
+        if (batchedFinancialTransactions) {
+            FinancialTransactionBatch.begin();
+        }
         try {
-            saveTimeStart = System.currentTimeMillis();
-            persistCollectionSheet(clientAttendances, loanAccounts, customerAccounts, savingsAccounts);
-            saveTime = System.currentTimeMillis() - saveTimeStart;
-        } catch (HibernateException e) {
-            logger.error("database error saving collection sheet", e);
-            databaseErrorOccurred = true;
-            databaseError = e;
+            final List<ClientAttendanceBO> clientAttendances = saveCollectionSheetAssembler
+                    .clientAttendanceAssemblerfromDto(saveCollectionSheet.getSaveCollectionSheetCustomers(),
+                            saveCollectionSheet.getTransactionDate(), branchId, searchId);
+
+            final AccountPaymentEntity payment = saveCollectionSheetAssembler.accountPaymentAssemblerFromDto(
+                    saveCollectionSheet.getTransactionDate(), saveCollectionSheet.getPaymentType(), saveCollectionSheet
+                            .getReceiptId(), saveCollectionSheet.getReceiptDate(), saveCollectionSheet.getUserId());
+
+            final CollectionSheetPrefetchLookup prefetchLookup = saveCollectionSheetSessionCache.getPrefetchLookup();
+
+            final List<SavingsBO> savingsAccounts = saveCollectionSheetAssembler.savingsAccountAssemblerFromDto(
+                    saveCollectionSheet.getSaveCollectionSheetCustomers(), payment, failedSavingsDepositAccountNums,
+                    failedSavingsWithdrawalNums, prefetchLookup);
+
+            final List<LoanBO> loanAccounts = saveCollectionSheetAssembler.loanAccountAssemblerFromDto(
+                    saveCollectionSheet.getSaveCollectionSheetCustomers(), payment,
+                    failedLoanDisbursementAccountNumbers, failedLoanRepaymentAccountNumbers, prefetchLookup);
+
+            final List<AccountBO> customerAccounts = saveCollectionSheetAssembler.customerAccountAssemblerFromDto(
+                    saveCollectionSheet.getSaveCollectionSheetCustomers(), payment, failedCustomerAccountPaymentNums,
+                    prefetchLookup);
+
+            readTime = System.currentTimeMillis() - totalTimeStart;
+
+            try {
+                saveTimeStart = System.currentTimeMillis();
+                persistCollectionSheet(clientAttendances, loanAccounts, customerAccounts, savingsAccounts);
+                saveTime = System.currentTimeMillis() - saveTimeStart;
+            } catch (HibernateException e) {
+                logger.error("database error saving collection sheet", e);
+                databaseErrorOccurred = true;
+                databaseError = e;
+            }
+        } finally {
+            if (batchedFinancialTransactions) {
+                FinancialTransactionBatch.end();
+            }
         }
 
         totalTime = System.currentTimeMillis() - totalTimeStart;
+        recordTiming(totalTime, saveTime, readTime, saveCollectionSheet.getSaveCollectionSheetCustomers().size());
         printTiming(saveCollectionSheet.printSummary(), totalTime, saveTime, readTime, saveCollectionSheetSessionCache);
 
         return new CollectionSheetErrorsDto(failedSavingsDepositAccountNums, failedSavingsWithdrawalNums,
@@ -183,6 +201,15 @@ public class CollectionSheetServiceImpl implements CollectionSheetService {
                 failedCustomerAccountPaymentNums, databaseErrorOccurred, databaseError);
     }
 
+    private void recordTiming(Long totalTime, Long saveTime, Long readTime, int customerCount) {
+        MetricsRegistry metrics = MetricsRegistry.getInstance();
+        metrics.timer("collectionSheet.save.total").record(totalTime, customerCount);
+        metrics.timer("collectionSheet.save.read").record(readTime, customerCount);
+        if (saveTime != null) {
+            metrics.timer("collectionSheet.save.persist").record(saveTime, customerCount);
+        }
+    }
+
     private void printTiming(String printSummary, Long totalTime, Long saveTime, Long readTime,
             SaveCollectionSheetSessionCache saveCollectionSheetSessionCache) {
 
@@ -239,6 +266,11 @@ public class CollectionSheetServiceImpl implements CollectionSheetService {
             legacyAccountDao.save(customerAccountList);
             savingsDao.save(savingAccounts);
 
+            FinancialTransactionBatch financialTransactionBatch = FinancialTransactionBatch.current();
+            if (financialTransactionBatch != null) {
+                financialTransactionBatch.write(StaticHibernateUtil.getSessionTL());
+            }
+
             StaticHibernateUtil.commitTransaction();
 
         } catch (HibernateException e) {
@@ -272,6 +304,10 @@ public class CollectionSheetServiceImpl implements CollectionSheetService {
         final CustomerHierarchyParams customerHierarchyParams = new CustomerHierarchyParams(customerId, branchId,
                 searchId, transactionDate);
 
+        if (GeneralConfig.getSinglePassCollectionSheetRetrieval()) {
+            return retrieveCollectionSheetInSinglePass(customerHierarchy, customerHierarchyParams);
+        }
+
         final Map<Integer, List<CollectionSheetCustomerLoanDto>> allLoanRepaymentsGroupedByCustomerId = collectionSheetDao
                 .findAllLoanRepaymentsForCustomerHierarchy(branchId, searchId, transactionDate, customerId);
 
@@ -346,6 +382,119 @@ public class CollectionSheetServiceImpl implements CollectionSheetService {
         return new CollectionSheetDto(populatedCollectionSheetCustomer, transactionDate);
     }
 
+    /*
+     * Retrieves each kind of loan and customer account data for the whole hierarchy in one query and assembles the
+     * collection sheet using lookups by customer id, so assembly grows with the number of customers and accounts
+     * rather than with their product.
+     */
+    private CollectionSheetDto retrieveCollectionSheetInSinglePass(
+            final List<CollectionSheetCustomerDto> customerHierarchy,
+            final CustomerHierarchyParams customerHierarchyParams) {
+
+        final CustomerHierarchyAccountsDto hierarchyAccounts = collectionSheetDao
+                .findAccountsForWholeCustomerHierarchy(customerHierarchyParams);
+
+        final List<CollectionSheetCustomerSavingsAccountDto> savingsAccounts = collectionSheetDao
+                .findAllSavingAccountsForCustomerHierarchy(customerHierarchyParams);
+        Map<Integer, List<CollectionSheetCustomerSavingDto>> allSavingsDepositsGroupedByCustomerId = new HashMap<Integer, List<CollectionSheetCustomerSavingDto>>();
+        Map<Integer, List<CollectionSheetCustomerSavingDto>> allSavingsAccountsToBePaidByIndividualClientsGroupedByCustomerId = new HashMap<Integer, List<CollectionSheetCustomerSavingDto>>();
+        if (savingsAccounts != null && savingsAccounts.size() > 0) {
+            allSavingsDepositsGroupedByCustomerId = collectionSheetDao
+                    .findSavingsDepositsforCustomerHierarchy(customerHierarchyParams);
+
+            if (containsIndividualAccount(savingsAccounts)) {
+                allSavingsAccountsToBePaidByIndividualClientsGroupedByCustomerId = collectionSheetDao
+                        .findAllSavingsAccountsPayableByIndividualClientsForCustomerHierarchy(customerHierarchyParams);
+            }
+        }
+
+        final Map<Integer, List<CollectionSheetCustomerSavingsAccountDto>> savingsAccountsByCustomerId = groupSavingsAccountsByCustomerId(savingsAccounts);
+        final List<CollectionSheetCustomerSavingsAccountDto> individualSavingsAccounts = getIndividualSavingsAccounts(savingsAccounts);
+        final Map<Integer, List<CollectionSheetCustomerSavingsAccountDto>> individualSavingsAccountsByParentCustomerId = new HashMap<Integer, List<CollectionSheetCustomerSavingsAccountDto>>();
+
+        final List<CollectionSheetCustomerDto> populatedCollectionSheetCustomer = new ArrayList<CollectionSheetCustomerDto>();
+        for (CollectionSheetCustomerDto collectionSheetCustomer : customerHierarchy) {
+
+            final Integer customerInHierarchyId = collectionSheetCustomer.getCustomerId();
+
+            final CollectionSheetCustomerAccountDto customerAccount = sumAssociatedCustomerAccountCollectionFees(
+                    hierarchyAccounts.getAccountCollectionsByCustomerId().get(customerInHierarchyId),
+                    hierarchyAccounts.getAccountCollectionFeesByCustomerId().get(customerInHierarchyId));
+
+            final List<CollectionSheetCustomerSavingDto> savingsWithUnpaidInstallments = allSavingsDepositsGroupedByCustomerId
+                    .get(customerInHierarchyId);
+            final List<CollectionSheetCustomerSavingsAccountDto> savingsAccountsOfCustomer = savingsAccountsByCustomerId
+                    .get(customerInHierarchyId);
+            List<CollectionSheetCustomerSavingDto> associatedSavingAccounts = savingsWithUnpaidInstallments;
+            if (savingsAccountsOfCustomer != null) {
+                associatedSavingAccounts = ensureAllSavingsAccountsRepresented(savingsWithUnpaidInstallments,
+                        savingsAccountsOfCustomer, customerInHierarchyId);
+            }
+
+            List<CollectionSheetCustomerSavingsAccountDto> individualSavingsAccountsOfCustomer = individualSavingsAccounts;
+            if (individualSavingsAccounts != null
+                    && collectionSheetCustomer.getLevelId().compareTo(CustomerLevel.CLIENT.getValue()) == 0) {
+                final Integer parentCustomerId = collectionSheetCustomer.getParentCustomerId();
+                individualSavingsAccountsOfCustomer = individualSavingsAccountsByParentCustomerId.get(parentCustomerId);
+                if (individualSavingsAccountsOfCustomer == null) {
+                    individualSavingsAccountsOfCustomer = getIndividualSavingsAccountsPayableByChildrenOf(
+                            parentCustomerId, individualSavingsAccounts);
+                    individualSavingsAccountsByParentCustomerId.put(parentCustomerId,
+                            individualSavingsAccountsOfCustomer);
+                }
+            }
+            final List<CollectionSheetCustomerSavingDto> associatedIndividualSavingsAccounts = ensureAllClientIndividualSavingsAccountsRepresented(
+                    allSavingsAccountsToBePaidByIndividualClientsGroupedByCustomerId.get(customerInHierarchyId),
+                    individualSavingsAccountsOfCustomer, collectionSheetCustomer);
+
+            populatedCollectionSheetCustomer.add(createNullSafeCollectionSheetCustomer(collectionSheetCustomer,
+                    hierarchyAccounts.getLoanRepaymentsByCustomerId().get(customerInHierarchyId), hierarchyAccounts
+                            .getLoanFeesByCustomerIdAndAccountId().get(customerInHierarchyId), hierarchyAccounts
+                            .getLoanDisbursementsByCustomerId().get(customerInHierarchyId),
+                    associatedSavingAccounts, associatedIndividualSavingsAccounts, customerAccount));
+        }
+
+        return new CollectionSheetDto(populatedCollectionSheetCustomer, customerHierarchyParams.getTransactionDate());
+    }
+
+    private Map<Integer, List<CollectionSheetCustomerSavingsAccountDto>> groupSavingsAccountsByCustomerId(
+            final List<CollectionSheetCustomerSavingsAccountDto> savingsAccounts) {
+
+        final Map<Integer, List<CollectionSheetCustomerSavingsAccountDto>> savingsAccountsGroupedByCustomerId = new HashMap<Integer, List<CollectionSheetCustomerSavingsAccountDto>>();
+        if (savingsAccounts == null) {
+            return savingsAccountsGroupedByCustomerId;
+        }
+
+        for (CollectionSheetCustomerSavingsAccountDto savingsAccount : savingsAccounts) {
+            List<CollectionSheetCustomerSavingsAccountDto> savingsAccountsForCustomer = savingsAccountsGroupedByCustomerId
+                    .get(savingsAccount.getCustomerId());
+            if (savingsAccountsForCustomer == null) {
+                savingsAccountsForCustomer = new ArrayList<CollectionSheetCustomerSavingsAccountDto>();
+                savingsAccountsGroupedByCustomerId.put(savingsAccount.getCustomerId(), savingsAccountsForCustomer);
+            }
+            savingsAccountsForCustomer.add(savingsAccount);
+        }
+        return savingsAccountsGroupedByCustomerId;
+    }
+
+    /*
+     * The client individual savings accounts a client can pay into are those of the center and those of its parent,
+     * so they are the same for all clients of a group.
+     */
+    private List<CollectionSheetCustomerSavingsAccountDto> getIndividualSavingsAccountsPayableByChildrenOf(
+            final Integer parentCustomerId,
+            final List<CollectionSheetCustomerSavingsAccountDto> individualSavingsAccounts) {
+
+        final List<CollectionSheetCustomerSavingsAccountDto> payableSavingsAccounts = new ArrayList<CollectionSheetCustomerSavingsAccountDto>();
+        for (CollectionSheetCustomerSavingsAccountDto individualSavingsAccount : individualSavingsAccounts) {
+            if ((individualSavingsAccount.getCustomerLevelId().compareTo(CustomerLevel.CENTER.getValue()) == 0)
+                    || individualSavingsAccount.getCustomerId().equals(parentCustomerId)) {
+                payableSavingsAccounts.add(individualSavingsAccount);
+            }
+        }
+        return payableSavingsAccounts;
+    }
+
     /*
      * Each savings account should be represented in the collection sheet. The previous retrievals only bring back
      * savings accounts that have unpaid installments. The following code adds a zero entry for any savings accounts not
@@ -0,0 +1,70 @@
+/*
+ * Copyright (c) 2005-2011 Grameen Foundation USA
+ * All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * See also http://www.apache.org/licenses/LICENSE-2.0.html for an
+ * explanation of the license and how it is applied.
+ */
+
+package org.mifos.application.servicefacade;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * I hold the loan and customer account data of a whole customer hierarchy for a collection sheet, each category
+ * grouped by customer id (and loan fees also by account id) so it can be assembled without searching.
+ */
+public class CustomerHierarchyAccountsDto {
+
+    private final Map<Integer, List<CollectionSheetCustomerLoanDto>> loanRepaymentsByCustomerId;
+    private final Map<Integer, Map<Integer, List<CollectionSheetLoanFeeDto>>> loanFeesByCustomerIdAndAccountId;
+    private final Map<Integer, List<CollectionSheetCustomerLoanDto>> loanDisbursementsByCustomerId;
+    private final Map<Integer, List<CollectionSheetCustomerAccountCollectionDto>> accountCollectionsByCustomerId;
+    private final Map<Integer, List<CollectionSheetCustomerAccountCollectionDto>> accountCollectionFeesByCustomerId;
+
+    public CustomerHierarchyAccountsDto(
+            final Map<Integer, List<CollectionSheetCustomerLoanDto>> loanRepaymentsByCustomerId,
+            final Map<Integer, Map<Integer, List<CollectionSheetLoanFeeDto>>> loanFeesByCustomerIdAndAccountId,
+            final Map<Integer, List<CollectionSheetCustomerLoanDto>> loanDisbursementsByCustomerId,
+            final Map<Integer, List<CollectionSheetCustomerAccountCollectionDto>> accountCollectionsByCustomerId,
+            final Map<Integer, List<CollectionSheetCustomerAccountCollectionDto>> accountCollectionFeesByCustomerId) {
+        this.loanRepaymentsByCustomerId = loanRepaymentsByCustomerId;
+        this.loanFeesByCustomerIdAndAccountId = loanFeesByCustomerIdAndAccountId;
+        this.loanDisbursementsByCustomerId = loanDisbursementsByCustomerId;
+        this.accountCollectionsByCustomerId = accountCollectionsByCustomerId;
+        this.accountCollectionFeesByCustomerId = accountCollectionFeesByCustomerId;
+    }
+
+    public Map<Integer, List<CollectionSheetCustomerLoanDto>> getLoanRepaymentsByCustomerId() {
+        return this.loanRepaymentsByCustomerId;
+    }
+
+    public Map<Integer, Map<Integer, List<CollectionSheetLoanFeeDto>>> getLoanFeesByCustomerIdAndAccountId() {
+        return this.loanFeesByCustomerIdAndAccountId;
+    }
+
+    public Map<Integer, List<CollectionSheetCustomerLoanDto>> getLoanDisbursementsByCustomerId() {
+        return this.loanDisbursementsByCustomerId;
+    }
+
+    public Map<Integer, List<CollectionSheetCustomerAccountCollectionDto>> getAccountCollectionsByCustomerId() {
+        return this.accountCollectionsByCustomerId;
+    }
+
+    public Map<Integer, List<CollectionSheetCustomerAccountCollectionDto>> getAccountCollectionFeesByCustomerId() {
+        return this.accountCollectionFeesByCustomerId;
+    }
+}
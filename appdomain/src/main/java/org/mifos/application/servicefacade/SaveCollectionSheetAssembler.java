@@ -82,6 +82,17 @@ public class SaveCollectionSheetAssembler {
             final List<SaveCollectionSheetCustomerDto> saveCollectionSheetCustomers,
             final AccountPaymentEntity payment, final List<String> failedSavingsDepositAccountNums,
             final List<String> failedSavingsWithdrawalNums) {
+        return savingsAccountAssemblerFromDto(saveCollectionSheetCustomers, payment, failedSavingsDepositAccountNums,
+                failedSavingsWithdrawalNums, CollectionSheetPrefetchLookup.empty());
+    }
+
+    /**
+     * Customers and accounts found in the prefetch lookup are used as is; anything else is read from the database.
+     */
+    public List<SavingsBO> savingsAccountAssemblerFromDto(
+            final List<SaveCollectionSheetCustomerDto> saveCollectionSheetCustomers,
+            final AccountPaymentEntity payment, final List<String> failedSavingsDepositAccountNums,
+            final List<String> failedSavingsWithdrawalNums, final CollectionSheetPrefetchLookup prefetchLookup) {
 
         final List<SavingsBO> savingsList = new ArrayList<SavingsBO>();
 
@@ -89,11 +100,11 @@ public class SaveCollectionSheetAssembler {
 
             buildModelForSavingsAccounts(saveCollectionSheetCustomer.getSaveCollectionSheetCustomerSavings(), payment,
                     failedSavingsDepositAccountNums, failedSavingsWithdrawalNums, saveCollectionSheetCustomer
-                            .getCustomerId(), savingsList);
+                            .getCustomerId(), savingsList, prefetchLookup);
 
             buildModelForSavingsAccounts(saveCollectionSheetCustomer.getSaveCollectionSheetCustomerIndividualSavings(),
                     payment, failedSavingsDepositAccountNums, failedSavingsWithdrawalNums, saveCollectionSheetCustomer
-                            .getCustomerId(), savingsList);
+                            .getCustomerId(), savingsList, prefetchLookup);
 
         }
 
@@ -103,7 +114,8 @@ public class SaveCollectionSheetAssembler {
     private void buildModelForSavingsAccounts(
             final List<SaveCollectionSheetCustomerSavingDto> saveCollectionSheetCustomerSavings,
             final AccountPaymentEntity payment, final List<String> failedSavingsDepositAccountNums,
-            final List<String> failedSavingsWithdrawalNums, final Integer customerId, final List<SavingsBO> savingsList) {
+            final List<String> failedSavingsWithdrawalNums, final Integer customerId, final List<SavingsBO> savingsList,
+            final CollectionSheetPrefetchLookup prefetchLookup) {
 
         if (null != saveCollectionSheetCustomerSavings && saveCollectionSheetCustomerSavings.size() > 0) {
             final String receiptNumber = payment.getReceiptNumber();
@@ -122,9 +134,9 @@ public class SaveCollectionSheetAssembler {
 
                 if (isDeposit || isWithdrawal) {
                     boolean storeAccountForSavingLater = false;
-                    final CustomerBO payingCustomer = customerDao.findCustomerById(customerId);
-                    SavingsBO account = savingsDao.findById(saveCollectionSheetCustomerSaving
-                            .getAccountId());
+                    final CustomerBO payingCustomer = findCustomerById(customerId, prefetchLookup);
+                    SavingsBO account = findSavingsAccountById(saveCollectionSheetCustomerSaving.getAccountId(),
+                            prefetchLookup);
 
                     if (isDeposit) {
                         final AccountPaymentEntity accountDeposit = new AccountPaymentEntity(account, new Money(
@@ -178,6 +190,15 @@ public class SaveCollectionSheetAssembler {
             final List<SaveCollectionSheetCustomerDto> saveCollectionSheetCustomers,
             final AccountPaymentEntity payment, final List<String> failedLoanDisbursementAccountNumbers,
             final List<String> failedLoanRepaymentAccountNumbers) {
+        return loanAccountAssemblerFromDto(saveCollectionSheetCustomers, payment,
+                failedLoanDisbursementAccountNumbers, failedLoanRepaymentAccountNumbers,
+                CollectionSheetPrefetchLookup.empty());
+    }
+
+    public List<LoanBO> loanAccountAssemblerFromDto(
+            final List<SaveCollectionSheetCustomerDto> saveCollectionSheetCustomers,
+            final AccountPaymentEntity payment, final List<String> failedLoanDisbursementAccountNumbers,
+            final List<String> failedLoanRepaymentAccountNumbers, final CollectionSheetPrefetchLookup prefetchLookup) {
 
         final List<LoanBO> loans = new ArrayList<LoanBO>();
 
@@ -188,7 +209,7 @@ public class SaveCollectionSheetAssembler {
                 for (SaveCollectionSheetCustomerLoanDto saveCollectionSheetCustomerLoan : saveCollectionSheetCustomer
                         .getSaveCollectionSheetCustomerLoans()) {
                     final Integer accountId = saveCollectionSheetCustomerLoan.getAccountId();
-                    LoanBO account = findLoanAccountById(accountId);
+                    LoanBO account = findLoanAccountById(accountId, prefetchLookup);
                     final String globalAccountNum = account.getGlobalAccountNum();
 
                     final BigDecimal disbursalAmount = saveCollectionSheetCustomerLoan.getTotalDisbursement();
@@ -242,6 +263,14 @@ public class SaveCollectionSheetAssembler {
     public List<AccountBO> customerAccountAssemblerFromDto(
             final List<SaveCollectionSheetCustomerDto> saveCollectionSheetCustomers,
             final AccountPaymentEntity payment, final List<String> failedCustomerAccountPaymentNums) {
+        return customerAccountAssemblerFromDto(saveCollectionSheetCustomers, payment,
+                failedCustomerAccountPaymentNums, CollectionSheetPrefetchLookup.empty());
+    }
+
+    public List<AccountBO> customerAccountAssemblerFromDto(
+            final List<SaveCollectionSheetCustomerDto> saveCollectionSheetCustomers,
+            final AccountPaymentEntity payment, final List<String> failedCustomerAccountPaymentNums,
+            final CollectionSheetPrefetchLookup prefetchLookup) {
 
         final List<AccountBO> customerAccountList = new ArrayList<AccountBO>();
         for (SaveCollectionSheetCustomerDto saveCollectionSheetCustomer : saveCollectionSheetCustomers) {
@@ -260,7 +289,7 @@ public class SaveCollectionSheetAssembler {
 
                     CustomerAccountBO account = null;
                     try {
-                        account = findCustomerAccountById(accountId);
+                        account = findCustomerAccountById(accountId, prefetchLookup);
                         account.applyPayment(accountPaymentDataView);
                         customerAccountList.add(account);
                     } catch (AccountException ae) {
@@ -339,7 +368,29 @@ public class SaveCollectionSheetAssembler {
         return null;
     }
 
-    private CustomerAccountBO findCustomerAccountById(final Integer accountId) {
+    private CustomerBO findCustomerById(final Integer customerId, final CollectionSheetPrefetchLookup prefetchLookup) {
+        CustomerBO customer = prefetchLookup.getCustomer(customerId);
+        if (customer == null) {
+            customer = customerDao.findCustomerById(customerId);
+        }
+        return customer;
+    }
+
+    private SavingsBO findSavingsAccountById(final Integer accountId,
+            final CollectionSheetPrefetchLookup prefetchLookup) {
+        SavingsBO account = prefetchLookup.getAccount(accountId, SavingsBO.class);
+        if (account == null) {
+            account = savingsDao.findById(accountId);
+        }
+        return account;
+    }
+
+    private CustomerAccountBO findCustomerAccountById(final Integer accountId,
+            final CollectionSheetPrefetchLookup prefetchLookup) {
+        CustomerAccountBO account = prefetchLookup.getAccount(accountId, CustomerAccountBO.class);
+        if (account != null) {
+            return account;
+        }
         try {
             return (CustomerAccountBO) legacyAccountDao.getAccount(accountId);
         } catch (PersistenceException e) {
@@ -347,7 +398,11 @@ public class SaveCollectionSheetAssembler {
         }
     }
 
-    private LoanBO findLoanAccountById(final Integer loanId) {
+    private LoanBO findLoanAccountById(final Integer loanId, final CollectionSheetPrefetchLookup prefetchLookup) {
+        LoanBO account = prefetchLookup.getAccount(loanId, LoanBO.class);
+        if (account != null) {
+            return account;
+        }
         try {
             return legacyLoanDao.getAccount(loanId);
         } catch (PersistenceException e) {
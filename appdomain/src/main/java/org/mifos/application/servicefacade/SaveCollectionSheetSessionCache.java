@@ -29,14 +29,20 @@ import org.mifos.config.GeneralConfig;
 import org.mifos.core.MifosRuntimeException;
 import org.mifos.customers.persistence.CustomerPersistence;
 import org.mifos.framework.hibernate.helper.StaticHibernateUtil;
+import org.mifos.framework.metrics.MetricsRegistry;
 
 /**
  * Loads Collection Sheet data into Hibernate session cache.
  *
- * This minimises the number of read requests required to process the Collection Sheet.
+ * This minimises the number of read requests required to process the Collection Sheet. The prefetched customers
+ * and accounts are also indexed in a {@link CollectionSheetPrefetchLookup} for the save assemblers. The stages
+ * run one after the other in the session used to save, as the entities have to belong to that session; their
+ * timings are recorded in the {@link MetricsRegistry} under {@value #METRIC_PREFIX}.
  */
 public class SaveCollectionSheetSessionCache {
 
+    public static final String METRIC_PREFIX = "collectionSheet.save.prefetch.";
+
     private final CustomerPersistence customerPersistence = new CustomerPersistence();
 
     // lists of non-zero accounts
@@ -51,6 +57,8 @@ public class SaveCollectionSheetSessionCache {
     private Boolean worthCachingACCollections = false;
     private Boolean worthCachingSavings = false;
 
+    private final CollectionSheetPrefetchLookup prefetchLookup = new CollectionSheetPrefetchLookup();
+
     private Long prefetchTotalTime = null;
 
     private Long prefetchCustomerHierarchyTotalTime = null;
@@ -80,16 +88,20 @@ public class SaveCollectionSheetSessionCache {
 
                 sTime = System.currentTimeMillis();
                 prefetchObjectList = submitSavePreFetch("prefetchCustomerHierarchy", branchId, searchId, null);
+                prefetchLookup.addCustomers(prefetchObjectList);
                 prefetchCustomerHierarchyTotalTime = System.currentTimeMillis() - sTime;
                 prefetchCustomerHierarchyCount = prefetchObjectList.size();
+                recordMetric("customerHierarchy", prefetchCustomerHierarchyTotalTime, prefetchCustomerHierarchyCount);
 
                 makeNonZeroAccountLists(saveCollectionSheet.getSaveCollectionSheetCustomers());
 
                 if (allAccounts.size() > 0) {
                     sTime = System.currentTimeMillis();
                     prefetchObjectList = submitSavePreFetch("prefetchAccountData", branchId, searchId, allAccounts);
+                    prefetchLookup.addAccounts(prefetchObjectList);
                     prefetchAccountDataTotalTime = System.currentTimeMillis() - sTime;
                     prefetchAccountDataCount = prefetchObjectList.size();
+                    recordMetric("accountData", prefetchAccountDataTotalTime, prefetchAccountDataCount);
                 }
 
                 if (worthCachingRepayments || worthCachingDisbursals) {
@@ -97,6 +109,7 @@ public class SaveCollectionSheetSessionCache {
                     prefetchObjectList = submitSavePreFetch("prefetchLoanSchedules", branchId, searchId, loanAccounts);
                     prefetchLoanSchedulesTotalTime = System.currentTimeMillis() - sTime;
                     prefetchLoanSchedulesCount = prefetchObjectList.size();
+                    recordMetric("loanSchedules", prefetchLoanSchedulesTotalTime, prefetchLoanSchedulesCount);
                 }
 
                 if (worthCachingRepayments || worthCachingDisbursals || worthCachingACCollections) {
@@ -105,6 +118,7 @@ public class SaveCollectionSheetSessionCache {
                             allAccounts);
                     prefetchAccountFeeDetailsTotalTime = System.currentTimeMillis() - sTime;
                     prefetchAccountFeeDetailsCount = prefetchObjectList.size();
+                    recordMetric("accountFeeDetails", prefetchAccountFeeDetailsTotalTime, prefetchAccountFeeDetailsCount);
                 }
 
                 if (worthCachingACCollections) {
@@ -113,13 +127,23 @@ public class SaveCollectionSheetSessionCache {
                             customerAccounts);
                     prefetchCustomerSchedulesTotalTime = System.currentTimeMillis() - sTime;
                     prefetchCustomerSchedulesCount = prefetchObjectList.size();
+                    recordMetric("customerSchedules", prefetchCustomerSchedulesTotalTime, prefetchCustomerSchedulesCount);
                 }
 
                 prefetchTotalTime = System.currentTimeMillis() - prefetchTotalTimeStart;
+                MetricsRegistry.getInstance().timer(METRIC_PREFIX + "total").record(prefetchTotalTime);
             }
         }
     }
 
+    private void recordMetric(String stage, long durationInMillis, int rows) {
+        MetricsRegistry.getInstance().timer(METRIC_PREFIX + stage).record(durationInMillis, rows);
+    }
+
+    public CollectionSheetPrefetchLookup getPrefetchLookup() {
+        return this.prefetchLookup;
+    }
+
     @SuppressWarnings("unchecked")
     private List<Object> submitSavePreFetch(final String queryName, final Short branchId, final String searchId,
             final List<Integer> accountIds) {
@@ -27,7 +27,9 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import javax.servlet.http.HttpServletRequest;
@@ -92,6 +94,7 @@ import org.mifos.application.util.helpers.EntityType;
 import org.mifos.application.util.helpers.TrxnTypes;
 import org.mifos.calendar.CalendarEvent;
 import org.mifos.config.AccountingRules;
+import org.mifos.config.GeneralConfig;
 import org.mifos.config.ProcessFlowRules;
 import org.mifos.core.MifosRuntimeException;
 import org.mifos.customers.api.CustomerLevel;
@@ -498,6 +501,24 @@ public class SavingsServiceFacadeWebTier implements SavingsServiceFacade {
      */
     @Override
     public void postInterestForLastPostingPeriod(LocalDate dateBatchJobIsScheduled) {
+        List<String> failedAccountIds = postInterestForLastPostingPeriodInChunks(dateBatchJobIsScheduled,
+                GeneralConfig.getRecordCommittingSizeForBatchJobs());
+        if (!failedAccountIds.isEmpty()) {
+            throw new BusinessRuleException(StringUtils.join(failedAccountIds, ","));
+        }
+    }
+
+    /**
+     * Posts interest for the last posting period of all pending accounts, <code>chunkSize</code> accounts at a time.
+     *
+     * The end of day details of all accounts of a chunk are fetched with one query and the chunk is saved and committed
+     * in one transaction. If anything in a chunk fails, the chunk is rolled back and its accounts are posted one by
+     * one so that only the failing accounts are left out.
+     *
+     * @return the ids of the accounts interest could not be posted for
+     */
+    @Override
+    public List<String> postInterestForLastPostingPeriodInChunks(LocalDate dateBatchJobIsScheduled, int chunkSize) {
 
         MifosUser user = (MifosUser) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
         UserContext userContext = toUserContext(user);
@@ -506,34 +527,67 @@ public class SavingsServiceFacadeWebTier implements SavingsServiceFacade {
 
         List<Integer> accountIds = this.savingsDao
                 .retrieveAllActiveAndInActiveSavingsAccountsPendingInterestPostingOn(dateBatchJobIsScheduled);
-        for (Integer savingsId : accountIds) {
-            postInterestForAccount(savingsId, userContext, createdBy, false);
+
+        List<String> failedAccountIds = new ArrayList<String>();
+        int size = Math.max(1, chunkSize);
+        for (int fromIndex = 0; fromIndex < accountIds.size(); fromIndex += size) {
+            List<Integer> chunk = accountIds.subList(fromIndex, Math.min(fromIndex + size, accountIds.size()));
+            try {
+                postInterestForChunk(chunk, userContext, createdBy);
+            } catch (Exception e) {
+                logger.warn("Interest posting failed for chunk starting with account " + chunk.get(0)
+                        + ", posting accounts of the chunk one by one", e);
+                for (Integer savingsId : chunk) {
+                    try {
+                        postInterestForAccount(savingsId, userContext, createdBy, false);
+                    } catch (RuntimeException accountFailure) {
+                        logger.error("Unable to post interest for account id " + savingsId, accountFailure);
+                        failedAccountIds.add(savingsId.toString());
+                    }
+                }
+            }
         }
+        return failedAccountIds;
     }
 
-    private void postInterestForAccount(Integer savingsId, UserContext userContext, PersonnelBO createdBy, boolean inTransaction) {
+    private void postInterestForChunk(List<Integer> savingsIds, UserContext userContext, PersonnelBO createdBy) {
+        try {
+            List<SavingsBO> savingsAccounts = new ArrayList<SavingsBO>(savingsIds.size());
+            Map<Integer, MifosCurrency> currencyByAccountId = new HashMap<Integer, MifosCurrency>();
+            for (Integer savingsId : savingsIds) {
+                SavingsBO savingsAccount = this.savingsDao.findById(savingsId);
+                savingsAccounts.add(savingsAccount);
+                currencyByAccountId.put(savingsId, savingsAccount.getCurrency());
+            }
 
-        SavingsBO savingsAccount = this.savingsDao.findById(Long.valueOf(savingsId));
-        savingsAccount.updateDetails(userContext);
+            Map<Integer, List<EndOfDayDetail>> endOfDayDetailsByAccountId = this.savingsDao
+                    .retrieveAllEndOfDayDetailsFor(currencyByAccountId);
 
-        List<EndOfDayDetail> allEndOfDayDetailsForAccount = savingsDao.retrieveAllEndOfDayDetailsFor(
-                savingsAccount.getCurrency(), Long.valueOf(savingsId));
+            for (SavingsBO savingsAccount : savingsAccounts) {
+                calculateAndPostInterestForLastPostingPeriod(savingsAccount, userContext, createdBy,
+                        endOfDayDetailsByAccountId.get(savingsAccount.getAccountId()));
+            }
 
-        LocalDate interestPostingDate = new LocalDate(savingsAccount.getNextIntPostDate());
+            this.transactionHelper.startTransaction();
+            this.savingsDao.save(savingsAccounts);
+            this.transactionHelper.commitTransaction();
+        } catch (RuntimeException e) {
+            this.transactionHelper.rollbackTransaction();
+            throw e;
+        } finally {
+            this.transactionHelper.closeSession();
+        }
+    }
 
-        InterestScheduledEvent postingSchedule = savingsInterestScheduledEventFactory
-                .createScheduledEventFrom(savingsAccount.getInterestPostingMeeting());
-        LocalDate startOfPeriod = postingSchedule.findFirstDateOfPeriodForMatchingDate(interestPostingDate);
-        CalendarPeriod lastInterestPostingPeriod = new CalendarPeriod(startOfPeriod, interestPostingDate);
+    private void postInterestForAccount(Integer savingsId, UserContext userContext, PersonnelBO createdBy, boolean inTransaction) {
 
-        InterestPostingPeriodResult interestPostingPeriodResult = determinePostingPeriodResult(
-                lastInterestPostingPeriod, savingsAccount, allEndOfDayDetailsForAccount);
-        savingsAccount.postInterest(postingSchedule, interestPostingPeriodResult, createdBy);
+        SavingsBO savingsAccount = this.savingsDao.findById(Long.valueOf(savingsId));
 
-        StringBuilder postingInfoMessage = new StringBuilder().append("account id: ")
-                .append(savingsAccount.getAccountId()).append("posting interest: ").append(interestPostingPeriodResult);
+        List<EndOfDayDetail> allEndOfDayDetailsForAccount = savingsDao.retrieveAllEndOfDayDetailsFor(
+                savingsAccount.getCurrency(), Long.valueOf(savingsId));
 
-        logger.info(postingInfoMessage.toString());
+        calculateAndPostInterestForLastPostingPeriod(savingsAccount, userContext, createdBy,
+                allEndOfDayDetailsForAccount);
 
         try {
             if (!inTransaction) {
@@ -557,6 +611,28 @@ public class SavingsServiceFacadeWebTier implements SavingsServiceFacade {
         }
     }
 
+    private void calculateAndPostInterestForLastPostingPeriod(SavingsBO savingsAccount, UserContext userContext,
+            PersonnelBO createdBy, List<EndOfDayDetail> allEndOfDayDetailsForAccount) {
+
+        savingsAccount.updateDetails(userContext);
+
+        LocalDate interestPostingDate = new LocalDate(savingsAccount.getNextIntPostDate());
+
+        InterestScheduledEvent postingSchedule = savingsInterestScheduledEventFactory
+                .createScheduledEventFrom(savingsAccount.getInterestPostingMeeting());
+        LocalDate startOfPeriod = postingSchedule.findFirstDateOfPeriodForMatchingDate(interestPostingDate);
+        CalendarPeriod lastInterestPostingPeriod = new CalendarPeriod(startOfPeriod, interestPostingDate);
+
+        InterestPostingPeriodResult interestPostingPeriodResult = determinePostingPeriodResult(
+                lastInterestPostingPeriod, savingsAccount, allEndOfDayDetailsForAccount);
+        savingsAccount.postInterest(postingSchedule, interestPostingPeriodResult, createdBy);
+
+        StringBuilder postingInfoMessage = new StringBuilder().append("account id: ")
+                .append(savingsAccount.getAccountId()).append("posting interest: ").append(interestPostingPeriodResult);
+
+        logger.info(postingInfoMessage.toString());
+    }
+
     private Money calculateAccountBalanceOn(LocalDate date, List<EndOfDayDetail> allEndOfDayDetailsForAccount,
             MifosCurrency currency) {
 
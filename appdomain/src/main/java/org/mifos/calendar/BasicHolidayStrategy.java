@@ -32,12 +32,17 @@ public class BasicHolidayStrategy implements DateAdjustmentStrategy {
     /**
      * should be ordered by date ascending to avoid problems with overlapping holidays
      */
-    private final List<Holiday> upcomingHolidays;
+    private final HolidayIndex upcomingHolidays;
     private final List<Days> workingDays;
     private final ScheduledEvent scheduledEvent;
 
     public BasicHolidayStrategy(final List<Holiday> upcomingHolidays, final List<Days> workingDays,
             final ScheduledEvent scheduledEvent) {
+        this(new HolidayIndex(upcomingHolidays), workingDays, scheduledEvent);
+    }
+
+    public BasicHolidayStrategy(final HolidayIndex upcomingHolidays, final List<Days> workingDays,
+            final ScheduledEvent scheduledEvent) {
         this.upcomingHolidays = upcomingHolidays;
         this.workingDays = workingDays;
         this.scheduledEvent = scheduledEvent;
@@ -45,16 +50,7 @@ public class BasicHolidayStrategy implements DateAdjustmentStrategy {
 
     @Override
     public DateTime adjust(final DateTime startingFrom) {
-
-        DateTime adjustedDate = startingFrom;
-
-        for (Holiday holiday : this.upcomingHolidays) {
-            if (holiday.encloses(adjustedDate.toDate())) {
-                adjustedDate = holiday.adjust(adjustedDate, this.workingDays, this.scheduledEvent);
-            }
-        }
-
-        return adjustedDate;
+        return this.upcomingHolidays.adjust(startingFrom, this.workingDays, this.scheduledEvent);
     }
 
 }
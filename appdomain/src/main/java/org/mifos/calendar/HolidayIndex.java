@@ -0,0 +1,158 @@
+/*
+ * Copyright (c) 2005-2011 Grameen Foundation USA
+ * All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * See also http://www.apache.org/licenses/LICENSE-2.0.html for an
+ * explanation of the license and how it is applied.
+ */
+
+package org.mifos.calendar;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.joda.time.DateTime;
+import org.joda.time.Days;
+import org.joda.time.LocalDate;
+import org.mifos.application.holiday.business.Holiday;
+import org.mifos.application.holiday.util.helpers.RepaymentRuleTypes;
+import org.mifos.schedule.ScheduledEvent;
+
+/**
+ * Immutable interval index over a list of holidays.
+ *
+ * <p>Holidays keep the order they were given in, so adjustments behave exactly as a linear scan of the list would. The
+ * index only skips holidays that cannot enclose a date: those ending before it (found by binary search over the running
+ * maximum of thru dates) and, when the list is ordered by from date, those starting after it.</p>
+ *
+ * <p>An index is safe to share between threads and between schedule generators as long as the holidays themselves are
+ * not modified.</p>
+ */
+public class HolidayIndex {
+
+    private final List<Holiday> holidays;
+    private final LocalDate[] fromDates;
+    private final LocalDate[] maxThruDates;
+    private final boolean indexed;
+    private final boolean orderedByFromDate;
+
+    public HolidayIndex(final List<Holiday> holidays) {
+        this.holidays = Collections.unmodifiableList(new ArrayList<Holiday>(holidays));
+        int size = this.holidays.size();
+        this.fromDates = new LocalDate[size];
+        this.maxThruDates = new LocalDate[size];
+
+        boolean allDatesKnown = true;
+        boolean ordered = true;
+        LocalDate maxThruDate = null;
+        for (int i = 0; i < size && allDatesKnown; i++) {
+            Holiday holiday = this.holidays.get(i);
+            DateTime fromDate = holiday.getFromDate();
+            DateTime thruDate = holiday.getThruDate();
+            if (fromDate == null || thruDate == null) {
+                allDatesKnown = false;
+            } else {
+                fromDates[i] = fromDate.toLocalDate();
+                LocalDate thru = thruDate.toLocalDate();
+                maxThruDate = (maxThruDate == null || thru.isAfter(maxThruDate)) ? thru : maxThruDate;
+                maxThruDates[i] = maxThruDate;
+                if (i > 0 && fromDates[i].isBefore(fromDates[i - 1])) {
+                    ordered = false;
+                }
+            }
+        }
+        this.indexed = allDatesKnown;
+        this.orderedByFromDate = allDatesKnown && ordered;
+    }
+
+    public List<Holiday> getHolidays() {
+        return this.holidays;
+    }
+
+    public boolean isEmpty() {
+        return this.holidays.isEmpty();
+    }
+
+    /**
+     * Applies each enclosing holiday in list order, checking every later holiday against the date as adjusted so far.
+     */
+    public DateTime adjust(final DateTime startingFrom, final List<Days> workingDays, final ScheduledEvent scheduledEvent) {
+        DateTime adjustedDate = startingFrom;
+        int i = firstCandidate(adjustedDate, 0);
+        while (i < this.holidays.size() && isCandidate(i, adjustedDate)) {
+            Holiday holiday = this.holidays.get(i);
+            if (holiday.encloses(adjustedDate.toDate())) {
+                adjustedDate = holiday.adjust(adjustedDate, workingDays, scheduledEvent);
+            }
+            i = firstCandidate(adjustedDate, i + 1);
+        }
+        return adjustedDate;
+    }
+
+    public boolean isEnclosedByAHoliday(final DateTime date) {
+        return getLastHolidayEnclosing(date) != null;
+    }
+
+    public boolean isEnclosedByAHolidayWithRepaymentRule(final DateTime date, final RepaymentRuleTypes rule) {
+        for (int i = firstCandidate(date, 0); i < this.holidays.size() && isCandidate(i, date); i++) {
+            Holiday holiday = this.holidays.get(i);
+            if (holiday.encloses(date.toDate()) && holiday.getRepaymentRuleType() == rule) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return the enclosing holiday that comes last in the list, or null if no holiday encloses the date
+     */
+    public Holiday getLastHolidayEnclosing(final DateTime date) {
+        Holiday holidayEnclosingDate = null;
+        for (int i = firstCandidate(date, 0); i < this.holidays.size() && isCandidate(i, date); i++) {
+            Holiday holiday = this.holidays.get(i);
+            if (holiday.encloses(date.toDate())) {
+                holidayEnclosingDate = holiday;
+            }
+        }
+        return holidayEnclosingDate;
+    }
+
+    /**
+     * @return the lowest index not below <code>from</code> whose holiday, or any holiday before it, ends on or after
+     *         the date
+     */
+    private int firstCandidate(final DateTime date, final int from) {
+        if (!this.indexed || from >= this.holidays.size()) {
+            return from;
+        }
+        LocalDate day = date.toLocalDate();
+        int low = from;
+        int high = this.holidays.size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (this.maxThruDates[mid].isBefore(day)) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private boolean isCandidate(final int i, final DateTime date) {
+        return !this.orderedByFromDate || !this.fromDates[i].isAfter(date.toLocalDate());
+    }
+}
@@ -37,12 +37,17 @@ public class MoratoriumStrategy implements ListOfDatesAdjustmentStrategy {
      * should be ordered by date ascending to avoid problems with overlapping holidays
      * TODO: Fix to allow moratorium periods to overlap holidays. THIS IS IMPORTANT.
      */
-    private final List<Holiday> upcomingHolidays;
+    private final HolidayIndex upcomingHolidays;
     private final List<Days> workingDays;
     private final ScheduledEvent scheduledEvent;
 
     public MoratoriumStrategy(final List<Holiday> upcomingHolidays, final List<Days> workingDays,
             final ScheduledEvent scheduledEvent) {
+        this(new HolidayIndex(upcomingHolidays), workingDays, scheduledEvent);
+    }
+
+    public MoratoriumStrategy(final HolidayIndex upcomingHolidays, final List<Days> workingDays,
+            final ScheduledEvent scheduledEvent) {
 
         this.upcomingHolidays = upcomingHolidays;
         this.workingDays = workingDays;
@@ -145,34 +150,18 @@ public class MoratoriumStrategy implements ListOfDatesAdjustmentStrategy {
     }
 
     private boolean isEnclosedByAHolidayWithRepaymentRule (DateTime date, RepaymentRuleTypes rule) {
-        for (Holiday holiday : this.upcomingHolidays) {
-            if (holiday.encloses(date.toDate()) && (holiday.getRepaymentRuleType() == rule)) {
-                return true;
-            }
-        }
-        return false;
+        return this.upcomingHolidays.isEnclosedByAHolidayWithRepaymentRule(date, rule);
     }
 
     private boolean isEnclosedByAHoliday (DateTime date) {
-        for (Holiday holiday : this.upcomingHolidays) {
-            if (holiday.encloses(date.toDate())) {
-                return true;
-            }
-        }
-        return false;
+        return this.upcomingHolidays.isEnclosedByAHoliday(date);
     }
 
     private Holiday getHolidayEnclosing (DateTime date) {
 
         assert isEnclosedByAHoliday(date);
 
-        Holiday holidayEnclosingDate = null;
-        for (Holiday holiday : upcomingHolidays) {
-            if (holiday.encloses(date.toDate())) {
-                holidayEnclosingDate = holiday;
-            }
-        }
-        return holidayEnclosingDate;
+        return this.upcomingHolidays.getLastHolidayEnclosing(date);
     }
 
     /*
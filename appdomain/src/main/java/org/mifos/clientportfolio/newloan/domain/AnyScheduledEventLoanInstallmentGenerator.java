@@ -11,6 +11,7 @@ import org.mifos.accounts.productdefinition.util.helpers.GraceType;
 import org.mifos.accounts.util.helpers.InstallmentDate;
 import org.mifos.application.holiday.business.Holiday;
 import org.mifos.application.holiday.persistence.HolidayDao;
+import org.mifos.calendar.HolidayIndex;
 import org.mifos.config.FiscalCalendarRules;
 import org.mifos.schedule.ScheduledDateGeneration;
 import org.mifos.schedule.ScheduledEvent;
@@ -26,19 +27,37 @@ public class AnyScheduledEventLoanInstallmentGenerator implements LoanInstallmen
 		this.holidayDao = holidayDao;
 	}
 
+	/**
+	 * For callers that supply the holidays themselves through {@link #generate(LocalDate, int, GraceType, int, HolidayIndex)}.
+	 */
+	public AnyScheduledEventLoanInstallmentGenerator(ScheduledEvent scheduledEvent) {
+		this(scheduledEvent, null);
+	}
+
 	@Override
 	public List<InstallmentDate> generate(LocalDate actualDisbursementDate, int numberOfInstallments, GraceType graceType, int gracePeriodDuration, Short officeId) {
 		
+		if (numberOfInstallments <= 0) {
+			return new ArrayList<InstallmentDate>();
+		}
+		LocalDate startFromMeetingDate = actualDisbursementDate.plusDays(1);
+		List<Holiday> holidays = holidayDao.findAllHolidaysFromDateAndNext(officeId, startFromMeetingDate.toString());
+		return generate(actualDisbursementDate, numberOfInstallments, graceType, gracePeriodDuration, new HolidayIndex(holidays));
+	}
+
+	/**
+	 * Same as {@link #generate(LocalDate, int, GraceType, int, Short)} with the holidays of the office given, does not
+	 * read from the database.
+	 */
+	public List<InstallmentDate> generate(LocalDate actualDisbursementDate, int numberOfInstallments, GraceType graceType, int gracePeriodDuration, HolidayIndex holidays) {
+		
 		List<InstallmentDate> installmentDates = new ArrayList<InstallmentDate>();
 		
         if (numberOfInstallments > 0) {
             List<Days> workingDays = new FiscalCalendarRules().getWorkingDaysAsJodaTimeDays();
-            List<Holiday> holidays = new ArrayList<Holiday>();
 
             LocalDate startFromMeetingDate = actualDisbursementDate.plusDays(1);
 
-            holidays = holidayDao.findAllHolidaysFromDateAndNext(officeId, startFromMeetingDate.toString());
-
             int occurrences = numberOfInstallments;
             if (graceType == GraceType.GRACEONALLREPAYMENTS) {
                 occurrences += gracePeriodDuration;
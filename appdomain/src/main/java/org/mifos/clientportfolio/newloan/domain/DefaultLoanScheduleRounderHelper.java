@@ -10,6 +10,7 @@ import org.mifos.accounts.loan.business.RepaymentTotals;
 import org.mifos.accounts.productdefinition.util.helpers.GraceType;
 import org.mifos.application.master.business.MifosCurrency;
 import org.mifos.framework.util.helpers.Money;
+import org.mifos.framework.util.helpers.MoneyAccumulator;
 import org.mifos.framework.util.helpers.MoneyUtils;
 
 public class DefaultLoanScheduleRounderHelper implements LoanScheduleRounderHelper {
@@ -21,32 +22,34 @@ public class DefaultLoanScheduleRounderHelper implements LoanScheduleRounderHelp
 		
 		RepaymentTotals totals = new RepaymentTotals(loanAmount.getCurrency());
 
-        Money exactTotalInterestDue = new Money(loanAmount.getCurrency(), "0");
-        Money exactTotalAccountFeesDue = new Money(loanAmount.getCurrency(), "0");
-        Money exactTotalMiscFeesDue = new Money(loanAmount.getCurrency(), "0");
-        Money exactTotalMiscPenaltiesDue = new Money(loanAmount.getCurrency(), "0");
+        MoneyAccumulator exactTotalInterestDue = new MoneyAccumulator(loanAmount.getCurrency());
+        MoneyAccumulator exactTotalAccountFeesDue = new MoneyAccumulator(loanAmount.getCurrency());
+        MoneyAccumulator exactTotalMiscFeesDue = new MoneyAccumulator(loanAmount.getCurrency());
+        MoneyAccumulator exactTotalMiscPenaltiesDue = new MoneyAccumulator(loanAmount.getCurrency());
 
         // principal due = loan amount less any payments on principal
-        Money exactTotalPrincipalDue = loanAmount;
+        MoneyAccumulator principalDue = MoneyAccumulator.from(loanAmount);
         for (AccountActionDateEntity e : allInstallments) {
             LoanScheduleEntity installment = (LoanScheduleEntity) e;
-            exactTotalPrincipalDue = exactTotalPrincipalDue.subtract(installment.getPrincipalPaid());
+            principalDue.subtract(installment.getPrincipalPaid());
         }
+        Money exactTotalPrincipalDue = principalDue.toMoney();
 
         for (Object element : unroundedLoanSchedules) {
             LoanScheduleEntity currentInstallment = (LoanScheduleEntity) element;
-            exactTotalInterestDue = exactTotalInterestDue.add(currentInstallment.getInterestDue());
-            exactTotalAccountFeesDue = exactTotalAccountFeesDue.add(currentInstallment.getTotalFeesDue());
-            exactTotalMiscFeesDue = exactTotalMiscFeesDue.add(currentInstallment.getMiscFeeDue());
-            exactTotalMiscPenaltiesDue = exactTotalMiscPenaltiesDue.add(currentInstallment.getMiscPenaltyDue());
+            exactTotalInterestDue.add(currentInstallment.getInterestDue());
+            exactTotalAccountFeesDue.add(currentInstallment.getTotalFeesDue());
+            exactTotalMiscFeesDue.add(currentInstallment.getMiscFeeDue());
+            exactTotalMiscPenaltiesDue.add(currentInstallment.getMiscPenaltyDue());
         }
-        Money exactTotalPaymentsDue = exactTotalInterestDue.add(exactTotalAccountFeesDue).add(exactTotalMiscFeesDue)
-                .add(exactTotalMiscPenaltiesDue).add(exactTotalPrincipalDue);
+        Money exactTotalPaymentsDue = new MoneyAccumulator(loanAmount.getCurrency()).add(exactTotalInterestDue)
+                .add(exactTotalAccountFeesDue).add(exactTotalMiscFeesDue).add(exactTotalMiscPenaltiesDue)
+                .add(exactTotalPrincipalDue).toMoney();
 
         totals.setRoundedPaymentsDue(MoneyUtils.finalRound(exactTotalPaymentsDue));
-        totals.setRoundedAccountFeesDue(MoneyUtils.currencyRound(exactTotalAccountFeesDue));
-        totals.setRoundedMiscFeesDue(MoneyUtils.currencyRound(exactTotalMiscFeesDue));
-        totals.setRoundedMiscPenaltiesDue(MoneyUtils.currencyRound(exactTotalMiscPenaltiesDue));
+        totals.setRoundedAccountFeesDue(MoneyUtils.currencyRound(exactTotalAccountFeesDue.toMoney()));
+        totals.setRoundedMiscFeesDue(MoneyUtils.currencyRound(exactTotalMiscFeesDue.toMoney()));
+        totals.setRoundedMiscPenaltiesDue(MoneyUtils.currencyRound(exactTotalMiscPenaltiesDue.toMoney()));
         totals.setRoundedPrincipalDue(exactTotalPrincipalDue);
 
         // Adjust interest to account for rounding discrepancies
@@ -41,6 +41,7 @@ import org.mifos.accounts.util.helpers.InstallmentDate;
 import org.mifos.accounts.util.helpers.PaymentStatus;
 import org.mifos.application.master.business.MifosCurrency;
 import org.mifos.application.meeting.business.MeetingBO;
+import org.mifos.application.meeting.util.helpers.RecurrenceType;
 import org.mifos.customers.business.CustomerBO;
 import org.mifos.framework.util.helpers.Money;
 import org.mifos.framework.util.helpers.MoneyUtils;
@@ -60,14 +61,26 @@ public class IndividualLoanScheduleFactory implements LoanScheduleFactory {
             CustomerBO customer, MeetingBO loanMeeting, Money loanAmount, Double interestRate, Integer interestDays, Integer gracePeriodDuration, 
             List<AccountFeesEntity> accountFees) {
 
-        GraceType graceType = loanProduct.getGraceType();
-        InterestType interestType = loanProduct.getInterestType();
-        boolean variableInstallmentLoanProduct = loanProduct.isVariableInstallmentsAllowed();
-        Integer numberOfInstallments = loanScheduleDates.size();
-
         RecurringScheduledEventFactory scheduledEventFactory = new RecurringScheduledEventFactoryImpl();
         ScheduledEvent meetingScheduledEvent = scheduledEventFactory.createScheduledEventFrom(loanMeeting);
 
+        return create(disbursementDate, loanScheduleDates, totalInstallmentAmounts, loanProduct.getGraceType(),
+                loanProduct.getInterestType(), loanProduct.isVariableInstallmentsAllowed(), loanProduct.isPrinDueLastInst(),
+                loanMeeting.getRecurrenceType(), loanMeeting.getRecurAfter().intValue(), meetingScheduledEvent, customer,
+                loanAmount, interestRate, interestDays, gracePeriodDuration, accountFees);
+    }
+
+    /**
+     * Computes the schedule from the terms of the loan product and meeting rather than from the entities, used for
+     * quotes. Only reads from the database for rate fees.
+     */
+    LoanSchedule create(LocalDate disbursementDate, List<DateTime> loanScheduleDates, List<Number> totalInstallmentAmounts,
+            GraceType graceType, InterestType interestType, boolean variableInstallmentLoanProduct, boolean principalDueOnLastInstallment,
+            RecurrenceType recurrenceType, int recurAfter, ScheduledEvent meetingScheduledEvent, CustomerBO customer,
+            Money loanAmount, Double interestRate, Integer interestDays, Integer gracePeriodDuration, List<AccountFeesEntity> accountFees) {
+
+        Integer numberOfInstallments = loanScheduleDates.size();
+
         Integer installmentNumber = 1;
         List<InstallmentDate> dueInstallmentDates = new ArrayList<InstallmentDate>();
         for (DateTime scheduledDate : loanScheduleDates) {
@@ -76,19 +89,19 @@ public class IndividualLoanScheduleFactory implements LoanScheduleFactory {
             installmentNumber++;
         }
 
-        if (loanProduct.isPrinDueLastInst()) {
+        if (principalDueOnLastInstallment) {
             // Principal due on last installment has been cut, so throw an exception if we reach this code.
             throw new BusinessRuleException(AccountConstants.NOT_SUPPORTED_EMI_GENERATION);
         }
 
         // loan interest calculation for various interest calculation algorithms
-        LoanDecliningInterestAnnualPeriodCalculator decliningInterestAnnualPeriodCalculator = new LoanDecliningInterestAnnualPeriodCalculatorFactory().create(loanMeeting.getRecurrenceType());
-        Double decliningInterestAnnualPeriod = decliningInterestAnnualPeriodCalculator.calculate(loanMeeting.getRecurAfter().intValue(), interestDays);
+        LoanDecliningInterestAnnualPeriodCalculator decliningInterestAnnualPeriodCalculator = new LoanDecliningInterestAnnualPeriodCalculatorFactory().create(recurrenceType);
+        Double decliningInterestAnnualPeriod = decliningInterestAnnualPeriodCalculator.calculate(recurAfter, interestDays);
         Double interestFractionalRatePerInstallment = interestRate / decliningInterestAnnualPeriod / 100;
 
-        LoanDurationInAccountingYearsCalculator loanDurationInAccountingYearsCalculator = new LoanDurationInAccountingYearsCalculatorFactory().create(loanMeeting.getRecurrenceType());
+        LoanDurationInAccountingYearsCalculator loanDurationInAccountingYearsCalculator = new LoanDurationInAccountingYearsCalculatorFactory().create(recurrenceType);
 
-        Double durationInYears = loanDurationInAccountingYearsCalculator.calculate(loanMeeting.getRecurAfter().intValue(), numberOfInstallments, interestDays);
+        Double durationInYears = loanDurationInAccountingYearsCalculator.calculate(recurAfter, numberOfInstallments, interestDays);
 
         List<Money> totalInstallmentAmountsAsMoney = new ArrayList<Money>();
         for (Number totalInstallmentAmount : totalInstallmentAmounts) {
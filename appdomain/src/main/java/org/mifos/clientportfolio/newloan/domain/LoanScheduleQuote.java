@@ -0,0 +1,62 @@
+/*
+ * Copyright (c) 2005-2011 Grameen Foundation USA
+ * All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * See also http://www.apache.org/licenses/LICENSE-2.0.html for an
+ * explanation of the license and how it is applied.
+ */
+
+package org.mifos.clientportfolio.newloan.domain;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.mifos.framework.util.helpers.Money;
+
+/**
+ * The rounded repayment schedule of a {@link LoanScheduleQuoteRequest}. Immutable, so one quote can be handed to any
+ * number of callers.
+ */
+public final class LoanScheduleQuote {
+
+    private final List<LoanScheduleQuoteInstallment> installments;
+    private final Money totalPrincipal;
+    private final Money totalInterest;
+
+    public LoanScheduleQuote(List<LoanScheduleQuoteInstallment> installments, Money zero) {
+        this.installments = Collections.unmodifiableList(new ArrayList<LoanScheduleQuoteInstallment>(installments));
+        Money principal = zero;
+        Money interest = zero;
+        for (LoanScheduleQuoteInstallment installment : installments) {
+            principal = principal.add(installment.getPrincipal());
+            interest = interest.add(installment.getInterest());
+        }
+        this.totalPrincipal = principal;
+        this.totalInterest = interest;
+    }
+
+    public List<LoanScheduleQuoteInstallment> getInstallments() {
+        return this.installments;
+    }
+
+    public Money getTotalPrincipal() {
+        return this.totalPrincipal;
+    }
+
+    public Money getTotalInterest() {
+        return this.totalInterest;
+    }
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright (c) 2005-2011 Grameen Foundation USA
+ * All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * See also http://www.apache.org/licenses/LICENSE-2.0.html for an
+ * explanation of the license and how it is applied.
+ */
+
+package org.mifos.clientportfolio.newloan.domain;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.joda.time.DateTime;
+import org.joda.time.LocalDate;
+import org.mifos.accounts.business.AccountFeesEntity;
+import org.mifos.accounts.loan.business.LoanScheduleEntity;
+import org.mifos.accounts.util.helpers.InstallmentDate;
+import org.mifos.calendar.HolidayIndex;
+import org.mifos.framework.util.helpers.Money;
+import org.mifos.schedule.ScheduledEvent;
+
+/**
+ * Computes the repayment schedule of a loan from its terms alone, the same way a new loan account's schedule is
+ * generated when its repayments follow the customer meeting. Quotes carry no fees, and as nothing is read from the
+ * database the calculator can be shared between threads.
+ */
+public class LoanScheduleQuoteCalculator {
+
+    private final RecurringScheduledEventFactory scheduledEventFactory = new RecurringScheduledEventFactoryImpl();
+
+    // there are no fees to calculate, so no fee dao is needed
+    private final IndividualLoanScheduleFactory loanScheduleFactory = new IndividualLoanScheduleFactory(null);
+
+    /**
+     * @param holidays the current and future holidays of the office of the quote
+     */
+    public LoanScheduleQuote calculate(LoanScheduleQuoteRequest request, HolidayIndex holidays) {
+        ScheduledEvent meetingScheduledEvent = scheduledEventFactory.createScheduledEvent(request.getRecurrenceType(),
+                request.getRecurAfter(), request.getDayOfWeek(), request.getDayOfMonth(), request.getWeekOfMonth());
+
+        List<InstallmentDate> installmentDates = new AnyScheduledEventLoanInstallmentGenerator(meetingScheduledEvent)
+                .generate(request.getDisbursementDate(), request.getNumberOfInstallments(), request.getGraceType(),
+                        request.getGraceDuration(), holidays);
+        List<DateTime> loanScheduleDates = new ArrayList<DateTime>();
+        for (InstallmentDate installmentDate : installmentDates) {
+            loanScheduleDates.add(new DateTime(installmentDate.getInstallmentDueDate()));
+        }
+
+        Money loanAmount = new Money(request.getCurrency(), request.getLoanAmount());
+        LoanSchedule loanSchedule = loanScheduleFactory.create(request.getDisbursementDate(), loanScheduleDates,
+                new ArrayList<Number>(), request.getGraceType(), request.getInterestType(),
+                request.isVariableInstallments(), false, request.getRecurrenceType(), request.getRecurAfter(),
+                meetingScheduledEvent, null, loanAmount, request.getInterestRate(), request.getInterestDays(),
+                request.getGraceDuration(), new ArrayList<AccountFeesEntity>());
+
+        List<LoanScheduleQuoteInstallment> installments = new ArrayList<LoanScheduleQuoteInstallment>();
+        for (LoanScheduleEntity loanScheduleEntity : loanSchedule.getRoundedLoanSchedules()) {
+            installments.add(new LoanScheduleQuoteInstallment(loanScheduleEntity.getInstallmentId().intValue(),
+                    new LocalDate(loanScheduleEntity.getActionDate()), loanScheduleEntity.getPrincipal(),
+                    loanScheduleEntity.getInterest()));
+        }
+        return new LoanScheduleQuote(installments, new Money(request.getCurrency()));
+    }
+}
@@ -0,0 +1,62 @@
+/*
+ * Copyright (c) 2005-2011 Grameen Foundation USA
+ * All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * See also http://www.apache.org/licenses/LICENSE-2.0.html for an
+ * explanation of the license and how it is applied.
+ */
+
+package org.mifos.clientportfolio.newloan.domain;
+
+import org.joda.time.LocalDate;
+import org.mifos.framework.util.helpers.Money;
+
+/**
+ * One repayment of a {@link LoanScheduleQuote}.
+ */
+public final class LoanScheduleQuoteInstallment {
+
+    private final int installmentNumber;
+    private final LocalDate dueDate;
+    private final Money principal;
+    private final Money interest;
+
+    public LoanScheduleQuoteInstallment(int installmentNumber, LocalDate dueDate, Money principal, Money interest) {
+        this.installmentNumber = installmentNumber;
+        this.dueDate = dueDate;
+        this.principal = principal;
+        this.interest = interest;
+    }
+
+    public int getInstallmentNumber() {
+        return this.installmentNumber;
+    }
+
+    public LocalDate getDueDate() {
+        return this.dueDate;
+    }
+
+    public Money getPrincipal() {
+        return this.principal;
+    }
+
+    public Money getInterest() {
+        return this.interest;
+    }
+
+    public Money getTotal() {
+        return this.principal.add(this.interest);
+    }
+}
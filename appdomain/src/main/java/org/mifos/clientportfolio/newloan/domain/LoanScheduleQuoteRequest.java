@@ -0,0 +1,192 @@
+/*
+ * Copyright (c) 2005-2011 Grameen Foundation USA
+ * All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * See also http://www.apache.org/licenses/LICENSE-2.0.html for an
+ * explanation of the license and how it is applied.
+ */
+
+package org.mifos.clientportfolio.newloan.domain;
+
+import java.math.BigDecimal;
+
+import org.apache.commons.lang.builder.EqualsBuilder;
+import org.apache.commons.lang.builder.HashCodeBuilder;
+import org.joda.time.LocalDate;
+import org.mifos.accounts.productdefinition.util.helpers.GraceType;
+import org.mifos.accounts.productdefinition.util.helpers.InterestType;
+import org.mifos.application.master.business.MifosCurrency;
+import org.mifos.application.meeting.util.helpers.RecurrenceType;
+
+/**
+ * The terms a loan schedule quote is computed from. The terms are normalized so that requests for the same schedule
+ * are equal and quotes can be cached on them: amounts are compared whatever their scale, the grace duration is
+ * dropped when there is no grace and the meeting only keeps the fields its recurrence uses.
+ */
+public final class LoanScheduleQuoteRequest {
+
+    private final Short officeId;
+    private final MifosCurrency currency;
+    private final BigDecimal loanAmount;
+    private final Double interestRate;
+    private final int numberOfInstallments;
+    private final LocalDate disbursementDate;
+    private final InterestType interestType;
+    private final GraceType graceType;
+    private final int graceDuration;
+    private final boolean variableInstallments;
+    private final int interestDays;
+    private final RecurrenceType recurrenceType;
+    private final int recurAfter;
+    private final int dayOfWeek;
+    private final int dayOfMonth;
+    private final int weekOfMonth;
+
+    /**
+     * @param dayOfWeek joda day of week, or 0
+     * @param dayOfMonth or 0
+     * @param weekOfMonth mifos week rank, or 0
+     */
+    public LoanScheduleQuoteRequest(Short officeId, MifosCurrency currency, BigDecimal loanAmount, Double interestRate,
+            int numberOfInstallments, LocalDate disbursementDate, InterestType interestType, GraceType graceType,
+            int graceDuration, boolean variableInstallments, int interestDays, RecurrenceType recurrenceType,
+            int recurAfter, int dayOfWeek, int dayOfMonth, int weekOfMonth) {
+        this.officeId = officeId;
+        this.currency = currency;
+        this.loanAmount = loanAmount.stripTrailingZeros();
+        this.interestRate = interestRate;
+        this.numberOfInstallments = numberOfInstallments;
+        this.disbursementDate = disbursementDate;
+        this.interestType = interestType;
+        this.graceType = graceType;
+        this.graceDuration = graceType == GraceType.NONE ? 0 : graceDuration;
+        this.variableInstallments = variableInstallments;
+        this.interestDays = interestDays;
+        this.recurrenceType = recurrenceType;
+        this.recurAfter = recurAfter;
+        if (recurrenceType == RecurrenceType.WEEKLY) {
+            this.dayOfWeek = dayOfWeek;
+            this.dayOfMonth = 0;
+            this.weekOfMonth = 0;
+        } else if (recurrenceType == RecurrenceType.MONTHLY && weekOfMonth != 0 && dayOfWeek != 0) {
+            this.dayOfWeek = dayOfWeek;
+            this.dayOfMonth = 0;
+            this.weekOfMonth = weekOfMonth;
+        } else if (recurrenceType == RecurrenceType.MONTHLY) {
+            this.dayOfWeek = 0;
+            this.dayOfMonth = dayOfMonth;
+            this.weekOfMonth = 0;
+        } else {
+            this.dayOfWeek = 0;
+            this.dayOfMonth = 0;
+            this.weekOfMonth = 0;
+        }
+    }
+
+    public Short getOfficeId() {
+        return this.officeId;
+    }
+
+    public MifosCurrency getCurrency() {
+        return this.currency;
+    }
+
+    public BigDecimal getLoanAmount() {
+        return this.loanAmount;
+    }
+
+    public Double getInterestRate() {
+        return this.interestRate;
+    }
+
+    public int getNumberOfInstallments() {
+        return this.numberOfInstallments;
+    }
+
+    public LocalDate getDisbursementDate() {
+        return this.disbursementDate;
+    }
+
+    public InterestType getInterestType() {
+        return this.interestType;
+    }
+
+    public GraceType getGraceType() {
+        return this.graceType;
+    }
+
+    public int getGraceDuration() {
+        return this.graceDuration;
+    }
+
+    public boolean isVariableInstallments() {
+        return this.variableInstallments;
+    }
+
+    public int getInterestDays() {
+        return this.interestDays;
+    }
+
+    public RecurrenceType getRecurrenceType() {
+        return this.recurrenceType;
+    }
+
+    public int getRecurAfter() {
+        return this.recurAfter;
+    }
+
+    public int getDayOfWeek() {
+        return this.dayOfWeek;
+    }
+
+    public int getDayOfMonth() {
+        return this.dayOfMonth;
+    }
+
+    public int getWeekOfMonth() {
+        return this.weekOfMonth;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (obj == this) {
+            return true;
+        }
+        if (!(obj instanceof LoanScheduleQuoteRequest)) {
+            return false;
+        }
+        LoanScheduleQuoteRequest rhs = (LoanScheduleQuoteRequest) obj;
+        return new EqualsBuilder().append(this.officeId, rhs.officeId)
+                .append(this.currency.getCurrencyId(), rhs.currency.getCurrencyId())
+                .append(this.loanAmount, rhs.loanAmount).append(this.interestRate, rhs.interestRate)
+                .append(this.numberOfInstallments, rhs.numberOfInstallments)
+                .append(this.disbursementDate, rhs.disbursementDate).append(this.interestType, rhs.interestType)
+                .append(this.graceType, rhs.graceType).append(this.graceDuration, rhs.graceDuration)
+                .append(this.variableInstallments, rhs.variableInstallments)
+                .append(this.interestDays, rhs.interestDays).append(this.recurrenceType, rhs.recurrenceType)
+                .append(this.recurAfter, rhs.recurAfter).append(this.dayOfWeek, rhs.dayOfWeek)
+                .append(this.dayOfMonth, rhs.dayOfMonth).append(this.weekOfMonth, rhs.weekOfMonth).isEquals();
+    }
+
+    @Override
+    public int hashCode() {
+        return new HashCodeBuilder().append(this.officeId).append(this.currency.getCurrencyId())
+                .append(this.loanAmount).append(this.interestRate).append(this.numberOfInstallments)
+                .append(this.disbursementDate).append(this.interestType).append(this.graceType)
+                .append(this.graceDuration).append(this.variableInstallments).append(this.interestDays)
+                .append(this.recurrenceType).append(this.recurAfter).append(this.dayOfWeek).append(this.dayOfMonth)
+                .append(this.weekOfMonth).toHashCode();
+    }
+}
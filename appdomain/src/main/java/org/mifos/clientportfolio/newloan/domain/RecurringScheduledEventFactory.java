@@ -21,10 +21,18 @@
 package org.mifos.clientportfolio.newloan.domain;
 
 import org.mifos.application.meeting.business.MeetingBO;
+import org.mifos.application.meeting.util.helpers.RecurrenceType;
 import org.mifos.schedule.ScheduledEvent;
 
 public interface RecurringScheduledEventFactory {
 
     ScheduledEvent createScheduledEventFrom(MeetingBO meeting);
 
+    /**
+     * @param dayOfWeek joda day of week, or 0 if the event is not on a week day
+     * @param dayOfMonth or 0 if the event is not on a day of the month
+     * @param weekOfMonth mifos week rank, or 0 if the event is not on a week of the month
+     */
+    ScheduledEvent createScheduledEvent(RecurrenceType period, int every, int dayOfWeek, int dayOfMonth, int weekOfMonth);
+
 }
\ No newline at end of file
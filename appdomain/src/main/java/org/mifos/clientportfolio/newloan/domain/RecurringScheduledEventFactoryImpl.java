@@ -33,7 +33,8 @@ public class RecurringScheduledEventFactoryImpl implements RecurringScheduledEve
         return createScheduledEvent(period, every, dayOfWeek, dayOfMonth, weekOfMonth);
 	}
 	
-    private ScheduledEvent createScheduledEvent(final RecurrenceType period, final int every,
+    @Override
+    public ScheduledEvent createScheduledEvent(final RecurrenceType period, final int every,
             final int dayOfWeek, final int dayOfMonth, final int weekOfMonth) {
 
         ScheduledEvent recurringEvent;
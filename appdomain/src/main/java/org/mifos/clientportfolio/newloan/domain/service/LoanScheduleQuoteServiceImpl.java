@@ -0,0 +1,110 @@
+/*
+ * Copyright (c) 2005-2011 Grameen Foundation USA
+ * All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * See also http://www.apache.org/licenses/LICENSE-2.0.html for an
+ * explanation of the license and how it is applied.
+ */
+
+package org.mifos.clientportfolio.newloan.domain.service;
+
+import org.apache.commons.lang.builder.EqualsBuilder;
+import org.apache.commons.lang.builder.HashCodeBuilder;
+import org.joda.time.LocalDate;
+import org.mifos.application.holiday.persistence.HolidayDao;
+import org.mifos.application.holiday.persistence.HolidayIndexCache;
+import org.mifos.calendar.HolidayIndex;
+import org.mifos.clientportfolio.newloan.domain.LoanScheduleQuote;
+import org.mifos.clientportfolio.newloan.domain.LoanScheduleQuoteCalculator;
+import org.mifos.clientportfolio.newloan.domain.LoanScheduleQuoteRequest;
+import org.mifos.framework.cache.CacheRegion;
+import org.mifos.framework.cache.MifosCacheManager;
+import org.mifos.framework.util.DateTimeService;
+import org.springframework.beans.factory.annotation.Autowired;
+
+/**
+ * Keeps the most recently used quotes in the {@value #REGION_NAME} region of the {@link MifosCacheManager}. Quotes
+ * are keyed on the request, the version of the holiday calendar and today's date, so a changed holiday or the end of
+ * a holiday makes earlier quotes unreachable rather than wrong.
+ */
+public class LoanScheduleQuoteServiceImpl implements LoanScheduleQuoteService {
+
+    public static final String REGION_NAME = "loanScheduleQuote";
+
+    private static final int MAX_ENTRIES = 5000;
+
+    /**
+     * Same guard as the holiday indexes the quotes are computed from.
+     */
+    private static final long TIME_TO_LIVE_IN_MILLIS = 60 * 60 * 1000L;
+
+    private final HolidayDao holidayDao;
+    private final LoanScheduleQuoteCalculator calculator = new LoanScheduleQuoteCalculator();
+
+    @Autowired
+    public LoanScheduleQuoteServiceImpl(HolidayDao holidayDao) {
+        this.holidayDao = holidayDao;
+    }
+
+    @Override
+    public LoanScheduleQuote quote(LoanScheduleQuoteRequest request) {
+        // read the version before the holidays, so a quote computed from holidays that just changed is never
+        // stored under the new version
+        QuoteKey key = new QuoteKey(request, HolidayIndexCache.getVersion(), new DateTimeService()
+                .getCurrentDateTime().toLocalDate());
+        CacheRegion<QuoteKey, LoanScheduleQuote> region = region();
+
+        LoanScheduleQuote quote = region.get(key);
+        if (quote == null) {
+            HolidayIndex holidays = HolidayIndexCache.getCurrentAndFutureHolidays(request.getOfficeId(), holidayDao);
+            quote = calculator.calculate(request, holidays);
+            region.put(key, quote);
+        }
+        return quote;
+    }
+
+    private static CacheRegion<QuoteKey, LoanScheduleQuote> region() {
+        return MifosCacheManager.getInstance().getOrCreateRegion(REGION_NAME, MAX_ENTRIES, TIME_TO_LIVE_IN_MILLIS);
+    }
+
+    private static final class QuoteKey {
+
+        private final LoanScheduleQuoteRequest request;
+        private final long holidayVersion;
+        private final LocalDate today;
+
+        QuoteKey(LoanScheduleQuoteRequest request, long holidayVersion, LocalDate today) {
+            this.request = request;
+            this.holidayVersion = holidayVersion;
+            this.today = today;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof QuoteKey)) {
+                return false;
+            }
+            QuoteKey rhs = (QuoteKey) obj;
+            return new EqualsBuilder().append(this.request, rhs.request).append(this.holidayVersion, rhs.holidayVersion)
+                    .append(this.today, rhs.today).isEquals();
+        }
+
+        @Override
+        public int hashCode() {
+            return new HashCodeBuilder().append(this.request).append(this.holidayVersion).append(this.today)
+                    .toHashCode();
+        }
+    }
+}
@@ -28,7 +28,17 @@ public class GeneralConfig {
     public static final String BatchSizeForBatchJobs = "GeneralConfig.BatchSizeForBatchJobs";
     public static final String RecordCommittingSizeForBatchJobs = "GeneralConfig.RecordCommittingSizeForBatchJobs";
     public static final String OutputIntervalForBatchJobs = "GeneralConfig.OutputIntervalForBatchJobs";
+    public static final String ThreadPoolSizeForBatchJobs = "GeneralConfig.ThreadPoolSizeForBatchJobs";
+    public static final String OnlineRecordCommittingSizeForBatchJobs = "GeneralConfig.OnlineRecordCommittingSizeForBatchJobs";
+    public static final String OnlineThrottleInMillisForBatchJobs = "GeneralConfig.OnlineThrottleInMillisForBatchJobs";
+    public static final String SetBasedPortfolioAtRiskCalculation = "GeneralConfig.SetBasedPortfolioAtRiskCalculation";
     public static final String allowDataPrefetchingWhenSavingCollectionSheets = "GeneralConfig.allowDataPrefetchingWhenSavingCollectionSheets";
+    public static final String SinglePassCollectionSheetRetrieval = "GeneralConfig.SinglePassCollectionSheetRetrieval";
+    public static final String AsynchronousAuditLogging = "GeneralConfig.AsynchronousAuditLogging";
+    public static final String CustomerSearchIndex = "GeneralConfig.CustomerSearchIndex";
+    public static final String BulkPaymentCommitSize = "GeneralConfig.BulkPaymentCommitSize";
+    public static final String SlowRequestThresholdInMillis = "GeneralConfig.SlowRequestThresholdInMillis";
+    public static final String BatchedFinancialTransactionInserts = "GeneralConfig.BatchedFinancialTransactionInserts";
 
     public static int getMaxPointsPerPPISurvey() {
         int maxPointsPerPPISurvey = 101; // default value is 101
@@ -66,6 +76,43 @@ public class GeneralConfig {
         return outputRecordIntervalForBatchJobs;
     }
 
+    public static int getThreadPoolSizeForBatchJobs() {
+        int threadPoolSizeForBatchJobs = 1; // default value is 1
+        MifosConfigurationManager configMgr = MifosConfigurationManager.getInstance();
+        if (configMgr.containsKey(ThreadPoolSizeForBatchJobs)) {
+            threadPoolSizeForBatchJobs = configMgr.getInt(ThreadPoolSizeForBatchJobs);
+        }
+        return threadPoolSizeForBatchJobs;
+    }
+
+    public static int getOnlineRecordCommittingSizeForBatchJobs() {
+        int onlineRecordCommittingSizeForBatchJobs = 20; // default value is 20
+        MifosConfigurationManager configMgr = MifosConfigurationManager.getInstance();
+        if (configMgr.containsKey(OnlineRecordCommittingSizeForBatchJobs)) {
+            onlineRecordCommittingSizeForBatchJobs = configMgr.getInt(OnlineRecordCommittingSizeForBatchJobs);
+        }
+        return onlineRecordCommittingSizeForBatchJobs;
+    }
+
+    public static long getOnlineThrottleInMillisForBatchJobs() {
+        long onlineThrottleInMillisForBatchJobs = 50; // default value is 50
+        MifosConfigurationManager configMgr = MifosConfigurationManager.getInstance();
+        if (configMgr.containsKey(OnlineThrottleInMillisForBatchJobs)) {
+            onlineThrottleInMillisForBatchJobs = configMgr.getInt(OnlineThrottleInMillisForBatchJobs);
+        }
+        return onlineThrottleInMillisForBatchJobs;
+    }
+
+    public static Boolean getSetBasedPortfolioAtRiskCalculation() {
+        Boolean setBasedPortfolioAtRiskCalculation = false; // default value is false
+        MifosConfigurationManager configMgr = MifosConfigurationManager.getInstance();
+        if (configMgr.containsKey(SetBasedPortfolioAtRiskCalculation)) {
+            setBasedPortfolioAtRiskCalculation = configMgr.getBoolean(SetBasedPortfolioAtRiskCalculation,
+                    setBasedPortfolioAtRiskCalculation);
+        }
+        return setBasedPortfolioAtRiskCalculation;
+    }
+
     public static Boolean getAllowDataPrefetchingWhenSavingCollectionSheets() {
         Boolean allowDataPrefetching = true; // default value is true
         MifosConfigurationManager configMgr = MifosConfigurationManager.getInstance();
@@ -75,4 +122,60 @@ public class GeneralConfig {
         return allowDataPrefetching;
     }
 
+    public static Boolean getSinglePassCollectionSheetRetrieval() {
+        Boolean singlePassCollectionSheetRetrieval = false; // default value is false
+        MifosConfigurationManager configMgr = MifosConfigurationManager.getInstance();
+        if (configMgr.containsKey(SinglePassCollectionSheetRetrieval)) {
+            singlePassCollectionSheetRetrieval = configMgr.getBoolean(SinglePassCollectionSheetRetrieval,
+                    singlePassCollectionSheetRetrieval);
+        }
+        return singlePassCollectionSheetRetrieval;
+    }
+
+    public static Boolean getAsynchronousAuditLogging() {
+        Boolean asynchronousAuditLogging = false; // default value is false
+        MifosConfigurationManager configMgr = MifosConfigurationManager.getInstance();
+        if (configMgr.containsKey(AsynchronousAuditLogging)) {
+            asynchronousAuditLogging = configMgr.getBoolean(AsynchronousAuditLogging, asynchronousAuditLogging);
+        }
+        return asynchronousAuditLogging;
+    }
+
+    public static Boolean getCustomerSearchIndex() {
+        Boolean customerSearchIndex = false; // default value is false
+        MifosConfigurationManager configMgr = MifosConfigurationManager.getInstance();
+        if (configMgr.containsKey(CustomerSearchIndex)) {
+            customerSearchIndex = configMgr.getBoolean(CustomerSearchIndex, customerSearchIndex);
+        }
+        return customerSearchIndex;
+    }
+
+    public static int getBulkPaymentCommitSize() {
+        int bulkPaymentCommitSize = 100; // default value is 100
+        MifosConfigurationManager configMgr = MifosConfigurationManager.getInstance();
+        if (configMgr.containsKey(BulkPaymentCommitSize)) {
+            bulkPaymentCommitSize = configMgr.getInt(BulkPaymentCommitSize);
+        }
+        return bulkPaymentCommitSize;
+    }
+
+    public static int getSlowRequestThresholdInMillis() {
+        int slowRequestThresholdInMillis = 2000; // default value is 2000
+        MifosConfigurationManager configMgr = MifosConfigurationManager.getInstance();
+        if (configMgr.containsKey(SlowRequestThresholdInMillis)) {
+            slowRequestThresholdInMillis = configMgr.getInt(SlowRequestThresholdInMillis);
+        }
+        return slowRequestThresholdInMillis;
+    }
+
+    public static Boolean getBatchedFinancialTransactionInserts() {
+        Boolean batchedFinancialTransactionInserts = false; // default value is false
+        MifosConfigurationManager configMgr = MifosConfigurationManager.getInstance();
+        if (configMgr.containsKey(BatchedFinancialTransactionInserts)) {
+            batchedFinancialTransactionInserts = configMgr.getBoolean(BatchedFinancialTransactionInserts,
+                    batchedFinancialTransactionInserts);
+        }
+        return batchedFinancialTransactionInserts;
+    }
+
 }
@@ -22,11 +22,17 @@ package org.mifos.config.business;
 
 import org.mifos.config.cache.CacheRepository;
 import org.mifos.config.cache.Key;
+import org.mifos.framework.cache.CacheRegion;
 import org.mifos.framework.util.helpers.Constants;
 import org.mifos.security.authorization.HierarchyManager;
 
 public class BaseConfig {
 
+    /**
+     * Cached in place of configuration that is not set for an office or any of its parents.
+     */
+    private static final Object NO_VALUE = new Object();
+
     private OfficeConfig officeConfig;
     private CacheRepository cacheRepo;
     private HierarchyManager hierarchyManager = HierarchyManager.getInstance();
@@ -37,7 +43,17 @@ public class BaseConfig {
     }
 
     protected Object getValueFromCache(String key) {
-        return getValueFromCache(new Key(officeConfig.getOfficeId(), key));
+        Key cacheKey = new Key(officeConfig.getOfficeId(), key);
+        if (cacheKey.getOfficeId() == null) {
+            return null;
+        }
+        CacheRegion<Key, Object> lookupCache = cacheRepo.getOfficeConfigurationLookupCache();
+        Object value = lookupCache.get(cacheKey);
+        if (value == null) {
+            value = getValueFromCache(cacheKey);
+            lookupCache.put(cacheKey, (value != null) ? value : NO_VALUE);
+        }
+        return (value != NO_VALUE) ? value : null;
     }
 
     private Object getValueFromCache(Key key) {
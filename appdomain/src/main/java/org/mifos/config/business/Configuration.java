@@ -38,8 +38,6 @@ public class Configuration {
      */
     private Map<Short, OfficeConfig> officeConfigMap;
 
-    private SystemConfiguration systemConfig;
-
     private static CacheRepository cacheRepo;
 
     private static Configuration config;
@@ -55,16 +53,9 @@ public class Configuration {
     private void initialize() {
         synchronized (cacheRepo) {
             new ConfigurationInitializer().initialize();
-            initializeSystemConfiguration();
         }
     }
 
-    // TODO:Currently offset is being passed for TimeZone. It should be changed
-    // to Timezone value picked from database
-    private void initializeSystemConfiguration() {
-        systemConfig = cacheRepo.getSystemConfiguration();
-    }
-
     private Configuration() {
         cacheRepo = CacheRepository.getInstance();
         officeConfigMap = new Hashtable<Short, OfficeConfig>();
@@ -85,7 +76,15 @@ public class Configuration {
         return officeConfig;
     }
 
+    // TODO:Currently offset is being passed for TimeZone. It should be changed
+    // to Timezone value picked from database
     public SystemConfiguration getSystemConfig() {
+        SystemConfiguration systemConfig = cacheRepo.getSystemConfiguration();
+        if (systemConfig == null) {
+            // invalidated since start up
+            initialize();
+            systemConfig = cacheRepo.getSystemConfiguration();
+        }
         return systemConfig;
     }
 
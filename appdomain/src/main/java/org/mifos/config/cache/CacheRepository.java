@@ -20,16 +20,42 @@
 
 package org.mifos.config.cache;
 
+import java.util.Collections;
+
 import org.mifos.config.business.SystemConfiguration;
+import org.mifos.framework.cache.CacheRegion;
+import org.mifos.framework.cache.MifosCacheManager;
+import org.mifos.framework.hibernate.helper.ReferenceDataCache;
 
 public class CacheRepository {
 
-    private SystemConfiguration systemConfiguration;
+    public static final String SYSTEM_CONFIGURATION_REGION = "systemConfiguration";
+    public static final String OFFICE_CONFIGURATION_REGION = "officeConfiguration";
+    public static final String OFFICE_CONFIGURATION_LOOKUP_REGION = "officeConfigurationLookups";
+
+    private static final String SYSTEM_CONFIGURATION_KEY = "systemConfiguration";
+    /**
+     * Only the head office has configuration at present, so this is never reached; it only guards against
+     * unbounded growth.
+     */
+    private static final int OFFICE_CONFIGURATION_MAX_ENTRIES = 1000;
+    private static final int OFFICE_CONFIGURATION_LOOKUP_MAX_ENTRIES = 5000;
+    private static final long OFFICE_CONFIGURATION_LOOKUP_TIME_TO_LIVE = 30 * 60 * 1000L;
+
+    private final CacheRegion<String, SystemConfiguration> systemConfigurationCache;
+    private final CacheRegion<Key, Object> officeConfigurationCache;
+    private final CacheRegion<Key, Object> officeConfigurationLookupCache;
     private OfficeCache officeCache;
     private static CacheRepository cacheRep = new CacheRepository();
 
     private CacheRepository() {
-        officeCache = new OfficeCache();
+        MifosCacheManager cacheManager = MifosCacheManager.getInstance();
+        systemConfigurationCache = cacheManager.getOrCreateRegion(SYSTEM_CONFIGURATION_REGION, 1, 0);
+        officeConfigurationCache = cacheManager.getOrCreateRegion(OFFICE_CONFIGURATION_REGION,
+                OFFICE_CONFIGURATION_MAX_ENTRIES, 0);
+        officeConfigurationLookupCache = cacheManager.getOrCreateRegion(OFFICE_CONFIGURATION_LOOKUP_REGION,
+                OFFICE_CONFIGURATION_LOOKUP_MAX_ENTRIES, OFFICE_CONFIGURATION_LOOKUP_TIME_TO_LIVE);
+        officeCache = new OfficeCache(officeConfigurationCache, Collections.<Key, Object> emptyMap());
     }
 
     public OfficeCache getOfficeCache() {
@@ -38,22 +64,58 @@ public class CacheRepository {
 
     public void setOfficeCache(OfficeCache officeCache) {
         this.officeCache = officeCache;
+        officeConfigurationLookupCache.invalidateAll();
     }
 
     public void setSystemConfiguration(SystemConfiguration configuration) {
-        this.systemConfiguration = configuration;
+        if (configuration == null) {
+            systemConfigurationCache.invalidateAll();
+        } else {
+            systemConfigurationCache.put(SYSTEM_CONFIGURATION_KEY, configuration);
+        }
+    }
+
+    /**
+     * The region the {@link OfficeCache} keeps its elements in.
+     */
+    public CacheRegion<Key, Object> getOfficeConfigurationCache() {
+        return officeConfigurationCache;
     }
 
     public Object getValueFromOfficeCache(Key key) {
         return (key != null) ? officeCache.getElement(key) : null;
     }
 
+    /**
+     * Values of office configuration after falling back through the office hierarchy, keyed by the office asked for.
+     */
+    public CacheRegion<Key, Object> getOfficeConfigurationLookupCache() {
+        return officeConfigurationLookupCache;
+    }
+
+    /**
+     * To be called when office level configuration (e.g. lateness or dormancy days) has changed.
+     */
+    public void invalidateOfficeConfiguration() {
+        officeCache.invalidate();
+        officeConfigurationLookupCache.invalidateAll();
+    }
+
+    /**
+     * To be called when an office is created or moved in the hierarchy. Moving an office rewrites the search ids of
+     * its descendants, so the offices in the second level cache are evicted as well.
+     */
+    public void invalidateOfficeHierarchy() {
+        officeConfigurationLookupCache.invalidateAll();
+        ReferenceDataCache.evictOffices();
+    }
+
     public static CacheRepository getInstance() {
         return cacheRep;
     }
 
     public SystemConfiguration getSystemConfiguration() {
-        return systemConfiguration;
+        return systemConfigurationCache.get(SYSTEM_CONFIGURATION_KEY);
     }
 
 }
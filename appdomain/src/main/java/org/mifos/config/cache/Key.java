@@ -28,9 +28,13 @@ public class Key {
 
     private Short officeId;
     private String key;
+    /**
+     * key in lower case, worked out once rather than on every hashCode/equals of a cache lookup.
+     */
+    private String normalizedKey;
 
     public Key(Short officeId, String key) {
-        this.key = key;
+        setKey(key);
         this.officeId = officeId;
     }
 
@@ -40,6 +44,7 @@ public class Key {
 
     public void setKey(String key) {
         this.key = key;
+        this.normalizedKey = (key == null) ? null : key.toLowerCase();
     }
 
     public Short getOfficeId() {
@@ -54,7 +59,7 @@ public class Key {
     public int hashCode() {
         final int PRIME = 31;
         int result = 17;
-        result = PRIME * result + ((key == null) ? 0 : key.toLowerCase().hashCode());
+        result = PRIME * result + ((key == null) ? 0 : normalizedKey.hashCode());
         result = PRIME * result + ((officeId == null) ? 0 : officeId.hashCode());
         return result;
     }
@@ -71,11 +76,11 @@ public class Key {
             return false;
         }
         final Key other = (Key) obj;
-        if (key == null) {
-            if (other.key != null) {
+        if (normalizedKey == null) {
+            if (other.normalizedKey != null) {
                 return false;
             }
-        } else if (!key.equalsIgnoreCase(other.key)) {
+        } else if (!normalizedKey.equals(other.normalizedKey)) {
             return false;
         }
         if (officeId == null) {
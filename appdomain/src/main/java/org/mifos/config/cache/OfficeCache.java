@@ -22,22 +22,77 @@ package org.mifos.config.cache;
 
 import java.util.Map;
 
+import org.mifos.framework.cache.CacheLoader;
+import org.mifos.framework.cache.CacheRegion;
+
 /**
  * This class defines methods which allow elements to be put into or retrieved
- * from the Cache which composite key. Cache is maintained as a hashmap. Here
- * Key is the combination of officeId and a String Constant.
+ * from the Cache which composite key. The elements are held in the region
+ * given on construction, which {@link CacheRepository} registers once. Here Key
+ * is the combination of officeId and a String Constant.
  */
 public class OfficeCache {
-    private Map<Key, Object> cache;
 
-    public OfficeCache() {
+    private final CacheRegion<Key, Object> cache;
+    private final CacheLoader<Key, Object> loader;
+    private volatile boolean loaded;
+
+    public OfficeCache(CacheRegion<Key, Object> cache, Map<Key, Object> initialElements) {
+        this(cache, initialElements, null);
     }
 
-    public OfficeCache(Map<Key, Object> cache) {
+    /**
+     * Replaces the contents of the region with the given elements.
+     *
+     * @param loader used to repopulate the cache after {@link #invalidate()}, may be null
+     */
+    public OfficeCache(CacheRegion<Key, Object> cache, Map<Key, Object> initialElements,
+            CacheLoader<Key, Object> loader) {
         this.cache = cache;
+        this.loader = loader;
+        cache.invalidateAll();
+        putAll(initialElements);
+        this.loaded = true;
     }
 
     public Object getElement(Key key) {
-        return (key != null) ? cache.get(key) : null;
+        if (key == null) {
+            return null;
+        }
+        if (!loaded) {
+            return loadAndGet(key);
+        }
+        Object element = cache.get(key);
+        if (element == null && loader != null) {
+            // the elements may have been dropped by invalidate() after loaded was read
+            return loadAndGet(key);
+        }
+        return element;
+    }
+
+    /**
+     * Drops all elements; they are loaded again on next use if this cache was given a loader. The loaded flag is
+     * reset before the elements go, so a reader that finds an element missing always reloads.
+     */
+    public synchronized void invalidate() {
+        loaded = (loader == null);
+        cache.invalidateAll();
+    }
+
+    private synchronized Object loadAndGet(Key key) {
+        if (!loaded) {
+            putAll(loader.loadAll());
+            loaded = true;
+        }
+        return cache.get(key);
+    }
+
+    private void putAll(Map<Key, Object> elements) {
+        for (Map.Entry<Key, Object> element : elements.entrySet()) {
+            // absent configuration is cached as no element at all
+            if (element.getValue() != null) {
+                cache.put(element.getKey(), element.getValue());
+            }
+        }
     }
 }
@@ -37,8 +37,10 @@ import org.mifos.config.cache.CacheRepository;
 import org.mifos.config.cache.Key;
 import org.mifos.config.cache.OfficeCache;
 import org.mifos.config.persistence.ConfigurationPersistence;
+import org.mifos.core.MifosRuntimeException;
 import org.mifos.customers.office.business.OfficeBO;
 import org.mifos.customers.office.persistence.OfficePersistence;
+import org.mifos.framework.cache.CacheLoader;
 import org.mifos.framework.exceptions.ApplicationException;
 import org.mifos.framework.exceptions.ConstantsNotLoadedException;
 import org.mifos.framework.exceptions.StartUpException;
@@ -75,13 +77,28 @@ public class ConfigurationInitializer {
     }
 
     protected OfficeCache createOfficeCache() throws SystemException, ApplicationException {
+        CacheLoader<Key, Object> reloader = new CacheLoader<Key, Object>() {
+            @Override
+            public Map<Key, Object> loadAll() {
+                try {
+                    return createOfficeConfiguration();
+                } catch (ApplicationException e) {
+                    throw new MifosRuntimeException(e);
+                }
+            }
+        };
+        return new OfficeCache(CacheRepository.getInstance().getOfficeConfigurationCache(),
+                createOfficeConfiguration(), reloader);
+    }
+
+    private Map<Key, Object> createOfficeConfiguration() throws SystemException, ApplicationException {
         Map<Key, Object> officeConfigMap = new HashMap<Key, Object>();
 
         setFiscalStartOfWeek(officeConfigMap);
         setWeekOffList(officeConfigMap);
         setLateNessAndDormancyDaysForAccount(officeConfigMap);
 
-        return new OfficeCache(officeConfigMap);
+        return officeConfigMap;
     }
 
     private void setFiscalStartOfWeek(Map<Key, Object> officeConfigMap) throws SystemException, ApplicationException {
@@ -0,0 +1,63 @@
+/*
+ * Copyright (c) 2005-2011 Grameen Foundation USA
+ * All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * See also http://www.apache.org/licenses/LICENSE-2.0.html for an
+ * explanation of the license and how it is applied.
+ */
+
+package org.mifos.customers.group;
+
+import org.mifos.framework.util.helpers.Money;
+
+/**
+ * Outstanding and at-risk principal of a group and of the active clients below it, as computed for all groups at once
+ * by the set based portfolio at risk calculation.
+ */
+public class GroupPortfolioAtRiskAmounts {
+
+    private final Integer groupId;
+    private final Money atRiskLoanAmount;
+    private final Money outstandingLoanAmount;
+    private final boolean currencyMismatch;
+
+    public GroupPortfolioAtRiskAmounts(Integer groupId, Money atRiskLoanAmount, Money outstandingLoanAmount,
+            boolean currencyMismatch) {
+        this.groupId = groupId;
+        this.atRiskLoanAmount = atRiskLoanAmount;
+        this.outstandingLoanAmount = outstandingLoanAmount;
+        this.currencyMismatch = currencyMismatch;
+    }
+
+    public Integer getGroupId() {
+        return this.groupId;
+    }
+
+    public Money getAtRiskLoanAmount() {
+        return this.atRiskLoanAmount;
+    }
+
+    public Money getOutstandingLoanAmount() {
+        return this.outstandingLoanAmount;
+    }
+
+    /**
+     * true if the loans of the group and its clients are in more than one currency, in which case no portfolio at risk
+     * can be calculated.
+     */
+    public boolean isCurrencyMismatch() {
+        return this.currencyMismatch;
+    }
+}
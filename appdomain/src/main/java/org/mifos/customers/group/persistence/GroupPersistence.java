@@ -20,9 +20,13 @@
 
 package org.mifos.customers.group.persistence;
 
+import java.sql.Connection;
 import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -188,6 +192,92 @@ public class GroupPersistence extends LegacyGenericDao {
         return result;
     }
 
+    /**
+     * Bulk variant of {@link #updateGroupInfoAndGroupPerformanceHistoryForPortfolioAtRisk(double, Integer)} used by the
+     * set based PAR calculation. Updates are sent to the database as JDBC batches of <code>batchSize</code> groups and
+     * every batch is committed in its own transaction, so row locks are held for one batch only while users are
+     * working online. When a batch fails, the batches committed before it stay committed.
+     *
+     * @return ids of the groups for which no group performance history row exists
+     */
+    public List<Integer> updateGroupInfoAndGroupPerformanceHistoryForPortfolioAtRisk(
+            Map<Integer, Double> portfolioAtRiskByGroupId, int batchSize) throws PersistenceException {
+        List<Integer> groupsNotUpdated = new ArrayList<Integer>();
+        Date currentDate = new DateTimeService().getCurrentJavaSqlDate();
+        try {
+            Map<Integer, Double> batch = new LinkedHashMap<Integer, Double>();
+            for (Map.Entry<Integer, Double> portfolioAtRisk : portfolioAtRiskByGroupId.entrySet()) {
+                batch.put(portfolioAtRisk.getKey(), portfolioAtRisk.getValue());
+                if (batch.size() == batchSize) {
+                    updatePortfolioAtRiskBatch(batch, currentDate, groupsNotUpdated);
+                    batch.clear();
+                }
+            }
+            if (!batch.isEmpty()) {
+                updatePortfolioAtRiskBatch(batch, currentDate, groupsNotUpdated);
+            }
+        } finally {
+            StaticHibernateUtil.closeSession();
+        }
+        return groupsNotUpdated;
+    }
+
+    private void updatePortfolioAtRiskBatch(Map<Integer, Double> portfolioAtRiskByGroupId, Date currentDate,
+            List<Integer> groupsNotUpdated) throws PersistenceException {
+        Session session = StaticHibernateUtil.getSessionTL();
+        PreparedStatement updateGroup = null;
+        PreparedStatement updateGroupPerformanceHistory = null;
+        try {
+            StaticHibernateUtil.startTransaction();
+
+            short userId = 1; // this is bach job, so no user
+            Connection connection = session.connection();
+            updateGroup = connection
+                    .prepareStatement("update customer set updated_by = ?, updated_date = ? where customer_id = ?");
+            updateGroupPerformanceHistory = connection
+                    .prepareStatement("update group_perf_history set portfolio_at_risk = ? where customer_id = ?");
+
+            List<Integer> batchGroupIds = new ArrayList<Integer>();
+            for (Map.Entry<Integer, Double> portfolioAtRisk : portfolioAtRiskByGroupId.entrySet()) {
+                updateGroup.setShort(1, userId);
+                updateGroup.setDate(2, currentDate);
+                updateGroup.setInt(3, portfolioAtRisk.getKey());
+                updateGroup.addBatch();
+
+                updateGroupPerformanceHistory.setDouble(1, portfolioAtRisk.getValue());
+                updateGroupPerformanceHistory.setInt(2, portfolioAtRisk.getKey());
+                updateGroupPerformanceHistory.addBatch();
+
+                batchGroupIds.add(portfolioAtRisk.getKey());
+            }
+            updateGroup.executeBatch();
+            int[] rows = updateGroupPerformanceHistory.executeBatch();
+            for (int i = 0; i < rows.length; i++) {
+                if (rows[i] == 0) {
+                    groupsNotUpdated.add(batchGroupIds.get(i));
+                }
+            }
+
+            StaticHibernateUtil.commitTransaction();
+        } catch (SQLException e) {
+            StaticHibernateUtil.rollbackTransaction();
+            throw new PersistenceException(e);
+        } finally {
+            closeQuietly(updateGroup);
+            closeQuietly(updateGroupPerformanceHistory);
+        }
+    }
+
+    private void closeQuietly(PreparedStatement statement) {
+        if (statement != null) {
+            try {
+                statement.close();
+            } catch (SQLException e) {
+                // nothing to do, the statement will be closed with its connection
+            }
+        }
+    }
+
     /**
      * @deprecated - use {@link CustomerService#createGroup(GroupBO, org.mifos.application.meeting.business.MeetingBO, List)}.
      * use {@link CustomerDao#save(org.mifos.customers.business.CustomerBO)}.
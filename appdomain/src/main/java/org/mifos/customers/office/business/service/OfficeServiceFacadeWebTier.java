@@ -31,6 +31,7 @@ import org.mifos.application.admin.servicefacade.OfficeServiceFacade;
 import org.mifos.application.holiday.persistence.HolidayDao;
 import org.mifos.application.master.MessageLookup;
 import org.mifos.application.servicefacade.ApplicationContextProvider;
+import org.mifos.config.cache.CacheRepository;
 import org.mifos.core.MifosRuntimeException;
 import org.mifos.customers.office.business.OfficeBO;
 import org.mifos.customers.office.exceptions.OfficeException;
@@ -95,6 +96,7 @@ public class OfficeServiceFacadeWebTier implements OfficeServiceFacade {
 
         try {
             boolean isParentOfficeChanged = false;
+            boolean isOfficeMoved = false;
 
             OfficeBO office = officeDao.findOfficeById(officeId);
             office.validateVersion(versionNum);
@@ -105,6 +107,7 @@ public class OfficeServiceFacadeWebTier implements OfficeServiceFacade {
                 parentOffice = officeDao.findOfficeById(officeUpdateRequest.getParentOfficeId());
 
                 if (office.isDifferentParentOffice(parentOffice)) {
+                    isOfficeMoved = true;
                     holidayDao.validateNoExtraFutureHolidaysApplicableOnParentOffice(office.getParentOffice()
                             .getOfficeId(), officeUpdateRequest.getParentOfficeId());
                 }
@@ -136,6 +139,10 @@ public class OfficeServiceFacadeWebTier implements OfficeServiceFacade {
             StaticHibernateUtil.startTransaction();
             office.update(userContext, officeUpdateRequest, parentOffice);
             StaticHibernateUtil.commitTransaction();
+            CacheRepository.getInstance().invalidateOfficeHierarchy();
+            if (isOfficeMoved) {
+                HierarchyManager.getInstance().officeMoved(office.getOfficeId());
+            }
             return isParentOfficeChanged;
         } catch (OfficeException e1) {
             throw new BusinessRuleException(e1.getKey(), e1);
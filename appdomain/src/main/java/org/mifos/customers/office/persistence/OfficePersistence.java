@@ -29,6 +29,7 @@ import org.hibernate.Query;
 import org.hibernate.Session;
 import org.mifos.application.NamedQueryConstants;
 import org.mifos.application.holiday.business.HolidayBO;
+import org.mifos.application.holiday.persistence.HolidayIndexCache;
 import org.mifos.customers.office.business.OfficeBO;
 import org.mifos.customers.office.util.helpers.OfficeConstants;
 import org.mifos.customers.office.util.helpers.OfficeLevel;
@@ -74,6 +75,16 @@ public class OfficePersistence extends LegacyGenericDao {
         return executeNamedQuery(NamedQueryConstants.GET_ALL_OFFICES, null);
     }
 
+    /**
+     * @return the office as held by the {@link HierarchyManager}, or null if not found
+     */
+    public OfficeCacheDto getOfficeForHierarchy(Short officeId) throws PersistenceException {
+        HashMap<String, Object> queryParameters = new HashMap<String, Object>();
+        queryParameters.put("OFFICE_ID", officeId);
+        return (OfficeCacheDto) execUniqueResultNamedQuery(NamedQueryConstants.GET_OFFICE_FOR_HIERARCHY,
+                queryParameters);
+    }
+
     public String getSearchId(Short officeId) throws PersistenceException {
         String searchId = "";
         HashMap<String, Object> queryParameters = new HashMap<String, Object>();
@@ -98,11 +109,16 @@ public class OfficePersistence extends LegacyGenericDao {
     }
 
     public void addHoliday(Short officeId, HolidayBO holiday) throws PersistenceException {
+        addHolidayToOfficeAndChildren(officeId, holiday);
+        HolidayIndexCache.invalidateAfterTransaction();
+    }
+
+    private void addHolidayToOfficeAndChildren(Short officeId, HolidayBO holiday) throws PersistenceException {
         OfficeBO office = getOffice(officeId);
         office.addHoliday(holiday);
         createOrUpdate(holiday);
         for (OfficeBO childOffice : office.getChildren()) {
-            addHoliday(childOffice.getOfficeId(), holiday);
+            addHolidayToOfficeAndChildren(childOffice.getOfficeId(), holiday);
         }
     }
 
@@ -34,6 +34,7 @@ import java.util.Set;
 import org.apache.commons.collections.CollectionUtils;
 import org.apache.commons.collections.Predicate;
 import org.hibernate.Hibernate;
+import org.hibernate.HibernateException;
 import org.hibernate.Query;
 import org.hibernate.Session;
 import org.mifos.accounts.business.AccountActionDateEntity;
@@ -41,7 +42,6 @@ import org.mifos.accounts.business.AccountBO;
 import org.mifos.accounts.business.AccountStateEntity;
 import org.mifos.accounts.persistence.LegacyAccountDao;
 import org.mifos.accounts.savings.business.SavingsBO;
-import org.mifos.accounts.savings.persistence.GenericDaoHibernate;
 import org.mifos.accounts.util.helpers.AccountState;
 import org.mifos.accounts.util.helpers.AccountTypes;
 import org.mifos.accounts.util.helpers.PaymentStatus;
@@ -53,6 +53,7 @@ import org.mifos.application.servicefacade.ApplicationContextProvider;
 import org.mifos.application.servicefacade.CollectionSheetCustomerDto;
 import org.mifos.config.AccountingRules;
 import org.mifos.config.ClientRules;
+import org.mifos.config.GeneralConfig;
 import org.mifos.config.exceptions.ConfigurationException;
 import org.mifos.core.CurrencyMismatchException;
 import org.mifos.customers.api.CustomerLevel;
@@ -68,12 +69,15 @@ import org.mifos.customers.client.business.ClientBO;
 import org.mifos.customers.client.business.CustomerPictureEntity;
 import org.mifos.customers.exceptions.CustomerException;
 import org.mifos.customers.group.BasicGroupInfo;
+import org.mifos.customers.group.GroupPortfolioAtRiskAmounts;
 import org.mifos.customers.group.business.GroupBO;
 import org.mifos.customers.office.business.OfficeBO;
 import org.mifos.customers.office.persistence.OfficePersistence;
 import org.mifos.customers.personnel.business.PersonnelBO;
 import org.mifos.customers.personnel.persistence.LegacyPersonnelDao;
 import org.mifos.customers.personnel.util.helpers.PersonnelLevel;
+import org.mifos.customers.search.CustomerSearchIndex;
+import org.mifos.customers.search.CustomerSearchIndexer;
 import org.mifos.customers.util.helpers.ChildrenStateType;
 import org.mifos.customers.util.helpers.CustomerConstants;
 import org.mifos.customers.util.helpers.CustomerSearchConstants;
@@ -95,6 +99,7 @@ import org.mifos.framework.util.DateTimeService;
 import org.mifos.framework.util.helpers.ExceptionConstants;
 import org.mifos.framework.util.helpers.MifosStringUtils;
 import org.mifos.framework.util.helpers.Money;
+import org.mifos.security.authorization.HierarchyManager;
 import org.mifos.security.util.UserContext;
 
 @SuppressWarnings("unchecked")
@@ -109,6 +114,11 @@ public class CustomerPersistence extends LegacyGenericDao {
         return legacyPersonnelDao;
     }
 
+    /**
+     * Searches matching more customers than this are left to the database.
+     */
+    private static final int MAX_INDEX_SEARCH_RESULTS = 1000;
+
     private static final Predicate CLIENTS_WITH_ACTIVE_LOAN_ACCOUNTS = new Predicate() {
         @Override
 		public boolean evaluate(final Object object) {
@@ -314,18 +324,26 @@ public class CustomerPersistence extends LegacyGenericDao {
         QueryResult queryResult = null;
 
         try {
-
-           queryResult = ApplicationContextProvider.getBean(LegacyAccountDao.class).search(searchString, officeId);
-            if (queryResult == null) {
+            String phoneNumber = MifosStringUtils.removeNondigits(searchString);
+            Object[] matches = findSearchStrategyMatches(searchString, phoneNumber);
+            Short accountTypeId = (Short) matches[0];
+
+            if (accountTypeId != null && !AccountTypes.CUSTOMER_ACCOUNT.getValue().equals(accountTypeId)
+                    && !AccountTypes.INDIVIDUAL_LOAN_ACCOUNT.getValue().equals(accountTypeId)) {
+                queryResult = ApplicationContextProvider.getBean(LegacyAccountDao.class).accountIdSearch(searchString,
+                        officeId);
+            } else if (isMatch(matches[1])) {
                 queryResult = idSearch(searchString, officeId, userId);
-                if (queryResult == null) {
-                    queryResult = governmentIdSearch(searchString, officeId, userId);
-                    if (queryResult == null) {
-                        queryResult = phoneNumberSearch(searchString, officeId, userId);
-                        if (queryResult == null) {
-                            queryResult = mainSearch(searchString, officeId, userId, userOfficeId);
-                        }
-                    }
+            } else if (isMatch(matches[2])) {
+                queryResult = governmentIdSearch(searchString, officeId, userId);
+            } else if (!phoneNumber.isEmpty() && isMatch(matches[3])) {
+                queryResult = phoneNumberSearch(phoneNumber, officeId, userId);
+            } else {
+                List<Integer> customerIds = findIndexedCustomerIds(searchString, officeId, userOfficeId);
+                if (customerIds == null) {
+                    queryResult = mainSearch(searchString, officeId, userId, userOfficeId);
+                } else {
+                    queryResult = indexedSearch(searchString, officeId, userId, userOfficeId, customerIds);
                 }
             }
 
@@ -338,6 +356,26 @@ public class CustomerPersistence extends LegacyGenericDao {
         return queryResult;
     }
 
+    /**
+     * Checks the account number, system id, government id and phone number strategies with a single query rather
+     * than one query each.
+     *
+     * @return the type of the account with the search string as number (null if none), and the number of customers
+     *         with it as system id, as government id and with the phone number
+     */
+    private Object[] findSearchStrategyMatches(final String searchString, final String phoneNumber)
+            throws PersistenceException {
+        Map<String, String> queryParameters = new HashMap<String, String>();
+        queryParameters.put("SEARCH_STRING", searchString);
+        queryParameters.put("PHONE_NUMBER", phoneNumber);
+        return (Object[]) execUniqueResultNamedQuery(NamedQueryConstants.CUSTOMER_FIND_SEARCH_STRATEGY_MATCHES,
+                queryParameters);
+    }
+
+    private boolean isMatch(final Object count) {
+        return count != null && ((Number) count).intValue() > 0;
+    }
+
     public QueryResult searchGroupClient(final String searchString, final Short userId) throws ConfigurationException,
             PersistenceException {
         String[] namedQuery = new String[2];
@@ -424,6 +462,43 @@ public class CustomerPersistence extends LegacyGenericDao {
                     .getSearchId()
                     + "%"));
         }
+        addSearchStringParams(paramList, searchString);
+        setParams(paramList, userId);
+        queryResult.setQueryInputs(queryInputs);
+        return queryResult;
+
+    }
+
+    /**
+     * The same search as {@link #mainSearch(String, Short, Short, Short)}, only restricted to the given customers so
+     * that the database does not have to match the names of all customers.
+     */
+    private QueryResult indexedSearch(final String searchString, final Short officeId, final Short userId,
+            final Short userOfficeId, final List<Integer> customerIds) throws PersistenceException,
+            HibernateSearchException {
+        String[] namedQuery = new String[2];
+        List<Param> paramList = new ArrayList<Param>();
+        QueryInputs queryInputs = setQueryInputsValues(namedQuery, paramList);
+        QueryResult queryResult = QueryFactory.getQueryResult(CustomerSearchConstants.CUSTOMERSEARCHRESULTS);
+        namedQuery[0] = NamedQueryConstants.CUSTOMER_SEARCH_COUNT_BY_IDS;
+        namedQuery[1] = NamedQueryConstants.CUSTOMER_SEARCH_BY_IDS;
+        if (officeId.shortValue() != 0) {
+            paramList.add(typeNameValue("String", "OFFICE_SEARCH_ID", new OfficePersistence().getOffice(officeId)
+                    .getSearchId()));
+        } else {
+            paramList.add(typeNameValue("String", "OFFICE_SEARCH_ID", new OfficePersistence().getOffice(userOfficeId)
+                    .getSearchId()
+                    + "%"));
+        }
+        paramList.add(typeNameValue("Integer", "CUSTOMER_IDS", customerIds));
+        addSearchStringParams(paramList, searchString);
+        setParams(paramList, userId);
+        queryResult.setQueryInputs(queryInputs);
+        return queryResult;
+    }
+
+    private void addSearchStringParams(final List<Param> paramList, final String searchString)
+            throws PersistenceException {
         paramList.add(typeNameValue("String", "SEARCH_STRING", "%" + searchString + "%"));
         if (searchString.contains(" ")) {
             List<String> words = new ArrayList<String>(Arrays.asList(searchString.split(" +")));
@@ -448,10 +523,50 @@ public class CustomerPersistence extends LegacyGenericDao {
             paramList.add(typeNameValue("String", "SEARCH_STRING2", ""));
             paramList.add(typeNameValue("String", "SEARCH_STRING3", ""));
         }
-        setParams(paramList, userId);
-        queryResult.setQueryInputs(queryInputs);
-        return queryResult;
+    }
 
+    /**
+     * Looks the search string up in the customer search index for the customers that
+     * {@link #mainSearch(String, Short, Short, Short)} could find.
+     *
+     * Every way the database search matches a customer needs the first two words of the search string to be part of
+     * its names (the third word may only be compared with the last name after a first and middle name), so the index
+     * is only asked for those. It then finds every customer the database search finds, and possibly more, and the
+     * database search is still run on the customers found to get exactly the same results.
+     *
+     * @return null if the index is not in use, finds no customers or finds too many to be worth listing by id, in
+     *         which case the database is searched as before
+     */
+    private List<Integer> findIndexedCustomerIds(final String searchString, final Short officeId,
+            final Short userOfficeId) {
+        CustomerSearchIndexer indexer = CustomerSearchIndexer.getInstance();
+        if (!GeneralConfig.getCustomerSearchIndex() || !indexer.isReady()) {
+            return null;
+        }
+        final CustomerSearchIndex.OfficeFilter officeFilter;
+        if (officeId.shortValue() != 0) {
+            officeFilter = new CustomerSearchIndex.OfficeFilter() {
+                @Override
+                public boolean accept(short customerOfficeId) {
+                    return customerOfficeId == officeId.shortValue();
+                }
+            };
+        } else {
+            final String officeSearchId = HierarchyManager.getInstance().getSearchId(userOfficeId);
+            officeFilter = new CustomerSearchIndex.OfficeFilter() {
+                @Override
+                public boolean accept(short customerOfficeId) {
+                    return HierarchyManager.getInstance().getSearchId(customerOfficeId).startsWith(officeSearchId);
+                }
+            };
+        }
+        String[] words = searchString.split(" +");
+        String indexedWords = words.length > 2 ? words[0] + " " + words[1] : searchString;
+        List<Integer> customerIds = indexer.getIndex().search(indexedWords, officeFilter, MAX_INDEX_SEARCH_RESULTS);
+        if (customerIds == null || customerIds.isEmpty()) {
+            return null;
+        }
+        return customerIds;
     }
 
     private void setParams(final List<Param> paramList, final Short userId) throws PersistenceException {
@@ -483,9 +598,6 @@ public class CustomerPersistence extends LegacyGenericDao {
 
     private QueryResult idSearch(final String searchString, final Short officeId, final Short userId)
             throws HibernateSearchException, SystemException, PersistenceException {
-        if (!isCustomerExist(searchString)) {
-            return null;
-        }
         String[] namedQuery = new String[2];
         List<Param> paramList = new ArrayList<Param>();
         QueryInputs queryInputs = new QueryInputs();
@@ -531,10 +643,6 @@ public class CustomerPersistence extends LegacyGenericDao {
     private QueryResult governmentIdSearch(final String searchString, final Short officeId, final Short userId)
             throws HibernateSearchException, SystemException, PersistenceException {
 
-        if (!isCustomerExistWithGovernmentId(searchString)) {
-            return null;
-        }
-
         SearchTemplate template = new SearchTemplate(searchString, officeId, userId);
 
         template.queryNoOfficeCount = NamedQueryConstants.CUSTOMER_GOVERNMENT_ID_SEARCH_NOOFFICEID_COUNT;
@@ -549,18 +657,9 @@ public class CustomerPersistence extends LegacyGenericDao {
         return template.doSearch();
     }
 
-   private QueryResult phoneNumberSearch(final String searchString, final Short officeId, final Short userId)
-            throws HibernateSearchException, SystemException, PersistenceException {
+   private QueryResult phoneNumberSearch(final String phoneNumberWithStrippedNonnumerics, final Short officeId,
+            final Short userId) throws HibernateSearchException, SystemException, PersistenceException {
 
-        String phoneNumberWithStrippedNonnumerics = MifosStringUtils.removeNondigits(searchString);
-        if (phoneNumberWithStrippedNonnumerics.isEmpty()) {
-            return null;
-        }
-        List<CustomerDto> customersWithThisPhoneNumber = new CustomerDaoHibernate((new GenericDaoHibernate())).
-                findCustomersWithGivenPhoneNumber(phoneNumberWithStrippedNonnumerics);
-        if (customersWithThisPhoneNumber == null || customersWithThisPhoneNumber.isEmpty()) {
-            return null;
-        }
         SearchTemplate template = new SearchTemplate(phoneNumberWithStrippedNonnumerics, officeId, userId);
 
         template.queryNoOfficeCount = NamedQueryConstants.CUSTOMER_PHONE_SEARCH_NOOFFICEID_COUNT;
@@ -575,26 +674,6 @@ public class CustomerPersistence extends LegacyGenericDao {
         return template.doSearch();
    }
 
-    private boolean isCustomerExist(final String globalCustNum) throws PersistenceException {
-
-        Map<String, String> queryParameters = new HashMap<String, String>();
-        queryParameters.put("globalCustNum", globalCustNum);
-        Integer count = new Long((Long) execUniqueResultNamedQuery(
-                NamedQueryConstants.CUSTOMER_FIND_COUNT_BY_SYSTEM_ID, queryParameters)).intValue();
-        return count != null && count > 0 ? true : false;
-
-    }
-
-    private boolean isCustomerExistWithGovernmentId(final String governmentId) throws PersistenceException {
-
-        Map<String, String> queryParameters = new HashMap<String, String>();
-        queryParameters.put("governmentId", governmentId);
-        Integer count = new Long((Long) execUniqueResultNamedQuery(
-                NamedQueryConstants.CUSTOMER_FIND_COUNT_BY_GOVERNMENT_ID, queryParameters)).intValue();
-        return count != null && count > 0 ? true : false;
-
-    }
-
     private void initializeCustomer(final CustomerBO customer) {
         customer.getGlobalCustNum();
         customer.getOffice().getOfficeId();
@@ -839,6 +918,24 @@ public class CustomerPersistence extends LegacyGenericDao {
         return executeNamedQuery(NamedQueryConstants.GET_CUSTOMER_ACCOUNTS_FOR_FEE, queryParameters);
     }
 
+    /**
+     * Returns the ids of at most <code>maxResults</code> customer accounts carrying the fee, in account id order
+     * after <code>lastAccountId</code>.
+     */
+    @SuppressWarnings("unchecked")
+    public List<Integer> getCustomerAccountIdsForFee(final Short feeId, final Integer lastAccountId,
+            final int maxResults) throws PersistenceException {
+        try {
+            Query query = createdNamedQuery(NamedQueryConstants.GET_CUSTOMER_ACCOUNT_IDS_FOR_FEE);
+            query.setShort("FEEID", feeId);
+            query.setInteger("LASTACCOUNTID", lastAccountId);
+            query.setMaxResults(maxResults);
+            return query.list();
+        } catch (HibernateException e) {
+            throw new PersistenceException(e);
+        }
+    }
+
     public CustomerAccountBO getCustomerAccountWithAccountActionsInitialized(final Integer accountId)
             throws PersistenceException {
         Map<String, Object> queryParameters = new HashMap<String, Object>();
@@ -1012,6 +1109,31 @@ public class CustomerPersistence extends LegacyGenericDao {
         return executeNamedQuery(NamedQueryConstants.GET_ALL_BASIC_GROUP_INFO, params);
     }
 
+    /**
+     * Calculates the at-risk and outstanding loan amounts of all active groups and their clients in a single query.
+     * Groups without any active loans are not part of the result.
+     */
+    @SuppressWarnings("unchecked")
+    public List<GroupPortfolioAtRiskAmounts> getPortfolioAtRiskAmountsForAllGroups() throws PersistenceException {
+        List<Object[]> queryResult = executeNamedQuery(NamedQueryConstants.GET_PORTFOLIO_AT_RISK_AMOUNTS_FOR_ALL_GROUPS,
+                new HashMap<String, Object>());
+
+        List<GroupPortfolioAtRiskAmounts> amounts = new ArrayList<GroupPortfolioAtRiskAmounts>(queryResult.size());
+        for (Object[] row : queryResult) {
+            Integer groupId = (Integer) row[0];
+            BigDecimal atRiskAmount = row[1] == null ? BigDecimal.ZERO : (BigDecimal) row[1];
+            BigDecimal outstandingAmount = row[2] == null ? BigDecimal.ZERO : (BigDecimal) row[2];
+            Short currencyId = (Short) row[3];
+            int currencyCount = row[4] == null ? 0 : ((Integer) row[4]).intValue();
+
+            MifosCurrency currency = currencyId == null ? Money.getDefaultCurrency() : AccountingRules
+                    .getCurrencyByCurrencyId(currencyId);
+            amounts.add(new GroupPortfolioAtRiskAmounts(groupId, new Money(currency, atRiskAmount), new Money(
+                    currency, outstandingAmount), currencyCount > 1));
+        }
+        return amounts;
+    }
+
     public Money getTotalAmountForAllClientsOfGroup(final Short officeId, final AccountState accountState,
             final String searchIdString) throws PersistenceException {
         MifosCurrency currency = getCurrencyForTotalAmountForAllClientsOfGroup(officeId, accountState, searchIdString);
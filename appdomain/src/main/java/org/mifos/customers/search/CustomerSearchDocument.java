@@ -0,0 +1,112 @@
+/*
+ * Copyright (c) 2005-2011 Grameen Foundation USA
+ * All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * See also http://www.apache.org/licenses/LICENSE-2.0.html for an
+ * explanation of the license and how it is applied.
+ */
+
+package org.mifos.customers.search;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * The terms a customer can be found by in the {@link CustomerSearchIndex}: the words of the names the database
+ * search looks at, that is the display, first, last, second last and middle names.
+ */
+public class CustomerSearchDocument {
+
+    private final int customerId;
+    private final short officeId;
+    private final List<String> terms;
+
+    public CustomerSearchDocument(int customerId, short officeId, Collection<String> terms) {
+        this.customerId = customerId;
+        this.officeId = officeId;
+        this.terms = Collections.unmodifiableList(new ArrayList<String>(new LinkedHashSet<String>(terms)));
+    }
+
+    public int getCustomerId() {
+        return this.customerId;
+    }
+
+    public short getOfficeId() {
+        return this.officeId;
+    }
+
+    public List<String> getTerms() {
+        return this.terms;
+    }
+
+    /**
+     * Builds documents from the names of a customer as read from the database. Null values are skipped.
+     */
+    public static class Builder {
+
+        private final int customerId;
+        private final short officeId;
+        private final Set<String> terms = new LinkedHashSet<String>();
+
+        public Builder(int customerId, short officeId) {
+            this.customerId = customerId;
+            this.officeId = officeId;
+        }
+
+        public Builder withName(String name) {
+            terms.addAll(tokenize(name));
+            return this;
+        }
+
+        public CustomerSearchDocument build() {
+            return new CustomerSearchDocument(customerId, officeId, terms);
+        }
+    }
+
+    /**
+     * Splits text into lower case words of letters and digits without accents, as both names and search strings are
+     * split, so that words compare as they do in the case and accent insensitive collation of the database.
+     */
+    public static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<String>();
+        if (text == null) {
+            return tokens;
+        }
+        StringBuilder token = new StringBuilder();
+        String lowerCase = Normalizer.normalize(text, Normalizer.Form.NFD).toLowerCase(Locale.ENGLISH);
+        for (int i = 0; i < lowerCase.length(); i++) {
+            char c = lowerCase.charAt(i);
+            if (Character.getType(c) == Character.NON_SPACING_MARK) {
+                continue;
+            }
+            if (Character.isLetterOrDigit(c)) {
+                token.append(c);
+            } else if (token.length() > 0) {
+                tokens.add(token.toString());
+                token.setLength(0);
+            }
+        }
+        if (token.length() > 0) {
+            tokens.add(token.toString());
+        }
+        return tokens;
+    }
+}
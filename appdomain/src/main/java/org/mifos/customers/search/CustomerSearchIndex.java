@@ -0,0 +1,284 @@
+/*
+ * Copyright (c) 2005-2011 Grameen Foundation USA
+ * All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * See also http://www.apache.org/licenses/LICENSE-2.0.html for an
+ * explanation of the license and how it is applied.
+ */
+
+package org.mifos.customers.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In memory inverted index from the words of customer names to the ids of the customers having them.
+ *
+ * <p>A customer matches when every word of the search string is contained in one of the words of its names, so
+ * <code>ria jo</code> finds Maria Jones. As a word of a search string that matches a name in the database with
+ * <code>like '%...%'</code> is always contained in a word of that name, the customers found are all the customers
+ * the database search could find, and possibly more; callers narrow them down with the database search itself.
+ * Searches that match more customers than the caller asks for return null, so broad searches can be left to the
+ * database.</p>
+ *
+ * <p>Searches take a read lock and changes a write lock, so searches run concurrently with each other.</p>
+ */
+public class CustomerSearchIndex {
+
+    /**
+     * Decides which offices the customers of a search may belong to.
+     */
+    public interface OfficeFilter {
+        boolean accept(short officeId);
+    }
+
+    public static final OfficeFilter ALL_OFFICES = new OfficeFilter() {
+        @Override
+        public boolean accept(@SuppressWarnings("unused") short officeId) {
+            return true;
+        }
+    };
+
+    private final Map<String, PostingList> postings = new HashMap<String, PostingList>();
+    private final Map<Integer, CustomerSearchDocument> documents = new HashMap<Integer, CustomerSearchDocument>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * Adds the customer, replacing the terms it had before.
+     */
+    public void put(CustomerSearchDocument document) {
+        lock.writeLock().lock();
+        try {
+            removeDocument(document.getCustomerId());
+            documents.put(document.getCustomerId(), document);
+            for (String term : document.getTerms()) {
+                PostingList postingList = postings.get(term);
+                if (postingList == null) {
+                    postingList = new PostingList();
+                    postings.put(term, postingList);
+                }
+                postingList.add(document.getCustomerId());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void putAll(Collection<CustomerSearchDocument> documentsToPut) {
+        for (CustomerSearchDocument document : documentsToPut) {
+            put(document);
+        }
+    }
+
+    public void remove(int customerId) {
+        lock.writeLock().lock();
+        try {
+            removeDocument(customerId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            postings.clear();
+            documents.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return documents.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public List<CustomerSearchDocument> getDocuments() {
+        lock.readLock().lock();
+        try {
+            return new ArrayList<CustomerSearchDocument>(documents.values());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return the ids of the matching customers in ascending order, or null if more than maxResults customers match
+     *         or the search string has no words to match
+     */
+    public List<Integer> search(String searchString, OfficeFilter officeFilter, int maxResults) {
+        List<String> tokens = CustomerSearchDocument.tokenize(searchString);
+        if (tokens.isEmpty()) {
+            return null;
+        }
+
+        lock.readLock().lock();
+        try {
+            int[] matches = matchAllTokens(tokens, maxResults);
+            if (matches == null) {
+                return null;
+            }
+
+            List<Integer> customerIds = new ArrayList<Integer>();
+            for (int customerId : matches) {
+                if (officeFilter.accept(documents.get(customerId).getOfficeId())) {
+                    if (customerIds.size() == maxResults) {
+                        return null;
+                    }
+                    customerIds.add(customerId);
+                }
+            }
+            return customerIds;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Gives up with null when a token is contained in terms of too many customers to be worth intersecting. There are
+     * far fewer distinct name words than customers, so looking through all terms is cheap.
+     */
+    private int[] matchAllTokens(List<String> tokens, int maxResults) {
+        int maxCandidates = Math.max(maxResults, 1) * 100;
+        int[] matches = null;
+        for (String token : tokens) {
+            List<PostingList> termsContainingToken = new ArrayList<PostingList>();
+            int candidateCount = 0;
+            for (Map.Entry<String, PostingList> posting : postings.entrySet()) {
+                if (posting.getKey().contains(token)) {
+                    termsContainingToken.add(posting.getValue());
+                    candidateCount += posting.getValue().size();
+                    if (candidateCount > maxCandidates) {
+                        return null;
+                    }
+                }
+            }
+            int[] tokenMatches = new int[0];
+            for (PostingList postingList : termsContainingToken) {
+                tokenMatches = union(tokenMatches, postingList.toArray());
+            }
+            matches = matches == null ? tokenMatches : intersection(matches, tokenMatches);
+            if (matches.length == 0) {
+                break;
+            }
+        }
+        return matches;
+    }
+
+    private void removeDocument(int customerId) {
+        CustomerSearchDocument existing = documents.remove(customerId);
+        if (existing == null) {
+            return;
+        }
+        for (String term : existing.getTerms()) {
+            PostingList postingList = postings.get(term);
+            if (postingList != null) {
+                postingList.remove(customerId);
+                if (postingList.size() == 0) {
+                    postings.remove(term);
+                }
+            }
+        }
+    }
+
+    static int[] union(int[] a, int[] b) {
+        int[] result = new int[a.length + b.length];
+        int i = 0, j = 0, k = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] < b[j]) {
+                result[k++] = a[i++];
+            } else if (a[i] > b[j]) {
+                result[k++] = b[j++];
+            } else {
+                result[k++] = a[i++];
+                j++;
+            }
+        }
+        while (i < a.length) {
+            result[k++] = a[i++];
+        }
+        while (j < b.length) {
+            result[k++] = b[j++];
+        }
+        return Arrays.copyOf(result, k);
+    }
+
+    static int[] intersection(int[] a, int[] b) {
+        int[] result = new int[Math.min(a.length, b.length)];
+        int i = 0, j = 0, k = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] < b[j]) {
+                i++;
+            } else if (a[i] > b[j]) {
+                j++;
+            } else {
+                result[k++] = a[i++];
+                j++;
+            }
+        }
+        return Arrays.copyOf(result, k);
+    }
+
+    /**
+     * Sorted customer ids of one term.
+     */
+    private static class PostingList {
+
+        private int[] customerIds = new int[2];
+        private int size;
+
+        void add(int customerId) {
+            int position = Arrays.binarySearch(customerIds, 0, size, customerId);
+            if (position >= 0) {
+                return;
+            }
+            int insertionPoint = -position - 1;
+            if (size == customerIds.length) {
+                customerIds = Arrays.copyOf(customerIds, size * 2);
+            }
+            System.arraycopy(customerIds, insertionPoint, customerIds, insertionPoint + 1, size - insertionPoint);
+            customerIds[insertionPoint] = customerId;
+            size++;
+        }
+
+        void remove(int customerId) {
+            int position = Arrays.binarySearch(customerIds, 0, size, customerId);
+            if (position < 0) {
+                return;
+            }
+            System.arraycopy(customerIds, position + 1, customerIds, position, size - position - 1);
+            size--;
+        }
+
+        int size() {
+            return size;
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(customerIds, size);
+        }
+    }
+}
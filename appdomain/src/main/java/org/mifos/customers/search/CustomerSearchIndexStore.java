@@ -0,0 +1,241 @@
+/*
+ * Copyright (c) 2005-2011 Grameen Foundation USA
+ * All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * See also http://www.apache.org/licenses/LICENSE-2.0.html for an
+ * explanation of the license and how it is applied.
+ */
+
+package org.mifos.customers.search;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import org.mifos.core.MifosRuntimeException;
+
+/**
+ * Keeps a {@link CustomerSearchIndex} on disk as a snapshot file plus a journal of the changes made since the
+ * snapshot was written.
+ *
+ * <p>Changes are appended to the journal, so keeping the index up to date never rewrites the whole file. Loading
+ * reads the snapshot and replays the journal; {@link #compact(CustomerSearchIndex)} folds the journal into a new
+ * snapshot. A journal record cut short by a crash is ignored.</p>
+ *
+ * <p>A dirty marker file is kept while the index is in use and only removed once every change has been written,
+ * so an index left behind by a crash or an unfinished shutdown is known to be out of date.</p>
+ */
+public class CustomerSearchIndexStore {
+
+    private static final int MAGIC = 0x4d435349;
+    private static final short VERSION = 2;
+    private static final byte PUT = 1;
+    private static final byte REMOVE = 2;
+
+    private final File snapshotFile;
+    private final File journalFile;
+    private final File dirtyFile;
+    private int journalRecords;
+
+    public CustomerSearchIndexStore(File directory) {
+        this.snapshotFile = new File(directory, "customer-search.idx");
+        this.journalFile = new File(directory, "customer-search.journal");
+        this.dirtyFile = new File(directory, "customer-search.dirty");
+    }
+
+    public boolean exists() {
+        return snapshotFile.isFile();
+    }
+
+    /**
+     * @return true if the index on disk may be missing changes, because it was not closed by {@link #markClean()}
+     */
+    public boolean isDirty() {
+        return dirtyFile.exists();
+    }
+
+    public synchronized void markDirty() {
+        makeDirectory();
+        try {
+            if (!dirtyFile.exists() && !dirtyFile.createNewFile()) {
+                throw new IOException("could not create file");
+            }
+        } catch (IOException e) {
+            throw new MifosRuntimeException(dirtyFile.toString(), e);
+        }
+    }
+
+    public synchronized void markClean() {
+        if (dirtyFile.exists() && !dirtyFile.delete()) {
+            throw new MifosRuntimeException("could not delete " + dirtyFile);
+        }
+    }
+
+    public int getJournalRecords() {
+        return journalRecords;
+    }
+
+    public void load(CustomerSearchIndex index) {
+        index.clear();
+        DataInputStream in = null;
+        try {
+            in = new DataInputStream(new BufferedInputStream(new FileInputStream(snapshotFile)));
+            if (in.readInt() != MAGIC || in.readShort() != VERSION) {
+                throw new IOException("not a customer search index file");
+            }
+            int documents = in.readInt();
+            for (int i = 0; i < documents; i++) {
+                index.put(readDocument(in));
+            }
+        } catch (IOException e) {
+            throw new MifosRuntimeException(snapshotFile.toString(), e);
+        } finally {
+            closeQuietly(in);
+        }
+        journalRecords = replayJournal(index);
+    }
+
+    private int replayJournal(CustomerSearchIndex index) {
+        if (!journalFile.isFile()) {
+            return 0;
+        }
+        int records = 0;
+        DataInputStream in = null;
+        try {
+            in = new DataInputStream(new BufferedInputStream(new FileInputStream(journalFile)));
+            while (true) {
+                byte operation = in.readByte();
+                if (operation == PUT) {
+                    index.put(readDocument(in));
+                } else if (operation == REMOVE) {
+                    index.remove(in.readInt());
+                } else {
+                    throw new IOException("unknown journal record " + operation);
+                }
+                records++;
+            }
+        } catch (EOFException e) {
+            // end of the journal, or a record cut short
+        } catch (IOException e) {
+            throw new MifosRuntimeException(journalFile.toString(), e);
+        } finally {
+            closeQuietly(in);
+        }
+        return records;
+    }
+
+    public synchronized void append(Collection<CustomerSearchDocument> changed, Collection<Integer> removedCustomerIds) {
+        makeDirectory();
+        DataOutputStream out = null;
+        try {
+            out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(journalFile, true)));
+            for (CustomerSearchDocument document : changed) {
+                out.writeByte(PUT);
+                writeDocument(out, document);
+            }
+            for (Integer customerId : removedCustomerIds) {
+                out.writeByte(REMOVE);
+                out.writeInt(customerId);
+            }
+            out.close();
+            out = null;
+            journalRecords += changed.size() + removedCustomerIds.size();
+        } catch (IOException e) {
+            throw new MifosRuntimeException(journalFile.toString(), e);
+        } finally {
+            closeQuietly(out);
+        }
+    }
+
+    /**
+     * Writes the whole index as a new snapshot and starts an empty journal. The snapshot is written to a temporary
+     * file first so that a failed write never leaves a truncated snapshot behind.
+     */
+    public synchronized void compact(CustomerSearchIndex index) {
+        makeDirectory();
+        List<CustomerSearchDocument> documents = index.getDocuments();
+        File temporary = new File(snapshotFile.getAbsoluteFile().getParentFile(), snapshotFile.getName() + ".tmp");
+        DataOutputStream out = null;
+        try {
+            out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temporary)));
+            out.writeInt(MAGIC);
+            out.writeShort(VERSION);
+            out.writeInt(documents.size());
+            for (CustomerSearchDocument document : documents) {
+                writeDocument(out, document);
+            }
+            out.close();
+            out = null;
+        } catch (IOException e) {
+            throw new MifosRuntimeException(temporary.toString(), e);
+        } finally {
+            closeQuietly(out);
+        }
+        if (!temporary.renameTo(snapshotFile) && !(snapshotFile.delete() && temporary.renameTo(snapshotFile))) {
+            throw new MifosRuntimeException("could not replace " + snapshotFile);
+        }
+        if (journalFile.exists() && !journalFile.delete()) {
+            throw new MifosRuntimeException("could not delete " + journalFile);
+        }
+        journalRecords = 0;
+    }
+
+    private void makeDirectory() {
+        File directory = snapshotFile.getAbsoluteFile().getParentFile();
+        if (!directory.isDirectory()) {
+            directory.mkdirs();
+        }
+    }
+
+    private static void writeDocument(DataOutputStream out, CustomerSearchDocument document) throws IOException {
+        out.writeInt(document.getCustomerId());
+        out.writeShort(document.getOfficeId());
+        out.writeShort(document.getTerms().size());
+        for (String term : document.getTerms()) {
+            out.writeUTF(term);
+        }
+    }
+
+    private static CustomerSearchDocument readDocument(DataInputStream in) throws IOException {
+        int customerId = in.readInt();
+        short officeId = in.readShort();
+        int termCount = in.readShort();
+        List<String> terms = new ArrayList<String>(termCount);
+        for (int i = 0; i < termCount; i++) {
+            terms.add(in.readUTF());
+        }
+        return new CustomerSearchDocument(customerId, officeId, terms);
+    }
+
+    private static void closeQuietly(Closeable closeable) {
+        if (closeable != null) {
+            try {
+                closeable.close();
+            } catch (IOException e) {
+                // nothing more can be done here
+            }
+        }
+    }
+}
@@ -0,0 +1,428 @@
+/*
+ * Copyright (c) 2005-2011 Grameen Foundation USA
+ * All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * See also http://www.apache.org/licenses/LICENSE-2.0.html for an
+ * explanation of the license and how it is applied.
+ */
+
+package org.mifos.customers.search;
+
+import java.io.File;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.hibernate.Session;
+import org.hibernate.jdbc.Work;
+import org.mifos.framework.hibernate.helper.StaticHibernateUtil;
+import org.mifos.framework.util.ConfigurationLocator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Keeps the {@link CustomerSearchIndex} up to date with the database and on disk.
+ *
+ * The ids of customers whose names or office changed are queued by
+ * {@link #customersChanged(Collection)} once their transaction has committed, and a background thread reloads those
+ * customers in batches of up to {@link #BATCH_SIZE} and records the change in the {@link CustomerSearchIndexStore}
+ * journal. When the queue is full the change cannot be tracked any more and the whole index is rebuilt instead.
+ *
+ * The index is only used while {@link #isReady()}; until then, and during the first rebuild, searches go to the
+ * database as before. An index that may have missed changes, because the server stopped before they were written or
+ * a rebuild was still running, is rebuilt on the next start rather than loaded.
+ *
+ * Changes are only seen when they are made through this server, so the index must only be turned on when a single
+ * server uses the database; customers changed by other servers of a cluster would not be found by their new names.
+ */
+public class CustomerSearchIndexer implements Runnable {
+
+    private static final Logger logger = LoggerFactory.getLogger(CustomerSearchIndexer.class);
+
+    static final int QUEUE_CAPACITY = 10000;
+    static final int BATCH_SIZE = 100;
+    static final int REBUILD_PAGE_SIZE = 1000;
+    static final int COMPACT_AFTER_JOURNAL_RECORDS = 50000;
+    private static final long SHUTDOWN_TIMEOUT_MILLIS = 30000;
+
+    private static final String SELECT_CUSTOMERS = "select c.customer_id, c.branch_id, c.display_name, c.first_name, "
+            + "c.last_name, c.second_last_name, cnd.middle_name from customer c "
+            + "left join customer_name_detail cnd on cnd.customer_id = c.customer_id and cnd.name_type = 3 ";
+
+    private static final CustomerSearchIndexer customerSearchIndexer = new CustomerSearchIndexer(QUEUE_CAPACITY);
+
+    private final BlockingQueue<Integer> queue;
+    private final Object indexLock = new Object();
+    private volatile CustomerSearchIndex index = new CustomerSearchIndex();
+    private CustomerSearchIndexStore store;
+    private Thread indexerThread;
+    private Thread rebuildThread;
+    private Set<Integer> changedDuringRebuild;
+    private boolean stale;
+    private volatile boolean ready;
+    private volatile boolean shutdown;
+
+    CustomerSearchIndexer(int queueCapacity) {
+        this.queue = new ArrayBlockingQueue<Integer>(queueCapacity);
+    }
+
+    public static CustomerSearchIndexer getInstance() {
+        return customerSearchIndexer;
+    }
+
+    /**
+     * Loads the index from the configuration directory, or builds it in the background if it was never written or
+     * may be out of date.
+     */
+    public void start() {
+        start(new CustomerSearchIndexStore(new File(new ConfigurationLocator().getConfigurationDirectory(), "search")));
+    }
+
+    synchronized void start(CustomerSearchIndexStore indexStore) {
+        if (store != null || shutdown) {
+            return;
+        }
+        store = indexStore;
+        if (store.isDirty()) {
+            logger.info("customer search index may be out of date, rebuilding it");
+        } else if (store.exists()) {
+            try {
+                CustomerSearchIndex loaded = new CustomerSearchIndex();
+                store.load(loaded);
+                index = loaded;
+                ready = true;
+                logger.info("loaded customer search index of " + loaded.size() + " customers");
+            } catch (RuntimeException e) {
+                logger.warn("could not load customer search index, rebuilding it", e);
+            }
+        }
+        store.markDirty();
+        indexerThread = new Thread(this, "customer-search-indexer");
+        indexerThread.setDaemon(true);
+        indexerThread.start();
+        if (!ready) {
+            startRebuild();
+        }
+    }
+
+    public boolean isReady() {
+        return ready && !shutdown;
+    }
+
+    public CustomerSearchIndex getIndex() {
+        return index;
+    }
+
+    /**
+     * Called with the ids of customers whose names or office were saved by a committed transaction.
+     */
+    public void customersChanged(Collection<Integer> customerIds) {
+        synchronized (this) {
+            if (store == null) {
+                return;
+            }
+            if (shutdown) {
+                stale = true;
+                return;
+            }
+        }
+        for (Integer customerId : customerIds) {
+            if (!queue.offer(customerId)) {
+                logger.warn("customer search index queue is full, rebuilding the index");
+                startRebuild();
+                return;
+            }
+        }
+    }
+
+    /**
+     * Rebuilds the whole index from the database in the background. The current index stays in use until the new one
+     * is complete.
+     *
+     * @return false if a rebuild is already running or the indexer has not been started
+     */
+    public synchronized boolean startRebuild() {
+        if (store == null) {
+            return false;
+        }
+        stale = true;
+        if (shutdown || rebuildThread != null) {
+            return false;
+        }
+        changedDuringRebuild = new LinkedHashSet<Integer>();
+        rebuildThread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                rebuild();
+            }
+        }, "customer-search-index-rebuild");
+        rebuildThread.setDaemon(true);
+        rebuildThread.start();
+        return true;
+    }
+
+    public synchronized boolean isRebuilding() {
+        return rebuildThread != null;
+    }
+
+    /**
+     * Stops indexing and waits for the queued changes to be written to the journal. The index is only marked clean
+     * when nothing was left unwritten.
+     */
+    public void shutdown() {
+        Thread thread;
+        synchronized (this) {
+            shutdown = true;
+            thread = indexerThread;
+        }
+        if (thread != null) {
+            try {
+                thread.join(SHUTDOWN_TIMEOUT_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            if (thread.isAlive()) {
+                logger.warn("customer search indexer did not finish within " + SHUTDOWN_TIMEOUT_MILLIS + " ms, "
+                        + queue.size() + " changes still queued, the index will be rebuilt on the next start");
+                return;
+            }
+        }
+        synchronized (this) {
+            if (store == null) {
+                return;
+            }
+            if (stale || !queue.isEmpty()) {
+                logger.warn("customer search index is missing changes, it will be rebuilt on the next start");
+                return;
+            }
+            store.markClean();
+        }
+    }
+
+    public int getQueueSize() {
+        return queue.size();
+    }
+
+    @Override
+    public void run() {
+        try {
+            while (!shutdown || !queue.isEmpty()) {
+                Integer first = queue.poll(1, TimeUnit.SECONDS);
+                if (first != null) {
+                    Set<Integer> batch = new LinkedHashSet<Integer>();
+                    batch.add(first);
+                    List<Integer> drained = new ArrayList<Integer>(BATCH_SIZE);
+                    queue.drainTo(drained, BATCH_SIZE - 1);
+                    batch.addAll(drained);
+                    refresh(batch);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void refresh(Set<Integer> customerIds) {
+        try {
+            Map<Integer, CustomerSearchDocument> documents = loadDocuments(customerIds);
+            synchronized (indexLock) {
+                apply(documents, customerIds);
+                synchronized (this) {
+                    if (changedDuringRebuild != null) {
+                        changedDuringRebuild.addAll(customerIds);
+                    }
+                }
+            }
+        } catch (RuntimeException e) {
+            logger.error("could not update customer search index for customers " + customerIds
+                    + ", rebuilding the index", e);
+            ready = false;
+            startRebuild();
+        }
+    }
+
+    private void apply(Map<Integer, CustomerSearchDocument> documents, Set<Integer> customerIds) {
+        List<Integer> removed = new ArrayList<Integer>();
+        for (Integer customerId : customerIds) {
+            CustomerSearchDocument document = documents.get(customerId);
+            if (document == null) {
+                index.remove(customerId);
+                removed.add(customerId);
+            } else {
+                index.put(document);
+            }
+        }
+        store.append(documents.values(), removed);
+        if (store.getJournalRecords() > COMPACT_AFTER_JOURNAL_RECORDS) {
+            store.compact(index);
+        }
+    }
+
+    private void rebuild() {
+        try {
+            long start = System.currentTimeMillis();
+            CustomerSearchIndex rebuilt = new CustomerSearchIndex();
+            int lastCustomerId = 0;
+            List<CustomerSearchDocument> page = loadDocumentPage(lastCustomerId, REBUILD_PAGE_SIZE);
+            while (!page.isEmpty() && !shutdown) {
+                rebuilt.putAll(page);
+                lastCustomerId = page.get(page.size() - 1).getCustomerId();
+                page = loadDocumentPage(lastCustomerId, REBUILD_PAGE_SIZE);
+            }
+            if (shutdown) {
+                return;
+            }
+            synchronized (indexLock) {
+                Set<Integer> changed;
+                synchronized (this) {
+                    changed = changedDuringRebuild;
+                    changedDuringRebuild = null;
+                }
+                index = rebuilt;
+                if (!changed.isEmpty()) {
+                    Map<Integer, CustomerSearchDocument> documents = loadDocuments(changed);
+                    for (Integer customerId : changed) {
+                        CustomerSearchDocument document = documents.get(customerId);
+                        if (document == null) {
+                            rebuilt.remove(customerId);
+                        } else {
+                            rebuilt.put(document);
+                        }
+                    }
+                }
+                store.compact(rebuilt);
+                ready = true;
+                synchronized (this) {
+                    stale = false;
+                }
+            }
+            logger.info("rebuilt customer search index of " + rebuilt.size() + " customers in "
+                    + (System.currentTimeMillis() - start) + " ms");
+        } catch (RuntimeException e) {
+            logger.error("could not rebuild customer search index", e);
+        } finally {
+            synchronized (this) {
+                changedDuringRebuild = null;
+                rebuildThread = null;
+            }
+        }
+    }
+
+    /**
+     * @return the documents of those of the customers that still exist
+     */
+    protected Map<Integer, CustomerSearchDocument> loadDocuments(final Collection<Integer> customerIds) {
+        final Map<Integer, CustomerSearchDocument> documents = new LinkedHashMap<Integer, CustomerSearchDocument>();
+        doWork(new Work() {
+            @Override
+            public void execute(Connection connection) throws SQLException {
+                PreparedStatement statement = connection.prepareStatement(SELECT_CUSTOMERS + "where c.customer_id in "
+                        + placeholders(customerIds.size()));
+                try {
+                    int parameter = 1;
+                    for (Integer customerId : customerIds) {
+                        statement.setInt(parameter++, customerId);
+                    }
+                    for (CustomerSearchDocument document : read(statement)) {
+                        documents.put(document.getCustomerId(), document);
+                    }
+                } finally {
+                    statement.close();
+                }
+            }
+        });
+        return documents;
+    }
+
+    /**
+     * @return the documents of up to pageSize customers with ids above afterCustomerId, in customer id order
+     */
+    protected List<CustomerSearchDocument> loadDocumentPage(final int afterCustomerId, final int pageSize) {
+        final List<CustomerSearchDocument> documents = new ArrayList<CustomerSearchDocument>();
+        doWork(new Work() {
+            @Override
+            public void execute(Connection connection) throws SQLException {
+                PreparedStatement statement = connection.prepareStatement(SELECT_CUSTOMERS
+                        + "where c.customer_id in (select customer_id from (select customer_id from customer "
+                        + "where customer_id > ? order by customer_id limit ?) page)");
+                try {
+                    statement.setInt(1, afterCustomerId);
+                    statement.setInt(2, pageSize);
+                    documents.addAll(read(statement));
+                } finally {
+                    statement.close();
+                }
+            }
+        });
+        return documents;
+    }
+
+    /**
+     * Uses its own session so that reading customers does not touch the session of the request that changed them.
+     */
+    private void doWork(Work work) {
+        Session session = StaticHibernateUtil.getSessionFactory().openSession();
+        try {
+            session.doWork(work);
+        } finally {
+            session.close();
+        }
+    }
+
+    private List<CustomerSearchDocument> read(PreparedStatement customerStatement) throws SQLException {
+        Map<Integer, CustomerSearchDocument.Builder> builders = new LinkedHashMap<Integer, CustomerSearchDocument.Builder>();
+        ResultSet customers = customerStatement.executeQuery();
+        try {
+            while (customers.next()) {
+                int customerId = customers.getInt(1);
+                CustomerSearchDocument.Builder builder = builders.get(customerId);
+                if (builder == null) {
+                    builder = new CustomerSearchDocument.Builder(customerId, customers.getShort(2));
+                    builders.put(customerId, builder);
+                }
+                builder.withName(customers.getString(3)).withName(customers.getString(4))
+                        .withName(customers.getString(5)).withName(customers.getString(6))
+                        .withName(customers.getString(7));
+            }
+        } finally {
+            customers.close();
+        }
+
+        List<CustomerSearchDocument> documents = new ArrayList<CustomerSearchDocument>(builders.size());
+        for (CustomerSearchDocument.Builder builder : builders.values()) {
+            documents.add(builder.build());
+        }
+        return documents;
+    }
+
+    private static String placeholders(int count) {
+        StringBuilder placeholders = new StringBuilder("(");
+        for (int i = 0; i < count; i++) {
+            placeholders.append(i == 0 ? "?" : ", ?");
+        }
+        return placeholders.append(")").toString();
+    }
+}
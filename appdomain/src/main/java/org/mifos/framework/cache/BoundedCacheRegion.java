@@ -0,0 +1,145 @@
+/*
+ * Copyright (c) 2005-2011 Grameen Foundation USA
+ * All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * See also http://www.apache.org/licenses/LICENSE-2.0.html for an
+ * explanation of the license and how it is applied.
+ */
+
+package org.mifos.framework.cache;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A {@link CacheRegion} holding at most <code>maxEntries</code> entries, evicting the least recently used first, and
+ * optionally expiring entries a fixed time after they were put.
+ */
+public class BoundedCacheRegion<K, V> implements CacheRegion<K, V> {
+
+    private final String name;
+    private final int maxEntries;
+    private final long timeToLiveInMillis;
+    private final LinkedHashMap<K, Entry<V>> entries;
+
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long expirations;
+    private long invalidations;
+
+    public BoundedCacheRegion(String name, int maxEntries, long timeToLiveInMillis) {
+        if (maxEntries < 1) {
+            throw new IllegalArgumentException("maxEntries must be at least 1 for cache region " + name);
+        }
+        if (timeToLiveInMillis < 0) {
+            throw new IllegalArgumentException("timeToLiveInMillis must not be negative for cache region " + name);
+        }
+        this.name = name;
+        this.maxEntries = maxEntries;
+        this.timeToLiveInMillis = timeToLiveInMillis;
+        this.entries = new LinkedHashMap<K, Entry<V>>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) {
+                if (size() > BoundedCacheRegion.this.maxEntries) {
+                    evictions++;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    @Override
+    public String getName() {
+        return this.name;
+    }
+
+    @Override
+    public synchronized V get(K key) {
+        Entry<V> entry = entries.get(key);
+        if (entry == null) {
+            misses++;
+            return null;
+        }
+        if (entry.hasExpired(currentTimeMillis())) {
+            entries.remove(key);
+            expirations++;
+            misses++;
+            return null;
+        }
+        hits++;
+        return entry.value;
+    }
+
+    @Override
+    public synchronized void put(K key, V value) {
+        if (key == null || value == null) {
+            throw new IllegalArgumentException("cache region " + name + " does not accept null keys or values");
+        }
+        long expiresAt = timeToLiveInMillis == 0 ? Long.MAX_VALUE : currentTimeMillis() + timeToLiveInMillis;
+        entries.put(key, new Entry<V>(value, expiresAt));
+    }
+
+    @Override
+    public synchronized void putAll(Map<? extends K, ? extends V> newEntries) {
+        for (Map.Entry<? extends K, ? extends V> entry : newEntries.entrySet()) {
+            put(entry.getKey(), entry.getValue());
+        }
+    }
+
+    @Override
+    public synchronized void invalidate(K key) {
+        if (entries.remove(key) != null) {
+            invalidations++;
+        }
+    }
+
+    @Override
+    public synchronized void invalidateAll() {
+        invalidations += entries.size();
+        entries.clear();
+    }
+
+    @Override
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    @Override
+    public synchronized CacheStatistics getStatistics() {
+        return new CacheStatistics(name, entries.size(), hits, misses, evictions, expirations, invalidations);
+    }
+
+    protected long currentTimeMillis() {
+        return System.currentTimeMillis();
+    }
+
+    private static class Entry<V> {
+        private final V value;
+        private final long expiresAt;
+
+        Entry(V value, long expiresAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+
+        boolean hasExpired(long now) {
+            return now >= expiresAt;
+        }
+    }
+}
@@ -0,0 +1,49 @@
+/*
+ * Copyright (c) 2005-2011 Grameen Foundation USA
+ * All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * See also http://www.apache.org/licenses/LICENSE-2.0.html for an
+ * explanation of the license and how it is applied.
+ */
+
+package org.mifos.framework.cache;
+
+import java.util.Map;
+
+/**
+ * A named area of the cache holding one kind of value, e.g. office configuration. Implementations are thread safe,
+ * do not accept null keys or values, and may evict entries when they grow too large or too old.
+ */
+public interface CacheRegion<K, V> {
+
+    String getName();
+
+    /**
+     * @return the cached value, or null if there is none or it has been evicted or has expired.
+     */
+    V get(K key);
+
+    void put(K key, V value);
+
+    void putAll(Map<? extends K, ? extends V> entries);
+
+    void invalidate(K key);
+
+    void invalidateAll();
+
+    int size();
+
+    CacheStatistics getStatistics();
+}
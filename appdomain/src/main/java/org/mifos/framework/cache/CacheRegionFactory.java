@@ -0,0 +1,34 @@
+/*
+ * Copyright (c) 2005-2011 Grameen Foundation USA
+ * All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * See also http://www.apache.org/licenses/LICENSE-2.0.html for an
+ * explanation of the license and how it is applied.
+ */
+
+package org.mifos.framework.cache;
+
+/**
+ * Creates the {@link CacheRegion}s handed out by {@link MifosCacheManager}; replace it to plug in a different cache
+ * implementation.
+ */
+public interface CacheRegionFactory {
+
+    /**
+     * @param maxEntries the number of entries above which the least recently used are evicted
+     * @param timeToLiveInMillis how long an entry stays valid after it was put, 0 for no expiry
+     */
+    <K, V> CacheRegion<K, V> createRegion(String name, int maxEntries, long timeToLiveInMillis);
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright (c) 2005-2011 Grameen Foundation USA
+ * All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * See also http://www.apache.org/licenses/LICENSE-2.0.html for an
+ * explanation of the license and how it is applied.
+ */
+
+package org.mifos.framework.cache;
+
+/**
+ * A point in time snapshot of the counters of a {@link CacheRegion}.
+ */
+public class CacheStatistics {
+
+    private final String regionName;
+    private final int size;
+    private final long hits;
+    private final long misses;
+    private final long evictions;
+    private final long expirations;
+    private final long invalidations;
+
+    public CacheStatistics(String regionName, int size, long hits, long misses, long evictions, long expirations,
+            long invalidations) {
+        this.regionName = regionName;
+        this.size = size;
+        this.hits = hits;
+        this.misses = misses;
+        this.evictions = evictions;
+        this.expirations = expirations;
+        this.invalidations = invalidations;
+    }
+
+    public String getRegionName() {
+        return this.regionName;
+    }
+
+    public int getSize() {
+        return this.size;
+    }
+
+    public long getHits() {
+        return this.hits;
+    }
+
+    public long getMisses() {
+        return this.misses;
+    }
+
+    /**
+     * @return entries removed to keep the region within its maximum size.
+     */
+    public long getEvictions() {
+        return this.evictions;
+    }
+
+    /**
+     * @return entries removed because they outlived their time to live.
+     */
+    public long getExpirations() {
+        return this.expirations;
+    }
+
+    public long getInvalidations() {
+        return this.invalidations;
+    }
+
+    public double getHitRatio() {
+        long requests = hits + misses;
+        return requests == 0 ? 0 : (double) hits / requests;
+    }
+
+    @Override
+    public String toString() {
+        return regionName + "[size=" + size + ", hits=" + hits + ", misses=" + misses + ", evictions=" + evictions
+                + ", expirations=" + expirations + ", invalidations=" + invalidations + "]";
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright (c) 2005-2011 Grameen Foundation USA
+ * All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * See also http://www.apache.org/licenses/LICENSE-2.0.html for an
+ * explanation of the license and how it is applied.
+ */
+
+package org.mifos.framework.cache;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Keeps track of the named {@link CacheRegion}s of the application so they can be invalidated and monitored from
+ * one place.
+ */
+public class MifosCacheManager {
+
+    private static final MifosCacheManager cacheManager = new MifosCacheManager();
+
+    private final ConcurrentMap<String, CacheRegion<?, ?>> regions = new ConcurrentHashMap<String, CacheRegion<?, ?>>();
+    private CacheRegionFactory regionFactory = new BoundedCacheRegionFactory();
+
+    MifosCacheManager() {
+    }
+
+    public static MifosCacheManager getInstance() {
+        return cacheManager;
+    }
+
+    /**
+     * Returns the region with the given name, creating it with the given bounds the first time it is asked for.
+     */
+    @SuppressWarnings("unchecked")
+    public <K, V> CacheRegion<K, V> getOrCreateRegion(String name, int maxEntries, long timeToLiveInMillis) {
+        CacheRegion<?, ?> region = regions.get(name);
+        if (region == null) {
+            CacheRegion<K, V> newRegion = regionFactory.createRegion(name, maxEntries, timeToLiveInMillis);
+            region = regions.putIfAbsent(name, newRegion);
+            if (region == null) {
+                region = newRegion;
+            }
+        }
+        return (CacheRegion<K, V>) region;
+    }
+
+    public void invalidate(String regionName) {
+        CacheRegion<?, ?> region = regions.get(regionName);
+        if (region != null) {
+            region.invalidateAll();
+        }
+    }
+
+    public void invalidateAll() {
+        for (CacheRegion<?, ?> region : regions.values()) {
+            region.invalidateAll();
+        }
+    }
+
+    public List<CacheStatistics> getStatistics() {
+        List<String> names = new ArrayList<String>(regions.keySet());
+        Collections.sort(names);
+        List<CacheStatistics> statistics = new ArrayList<CacheStatistics>();
+        for (String name : names) {
+            statistics.add(regions.get(name).getStatistics());
+        }
+        return statistics;
+    }
+
+    /**
+     * Only affects regions created after the call, so set it before the application starts up.
+     */
+    public void setRegionFactory(CacheRegionFactory regionFactory) {
+        this.regionFactory = regionFactory;
+    }
+}
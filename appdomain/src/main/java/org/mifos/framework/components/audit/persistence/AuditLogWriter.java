@@ -0,0 +1,282 @@
+/*
+ * Copyright (c) 2005-2011 Grameen Foundation USA
+ * All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * See also http://www.apache.org/licenses/LICENSE-2.0.html for an
+ * explanation of the license and how it is applied.
+ */
+
+package org.mifos.framework.components.audit.persistence;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.hibernate.Session;
+import org.hibernate.jdbc.Work;
+import org.mifos.application.servicefacade.ApplicationContextProvider;
+import org.mifos.framework.components.audit.business.AuditLog;
+import org.mifos.framework.components.audit.business.AuditLogRecord;
+import org.mifos.framework.hibernate.helper.StaticHibernateUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Writes audit logs from a background thread so that saving an audited entity does not wait for its audit log.
+ *
+ * Audit logs are queued by {@link #offer(AuditLog)} and written in JDBC batches of up to {@link #BATCH_SIZE}. When
+ * the queue is full, or the writer has been shut down, offer returns false and the caller is expected to write the
+ * audit log itself through {@link LegacyAuditDao#save(AuditLog)}, so audit logs are never dropped. A batch that
+ * cannot be written is retried one audit log at a time through the same dao.
+ *
+ * The writer thread is a daemon so it never keeps the JVM alive. The queue is drained by {@link #shutdown()} when the
+ * application context is destroyed and, should the JVM exit without that, by a shutdown hook registered with the
+ * writer thread.
+ */
+public class AuditLogWriter implements Runnable {
+
+    private static final Logger logger = LoggerFactory.getLogger(AuditLogWriter.class);
+
+    static final int QUEUE_CAPACITY = 10000;
+    static final int BATCH_SIZE = 100;
+    private static final long SHUTDOWN_TIMEOUT_MILLIS = 30000;
+
+    private static final String INSERT_CHANGE_LOG = "insert into change_log "
+            + "(changed_by, modifier_name, entity_id, entity_type, changed_date) values (?, ?, ?, ?, ?)";
+    private static final String INSERT_CHANGE_LOG_DETAIL = "insert into change_log_detail "
+            + "(change_log_id, field_name, old_value, new_value) values (?, ?, ?, ?)";
+
+    private static final AuditLogWriter auditLogWriter = new AuditLogWriter(QUEUE_CAPACITY, BATCH_SIZE);
+
+    private final BlockingQueue<AuditLog> queue;
+    private final int batchSize;
+    private Thread writerThread;
+    private Thread shutdownHook;
+    private volatile boolean shutdown;
+
+    AuditLogWriter(int queueCapacity, int batchSize) {
+        this.queue = new ArrayBlockingQueue<AuditLog>(queueCapacity);
+        this.batchSize = batchSize;
+    }
+
+    public static AuditLogWriter getInstance() {
+        return auditLogWriter;
+    }
+
+    /**
+     * @return false if the audit log was not queued and has to be written by the caller
+     */
+    public boolean offer(AuditLog auditLog) {
+        if (shutdown) {
+            return false;
+        }
+        startWriterThread();
+        return queue.offer(auditLog);
+    }
+
+    private synchronized void startWriterThread() {
+        if (writerThread == null && !shutdown) {
+            writerThread = new Thread(this, "audit-log-writer");
+            writerThread.setDaemon(true);
+            writerThread.start();
+            shutdownHook = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    shutdown();
+                }
+            }, "audit-log-writer-shutdown");
+            Runtime.getRuntime().addShutdownHook(shutdownHook);
+        }
+    }
+
+    synchronized Thread getShutdownHook() {
+        return shutdownHook;
+    }
+
+    /**
+     * Stops accepting audit logs and waits for the queued ones to be written. Those the writer thread has not written
+     * in time are written by the calling thread.
+     */
+    public void shutdown() {
+        Thread thread;
+        Thread hook;
+        synchronized (this) {
+            shutdown = true;
+            thread = writerThread;
+            hook = shutdownHook;
+            shutdownHook = null;
+        }
+        if (hook != null && hook != Thread.currentThread()) {
+            try {
+                Runtime.getRuntime().removeShutdownHook(hook);
+            } catch (IllegalStateException e) {
+                // the JVM is already exiting and the hook may be draining the queue too, which is harmless
+            }
+        }
+        if (thread != null) {
+            try {
+                thread.join(SHUTDOWN_TIMEOUT_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            if (thread.isAlive()) {
+                logger.warn("audit log writer did not finish within " + SHUTDOWN_TIMEOUT_MILLIS + " ms, writing the "
+                        + queue.size() + " audit logs still queued");
+            }
+        }
+        // anything offered while the writer thread was finishing, or that it did not get to
+        writeQueuedAuditLogs();
+    }
+
+    public int getQueueSize() {
+        return queue.size();
+    }
+
+    @Override
+    public void run() {
+        try {
+            while (!shutdown || !queue.isEmpty()) {
+                AuditLog first = queue.poll(1, TimeUnit.SECONDS);
+                if (first != null) {
+                    List<AuditLog> batch = new ArrayList<AuditLog>(batchSize);
+                    batch.add(first);
+                    queue.drainTo(batch, batchSize - 1);
+                    write(batch);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    void writeQueuedAuditLogs() {
+        List<AuditLog> batch = new ArrayList<AuditLog>(batchSize);
+        while (queue.drainTo(batch, batchSize) > 0) {
+            write(batch);
+            batch.clear();
+        }
+    }
+
+    private void write(List<AuditLog> batch) {
+        try {
+            writeBatch(batch);
+        } catch (Exception e) {
+            logger.warn("could not write batch of " + batch.size() + " audit logs, writing them one by one", e);
+            for (AuditLog auditLog : batch) {
+                try {
+                    writeSynchronously(auditLog);
+                } catch (RuntimeException e1) {
+                    logger.error("could not write audit log for entity " + auditLog.getEntityId() + " of type "
+                            + auditLog.getEntityType(), e1);
+                }
+            }
+        }
+    }
+
+    protected void writeSynchronously(AuditLog auditLog) {
+        ApplicationContextProvider.getBean(LegacyAuditDao.class).save(auditLog);
+    }
+
+    /**
+     * Uses its own session and plain JDBC so the writes are not seen by the audit interceptor.
+     */
+    protected void writeBatch(final List<AuditLog> batch) {
+        Session session = StaticHibernateUtil.getSessionFactory().openSession();
+        try {
+            session.doWork(new Work() {
+                @Override
+                public void execute(Connection connection) throws SQLException {
+                    insert(connection, batch);
+                }
+            });
+        } finally {
+            session.close();
+        }
+    }
+
+    private void insert(Connection connection, List<AuditLog> batch) throws SQLException {
+        boolean autoCommit = connection.getAutoCommit();
+        connection.setAutoCommit(false);
+        PreparedStatement changeLogStatement = null;
+        PreparedStatement changeLogDetailStatement = null;
+        try {
+            changeLogStatement = connection.prepareStatement(INSERT_CHANGE_LOG, Statement.RETURN_GENERATED_KEYS);
+            for (AuditLog auditLog : batch) {
+                changeLogStatement.setShort(1, auditLog.getUpdatedBy());
+                changeLogStatement.setString(2, auditLog.getModifierName());
+                changeLogStatement.setObject(3, auditLog.getEntityId(), Types.INTEGER);
+                changeLogStatement.setObject(4, auditLog.getEntityType(), Types.SMALLINT);
+                changeLogStatement.setDate(5, auditLog.getUpdatedDate());
+                changeLogStatement.addBatch();
+            }
+            changeLogStatement.executeBatch();
+            List<Integer> changeLogIds = getGeneratedIds(changeLogStatement);
+            if (changeLogIds.size() != batch.size()) {
+                throw new SQLException("expected " + batch.size() + " change log ids but got " + changeLogIds.size());
+            }
+
+            changeLogDetailStatement = connection.prepareStatement(INSERT_CHANGE_LOG_DETAIL);
+            for (int i = 0; i < batch.size(); i++) {
+                for (AuditLogRecord auditLogRecord : batch.get(i).getAuditLogRecords()) {
+                    changeLogDetailStatement.setInt(1, changeLogIds.get(i));
+                    changeLogDetailStatement.setString(2, auditLogRecord.getFieldName());
+                    changeLogDetailStatement.setString(3, auditLogRecord.getOldValue());
+                    changeLogDetailStatement.setString(4, auditLogRecord.getNewValue());
+                    changeLogDetailStatement.addBatch();
+                }
+            }
+            changeLogDetailStatement.executeBatch();
+            connection.commit();
+        } catch (SQLException e) {
+            connection.rollback();
+            throw e;
+        } finally {
+            close(changeLogStatement);
+            close(changeLogDetailStatement);
+            connection.setAutoCommit(autoCommit);
+        }
+    }
+
+    private List<Integer> getGeneratedIds(PreparedStatement statement) throws SQLException {
+        List<Integer> ids = new ArrayList<Integer>();
+        ResultSet generatedKeys = statement.getGeneratedKeys();
+        try {
+            while (generatedKeys.next()) {
+                ids.add(generatedKeys.getInt(1));
+            }
+        } finally {
+            generatedKeys.close();
+        }
+        return ids;
+    }
+
+    private void close(Statement statement) {
+        if (statement != null) {
+            try {
+                statement.close();
+            } catch (SQLException e) {
+                logger.warn("could not close statement", e);
+            }
+        }
+    }
+}
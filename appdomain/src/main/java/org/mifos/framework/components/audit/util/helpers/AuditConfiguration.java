@@ -27,6 +27,8 @@ import java.util.Locale;
 import java.util.Map;
 import java.util.PropertyResourceBundle;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.mifos.application.master.MessageLookup;
 import org.mifos.application.master.business.MasterDataEntity;
@@ -56,6 +58,13 @@ public class AuditConfiguration {
 
     public static final Map<Object, EntitiesToLog> entitiesToLog = new HashMap<Object, EntitiesToLog>();
 
+    /*
+     * isObjectToBeLogged and isObjectPropertiesToBeMerged are asked for every property of every audited object,
+     * remember their answers rather than scanning the entities to log each time
+     */
+    private static final ConcurrentMap<String, Boolean> objectsToBeLogged = new ConcurrentHashMap<String, Boolean>();
+    private static final ConcurrentMap<String, Boolean> objectPropertiesToBeMerged = new ConcurrentHashMap<String, Boolean>();
+
     private PropertyResourceBundle columnNames;
     static private Locale locale;
 
@@ -80,6 +89,8 @@ public class AuditConfiguration {
     }
 
     private void createEntityValueMap() throws SystemException {
+        objectsToBeLogged.clear();
+        objectPropertiesToBeMerged.clear();
         ColumnPropertyMapping columnPropertyMapping = XMLParser.getInstance().parser();
         EntityType[] entityTypes = columnPropertyMapping.getEntityTypes();
         for (EntityType entityType : entityTypes) {
@@ -95,6 +106,35 @@ public class AuditConfiguration {
     }
 
     public static boolean isObjectToBeLogged(String entityType, String name, String parentName) {
+        String key = getEntityPropertyKey(entityType, name, parentName);
+        Boolean toBeLogged = objectsToBeLogged.get(key);
+        if (toBeLogged == null) {
+            toBeLogged = findObjectToBeLogged(entityType, name, parentName);
+            objectsToBeLogged.put(key, toBeLogged);
+        }
+        return toBeLogged;
+    }
+
+    public static boolean isObjectPropertiesToBeMerged(String entityType, String name, String parentName) {
+        String key = getEntityPropertyKey(entityType, name, parentName);
+        Boolean toBeMerged = objectPropertiesToBeMerged.get(key);
+        if (toBeMerged == null) {
+            toBeMerged = findObjectPropertiesToBeMerged(entityType, name, parentName);
+            objectPropertiesToBeMerged.put(key, toBeMerged);
+        }
+        return toBeMerged;
+    }
+
+    private static String getEntityPropertyKey(String entityType, String name, String parentName) {
+        // names are compared ignoring case
+        StringBuilder key = new StringBuilder().append(entityType).append(':').append(name.toLowerCase());
+        if (parentName != null) {
+            key.append(':').append(parentName.toLowerCase());
+        }
+        return key.toString();
+    }
+
+    private static boolean findObjectToBeLogged(String entityType, String name, String parentName) {
         Boolean flag = false;
         EntitiesToLog objectToBeLogged = entitiesToLog.get(entityType);
         if (objectToBeLogged == null || objectToBeLogged.getEntities() == null) {
@@ -115,7 +155,7 @@ public class AuditConfiguration {
         return flag;
     }
 
-    public static boolean isObjectPropertiesToBeMerged(String entityType, String name, String parentName) {
+    private static boolean findObjectPropertiesToBeMerged(String entityType, String name, String parentName) {
         EntitiesToLog objectToBeLogged = entitiesToLog.get(entityType);
         if (objectToBeLogged == null || objectToBeLogged.getEntities() == null) {
             return false;
@@ -20,20 +20,32 @@
 
 package org.mifos.framework.components.audit.util.helpers;
 
+import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Set;
 
 import org.hibernate.EmptyInterceptor;
+import org.hibernate.EntityMode;
 import org.hibernate.Transaction;
+import org.hibernate.type.Type;
 import org.mifos.application.servicefacade.ApplicationContextProvider;
 import org.mifos.application.util.helpers.EntityType;
+import org.mifos.config.GeneralConfig;
+import org.mifos.customers.business.CustomerBO;
+import org.mifos.customers.client.business.ClientNameDetailEntity;
+import org.mifos.customers.search.CustomerSearchIndexer;
 import org.mifos.framework.business.AbstractBusinessObject;
 import org.mifos.framework.components.audit.business.AuditLog;
 import org.mifos.framework.components.audit.business.AuditLogRecord;
+import org.mifos.framework.components.audit.persistence.AuditLogWriter;
 import org.mifos.framework.components.audit.persistence.LegacyAuditDao;
+import org.mifos.framework.metrics.RequestMetrics;
 import org.mifos.framework.util.DateTimeService;
 import org.mifos.security.util.UserContext;
 
@@ -47,6 +59,13 @@ public class AuditInterceptor extends EmptyInterceptor {
     private InterceptHelper interceptHelper;
     private UserContext userContext;
     private Boolean flag = false;
+    /**
+     * The properties of customers and their name details the {@link CustomerSearchIndexer} indexes.
+     */
+    private static final Set<String> SEARCHABLE_PROPERTIES = new HashSet<String>(Arrays.asList("displayName",
+            "firstName", "lastName", "secondLastName", "office", "name"));
+
+    private final Set<Object> searchableEntities = Collections.newSetFromMap(new IdentityHashMap<Object, Boolean>());
 
     public AuditInterceptor() {
         interceptHelper = new InterceptHelper();
@@ -70,11 +89,77 @@ public class AuditInterceptor extends EmptyInterceptor {
         return true;
     }
 
+    @Override
+    public boolean onSave(Object entity, Serializable id, Object[] state, String[] propertyNames, Type[] types) {
+        collectSearchableEntity(entity);
+        return false;
+    }
+
+    @Override
+    public boolean onFlushDirty(Object entity, Serializable id, Object[] currentState, Object[] previousState,
+            String[] propertyNames, Type[] types) {
+        if (isSearchableEntity(entity) && searchablePropertyChanged(currentState, previousState, propertyNames, types)) {
+            searchableEntities.add(entity);
+        }
+        return false;
+    }
+
+    @Override
+    public void onDelete(Object entity, Serializable id, Object[] state, String[] propertyNames, Type[] types) {
+        collectSearchableEntity(entity);
+    }
+
+    @Override
+    public boolean onLoad(Object entity, Serializable id, Object[] state, String[] propertyNames, Type[] types) {
+        RequestMetrics.entityLoaded();
+        return false;
+    }
+
+    @Override
+    public String onPrepareStatement(String sql) {
+        RequestMetrics.statementPrepared(sql);
+        return sql;
+    }
+
+    private void collectSearchableEntity(Object entity) {
+        if (isSearchableEntity(entity)) {
+            searchableEntities.add(entity);
+        }
+    }
+
+    private boolean isSearchableEntity(Object entity) {
+        return entity instanceof CustomerBO || entity instanceof ClientNameDetailEntity;
+    }
+
+    /**
+     * Without the previous state, as for detached entities, any change has to be taken as a change of the names.
+     */
+    private boolean searchablePropertyChanged(Object[] currentState, Object[] previousState, String[] propertyNames,
+            Type[] types) {
+        if (previousState == null) {
+            return true;
+        }
+        for (int i = 0; i < propertyNames.length; i++) {
+            if (SEARCHABLE_PROPERTIES.contains(propertyNames[i])
+                    && !types[i].isEqual(previousState[i], currentState[i], EntityMode.POJO)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     @Override
     public void afterTransactionCompletion(Transaction tx) {
-        if (tx != null && tx.wasCommitted() && !tx.wasRolledBack()) {
+        boolean committed = tx != null && tx.wasCommitted() && !tx.wasRolledBack();
+        if (committed) {
             flag = true;
         }
+        if (!searchableEntities.isEmpty()) {
+            if (committed && GeneralConfig.getCustomerSearchIndex()) {
+                CustomerSearchIndexer.getInstance().customersChanged(getChangedCustomerIds());
+            }
+            searchableEntities.clear();
+        }
         if (flag && ((interceptHelper.getInitialValueMap() != null && interceptHelper.getInitialValueMap().size() > 0)
             || (interceptHelper.getChangeValueMap() != null && interceptHelper.getChangeValueMap().size() > 0))) {
             auditLog = new AuditLog(interceptHelper.getEntityId(), EntityType.getEntityValue(interceptHelper
@@ -83,11 +168,33 @@ public class AuditInterceptor extends EmptyInterceptor {
             Set<AuditLogRecord> auditLogRecords = createAuditLogRecord();
             auditLog.addAuditLogRecords(auditLogRecords);
             if (!auditLogRecords.isEmpty()) {
-                ApplicationContextProvider.getBean(LegacyAuditDao.class).save(auditLog);
+                save(auditLog);
             }
         }
     }
 
+    /**
+     * Ids are read after the commit because new customers only have one once they are inserted.
+     */
+    private Set<Integer> getChangedCustomerIds() {
+        Set<Integer> customerIds = new HashSet<Integer>();
+        for (Object entity : searchableEntities) {
+            CustomerBO customer = entity instanceof ClientNameDetailEntity ? ((ClientNameDetailEntity) entity)
+                    .getCustomer() : (CustomerBO) entity;
+            if (customer != null && customer.getCustomerId() != null) {
+                customerIds.add(customer.getCustomerId());
+            }
+        }
+        return customerIds;
+    }
+
+    private void save(AuditLog auditLog) {
+        if (GeneralConfig.getAsynchronousAuditLogging() && AuditLogWriter.getInstance().offer(auditLog)) {
+            return;
+        }
+        ApplicationContextProvider.getBean(LegacyAuditDao.class).save(auditLog);
+    }
+
     private Set<AuditLogRecord> createAuditLogRecord() {
         Set<AuditLogRecord> auditLogRecords = new HashSet<AuditLogRecord>();
         Set set = interceptHelper.getPropertyNames().keySet();
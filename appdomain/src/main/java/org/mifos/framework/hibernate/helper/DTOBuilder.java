@@ -21,6 +21,8 @@
 package org.mifos.framework.hibernate.helper;
 
 import java.lang.reflect.Method;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.hibernate.type.Type;
 import org.mifos.framework.exceptions.HibernateSearchException;
@@ -41,12 +43,20 @@ public class DTOBuilder {
 
     private static final Logger logger = LoggerFactory.getLogger(DTOBuilder.class);
 
+    /**
+     * Mappings by DTO class, alias names and column types, so that classes and setters are looked up once per query
+     * rather than once per row.
+     */
+    private static final ConcurrentMap<String, DTOMapping> mappings = new ConcurrentHashMap<String, DTOMapping>();
+
     String dtoPath = "";
 
     Type[] returnTypes = null;
 
     String[] aliasNames = null;
 
+    private DTOMapping mapping = null;
+
     /**
      * Set the query inputs to build the DTO
      *
@@ -56,7 +66,7 @@ public class DTOBuilder {
         dtoPath = queryInputs.getPath();
         returnTypes = queryInputs.getTypes();
         aliasNames = queryInputs.getAliasNames();
-
+        mapping = null;
     }
 
     /**
@@ -66,35 +76,64 @@ public class DTOBuilder {
      * @return Object
      */
     public Object buildDTO(Object[] dtoData) throws HibernateSearchException {
-        int i = -1;
-        String alias = "";
-        Method methodToCall = null;
-        Class[] parameterTypes = null;
-        Object setValues[] = new Object[1];
-        Object dtoObject = null;
         try {
-            dtoObject = Class.forName(dtoPath).newInstance();
-
-            while (i++ < dtoData.length - 1) {
-                alias = "set" + capitalize(aliasNames[i]);
-                parameterTypes = getParameterTypes(returnTypes[i].getName());
-                methodToCall = dtoObject.getClass().getMethod(alias, parameterTypes);
-                setValues[0] = getValue(dtoData[i], returnTypes[i].getName());
-                if (null != setValues[0]) {
-                    methodToCall.invoke(dtoObject, setValues[0]);
-                }
+            if (mapping == null) {
+                mapping = getMapping();
             }
+            return mapping.build(dtoData);
         } catch (Exception e) {
             logger.error("error.." + e.getMessage());
             throw new HibernateSearchException(HibernateConstants.BUILDDTO, e);
-        } finally {
-            alias = null;
-            methodToCall = null;
-            parameterTypes = null;
-            setValues = null;
         }
-        return dtoObject;
+    }
+
+    private DTOMapping getMapping() throws Exception {
+        StringBuilder key = new StringBuilder(dtoPath);
+        for (int i = 0; i < returnTypes.length; i++) {
+            key.append('|').append(i < aliasNames.length ? aliasNames[i] : null).append(':').append(
+                    returnTypes[i].getName());
+        }
+        DTOMapping existing = mappings.get(key.toString());
+        if (existing != null) {
+            return existing;
+        }
+        DTOMapping created = new DTOMapping(this);
+        existing = mappings.putIfAbsent(key.toString(), created);
+        return existing == null ? created : existing;
+    }
 
+    /**
+     * The class and setters of a DTO for the columns of one query.
+     */
+    private static class DTOMapping {
+
+        private final Class<?> dtoClass;
+        private final Method[] setters;
+        private final String[] dataTypes;
+
+        DTOMapping(DTOBuilder builder) throws Exception {
+            dtoClass = Class.forName(builder.dtoPath);
+            int columns = Math.min(builder.aliasNames.length, builder.returnTypes.length);
+            setters = new Method[columns];
+            dataTypes = new String[columns];
+            for (int i = 0; i < columns; i++) {
+                dataTypes[i] = builder.returnTypes[i].getName();
+                setters[i] = dtoClass.getMethod("set" + builder.capitalize(builder.aliasNames[i]), builder
+                        .getParameterTypes(dataTypes[i]));
+            }
+        }
+
+        Object build(Object[] dtoData) throws Exception {
+            Object dtoObject = dtoClass.newInstance();
+            Object[] setValues = new Object[1];
+            for (int i = 0; i < dtoData.length; i++) {
+                setValues[0] = getValue(dtoData[i], dataTypes[i]);
+                if (null != setValues[0]) {
+                    setters[i].invoke(dtoObject, setValues);
+                }
+            }
+            return dtoObject;
+        }
     }
 
     /**
@@ -153,8 +192,8 @@ public class DTOBuilder {
     /**
      * Returns the calendar corrosponding the value passed
      */
-    Object getValue(Object value, String dataType) {
-        if (dataType.equals("date")) {
+    static Object getValue(Object value, String dataType) {
+        if (value != null && dataType.equals("date")) {
             java.util.Date dateVal = (java.util.Date) value;
             java.util.GregorianCalendar cal = new java.util.GregorianCalendar();
             cal.setTime(dateVal);
@@ -167,6 +206,7 @@ public class DTOBuilder {
         dtoPath = null;
         returnTypes = null;
         aliasNames = null;
+        mapping = null;
     }
 
 }
@@ -21,6 +21,7 @@
 package org.mifos.framework.hibernate.helper;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 
 import org.hibernate.Query;
@@ -129,7 +130,9 @@ public class QueryResultSearchDTOImpl extends QueryResultDTOImpl {
         query = session.getNamedQuery(namedQuery);
         if (paramList != null) {
             for (int i = 0; i < paramList.size(); i++) {
-                if (paramList.get(i) != null) {
+                if (paramList.get(i) != null && paramList.get(i).getValue() instanceof Collection) {
+                    query.setParameterList(paramList.get(i).getName(), (Collection<?>) paramList.get(i).getValue());
+                } else if (paramList.get(i) != null) {
                     query.setParameter(paramList.get(i).getName(), paramList.get(i).getValue());
                 }
             }
@@ -20,6 +20,11 @@
 
 package org.mifos.framework.hibernate.helper;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
 import org.hibernate.Query;
 import org.hibernate.Session;
 import org.mifos.customers.business.CustomerSearchDto;
@@ -27,6 +32,9 @@ import org.mifos.framework.exceptions.HibernateSearchException;
 
 public class QueryResultsMainSearchImpl extends QueryResultSearchDTOImpl {
 
+    private static final short LOAN_ACCOUNT_TYPE = 1;
+    private static final short SAVINGS_ACCOUNT_TYPE = 2;
+
     @Override
     public java.util.List get(int position, int noOfObjects) throws HibernateSearchException {
         java.util.List returnList = new java.util.ArrayList();
@@ -41,20 +49,13 @@ public class QueryResultsMainSearchImpl extends QueryResultSearchDTOImpl {
             this.queryInputs.setTypes(query.getReturnTypes());
             dtoBuilder.setInputs(queryInputs);
 
-            Query query1 = session.createQuery("select account.globalAccountNum "
-                    + "from org.mifos.accounts.business.AccountBO account "
-                    + "where account.customer.customerId=:customerId"
-                    + " and account.accountType.accountTypeId=:accountTypeId"
-                    + " and account.accountState.id not in (6,7,10,15,17,18) ");
             if (list != null) {
+                List<CustomerSearchDto> customers = new ArrayList<CustomerSearchDto>();
                 for (int i = 0; i < list.size(); i++) {
                     if (buildDTO) {
                         Object record = buildDTO((Object[]) list.get(i));
                         CustomerSearchDto cs = ((CustomerSearchDto) record);
-                        query1.setInteger("customerId", cs.getCustomerId()).setShort("accountTypeId", (short) 1);
-                        cs.setLoanGlobalAccountNum(query1.list());
-                        query1.setShort("accountTypeId", (short) 2);
-                        cs.setSavingsGlobalAccountNum(query1.list());
+                        customers.add(cs);
                         returnList.add(cs);
                     } else {
                         if (i < noOfObjects) {
@@ -62,6 +63,7 @@ public class QueryResultsMainSearchImpl extends QueryResultSearchDTOImpl {
                         }
                     }
                 }
+                setGlobalAccountNums(session, customers);
             }
             StaticHibernateUtil.closeSession();
         } catch (Exception e) {
@@ -69,4 +71,50 @@ public class QueryResultsMainSearchImpl extends QueryResultSearchDTOImpl {
         }
         return returnList;
     }
+
+    /**
+     * Looks up the open loan and savings account numbers of the whole page in one query instead of two per customer.
+     */
+    private void setGlobalAccountNums(Session session, List<CustomerSearchDto> customers) {
+        if (customers.isEmpty()) {
+            return;
+        }
+        Map<Integer, List<String>> loanAccountNums = new HashMap<Integer, List<String>>();
+        Map<Integer, List<String>> savingsAccountNums = new HashMap<Integer, List<String>>();
+        List<Integer> customerIds = new ArrayList<Integer>();
+        for (CustomerSearchDto customer : customers) {
+            Integer customerId = Integer.valueOf(customer.getCustomerId());
+            if (!loanAccountNums.containsKey(customerId)) {
+                customerIds.add(customerId);
+                loanAccountNums.put(customerId, new ArrayList<String>());
+                savingsAccountNums.put(customerId, new ArrayList<String>());
+            }
+        }
+
+        Query query = session.createQuery("select account.customer.customerId, account.accountType.accountTypeId, "
+                + "account.globalAccountNum "
+                + "from org.mifos.accounts.business.AccountBO account "
+                + "where account.customer.customerId in (:customerIds)"
+                + " and account.accountType.accountTypeId in (:loanAccountTypeId, :savingsAccountTypeId)"
+                + " and account.accountState.id not in (6,7,10,15,17,18) "
+                + "order by account.accountId");
+        query.setParameterList("customerIds", customerIds);
+        query.setShort("loanAccountTypeId", LOAN_ACCOUNT_TYPE).setShort("savingsAccountTypeId", SAVINGS_ACCOUNT_TYPE);
+
+        for (Object row : query.list()) {
+            Object[] account = (Object[]) row;
+            Integer customerId = (Integer) account[0];
+            if (((Number) account[1]).shortValue() == LOAN_ACCOUNT_TYPE) {
+                loanAccountNums.get(customerId).add((String) account[2]);
+            } else {
+                savingsAccountNums.get(customerId).add((String) account[2]);
+            }
+        }
+
+        for (CustomerSearchDto customer : customers) {
+            Integer customerId = Integer.valueOf(customer.getCustomerId());
+            customer.setLoanGlobalAccountNum(new ArrayList<String>(loanAccountNums.get(customerId)));
+            customer.setSavingsGlobalAccountNum(new ArrayList<String>(savingsAccountNums.get(customerId)));
+        }
+    }
 }
@@ -0,0 +1,63 @@
+/*
+ * Copyright (c) 2005-2011 Grameen Foundation USA
+ * All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * See also http://www.apache.org/licenses/LICENSE-2.0.html for an
+ * explanation of the license and how it is applied.
+ */
+
+package org.mifos.framework.hibernate.helper;
+
+import org.hibernate.Cache;
+import org.hibernate.SessionFactory;
+import org.mifos.customers.office.business.OfficeBO;
+
+/**
+ * Evicts the reference data held in the hibernate second level cache (see the class-cache entries of
+ * hibernate.cfg.xml). Changes made through a hibernate session keep the cache up to date by themselves; these
+ * methods are for changes that bypass it.
+ */
+public class ReferenceDataCache {
+
+    private ReferenceDataCache() {
+    }
+
+    public static void evictOffices() {
+        Cache cache = getCache();
+        if (cache != null) {
+            cache.evictEntityRegion(OfficeBO.class);
+        }
+    }
+
+    public static void evictAll() {
+        Cache cache = getCache();
+        if (cache != null) {
+            cache.evictEntityRegions();
+            cache.evictCollectionRegions();
+            cache.evictQueryRegions();
+        }
+    }
+
+    /**
+     * @return null before hibernate is initialized, when there is nothing to evict
+     */
+    private static Cache getCache() {
+        if (StaticHibernateUtil.getHibernateUtil() == null) {
+            return null;
+        }
+        SessionFactory sessionFactory = StaticHibernateUtil.getSessionFactory();
+        return sessionFactory == null ? null : sessionFactory.getCache();
+    }
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright (c) 2005-2011 Grameen Foundation USA
+ * All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * See also http://www.apache.org/licenses/LICENSE-2.0.html for an
+ * explanation of the license and how it is applied.
+ */
+
+package org.mifos.framework.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Accumulates how often and how long a named operation took, optionally with the number of items (rows, accounts)
+ * it handled, and counts the durations in a fixed latency histogram. Thread safe.
+ */
+public class MetricTimer {
+
+    /**
+     * Upper bounds of the histogram buckets; durations above the last bound fall into one more, open ended bucket.
+     */
+    private static final long[] BUCKET_BOUNDS_IN_MILLIS = { 10, 50, 100, 250, 500, 1000, 2500, 5000, 10000 };
+
+    private final String name;
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong totalTimeInMillis = new AtomicLong();
+    private final AtomicLong maxTimeInMillis = new AtomicLong();
+    private final AtomicLong totalItems = new AtomicLong();
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_BOUNDS_IN_MILLIS.length + 1);
+
+    public MetricTimer(String name) {
+        this.name = name;
+    }
+
+    public void record(long durationInMillis) {
+        record(durationInMillis, 0);
+    }
+
+    public void record(long durationInMillis, long items) {
+        count.incrementAndGet();
+        totalTimeInMillis.addAndGet(durationInMillis);
+        totalItems.addAndGet(items);
+        buckets.incrementAndGet(bucketFor(durationInMillis));
+        long max = maxTimeInMillis.get();
+        while (durationInMillis > max && !maxTimeInMillis.compareAndSet(max, durationInMillis)) {
+            max = maxTimeInMillis.get();
+        }
+    }
+
+    public String getName() {
+        return this.name;
+    }
+
+    public long getCount() {
+        return count.get();
+    }
+
+    public long getTotalTimeInMillis() {
+        return totalTimeInMillis.get();
+    }
+
+    public long getMaxTimeInMillis() {
+        return maxTimeInMillis.get();
+    }
+
+    public long getTotalItems() {
+        return totalItems.get();
+    }
+
+    public double getMeanTimeInMillis() {
+        long invocations = getCount();
+        return invocations == 0 ? 0 : (double) getTotalTimeInMillis() / invocations;
+    }
+
+    /**
+     * @return the upper bound of each histogram bucket but the last, which holds everything slower
+     */
+    public long[] getBucketBoundsInMillis() {
+        return BUCKET_BOUNDS_IN_MILLIS.clone();
+    }
+
+    /**
+     * @return the number of durations recorded in each bucket of {@link #getBucketBoundsInMillis()}
+     */
+    public long[] getHistogram() {
+        long[] histogram = new long[buckets.length()];
+        for (int i = 0; i < histogram.length; i++) {
+            histogram[i] = buckets.get(i);
+        }
+        return histogram;
+    }
+
+    private static int bucketFor(long durationInMillis) {
+        int bucket = 0;
+        while (bucket < BUCKET_BOUNDS_IN_MILLIS.length && durationInMillis > BUCKET_BOUNDS_IN_MILLIS[bucket]) {
+            bucket++;
+        }
+        return bucket;
+    }
+
+    void reset() {
+        count.set(0);
+        totalTimeInMillis.set(0);
+        maxTimeInMillis.set(0);
+        totalItems.set(0);
+        for (int i = 0; i < buckets.length(); i++) {
+            buckets.set(i, 0);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return name + "[count=" + getCount() + ", totalMillis=" + getTotalTimeInMillis() + ", maxMillis="
+                + getMaxTimeInMillis() + ", items=" + getTotalItems() + "]";
+    }
+}
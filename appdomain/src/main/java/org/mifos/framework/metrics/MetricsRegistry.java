@@ -0,0 +1,144 @@
+/*
+ * Copyright (c) 2005-2011 Grameen Foundation USA
+ * All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * See also http://www.apache.org/licenses/LICENSE-2.0.html for an
+ * explanation of the license and how it is applied.
+ */
+
+package org.mifos.framework.metrics;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Holds the application's named {@link MetricTimer}s, counters and the latest {@link SlowRequest}s so they can be
+ * read for monitoring in one place.
+ */
+public class MetricsRegistry {
+
+    static final int MAX_SLOW_REQUESTS = 50;
+
+    private static final MetricsRegistry metricsRegistry = new MetricsRegistry();
+
+    private final ConcurrentMap<String, MetricTimer> timers = new ConcurrentHashMap<String, MetricTimer>();
+    private final ConcurrentMap<String, AtomicLong> counters = new ConcurrentHashMap<String, AtomicLong>();
+    private final LinkedList<SlowRequest> slowRequests = new LinkedList<SlowRequest>();
+
+    MetricsRegistry() {
+    }
+
+    public static MetricsRegistry getInstance() {
+        return metricsRegistry;
+    }
+
+    public MetricTimer timer(String name) {
+        MetricTimer timer = timers.get(name);
+        if (timer == null) {
+            MetricTimer newTimer = new MetricTimer(name);
+            timer = timers.putIfAbsent(name, newTimer);
+            if (timer == null) {
+                timer = newTimer;
+            }
+        }
+        return timer;
+    }
+
+    public boolean hasTimer(String name) {
+        return timers.containsKey(name);
+    }
+
+    public int getTimerCount() {
+        return timers.size();
+    }
+
+    public AtomicLong counter(String name) {
+        AtomicLong counter = counters.get(name);
+        if (counter == null) {
+            AtomicLong newCounter = new AtomicLong();
+            counter = counters.putIfAbsent(name, newCounter);
+            if (counter == null) {
+                counter = newCounter;
+            }
+        }
+        return counter;
+    }
+
+    /**
+     * Keeps the request, dropping the oldest sample once {@link #MAX_SLOW_REQUESTS} are held.
+     */
+    public void recordSlowRequest(SlowRequest slowRequest) {
+        synchronized (slowRequests) {
+            slowRequests.addFirst(slowRequest);
+            if (slowRequests.size() > MAX_SLOW_REQUESTS) {
+                slowRequests.removeLast();
+            }
+        }
+    }
+
+    /**
+     * @return the latest slow requests, newest first
+     */
+    public List<SlowRequest> getSlowRequests() {
+        synchronized (slowRequests) {
+            return new ArrayList<SlowRequest>(slowRequests);
+        }
+    }
+
+    /**
+     * @return all counter values, ordered by name
+     */
+    public Map<String, Long> getCounters() {
+        List<String> names = new ArrayList<String>(counters.keySet());
+        Collections.sort(names);
+        Map<String, Long> values = new LinkedHashMap<String, Long>();
+        for (String name : names) {
+            values.put(name, counters.get(name).get());
+        }
+        return values;
+    }
+
+    /**
+     * @return all timers, ordered by name
+     */
+    public List<MetricTimer> getTimers() {
+        List<String> names = new ArrayList<String>(timers.keySet());
+        Collections.sort(names);
+        List<MetricTimer> sortedTimers = new ArrayList<MetricTimer>();
+        for (String name : names) {
+            sortedTimers.add(timers.get(name));
+        }
+        return sortedTimers;
+    }
+
+    public void reset() {
+        for (MetricTimer timer : timers.values()) {
+            timer.reset();
+        }
+        for (AtomicLong counter : counters.values()) {
+            counter.set(0);
+        }
+        synchronized (slowRequests) {
+            slowRequests.clear();
+        }
+    }
+}
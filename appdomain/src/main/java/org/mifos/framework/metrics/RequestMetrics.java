@@ -0,0 +1,108 @@
+/*
+ * Copyright (c) 2005-2011 Grameen Foundation USA
+ * All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * See also http://www.apache.org/licenses/LICENSE-2.0.html for an
+ * explanation of the license and how it is applied.
+ */
+
+package org.mifos.framework.metrics;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Counts the database work done while serving one request on the current thread. The counters are fed by the
+ * hibernate interceptor, so they cover every session the request opens.
+ */
+public class RequestMetrics {
+
+    /**
+     * Only the first statements of a request are kept for slow request samples.
+     */
+    static final int MAX_RECORDED_STATEMENTS = 200;
+
+    private static final ThreadLocal<RequestMetrics> current = new ThreadLocal<RequestMetrics>();
+
+    private final String transactionName;
+    private final long startTime;
+    private int statementCount;
+    private int entityLoadCount;
+    private final List<String> statements = new ArrayList<String>();
+
+    RequestMetrics(String transactionName, long startTime) {
+        this.transactionName = transactionName;
+        this.startTime = startTime;
+    }
+
+    public static RequestMetrics begin(String transactionName) {
+        RequestMetrics requestMetrics = new RequestMetrics(transactionName, System.currentTimeMillis());
+        current.set(requestMetrics);
+        return requestMetrics;
+    }
+
+    /**
+     * @return the metrics of the request being served on this thread, or null outside of a request
+     */
+    public static RequestMetrics current() {
+        return current.get();
+    }
+
+    public static void end() {
+        current.remove();
+    }
+
+    public static void statementPrepared(String sql) {
+        RequestMetrics requestMetrics = current.get();
+        if (requestMetrics != null) {
+            requestMetrics.addStatement(sql);
+        }
+    }
+
+    public static void entityLoaded() {
+        RequestMetrics requestMetrics = current.get();
+        if (requestMetrics != null) {
+            requestMetrics.entityLoadCount++;
+        }
+    }
+
+    void addStatement(String sql) {
+        statementCount++;
+        if (statements.size() < MAX_RECORDED_STATEMENTS) {
+            statements.add(sql);
+        }
+    }
+
+    public String getTransactionName() {
+        return this.transactionName;
+    }
+
+    public long getStartTime() {
+        return this.startTime;
+    }
+
+    public int getStatementCount() {
+        return this.statementCount;
+    }
+
+    public int getEntityLoadCount() {
+        return this.entityLoadCount;
+    }
+
+    public List<String> getStatements() {
+        return Collections.unmodifiableList(statements);
+    }
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright (c) 2005-2011 Grameen Foundation USA
+ * All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * See also http://www.apache.org/licenses/LICENSE-2.0.html for an
+ * explanation of the license and how it is applied.
+ */
+
+package org.mifos.framework.metrics;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * A sample of a request that took longer than the slow request threshold, with the statements it ran.
+ */
+public class SlowRequest {
+
+    private final String transactionName;
+    private final Date startTime;
+    private final long durationInMillis;
+    private final int statementCount;
+    private final int entityLoadCount;
+    private final List<String> statements;
+
+    public SlowRequest(RequestMetrics requestMetrics, long durationInMillis) {
+        this.transactionName = requestMetrics.getTransactionName();
+        this.startTime = new Date(requestMetrics.getStartTime());
+        this.durationInMillis = durationInMillis;
+        this.statementCount = requestMetrics.getStatementCount();
+        this.entityLoadCount = requestMetrics.getEntityLoadCount();
+        this.statements = Collections.unmodifiableList(new ArrayList<String>(requestMetrics.getStatements()));
+    }
+
+    public String getTransactionName() {
+        return this.transactionName;
+    }
+
+    public Date getStartTime() {
+        return new Date(this.startTime.getTime());
+    }
+
+    public long getDurationInMillis() {
+        return this.durationInMillis;
+    }
+
+    public int getStatementCount() {
+        return this.statementCount;
+    }
+
+    public int getEntityLoadCount() {
+        return this.entityLoadCount;
+    }
+
+    /**
+     * @return the statements run by the request, up to the first {@link RequestMetrics#MAX_RECORDED_STATEMENTS}
+     */
+    public List<String> getStatements() {
+        return this.statements;
+    }
+}
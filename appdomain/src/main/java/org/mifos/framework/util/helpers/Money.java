@@ -93,6 +93,10 @@ public final class Money implements Serializable, Comparable<Money> {
         return this.amount;
     }
 
+    static int getInternalPrecision() {
+        return internalPrecision;
+    }
+
     /**
      * Don't use double with Money as floating point calculation can cause loss in precision
      * <br />
@@ -0,0 +1,371 @@
+/*
+ * Copyright (c) 2005-2011 Grameen Foundation USA
+ * All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * See also http://www.apache.org/licenses/LICENSE-2.0.html for an
+ * explanation of the license and how it is applied.
+ */
+
+package org.mifos.framework.util.helpers;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+
+import org.mifos.application.master.business.MifosCurrency;
+import org.mifos.config.AccountingRules;
+import org.mifos.core.CurrencyMismatchException;
+
+/**
+ * A mutable running total for use inside calculation loops (interest calculation periods, schedule generation) where
+ * every {@link Money#add(Money)} would otherwise allocate a new {@link Money} and a new {@link BigDecimal}.
+ * <br><br>
+ * The amount is held as a long count of the currency's minor units, as given by its digits after decimal, plus a long
+ * count of the smaller units of {@link Money}'s internal precision that are left over. Add, subtract and integer
+ * multiplication are therefore exact and give the same result as the equivalent chain of {@link Money} operations,
+ * and apart from reading the unscaled value of a {@link Money} they do not allocate. Should the amount ever outgrow
+ * a long count of minor units, the accumulator falls back to {@link BigDecimal} arithmetic for the rest of its life.
+ * <br><br>
+ * Convert to and from {@link Money} at the boundaries of a calculation only. Instances are not thread safe.
+ */
+public final class MoneyAccumulator implements Comparable<MoneyAccumulator> {
+
+    private static final int INTERNAL_SCALE = Money.getInternalPrecision();
+
+    private final MifosCurrency currency;
+
+    /**
+     * The number of digits after decimal of {@link #minorUnits}.
+     */
+    private final int minorUnitScale;
+
+    /**
+     * The number of units of the internal precision in one minor unit.
+     */
+    private final long subMinorUnitsPerMinorUnit;
+
+    private long minorUnits;
+
+    /**
+     * Always at least 0 and less than {@link #subMinorUnitsPerMinorUnit}, so that each amount has one representation.
+     */
+    private long subMinorUnits;
+
+    /**
+     * null until the amount no longer fits in {@link #minorUnits}.
+     */
+    private BigDecimal overflowAmount;
+
+    public MoneyAccumulator(MifosCurrency currency) {
+        if (currency == null) {
+            throw new NullPointerException(ExceptionConstants.CURRENCY_MUST_NOT_BE_NULL);
+        }
+        this.currency = currency;
+        this.minorUnitScale = minorUnitScale(currency);
+        long unitsPerMinorUnit = 1;
+        for (int i = minorUnitScale; i < INTERNAL_SCALE; i++) {
+            unitsPerMinorUnit *= 10;
+        }
+        this.subMinorUnitsPerMinorUnit = unitsPerMinorUnit;
+    }
+
+    public static MoneyAccumulator from(Money money) {
+        return new MoneyAccumulator(money.getCurrency()).add(money);
+    }
+
+    /**
+     * Any scale gives exact results; the currency's own one keeps amounts without fractions of a minor unit in
+     * {@link #minorUnits} alone and leaves the most room before the fall back to {@link BigDecimal}.
+     */
+    private static int minorUnitScale(MifosCurrency currency) {
+        int digitsAfterDecimal;
+        try {
+            digitsAfterDecimal = AccountingRules.getDigitsAfterDecimal(currency).intValue();
+        } catch (IllegalArgumentException e) {
+            // not a configured currency, as in some tests
+            digitsAfterDecimal = AccountingRules.getDigitsAfterDecimal().intValue();
+        }
+        return Math.min(Math.max(digitsAfterDecimal, 0), INTERNAL_SCALE);
+    }
+
+    public MifosCurrency getCurrency() {
+        return this.currency;
+    }
+
+    /**
+     * null is ignored, as with {@link Money#add(Money)}.
+     */
+    public MoneyAccumulator add(Money money) {
+        if (money == null) {
+            return this;
+        }
+        checkSameCurrency(money.getCurrency());
+        if (overflowAmount == null && addSplitIntoMinorUnits(money.getAmount(), false)) {
+            return this;
+        }
+        return addAmount(money.getAmount());
+    }
+
+    /**
+     * null is ignored, as with {@link Money#subtract(Money)}.
+     */
+    public MoneyAccumulator subtract(Money money) {
+        if (money == null) {
+            return this;
+        }
+        checkSameCurrency(money.getCurrency());
+        if (overflowAmount == null && addSplitIntoMinorUnits(money.getAmount(), true)) {
+            return this;
+        }
+        return addAmount(money.getAmount().negate());
+    }
+
+    public MoneyAccumulator add(MoneyAccumulator other) {
+        checkSameCurrency(other.getCurrency());
+        if (overflowAmount == null && other.overflowAmount == null && minorUnitScale == other.minorUnitScale
+                && addMinorUnits(other.minorUnits, other.subMinorUnits)) {
+            return this;
+        }
+        return addAmount(other.getAmount());
+    }
+
+    /**
+     * Adds <code>other * factor</code> without changing <code>other</code>, which is the common
+     * "balance times number of days" step of average balance calculations.
+     */
+    public MoneyAccumulator addProduct(MoneyAccumulator other, int factor) {
+        checkSameCurrency(other.getCurrency());
+        if (overflowAmount == null && other.overflowAmount == null && minorUnitScale == other.minorUnitScale) {
+            long minorProduct = other.minorUnits * factor;
+            long subMinorProduct = other.subMinorUnits * factor;
+            if (!multiplicationOverflowed(other.minorUnits, factor, minorProduct)
+                    && !multiplicationOverflowed(other.subMinorUnits, factor, subMinorProduct)) {
+                long carry = floorDiv(subMinorProduct, subMinorUnitsPerMinorUnit);
+                long sum = minorProduct + carry;
+                if (!additionOverflowed(minorProduct, carry, sum)
+                        && addMinorUnits(sum, subMinorProduct - carry * subMinorUnitsPerMinorUnit)) {
+                    return this;
+                }
+            }
+        }
+        return addAmount(other.getAmount().multiply(BigDecimal.valueOf(factor)));
+    }
+
+    public MoneyAccumulator multiply(int factor) {
+        if (overflowAmount == null) {
+            long minorProduct = minorUnits * factor;
+            long subMinorProduct = subMinorUnits * factor;
+            if (!multiplicationOverflowed(minorUnits, factor, minorProduct)
+                    && !multiplicationOverflowed(subMinorUnits, factor, subMinorProduct)) {
+                long carry = floorDiv(subMinorProduct, subMinorUnitsPerMinorUnit);
+                long product = minorProduct + carry;
+                if (!additionOverflowed(minorProduct, carry, product)) {
+                    minorUnits = product;
+                    subMinorUnits = subMinorProduct - carry * subMinorUnitsPerMinorUnit;
+                    return this;
+                }
+            }
+            overflowAmount = getAmount();
+        }
+        overflowAmount = overflowAmount.multiply(BigDecimal.valueOf(factor));
+        return this;
+    }
+
+    public MoneyAccumulator set(MoneyAccumulator other) {
+        checkSameCurrency(other.getCurrency());
+        if (minorUnitScale != other.minorUnitScale) {
+            return clear().add(other);
+        }
+        this.minorUnits = other.minorUnits;
+        this.subMinorUnits = other.subMinorUnits;
+        this.overflowAmount = other.overflowAmount;
+        return this;
+    }
+
+    public MoneyAccumulator clear() {
+        this.minorUnits = 0;
+        this.subMinorUnits = 0;
+        this.overflowAmount = null;
+        return this;
+    }
+
+    public BigDecimal getAmount() {
+        if (overflowAmount != null) {
+            return overflowAmount;
+        }
+        return BigDecimal.valueOf(minorUnits, minorUnitScale).add(BigDecimal.valueOf(subMinorUnits, INTERNAL_SCALE));
+    }
+
+    public Money toMoney() {
+        return new Money(currency, getAmount());
+    }
+
+    public boolean isGreaterThan(MoneyAccumulator other) {
+        return compareTo(other) > 0;
+    }
+
+    public boolean isLessThan(MoneyAccumulator other) {
+        return compareTo(other) < 0;
+    }
+
+    public boolean isZero() {
+        return signum() == 0;
+    }
+
+    public boolean isGreaterThanZero() {
+        return signum() > 0;
+    }
+
+    public boolean isLessThanZero() {
+        return signum() < 0;
+    }
+
+    @Override
+    public int compareTo(MoneyAccumulator other) {
+        checkSameCurrency(other.getCurrency());
+        if (overflowAmount == null && other.overflowAmount == null && minorUnitScale == other.minorUnitScale) {
+            if (minorUnits != other.minorUnits) {
+                return minorUnits < other.minorUnits ? -1 : 1;
+            }
+            if (subMinorUnits != other.subMinorUnits) {
+                return subMinorUnits < other.subMinorUnits ? -1 : 1;
+            }
+            return 0;
+        }
+        return getAmount().compareTo(other.getAmount());
+    }
+
+    @Override
+    public String toString() {
+        return toMoney().toString();
+    }
+
+    /**
+     * For tests: true once the amount has outgrown a long count of minor units.
+     */
+    boolean isBigDecimalBacked() {
+        return overflowAmount != null;
+    }
+
+    private int signum() {
+        if (overflowAmount != null) {
+            return overflowAmount.signum();
+        }
+        if (minorUnits != 0) {
+            // the sub minor units are less than one minor unit and never negative
+            return minorUnits < 0 ? -1 : 1;
+        }
+        return subMinorUnits == 0 ? 0 : 1;
+    }
+
+    /**
+     * @param amount an amount at {@link Money}'s internal precision
+     */
+    private MoneyAccumulator addAmount(BigDecimal amount) {
+        if (overflowAmount == null) {
+            overflowAmount = getAmount();
+        }
+        overflowAmount = overflowAmount.add(amount);
+        return this;
+    }
+
+    /**
+     * Splits an amount of a {@link Money} into whole minor units and the units of the internal precision left over,
+     * which are never negative, and adds or subtracts them. Returns false, leaving the total unchanged, if the amount
+     * or the result does not fit.
+     */
+    private boolean addSplitIntoMinorUnits(BigDecimal amount, boolean subtract) {
+        if (amount.scale() != INTERNAL_SCALE) {
+            return false;
+        }
+        BigInteger units = amount.unscaledValue();
+        long wholeMinorUnits;
+        long restSubMinorUnits;
+        if (units.bitLength() < Long.SIZE) {
+            long unitsValue = units.longValue();
+            wholeMinorUnits = floorDiv(unitsValue, subMinorUnitsPerMinorUnit);
+            restSubMinorUnits = unitsValue - wholeMinorUnits * subMinorUnitsPerMinorUnit;
+        } else {
+            // only single amounts of about a million or more get here
+            BigInteger[] quotientAndRemainder = units.divideAndRemainder(BigInteger.valueOf(subMinorUnitsPerMinorUnit));
+            BigInteger quotient = quotientAndRemainder[0];
+            long remainder = quotientAndRemainder[1].longValue();
+            if (remainder < 0) {
+                quotient = quotient.subtract(BigInteger.ONE);
+                remainder += subMinorUnitsPerMinorUnit;
+            }
+            if (quotient.bitLength() >= Long.SIZE) {
+                return false;
+            }
+            wholeMinorUnits = quotient.longValue();
+            restSubMinorUnits = remainder;
+        }
+        if (subtract) {
+            return wholeMinorUnits != Long.MIN_VALUE && addMinorUnits(-wholeMinorUnits, -restSubMinorUnits);
+        }
+        return addMinorUnits(wholeMinorUnits, restSubMinorUnits);
+    }
+
+    /**
+     * Adds an amount given as minor units and units of the internal precision, the latter with an absolute value
+     * below one minor unit. Returns false, leaving the total unchanged, if the minor units would overflow.
+     */
+    private boolean addMinorUnits(long minorUnitsToAdd, long subMinorUnitsToAdd) {
+        long subMinorSum = subMinorUnits + subMinorUnitsToAdd;
+        long carry = 0;
+        if (subMinorSum >= subMinorUnitsPerMinorUnit) {
+            carry = 1;
+            subMinorSum -= subMinorUnitsPerMinorUnit;
+        } else if (subMinorSum < 0) {
+            carry = -1;
+            subMinorSum += subMinorUnitsPerMinorUnit;
+        }
+        long sum = minorUnits + minorUnitsToAdd;
+        if (additionOverflowed(minorUnits, minorUnitsToAdd, sum)) {
+            return false;
+        }
+        long sumWithCarry = sum + carry;
+        if (additionOverflowed(sum, carry, sumWithCarry)) {
+            return false;
+        }
+        minorUnits = sumWithCarry;
+        subMinorUnits = subMinorSum;
+        return true;
+    }
+
+    private static boolean additionOverflowed(long augend, long addend, long sum) {
+        return ((augend ^ sum) & (addend ^ sum)) < 0;
+    }
+
+    private static boolean multiplicationOverflowed(long value, int factor, long product) {
+        if (factor == 0 || value == 0) {
+            return false;
+        }
+        return product / factor != value || (value == Long.MIN_VALUE && factor == -1);
+    }
+
+    private static long floorDiv(long dividend, long divisor) {
+        long quotient = dividend / divisor;
+        if (dividend % divisor < 0) {
+            quotient--;
+        }
+        return quotient;
+    }
+
+    private void checkSameCurrency(MifosCurrency other) {
+        if (!currency.getCurrencyId().equals(other.getCurrencyId())) {
+            throw new CurrencyMismatchException(ExceptionConstants.ILLEGALMONEYOPERATION);
+        }
+    }
+}
@@ -26,6 +26,7 @@ import java.util.List;
 import org.joda.time.DateTime;
 import org.joda.time.Days;
 import org.mifos.application.holiday.business.Holiday;
+import org.mifos.calendar.HolidayIndex;
 import org.mifos.calendar.ListOfDatesAdjustmentStrategy;
 import org.mifos.calendar.MoratoriumStrategy;
 import org.mifos.schedule.ScheduledDateGeneration;
@@ -37,23 +38,27 @@ import org.mifos.schedule.ScheduledEvent;
 public class HolidayAndWorkingDaysAndMoratoriaScheduledDateGeneration implements ScheduledDateGeneration {
 
     private final List<Days> workingDays;
-    private final List<Holiday> upcomingHolidays;
+    private final HolidayIndex upcomingHolidays;
+    private final HolidayAndWorkingDaysScheduledDateGeneration generatorForWorkingDays;
 
     public HolidayAndWorkingDaysAndMoratoriaScheduledDateGeneration(final List<Days> workingDays, final List<Holiday> upcomingHolidays) {
+        this(workingDays, new HolidayIndex(upcomingHolidays));
+    }
+
+    public HolidayAndWorkingDaysAndMoratoriaScheduledDateGeneration(final List<Days> workingDays, final HolidayIndex upcomingHolidays) {
         this.workingDays = workingDays;
         this.upcomingHolidays = upcomingHolidays;
+        this.generatorForWorkingDays = new HolidayAndWorkingDaysScheduledDateGeneration(workingDays,
+                new ArrayList<Holiday>());
     }
 
     @Override
 	public List<DateTime> generateScheduledDates
                                 (int occurences, DateTime lastScheduledDate, ScheduledEvent scheduledEvent, boolean isCustomerSchedule) {
 
-        HolidayAndWorkingDaysScheduledDateGeneration generatorForHolidaysAndWorkingDays
-            = new HolidayAndWorkingDaysScheduledDateGeneration(workingDays, new ArrayList<Holiday>());
-
         //Generate dates adjusted only for working days
         List<DateTime> unAdjustedDates
-                = generatorForHolidaysAndWorkingDays.generateScheduledDates
+                = generatorForWorkingDays.generateScheduledDates
                                                             (occurences, lastScheduledDate, scheduledEvent, isCustomerSchedule);
 
         return adjustDatesForHolidays (unAdjustedDates, upcomingHolidays, scheduledEvent);
@@ -80,7 +85,7 @@ public class HolidayAndWorkingDaysAndMoratoriaScheduledDateGeneration implements
     }
 
     private List<DateTime> adjustDatesForHolidays
-                    (final List<DateTime> dates, List<Holiday> upcomingHolidays, final ScheduledEvent scheduledEvent) {
+                    (final List<DateTime> dates, HolidayIndex upcomingHolidays, final ScheduledEvent scheduledEvent) {
 
         ListOfDatesAdjustmentStrategy adjustmentStrategy = new MoratoriumStrategy(upcomingHolidays, workingDays, scheduledEvent);
         return adjustmentStrategy.adjust(dates);
@@ -29,6 +29,7 @@ import org.mifos.application.holiday.business.Holiday;
 import org.mifos.calendar.BasicHolidayStrategy;
 import org.mifos.calendar.BasicWorkingDayStrategy;
 import org.mifos.calendar.DateAdjustmentStrategy;
+import org.mifos.calendar.HolidayIndex;
 import org.mifos.schedule.ScheduledDateGeneration;
 import org.mifos.schedule.ScheduledEvent;
 
@@ -42,9 +43,13 @@ public class HolidayAndWorkingDaysScheduledDateGeneration implements ScheduledDa
     }
 
     private final List<Days> workingDays;
-    private final List<Holiday> upcomingHolidays;
+    private final HolidayIndex upcomingHolidays;
 
     public HolidayAndWorkingDaysScheduledDateGeneration(final List<Days> workingDays, final List<Holiday> upcomingHolidays) {
+        this(workingDays, new HolidayIndex(upcomingHolidays));
+    }
+
+    public HolidayAndWorkingDaysScheduledDateGeneration(final List<Days> workingDays, final HolidayIndex upcomingHolidays) {
         this.workingDays = workingDays;
         this.upcomingHolidays = upcomingHolidays;
     }
@@ -74,14 +79,14 @@ public class HolidayAndWorkingDaysScheduledDateGeneration implements ScheduledDa
             scheduledWithoutAdjustments.add(withoutAdjustment);
         }
 
+        DateAdjustmentStrategy workingDay = new BasicWorkingDayStrategy(workingDays);
+        DateAdjustmentStrategy holidayAdjustment = new BasicHolidayStrategy(upcomingHolidays, workingDays,
+                scheduledEvent);
+
         DateTime latestGeneratedDate = scheduledWithoutAdjustments.get(0);
         for (int i = 0; i < occurences; i++) {
 
-            DateAdjustmentStrategy workingDay = new BasicWorkingDayStrategy(workingDays);
             DateTime adjustedForWorkingDay = workingDay.adjust(latestGeneratedDate);
-
-            DateAdjustmentStrategy holidayAdjustment = new BasicHolidayStrategy(upcomingHolidays, workingDays,
-                    scheduledEvent);
             DateTime adjustedForHolidays = holidayAdjustment.adjust(adjustedForWorkingDay);
 
             scheduledDates.add(adjustedForHolidays);
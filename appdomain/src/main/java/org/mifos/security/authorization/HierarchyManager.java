@@ -24,9 +24,8 @@
 package org.mifos.security.authorization;
 
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Collections;
 import java.util.List;
-import java.util.Map;
 
 import org.mifos.core.MifosRuntimeException;
 import org.mifos.customers.office.exceptions.OfficeException;
@@ -43,27 +42,31 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.util.Assert;
 
+/**
+ * Answers where offices are in the office hierarchy for the permission checks of every request.
+ *
+ * <p>The hierarchy is held as an immutable {@link OfficeHierarchyIndex} which is replaced as a whole when offices
+ * change, so lookups need no locking. Office events and cache misses copy the current snapshot and change only the
+ * offices concerned.</p>
+ */
 public class HierarchyManager implements Observer {
 
     private static final Logger logger = LoggerFactory.getLogger(HierarchyManager.class);
 
-    private static Map<Short, OfficeCacheDto> hierarchyMap;
-    private static HierarchyManager hierarchyManager;
+    private static final HierarchyManager hierarchyManager = new HierarchyManager();
+
+    private volatile OfficeHierarchyIndex hierarchy = OfficeHierarchyIndex.EMPTY;
 
     private HierarchyManager() {
-        hierarchyMap = new HashMap<Short, OfficeCacheDto>();
     }
 
     public static HierarchyManager getInstance() {
-        if (hierarchyManager == null) {
-            hierarchyManager = new HierarchyManager();
-        }
         return hierarchyManager;
     }
 
     @Override
 	public void handleEvent(SecurityEvent e) {
-        logger.info("Map before" + hierarchyMap);
+        logger.info("Map before" + hierarchy);
         List<OfficeCacheDto> officeList = convertToOfficeCacheList((List<OfficeSearch>) e.getObject());
         if (e.getEventType().equals(Constants.CREATE)) {
             updateMapForCreateEvent(officeList);
@@ -71,24 +74,27 @@ public class HierarchyManager implements Observer {
             updateMapForUpdateEvent(officeList);
         }
 
-        logger.info("Map after " + hierarchyMap);
+        logger.info("Map after " + hierarchy);
     }
 
     private void updateMapForCreateEvent(List<OfficeCacheDto> officeList) {
-        addToMap(officeList.get(0));
+        addToMap(Collections.singletonList(officeList.get(0)));
     }
 
     private void updateMapForUpdateEvent(List<OfficeCacheDto> officeList) {
-        for (int i = 0; i < officeList.size(); i++) {
-            synchronized (hierarchyMap) {
-                hierarchyMap.remove(officeList.get(i));
-                addToMap(officeList.get(i));
-            }
-        }
+        addToMap(officeList);
+    }
+
+    private synchronized void addToMap(List<OfficeCacheDto> offices) {
+        hierarchy = hierarchy.withOffices(offices);
     }
 
-    private void addToMap(OfficeCacheDto cacheView) {
-        hierarchyMap.put(cacheView.getOfficeId(), cacheView);
+    /**
+     * Moving an office rewrites the search ids of the office and all offices below it, so they are dropped and
+     * loaded again on next use.
+     */
+    public synchronized void officeMoved(Short officeId) {
+        hierarchy = hierarchy.withoutOfficeAndDescendants(officeId);
     }
 
     private List<OfficeCacheDto> convertToOfficeCacheList(List<OfficeSearch> officeList) {
@@ -101,17 +107,17 @@ public class HierarchyManager implements Observer {
         return officeCacheList;
     }
 
-    public void init() throws SystemException, OfficeException {
+    /**
+     * Holds the lock while loading so that an office event cannot be applied to the snapshot being replaced.
+     */
+    public synchronized void init() throws SystemException, OfficeException {
         List<OfficeCacheDto> officeList;
         try {
             officeList = new OfficePersistence().getAllOffices();
         } catch (PersistenceException e) {
             throw new OfficeException(e);
         }
-        hierarchyMap.clear();
-        for (int i = 0; i < officeList.size(); i++) {
-            addToMap(officeList.get(i));
-        }
+        hierarchy = OfficeHierarchyIndex.of(officeList);
     }
 
     public BranchLocation compareOfficeInHierarchy(UserContext user, Short officeId) {
@@ -128,25 +134,10 @@ public class HierarchyManager implements Observer {
          * Look into the map now if the passed officeid's searchid on which user wants to perform action starts with the
          * user's office searchid it means that office falls under that user hiererchy
          */
-        String userOfficeSearchId = hierarchyMap.get(user.getBranchId()).getSearchId();
-
-        OfficeCacheDto cachedOffice = hierarchyMap.get(officeId);
-        if (cachedOffice == null) {
-            try {
-                init(); // repopulate cachedmap
-                cachedOffice = hierarchyMap.get(officeId);
-            } catch (SystemException e) {
-                throw new MifosRuntimeException(e);
-            } catch (OfficeException e) {
-                throw new MifosRuntimeException(e);
-            }
-            if (cachedOffice == null) {
-                throw new IllegalArgumentException("office with id [" + officeId + "] does not exist");
-            }
-        }
-        String operatedOfficeSearchId = cachedOffice.getSearchId();
+        OfficeCacheDto userOffice = getOffice(user.getBranchId());
+        OfficeCacheDto cachedOffice = getOffice(officeId);
 
-        if (operatedOfficeSearchId.startsWith(userOfficeSearchId)) {
+        if (hierarchy.isBelow(cachedOffice, userOffice)) {
             return BranchLocation.BELOW;
         }
 
@@ -154,14 +145,33 @@ public class HierarchyManager implements Observer {
     }
 
     public String getSearchId(short branchId) {
-        return hierarchyMap.get(Short.valueOf(branchId)).getSearchId();
+        return getOffice(Short.valueOf(branchId)).getSearchId();
     }
 
     public Short getParentOfficeId(Short officeId) {
-        return hierarchyMap.get(officeId).getParentOfficeId();
+        return getOffice(officeId).getParentOfficeId();
+    }
+
+    /**
+     * Loads just the missing office when it is not known yet, e.g. when it was created on another server.
+     */
+    private OfficeCacheDto getOffice(Short officeId) {
+        OfficeCacheDto office = hierarchy.get(officeId);
+        if (office == null) {
+            try {
+                office = new OfficePersistence().getOfficeForHierarchy(officeId);
+            } catch (PersistenceException e) {
+                throw new MifosRuntimeException(e);
+            }
+            if (office == null) {
+                throw new IllegalArgumentException("office with id [" + officeId + "] does not exist");
+            }
+            addToMap(Collections.singletonList(office));
+        }
+        return office;
     }
 
     public enum BranchLocation {
         SAME, BELOW, ABOVE_OR_DIFFERENT
     };
-}
\ No newline at end of file
+}
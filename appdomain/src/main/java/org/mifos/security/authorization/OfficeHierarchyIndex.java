@@ -0,0 +1,100 @@
+/*
+ * Copyright (c) 2005-2011 Grameen Foundation USA
+ * All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * See also http://www.apache.org/licenses/LICENSE-2.0.html for an
+ * explanation of the license and how it is applied.
+ */
+
+package org.mifos.security.authorization;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.mifos.security.util.OfficeCacheDto;
+
+/**
+ * Immutable snapshot of the office hierarchy. Changes are made by building a new snapshot with
+ * {@link #withOffices(Collection)}, so readers never see a partly updated hierarchy and need no locking.
+ *
+ * <p>Search ids are the path from the head office with every level terminated by a dot (e.g. <code>1.2.1.</code>),
+ * so an office is below another exactly when its search id starts with the other's. The check compares at most one
+ * character per level of the other office's path.</p>
+ */
+class OfficeHierarchyIndex {
+
+    static final OfficeHierarchyIndex EMPTY = new OfficeHierarchyIndex(Collections.<Short, OfficeCacheDto> emptyMap());
+
+    private final Map<Short, OfficeCacheDto> offices;
+
+    private OfficeHierarchyIndex(Map<Short, OfficeCacheDto> offices) {
+        this.offices = offices;
+    }
+
+    static OfficeHierarchyIndex of(Collection<OfficeCacheDto> offices) {
+        return EMPTY.withOffices(offices);
+    }
+
+    /**
+     * @return a copy of this snapshot with the given offices added or replaced
+     */
+    OfficeHierarchyIndex withOffices(Collection<OfficeCacheDto> changedOffices) {
+        Map<Short, OfficeCacheDto> copy = new HashMap<Short, OfficeCacheDto>(this.offices);
+        for (OfficeCacheDto office : changedOffices) {
+            copy.put(office.getOfficeId(), office);
+        }
+        return new OfficeHierarchyIndex(Collections.unmodifiableMap(copy));
+    }
+
+    /**
+     * @return a copy of this snapshot without the given office and the offices below it, or this snapshot if the
+     *         office is not in it
+     */
+    OfficeHierarchyIndex withoutOfficeAndDescendants(Short officeId) {
+        OfficeCacheDto removed = this.offices.get(officeId);
+        if (removed == null) {
+            return this;
+        }
+        Map<Short, OfficeCacheDto> copy = new HashMap<Short, OfficeCacheDto>();
+        for (OfficeCacheDto office : this.offices.values()) {
+            if (!isBelow(office, removed)) {
+                copy.put(office.getOfficeId(), office);
+            }
+        }
+        return new OfficeHierarchyIndex(Collections.unmodifiableMap(copy));
+    }
+
+    /**
+     * @return the office, or null if it is not in this snapshot
+     */
+    OfficeCacheDto get(Short officeId) {
+        return this.offices.get(officeId);
+    }
+
+    boolean isBelow(OfficeCacheDto office, OfficeCacheDto ancestor) {
+        return office.getSearchId().startsWith(ancestor.getSearchId());
+    }
+
+    int size() {
+        return this.offices.size();
+    }
+
+    @Override
+    public String toString() {
+        return this.offices.toString();
+    }
+}
@@ -20,6 +20,7 @@
 
 package org.mifos.security.util;
 
+import org.mifos.config.cache.CacheRepository;
 import org.mifos.security.authorization.HierarchyManager;
 
 public class EventManger {
@@ -40,7 +41,7 @@ public class EventManger {
         if (EventName.equalsIgnoreCase(SecurityConstants.OFFICECHANGEEVENT)) {
             HierarchyManager hm = HierarchyManager.getInstance();
             hm.handleEvent(se);
-
+            CacheRepository.getInstance().invalidateOfficeHierarchy();
         }
 
     }
@@ -0,0 +1,180 @@
+/*
+ * Copyright (c) 2005-2011 Grameen Foundation USA
+ * All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * See also http://www.apache.org/licenses/LICENSE-2.0.html for an
+ * explanation of the license and how it is applied.
+ */
+
+package org.mifos.clientportfolio.newloan.domain;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeConstants;
+import org.joda.time.LocalDate;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mifos.accounts.business.AccountFeesEntity;
+import org.mifos.accounts.fees.persistence.FeeDao;
+import org.mifos.accounts.loan.business.LoanScheduleEntity;
+import org.mifos.accounts.productdefinition.business.LoanOfferingBO;
+import org.mifos.accounts.productdefinition.util.helpers.GraceType;
+import org.mifos.accounts.productdefinition.util.helpers.InterestType;
+import org.mifos.accounts.util.helpers.InstallmentDate;
+import org.mifos.application.holiday.business.Holiday;
+import org.mifos.application.holiday.persistence.HolidayDao;
+import org.mifos.application.meeting.business.MeetingBO;
+import org.mifos.application.meeting.exceptions.MeetingException;
+import org.mifos.application.meeting.util.helpers.MeetingType;
+import org.mifos.application.meeting.util.helpers.WeekDay;
+import org.mifos.calendar.HolidayIndex;
+import org.mifos.framework.util.helpers.Money;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+/**
+ * Checks that a quote is the schedule a new loan account gets for the same terms.
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class LoanScheduleQuoteCalculatorTest {
+
+    private static final Short OFFICE_ID = Short.valueOf((short) 3);
+
+    private static final LocalDate DISBURSEMENT_DATE = new LocalDate(2011, 3, 14);
+
+    // class under test
+    private LoanScheduleQuoteCalculator calculator;
+
+    // test doubles
+    @Mock private LoanOfferingBO loanProduct;
+    @Mock private HolidayDao holidayDao;
+    @Mock private FeeDao feeDao;
+
+    @Before
+    public void setup() {
+        calculator = new LoanScheduleQuoteCalculator();
+        when(holidayDao.findAllHolidaysFromDateAndNext(OFFICE_ID, DISBURSEMENT_DATE.plusDays(1).toString()))
+                .thenReturn(new ArrayList<Holiday>());
+    }
+
+    @Test
+    public void flatWeeklyQuoteShouldMatchTheLoanSchedule() throws Exception {
+        assertQuoteMatchesLoanSchedule(InterestType.FLAT, GraceType.NONE, 0, weeklyOnMonday());
+    }
+
+    @Test
+    public void flatWeeklyQuoteWithGraceShouldMatchTheLoanSchedule() throws Exception {
+        assertQuoteMatchesLoanSchedule(InterestType.FLAT, GraceType.GRACEONALLREPAYMENTS, 2, weeklyOnMonday());
+    }
+
+    @Test
+    public void flatMonthlyQuoteShouldMatchTheLoanSchedule() throws Exception {
+        assertQuoteMatchesLoanSchedule(InterestType.FLAT, GraceType.NONE, 0, monthlyOnTheFifteenth());
+    }
+
+    @Test
+    public void flatMonthlyQuoteWithGraceShouldMatchTheLoanSchedule() throws Exception {
+        assertQuoteMatchesLoanSchedule(InterestType.FLAT, GraceType.PRINCIPALONLYGRACE, 2, monthlyOnTheFifteenth());
+    }
+
+    @Test
+    public void decliningWeeklyQuoteShouldMatchTheLoanSchedule() throws Exception {
+        assertQuoteMatchesLoanSchedule(InterestType.DECLINING, GraceType.NONE, 0, weeklyOnMonday());
+    }
+
+    @Test
+    public void decliningWeeklyQuoteWithGraceShouldMatchTheLoanSchedule() throws Exception {
+        assertQuoteMatchesLoanSchedule(InterestType.DECLINING, GraceType.PRINCIPALONLYGRACE, 2, weeklyOnMonday());
+    }
+
+    @Test
+    public void decliningMonthlyQuoteShouldMatchTheLoanSchedule() throws Exception {
+        assertQuoteMatchesLoanSchedule(InterestType.DECLINING, GraceType.NONE, 0, monthlyOnTheFifteenth());
+    }
+
+    @Test
+    public void decliningMonthlyQuoteWithGraceShouldMatchTheLoanSchedule() throws Exception {
+        assertQuoteMatchesLoanSchedule(InterestType.DECLINING, GraceType.GRACEONALLREPAYMENTS, 2,
+                monthlyOnTheFifteenth());
+    }
+
+    private void assertQuoteMatchesLoanSchedule(InterestType interestType, GraceType graceType, int graceDuration,
+            MeetingBO meeting) {
+        int numberOfInstallments = 10;
+        BigDecimal loanAmount = new BigDecimal("1000");
+        Double interestRate = Double.valueOf(24.0);
+        int interestDays = 365;
+        when(loanProduct.getInterestType()).thenReturn(interestType);
+        when(loanProduct.getGraceType()).thenReturn(graceType);
+
+        // the loan creation path: dates from the meeting and the office holidays, amounts from the product
+        List<InstallmentDate> installmentDates = new AnyScheduledEventLoanInstallmentGenerator(
+                new RecurringScheduledEventFactoryImpl().createScheduledEventFrom(meeting), holidayDao).generate(
+                DISBURSEMENT_DATE, numberOfInstallments, graceType, graceDuration, OFFICE_ID);
+        List<DateTime> loanScheduleDates = new ArrayList<DateTime>();
+        for (InstallmentDate installmentDate : installmentDates) {
+            loanScheduleDates.add(new DateTime(installmentDate.getInstallmentDueDate()));
+        }
+        LoanSchedule loanSchedule = new IndividualLoanScheduleFactory(feeDao).create(DISBURSEMENT_DATE,
+                loanScheduleDates, new ArrayList<Number>(), loanProduct, null, meeting,
+                new Money(TestMoneyUtil.RUPEE, loanAmount), interestRate, Integer.valueOf(interestDays),
+                Integer.valueOf(graceDuration), new ArrayList<AccountFeesEntity>());
+
+        // exercise test
+        LoanScheduleQuoteRequest request = new LoanScheduleQuoteRequest(OFFICE_ID, TestMoneyUtil.RUPEE, loanAmount,
+                interestRate, numberOfInstallments, DISBURSEMENT_DATE, interestType, graceType, graceDuration, false,
+                interestDays, meeting.getRecurrenceType(), meeting.getRecurAfter().intValue(), dayOfWeekOf(meeting),
+                dayOfMonthOf(meeting), 0);
+        LoanScheduleQuote quote = calculator.calculate(request, new HolidayIndex(new ArrayList<Holiday>()));
+
+        // verification
+        List<LoanScheduleEntity> loanScheduleEntities = loanSchedule.getRoundedLoanSchedules();
+        assertThat(quote.getInstallments().size(), is(loanScheduleEntities.size()));
+        for (int i = 0; i < loanScheduleEntities.size(); i++) {
+            LoanScheduleEntity expected = loanScheduleEntities.get(i);
+            LoanScheduleQuoteInstallment installment = quote.getInstallments().get(i);
+            assertThat(installment.getInstallmentNumber(), is(expected.getInstallmentId().intValue()));
+            assertThat(installment.getDueDate(), is(new LocalDate(expected.getActionDate())));
+            assertThat(installment.getPrincipal(), is(expected.getPrincipal()));
+            assertThat(installment.getInterest(), is(expected.getInterest()));
+        }
+    }
+
+    private MeetingBO weeklyOnMonday() throws MeetingException {
+        return new MeetingBO(WeekDay.MONDAY, Short.valueOf((short) 1), DISBURSEMENT_DATE.toDateMidnight().toDate(),
+                MeetingType.LOAN_INSTALLMENT, "meetingPlace");
+    }
+
+    private MeetingBO monthlyOnTheFifteenth() throws MeetingException {
+        return new MeetingBO(Short.valueOf((short) 15), Short.valueOf((short) 1), DISBURSEMENT_DATE.toDateMidnight()
+                .toDate(), MeetingType.LOAN_INSTALLMENT, "meetingPlace");
+    }
+
+    private int dayOfWeekOf(MeetingBO meeting) {
+        return meeting.isWeekly() ? DateTimeConstants.MONDAY : 0;
+    }
+
+    private int dayOfMonthOf(MeetingBO meeting) {
+        return meeting.isMonthlyOnDate() ? meeting.getMeetingDetails().getDayNumber().intValue() : 0;
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright (c) 2005-2011 Grameen Foundation USA
+ * All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * See also http://www.apache.org/licenses/LICENSE-2.0.html for an
+ * explanation of the license and how it is applied.
+ */
+
+package org.mifos.clientportfolio.newloan.domain;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.junit.Assert.assertThat;
+
+import java.math.BigDecimal;
+
+import org.joda.time.DateTimeConstants;
+import org.joda.time.LocalDate;
+import org.junit.Test;
+import org.mifos.accounts.productdefinition.util.helpers.GraceType;
+import org.mifos.accounts.productdefinition.util.helpers.InterestType;
+import org.mifos.application.master.business.MifosCurrency;
+import org.mifos.application.meeting.util.helpers.RecurrenceType;
+
+public class LoanScheduleQuoteRequestTest {
+
+    private static final MifosCurrency CURRENCY = new MifosCurrency((short) 2, "Indian Rupee", BigDecimal.ONE, "INR");
+
+    private static final LocalDate DISBURSEMENT_DATE = new LocalDate(2011, 3, 14);
+
+    @Test
+    public void requestsForTheSameAmountAtAnotherScaleShouldBeEqual() {
+        LoanScheduleQuoteRequest request = weekly(new BigDecimal("1000"), GraceType.NONE, 0);
+        LoanScheduleQuoteRequest sameAmount = weekly(new BigDecimal("1000.00"), GraceType.NONE, 0);
+
+        assertThat(request, is(sameAmount));
+        assertThat(request.hashCode(), is(sameAmount.hashCode()));
+        assertThat(request, is(not(weekly(new BigDecimal("1000.01"), GraceType.NONE, 0))));
+    }
+
+    @Test
+    public void graceDurationShouldOnlyCountWhenThereIsGrace() {
+        assertThat(weekly(BigDecimal.TEN, GraceType.NONE, 2), is(weekly(BigDecimal.TEN, GraceType.NONE, 0)));
+        assertThat(weekly(BigDecimal.TEN, GraceType.GRACEONALLREPAYMENTS, 2),
+                is(not(weekly(BigDecimal.TEN, GraceType.GRACEONALLREPAYMENTS, 0))));
+    }
+
+    @Test
+    public void meetingShouldOnlyKeepTheFieldsOfItsRecurrence() {
+        LoanScheduleQuoteRequest weekly = request(RecurrenceType.WEEKLY, DateTimeConstants.MONDAY, 14, 2);
+        assertThat(weekly, is(request(RecurrenceType.WEEKLY, DateTimeConstants.MONDAY, 0, 0)));
+
+        LoanScheduleQuoteRequest monthlyOnDate = request(RecurrenceType.MONTHLY, DateTimeConstants.MONDAY, 14, 0);
+        assertThat(monthlyOnDate, is(request(RecurrenceType.MONTHLY, 0, 14, 0)));
+
+        LoanScheduleQuoteRequest monthlyOnWeekDay = request(RecurrenceType.MONTHLY, DateTimeConstants.MONDAY, 14, 2);
+        assertThat(monthlyOnWeekDay, is(request(RecurrenceType.MONTHLY, DateTimeConstants.MONDAY, 0, 2)));
+        assertThat(monthlyOnWeekDay, is(not(monthlyOnDate)));
+    }
+
+    private LoanScheduleQuoteRequest weekly(BigDecimal loanAmount, GraceType graceType, int graceDuration) {
+        return new LoanScheduleQuoteRequest((short) 3, CURRENCY, loanAmount, Double.valueOf(12.0), 10,
+                DISBURSEMENT_DATE, InterestType.FLAT, graceType, graceDuration, false, 365, RecurrenceType.WEEKLY, 1,
+                DateTimeConstants.MONDAY, 0, 0);
+    }
+
+    private LoanScheduleQuoteRequest request(RecurrenceType recurrenceType, int dayOfWeek, int dayOfMonth,
+            int weekOfMonth) {
+        return new LoanScheduleQuoteRequest((short) 3, CURRENCY, BigDecimal.TEN, Double.valueOf(12.0), 10,
+                DISBURSEMENT_DATE, InterestType.FLAT, GraceType.NONE, 0, false, 365, recurrenceType, 1, dayOfWeek,
+                dayOfMonth, weekOfMonth);
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright (c) 2005-2011 Grameen Foundation USA
+ * All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * See also http://www.apache.org/licenses/LICENSE-2.0.html for an
+ * explanation of the license and how it is applied.
+ */
+
+package org.mifos.clientportfolio.newloan.domain.service;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+
+import org.joda.time.DateTimeConstants;
+import org.joda.time.LocalDate;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mifos.accounts.productdefinition.util.helpers.GraceType;
+import org.mifos.accounts.productdefinition.util.helpers.InterestType;
+import org.mifos.application.holiday.business.Holiday;
+import org.mifos.application.holiday.persistence.HolidayDao;
+import org.mifos.application.holiday.persistence.HolidayIndexCache;
+import org.mifos.application.master.business.MifosCurrency;
+import org.mifos.application.meeting.util.helpers.RecurrenceType;
+import org.mifos.clientportfolio.newloan.domain.LoanScheduleQuote;
+import org.mifos.clientportfolio.newloan.domain.LoanScheduleQuoteRequest;
+import org.mifos.framework.cache.MifosCacheManager;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+@RunWith(MockitoJUnitRunner.class)
+public class LoanScheduleQuoteServiceImplTest {
+
+    private static final Short OFFICE_ID = Short.valueOf((short) 3);
+
+    private static final MifosCurrency CURRENCY = new MifosCurrency((short) 2, "Indian Rupee", BigDecimal.ONE, "INR");
+
+    // class under test
+    private LoanScheduleQuoteService loanScheduleQuoteService;
+
+    // test doubles
+    @Mock private HolidayDao holidayDao;
+
+    @Before
+    public void setup() {
+        MifosCacheManager.getInstance().invalidateAll();
+        when(holidayDao.findCurrentAndFutureOfficeHolidaysEarliestFirst(OFFICE_ID)).thenReturn(new ArrayList<Holiday>());
+        loanScheduleQuoteService = new LoanScheduleQuoteServiceImpl(holidayDao);
+    }
+
+    @After
+    public void tearDown() {
+        MifosCacheManager.getInstance().invalidateAll();
+    }
+
+    @Test
+    public void shouldReturnTheCachedQuoteForAnEqualRequest() {
+        LoanScheduleQuote quote = loanScheduleQuoteService.quote(request(new BigDecimal("1000")));
+
+        // exercise test
+        LoanScheduleQuote requotedQuote = loanScheduleQuoteService.quote(request(new BigDecimal("1000.00")));
+
+        // verification
+        assertThat(requotedQuote, is(sameInstance(quote)));
+        verify(holidayDao, times(1)).findCurrentAndFutureOfficeHolidaysEarliestFirst(OFFICE_ID);
+    }
+
+    @Test
+    public void shouldRecalculateTheQuoteOnceTheHolidaysAreInvalidated() {
+        LoanScheduleQuote quote = loanScheduleQuoteService.quote(request(new BigDecimal("1000")));
+
+        // exercise test
+        HolidayIndexCache.invalidate();
+        LoanScheduleQuote requotedQuote = loanScheduleQuoteService.quote(request(new BigDecimal("1000")));
+
+        // verification
+        assertThat(requotedQuote, is(not(sameInstance(quote))));
+        assertThat(requotedQuote.getInstallments().size(), is(quote.getInstallments().size()));
+        assertThat(requotedQuote.getTotalPrincipal(), is(quote.getTotalPrincipal()));
+        assertThat(requotedQuote.getTotalInterest(), is(quote.getTotalInterest()));
+        verify(holidayDao, times(2)).findCurrentAndFutureOfficeHolidaysEarliestFirst(OFFICE_ID);
+    }
+
+    private LoanScheduleQuoteRequest request(BigDecimal loanAmount) {
+        return new LoanScheduleQuoteRequest(OFFICE_ID, CURRENCY, loanAmount, Double.valueOf(12.0), 10, new LocalDate(
+                2011, 3, 14), InterestType.FLAT, GraceType.NONE, 0, false, 365, RecurrenceType.WEEKLY, 1,
+                DateTimeConstants.MONDAY, 0, 0);
+    }
+}
@@ -66,6 +66,7 @@ import org.mifos.application.servicefacade.ApplicationContextProvider;
 import org.mifos.application.servicefacade.CustomJDBCService;
 import org.mifos.config.AccountingRules;
 import org.mifos.config.ClientRules;
+import org.mifos.config.GeneralConfig;
 import org.mifos.config.LocaleSetting;
 import org.mifos.config.Localization;
 import org.mifos.config.ProcessFlowRules;
@@ -74,6 +75,8 @@ import org.mifos.config.business.Configuration;
 import org.mifos.config.business.MifosConfigurationManager;
 import org.mifos.config.exceptions.ConfigurationException;
 import org.mifos.config.persistence.ConfigurationPersistence;
+import org.mifos.customers.search.CustomerSearchIndexer;
+import org.mifos.framework.components.audit.persistence.AuditLogWriter;
 import org.mifos.framework.components.audit.util.helpers.AuditConfiguration;
 import org.mifos.framework.components.batchjobs.MifosScheduler;
 import org.mifos.framework.components.batchjobs.exceptions.TaskSystemException;
@@ -214,6 +217,9 @@ public class ApplicationInitializer implements ServletContextListener, ServletRe
                 initJNDIforPentaho(applicationContext);
                 setAttributesOnContext(servletContext);
                 copyResources(servletContext);
+                if (GeneralConfig.getCustomerSearchIndex()) {
+                    CustomerSearchIndexer.getInstance().start();
+                }
             }
         } catch (Exception e) {
             String errMsgStart = "unable to start Mifos web application";
@@ -715,6 +721,10 @@ public class ApplicationInitializer implements ServletContextListener, ServletRe
        //     applicationContext = WebApplicationContextUtils.getRequiredWebApplicationContext(ctx);
        // }
 
+        logger.info("writing queued audit logs");
+        AuditLogWriter.getInstance().shutdown();
+        logger.info("writing queued customer search index changes");
+        CustomerSearchIndexer.getInstance().shutdown();
         StaticHibernateUtil.shutdown();
         unregisterMySQLDriver();
         cancelMySQLStatement();
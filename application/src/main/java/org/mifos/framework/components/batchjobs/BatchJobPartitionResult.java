@@ -0,0 +1,83 @@
+/*
+ * Copyright (c) 2005-2011 Grameen Foundation USA
+ * All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * See also http://www.apache.org/licenses/LICENSE-2.0.html for an
+ * explanation of the license and how it is applied.
+ */
+
+package org.mifos.framework.components.batchjobs;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Outcome of processing one partition of a {@link PartitionedBatchJobExecutor} run.
+ */
+public class BatchJobPartitionResult {
+
+    private final Object partitionKey;
+    private final int accountCount;
+    private int processedCount;
+    private final List<Integer> failedAccountIds = new ArrayList<Integer>();
+    private long durationInMillis;
+
+    public BatchJobPartitionResult(Object partitionKey, int accountCount) {
+        this.partitionKey = partitionKey;
+        this.accountCount = accountCount;
+    }
+
+    public Object getPartitionKey() {
+        return this.partitionKey;
+    }
+
+    public int getAccountCount() {
+        return this.accountCount;
+    }
+
+    public int getProcessedCount() {
+        return this.processedCount;
+    }
+
+    public List<Integer> getFailedAccountIds() {
+        return this.failedAccountIds;
+    }
+
+    public long getDurationInMillis() {
+        return this.durationInMillis;
+    }
+
+    public boolean isSuccessful() {
+        return this.failedAccountIds.isEmpty();
+    }
+
+    void addProcessed(int count) {
+        this.processedCount += count;
+    }
+
+    void addFailedAccountId(Integer accountId) {
+        this.failedAccountIds.add(accountId);
+    }
+
+    void setDurationInMillis(long durationInMillis) {
+        this.durationInMillis = durationInMillis;
+    }
+
+    @Override
+    public String toString() {
+        return "partition " + partitionKey + ": " + processedCount + " of " + accountCount + " processed, "
+                + failedAccountIds.size() + " failed, " + durationInMillis + " ms";
+    }
+}
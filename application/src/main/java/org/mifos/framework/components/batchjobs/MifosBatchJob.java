@@ -24,6 +24,8 @@ import java.text.ParseException;
 import java.util.Date;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.mifos.framework.components.batchjobs.exceptions.BatchJobException;
 import org.mifos.framework.util.DateTimeService;
@@ -53,8 +55,14 @@ public abstract class MifosBatchJob extends QuartzJobBean implements StatefulJob
     /** A key to store and retrieve the launch date from JobParameters map. */
     public static final String JOB_EXECUTION_TIME_KEY = "executionTime";
 
-    private static boolean batchJobRunning = false;
-    private static boolean requiresExclusiveAccess = true;
+    /**
+     * Jobs that are running, keyed by the thread running them, with whether each of them requires exclusive access.
+     * The job launcher runs a job on the thread that launched it, so the thread identifies the job and concurrently
+     * running jobs do not overwrite each other's exclusive access setting.
+     */
+    private static final ConcurrentMap<Thread, Boolean> runningJobs = new ConcurrentHashMap<Thread, Boolean>();
+
+    private Boolean exclusiveAccess;
 
     private JobLauncher jobLauncher;
     private JobLocator jobLocator;
@@ -77,6 +85,14 @@ public abstract class MifosBatchJob extends QuartzJobBean implements StatefulJob
         this.jobRepository = jobRepository;
     }
 
+    /**
+     * Set from an <code>exclusiveAccess</code> entry in the job data map of the job in task.xml. When present it
+     * takes precedence over {@link #requiresExclusiveAccess()}, so the policy can be changed per installation.
+     */
+    public void setExclusiveAccess(Boolean exclusiveAccess) {
+        this.exclusiveAccess = exclusiveAccess;
+    }
+
     @Override
     public void executeInternal(JobExecutionContext context) throws JobExecutionException {
         try {
@@ -101,7 +117,7 @@ public abstract class MifosBatchJob extends QuartzJobBean implements StatefulJob
         JobExecution jobExecution = null;
         try {
             batchJobStarted();
-            requiresExclusiveAccess();
+            applyExclusiveAccessPolicy();
             jobExecution = jobLauncher.run(job, jobParameters);
             exitStatus = jobExecution.getStatus();
         } catch(JobInstanceAlreadyCompleteException jiace) {
@@ -230,29 +246,53 @@ public abstract class MifosBatchJob extends QuartzJobBean implements StatefulJob
         MifosBatchJob.batchJobRequiresExclusiveAccess(true);
     }
 
+    private void applyExclusiveAccessPolicy() {
+        if (exclusiveAccess == null) {
+            requiresExclusiveAccess();
+        } else {
+            MifosBatchJob.batchJobRequiresExclusiveAccess(exclusiveAccess);
+        }
+    }
+
     public static boolean isBatchJobRunning() {
-        return batchJobRunning;
+        return !runningJobs.isEmpty();
     }
 
     public static boolean isBatchJobRunningThatRequiresExclusiveAccess() {
-        return batchJobRunning && requiresExclusiveAccess;
+        return runningJobs.containsValue(Boolean.TRUE);
+    }
+
+    /**
+     * A batch job runs online when users can keep working while it runs. Online jobs commit in smaller chunks and
+     * pause between them, see {@link PartitionedBatchJobExecutor}. Answers for the job running on the current thread.
+     */
+    public static boolean isOnlineBatchJobRunning() {
+        return Boolean.FALSE.equals(runningJobs.get(Thread.currentThread()));
     }
 
     public static void batchJobStarted() {
-        batchJobRunning = true;
-        requiresExclusiveAccess = true;
+        runningJobs.put(Thread.currentThread(), Boolean.TRUE);
     }
 
     public static void batchJobFinished() {
-        batchJobRunning = false;
+        runningJobs.remove(Thread.currentThread());
     }
 
+    /**
+     * Whether the job running on the current thread requires exclusive access, true when no job runs on it.
+     */
     public static Boolean isExclusiveAccessRequired() {
-        return requiresExclusiveAccess;
+        Boolean requiresExclusiveAccess = runningJobs.get(Thread.currentThread());
+        return requiresExclusiveAccess == null ? Boolean.TRUE : requiresExclusiveAccess;
     }
 
+    /**
+     * Sets whether the job running on the current thread requires exclusive access.
+     */
     public static void batchJobRequiresExclusiveAccess(Boolean setting) {
-        requiresExclusiveAccess = setting;
+        if (runningJobs.containsKey(Thread.currentThread())) {
+            runningJobs.put(Thread.currentThread(), setting);
+        }
     }
 
 }
@@ -0,0 +1,331 @@
+/*
+ * Copyright (c) 2005-2011 Grameen Foundation USA
+ * All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * See also http://www.apache.org/licenses/LICENSE-2.0.html for an
+ * explanation of the license and how it is applied.
+ */
+
+package org.mifos.framework.components.batchjobs;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.hibernate.StaleStateException;
+import org.mifos.framework.components.batchjobs.configuration.BatchJobConfigurationService;
+import org.mifos.framework.components.batchjobs.exceptions.BatchJobException;
+import org.mifos.framework.hibernate.helper.StaticHibernateUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Runs a batch job over a set of account id partitions (typically one per branch office) using a bounded pool of
+ * worker threads.
+ * <p>
+ * Each partition is processed on a single worker thread, which means it gets its own thread local Hibernate session
+ * and transaction. Work is committed every <code>recordCommittingSize</code> accounts. When an account fails, the
+ * uncommitted part of the chunk is rolled back, the failing account is recorded against its partition and the rest of
+ * the chunk is replayed in a fresh session, so a single bad account no longer aborts the whole run. When a flush or
+ * commit fails, the account that caused it is not known; the uncommitted accounts are then replayed one per
+ * transaction so that only the culprit is recorded as failed.
+ * <p>
+ * When the batch job runs online, i.e. without exclusive access, commits are capped at the online committing size
+ * and the worker pauses after each commit. An account whose versioned rows were changed by a user in the meantime
+ * fails with a stale state exception; it is retried with freshly loaded data at the end of its partition instead of
+ * being recorded as failed, up to {@link #MAX_CONFLICT_RETRIES} times.
+ * <p>
+ * With a thread pool size of 1 all partitions are processed one after another on the calling thread.
+ */
+public class PartitionedBatchJobExecutor {
+
+    private static final Logger logger = LoggerFactory.getLogger(PartitionedBatchJobExecutor.class);
+
+    static final int MAX_CONFLICT_RETRIES = 3;
+
+    /**
+     * Business logic applied to each account of a partition. Implementations are called concurrently from several
+     * worker threads and must not share mutable state between partitions.
+     */
+    public interface AccountProcessor {
+        void process(Integer accountId) throws Exception;
+    }
+
+    private final String taskName;
+    private final int threadPoolSize;
+    private final int batchSize;
+    private final int recordCommittingSize;
+    private final long throttleInMillis;
+
+    public PartitionedBatchJobExecutor(String taskName, BatchJobConfigurationService batchJobConfigurationService) {
+        this(taskName, batchJobConfigurationService, batchJobConfigurationService
+                .getRecordCommittingSizeForBatchJobs());
+    }
+
+    /**
+     * Commits every <code>recordCommittingSize</code> accounts, or more often if the running batch job is online.
+     */
+    public PartitionedBatchJobExecutor(String taskName, BatchJobConfigurationService batchJobConfigurationService,
+            int recordCommittingSize) {
+        this(taskName, batchJobConfigurationService.getThreadPoolSizeForBatchJobs(), batchJobConfigurationService
+                .getBatchSizeForBatchJobs(), committingSize(recordCommittingSize, batchJobConfigurationService),
+                throttle(batchJobConfigurationService));
+    }
+
+    public PartitionedBatchJobExecutor(String taskName, int threadPoolSize, int batchSize, int recordCommittingSize) {
+        this(taskName, threadPoolSize, batchSize, recordCommittingSize, 0);
+    }
+
+    public PartitionedBatchJobExecutor(String taskName, int threadPoolSize, int batchSize, int recordCommittingSize,
+            long throttleInMillis) {
+        this.taskName = taskName;
+        this.threadPoolSize = Math.max(1, threadPoolSize);
+        this.batchSize = Math.max(1, batchSize);
+        this.recordCommittingSize = Math.max(1, recordCommittingSize);
+        this.throttleInMillis = Math.max(0, throttleInMillis);
+    }
+
+    private static int committingSize(int recordCommittingSize,
+            BatchJobConfigurationService batchJobConfigurationService) {
+        if (MifosBatchJob.isOnlineBatchJobRunning()) {
+            return Math.min(recordCommittingSize, batchJobConfigurationService
+                    .getOnlineRecordCommittingSizeForBatchJobs());
+        }
+        return recordCommittingSize;
+    }
+
+    private static long throttle(BatchJobConfigurationService batchJobConfigurationService) {
+        if (MifosBatchJob.isOnlineBatchJobRunning()) {
+            return batchJobConfigurationService.getOnlineThrottleInMillisForBatchJobs();
+        }
+        return 0;
+    }
+
+    public <K> List<BatchJobPartitionResult> execute(Map<K, List<Integer>> partitions, AccountProcessor processor)
+            throws BatchJobException {
+        List<BatchJobPartitionResult> results = new ArrayList<BatchJobPartitionResult>();
+        if (threadPoolSize == 1 || partitions.size() <= 1) {
+            for (Map.Entry<K, List<Integer>> partition : partitions.entrySet()) {
+                results.add(processPartition(partition.getKey(), partition.getValue(), processor));
+            }
+            return results;
+        }
+
+        ExecutorService workers = Executors.newFixedThreadPool(Math.min(threadPoolSize, partitions.size()),
+                new WorkerThreadFactory(taskName));
+        try {
+            List<Future<BatchJobPartitionResult>> futures = new ArrayList<Future<BatchJobPartitionResult>>();
+            for (Map.Entry<K, List<Integer>> partition : partitions.entrySet()) {
+                futures.add(workers.submit(new PartitionTask(partition.getKey(), partition.getValue(), processor)));
+            }
+            for (Future<BatchJobPartitionResult> future : futures) {
+                results.add(future.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new BatchJobException(e);
+        } catch (ExecutionException e) {
+            throw new BatchJobException(e.getCause());
+        } finally {
+            workers.shutdownNow();
+        }
+        return results;
+    }
+
+    /**
+     * Collects the ids of all failed accounts, in partition order, in the form expected by
+     * {@link BatchJobException#BatchJobException(String, List)}.
+     */
+    public static List<String> failedAccountIds(List<BatchJobPartitionResult> results) {
+        List<String> errorList = new ArrayList<String>();
+        for (BatchJobPartitionResult result : results) {
+            for (Integer accountId : result.getFailedAccountIds()) {
+                errorList.add(accountId.toString());
+            }
+        }
+        return errorList;
+    }
+
+    BatchJobPartitionResult processPartition(Object partitionKey, List<Integer> accountIds, AccountProcessor processor) {
+        BatchJobPartitionResult result = new BatchJobPartitionResult(partitionKey, accountIds.size());
+        long startTime = System.currentTimeMillis();
+
+        LinkedList<Integer> remaining = new LinkedList<Integer>(accountIds);
+        List<Integer> uncommitted = new ArrayList<Integer>();
+        Set<Integer> isolated = new HashSet<Integer>();
+        Map<Integer, Integer> conflictsByAccountId = new HashMap<Integer, Integer>();
+        boolean inTransaction = false;
+        try {
+            while (!remaining.isEmpty()) {
+                Integer accountId = remaining.removeFirst();
+                boolean processed = false;
+                if (!inTransaction) {
+                    startTransaction();
+                    inTransaction = true;
+                }
+                try {
+                    processor.process(accountId);
+                    processed = true;
+                    uncommitted.add(accountId);
+                    if (uncommitted.size() % batchSize == 0) {
+                        flushAndClearSession();
+                    }
+                    if (!isolated.isEmpty() || uncommitted.size() >= recordCommittingSize || remaining.isEmpty()) {
+                        commitTransaction();
+                        inTransaction = false;
+                        result.addProcessed(uncommitted.size());
+                        uncommitted.clear();
+                        isolated.remove(accountId);
+                        if (!remaining.isEmpty()) {
+                            pause();
+                        }
+                    }
+                } catch (Exception e) {
+                    rollbackAndCloseSession();
+                    inTransaction = false;
+                    uncommitted.remove(accountId);
+                    if (processed && !uncommitted.isEmpty()) {
+                        /*
+                         * The flush or commit failed, so any of the uncommitted accounts may have caused it. Replay
+                         * them one per transaction to find out which.
+                         */
+                        remaining.addFirst(accountId);
+                        remaining.addAll(0, uncommitted);
+                        isolated.addAll(remaining.subList(0, uncommitted.size() + 1));
+                        uncommitted.clear();
+                        continue;
+                    }
+                    isolated.remove(accountId);
+                    remaining.addAll(0, uncommitted);
+                    uncommitted.clear();
+                    if (isConflict(e) && retryAfterConflict(accountId, conflictsByAccountId)) {
+                        logger.info(taskName + ": account " + accountId + " in partition " + partitionKey
+                                + " was changed concurrently, retrying it later");
+                        remaining.addLast(accountId);
+                    } else {
+                        logger.error(taskName + ": unable to process account " + accountId + " in partition "
+                                + partitionKey, e);
+                        result.addFailedAccountId(accountId);
+                    }
+                }
+            }
+        } finally {
+            closeSession();
+        }
+
+        result.setDurationInMillis(System.currentTimeMillis() - startTime);
+        logger.info(taskName + ": " + result);
+        return result;
+    }
+
+    private static boolean isConflict(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof StaleStateException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean retryAfterConflict(Integer accountId, Map<Integer, Integer> conflictsByAccountId) {
+        Integer conflicts = conflictsByAccountId.get(accountId);
+        int count = conflicts == null ? 1 : conflicts.intValue() + 1;
+        conflictsByAccountId.put(accountId, Integer.valueOf(count));
+        return count <= MAX_CONFLICT_RETRIES;
+    }
+
+    /**
+     * Gives users' transactions room between the commits of an online batch job.
+     */
+    protected void pause() {
+        if (throttleInMillis > 0) {
+            try {
+                Thread.sleep(throttleInMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    protected void startTransaction() {
+        StaticHibernateUtil.startTransaction();
+    }
+
+    protected void flushAndClearSession() {
+        StaticHibernateUtil.flushAndClearSession();
+    }
+
+    protected void commitTransaction() {
+        StaticHibernateUtil.commitTransaction();
+    }
+
+    protected void rollbackAndCloseSession() {
+        try {
+            StaticHibernateUtil.rollbackTransaction();
+        } finally {
+            StaticHibernateUtil.closeSession();
+        }
+    }
+
+    protected void closeSession() {
+        StaticHibernateUtil.closeSession();
+    }
+
+    private class PartitionTask implements Callable<BatchJobPartitionResult> {
+
+        private final Object partitionKey;
+        private final List<Integer> accountIds;
+        private final AccountProcessor processor;
+
+        PartitionTask(Object partitionKey, List<Integer> accountIds, AccountProcessor processor) {
+            this.partitionKey = partitionKey;
+            this.accountIds = accountIds;
+            this.processor = processor;
+        }
+
+        @Override
+        public BatchJobPartitionResult call() {
+            return processPartition(partitionKey, accountIds, processor);
+        }
+    }
+
+    private static class WorkerThreadFactory implements ThreadFactory {
+
+        private final String namePrefix;
+        private final AtomicInteger threadNumber = new AtomicInteger(1);
+
+        WorkerThreadFactory(String taskName) {
+            this.namePrefix = taskName + "-worker-";
+        }
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, namePrefix + threadNumber.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -32,4 +32,12 @@ public interface BatchJobConfigurationService {
 
     int getOutputIntervalForBatchJobs();
 
+    int getThreadPoolSizeForBatchJobs();
+
+    int getOnlineRecordCommittingSizeForBatchJobs();
+
+    long getOnlineThrottleInMillisForBatchJobs();
+
+    boolean isSetBasedPortfolioAtRiskCalculationEnabled();
+
 }
@@ -43,4 +43,24 @@ public class StandardBatchJobConfigurationService implements BatchJobConfigurati
         return GeneralConfig.getOutputIntervalForBatchJobs();
     }
 
+    @Override
+    public int getThreadPoolSizeForBatchJobs() {
+        return GeneralConfig.getThreadPoolSizeForBatchJobs();
+    }
+
+    @Override
+    public int getOnlineRecordCommittingSizeForBatchJobs() {
+        return GeneralConfig.getOnlineRecordCommittingSizeForBatchJobs();
+    }
+
+    @Override
+    public long getOnlineThrottleInMillisForBatchJobs() {
+        return GeneralConfig.getOnlineThrottleInMillisForBatchJobs();
+    }
+
+    @Override
+    public boolean isSetBasedPortfolioAtRiskCalculationEnabled() {
+        return GeneralConfig.getSetBasedPortfolioAtRiskCalculation();
+    }
+
 }
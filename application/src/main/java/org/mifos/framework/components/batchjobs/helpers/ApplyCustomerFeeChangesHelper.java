@@ -22,23 +22,41 @@ package org.mifos.framework.components.batchjobs.helpers;
 
 import java.util.ArrayList;
 import java.util.List;
-import org.mifos.accounts.business.AccountBO;
-import org.mifos.accounts.business.AccountFeesEntity;
+
+import org.mifos.accounts.fees.business.AmountFeeBO;
 import org.mifos.accounts.fees.business.FeeBO;
 import org.mifos.accounts.fees.persistence.FeeDao;
 import org.mifos.accounts.fees.util.helpers.FeeChangeType;
+import org.mifos.accounts.persistence.LegacyAccountDao;
 import org.mifos.application.servicefacade.ApplicationContextProvider;
 import org.mifos.customers.business.CustomerAccountBO;
 import org.mifos.customers.persistence.CustomerPersistence;
 import org.mifos.customers.personnel.util.helpers.PersonnelConstants;
+import org.mifos.framework.components.batchjobs.MifosBatchJob;
 import org.mifos.framework.components.batchjobs.SchedulerConstants;
 import org.mifos.framework.components.batchjobs.TaskHelper;
+import org.mifos.framework.components.batchjobs.configuration.BatchJobConfigurationService;
+import org.mifos.framework.components.batchjobs.configuration.StandardBatchJobConfigurationService;
 import org.mifos.framework.components.batchjobs.exceptions.BatchJobException;
+import org.mifos.framework.exceptions.PersistenceException;
 import org.mifos.framework.hibernate.helper.StaticHibernateUtil;
+import org.mifos.framework.util.helpers.DateUtils;
 import org.mifos.security.util.UserContext;
 
+/**
+ * Propagates changed customer fee definitions to the customer accounts carrying them. Accounts are processed in
+ * chunks of the record committing size, in account id order, and the last account of each committed chunk is recorded
+ * per fee so that a job which stops part way through resumes where it left off. Amount changes of periodic fees are
+ * applied with set-based updates instead of loading the accounts.
+ * <p>
+ * When the job runs online the chunks are capped at the online committing size and the helper pauses after each
+ * commit. A chunk that fails because a user changed one of its accounts meanwhile is rolled back and the fee is
+ * reported as failed; the next run resumes after the last committed chunk.
+ */
 public class ApplyCustomerFeeChangesHelper extends TaskHelper {
 
+    private BatchJobConfigurationService batchJobConfigurationService;
+
     public ApplyCustomerFeeChangesHelper() {
         super();
     }
@@ -47,6 +65,17 @@ public class ApplyCustomerFeeChangesHelper extends TaskHelper {
         return ApplicationContextProvider.getBean(FeeDao.class);
     }
 
+    public BatchJobConfigurationService getBatchJobConfigurationService() {
+        if (batchJobConfigurationService == null) {
+            return new StandardBatchJobConfigurationService();
+        }
+        return batchJobConfigurationService;
+    }
+
+    public void setBatchJobConfigurationService(BatchJobConfigurationService batchJobConfigurationService) {
+        this.batchJobConfigurationService = batchJobConfigurationService;
+    }
+
     @Override
     public void execute(@SuppressWarnings("unused") long timeInMillis) throws BatchJobException {
         List<String> errorList = new ArrayList<String>();
@@ -63,14 +92,11 @@ public class ApplyCustomerFeeChangesHelper extends TaskHelper {
                 FeeBO hydratedFee = getFeeDao().findById(feeId);
 
                 if (!hydratedFee.getFeeChangeType().equals(FeeChangeType.NOT_UPDATED)) {
-                    List<AccountBO> accounts = new CustomerPersistence().getCustomerAccountsForFee(hydratedFee.getFeeId());
-                    if (accounts != null && accounts.size() > 0) {
-                        for (AccountBO account : accounts) {
-                            updateAccountFee(account, hydratedFee);
-                        }
-                    }
+                    applyFeeChange(feeId);
+                    hydratedFee = getFeeDao().findById(feeId);
                 }
 
+                StaticHibernateUtil.startTransaction();
                 hydratedFee.updateFeeChangeType(FeeChangeType.NOT_UPDATED);
 
                 UserContext userContext = new UserContext();
@@ -78,11 +104,15 @@ public class ApplyCustomerFeeChangesHelper extends TaskHelper {
                 hydratedFee.setUserContext(userContext);
 
                 hydratedFee.save();
+                getFeeDao().removeFeeChangeProgress(feeId);
 
                 StaticHibernateUtil.commitTransaction();
             } catch (Exception e) {
+                getLogger().error("ApplyCustomerFeeChangesTask: unable to apply changes of fee " + feeId, e);
                 StaticHibernateUtil.rollbackTransaction();
                 errorList.add("feeId: " + feeId);
+            } finally {
+                StaticHibernateUtil.closeSession();
             }
         }
 
@@ -91,9 +121,82 @@ public class ApplyCustomerFeeChangesHelper extends TaskHelper {
         }
     }
 
-    private void updateAccountFee(AccountBO account, FeeBO feesBO) throws BatchJobException {
-        CustomerAccountBO customerAccount = (CustomerAccountBO) account;
-        AccountFeesEntity accountFee = account.getAccountFees(feesBO.getFeeId());
-        customerAccount.updateFee(accountFee, feesBO);
+    /**
+     * Applies the pending change of the fee one committed chunk of accounts at a time, starting after the last account
+     * recorded for the fee.
+     */
+    private void applyFeeChange(Short feeId) throws PersistenceException, BatchJobException {
+        int chunkSize = getBatchJobConfigurationService().getRecordCommittingSizeForBatchJobs();
+        int batchSize = getBatchJobConfigurationService().getBatchSizeForBatchJobs();
+        long throttleInMillis = 0;
+        if (MifosBatchJob.isOnlineBatchJobRunning()) {
+            chunkSize = Math.min(chunkSize, getBatchJobConfigurationService()
+                    .getOnlineRecordCommittingSizeForBatchJobs());
+            throttleInMillis = getBatchJobConfigurationService().getOnlineThrottleInMillisForBatchJobs();
+        }
+        CustomerPersistence customerPersistence = new CustomerPersistence();
+        LegacyAccountDao legacyAccountDao = ApplicationContextProvider.getBean(LegacyAccountDao.class);
+
+        Integer lastAccountId = getFeeDao().findFeeChangeProgress(feeId);
+        if (lastAccountId == null) {
+            lastAccountId = Integer.valueOf(0);
+        } else {
+            getLogger().info("ApplyCustomerFeeChangesTask: resuming fee " + feeId + " after account " + lastAccountId);
+        }
+
+        List<Integer> accountIds;
+        do {
+            StaticHibernateUtil.startTransaction();
+            FeeBO fee = getFeeDao().findById(feeId);
+            accountIds = customerPersistence.getCustomerAccountIdsForFee(feeId, lastAccountId, chunkSize);
+            if (accountIds.isEmpty()) {
+                StaticHibernateUtil.commitTransaction();
+                break;
+            }
+            Integer chunkLastAccountId = accountIds.get(accountIds.size() - 1);
+
+            if (isAmountChangeOnly(fee)) {
+                getFeeDao().updateCustomerFeeAmounts((AmountFeeBO) fee, lastAccountId, chunkLastAccountId,
+                        DateUtils.getCurrentDateWithoutTimeStamp());
+            } else {
+                int processed = 0;
+                for (Integer accountId : accountIds) {
+                    CustomerAccountBO customerAccount = (CustomerAccountBO) legacyAccountDao.getAccount(accountId);
+                    customerAccount.updateFee(customerAccount.getAccountFees(feeId), fee);
+                    if (++processed % batchSize == 0) {
+                        StaticHibernateUtil.flushAndClearSession();
+                        fee = getFeeDao().findById(feeId);
+                    }
+                }
+            }
+
+            getFeeDao().saveFeeChangeProgress(feeId, chunkLastAccountId);
+            StaticHibernateUtil.commitTransaction();
+            StaticHibernateUtil.clearSession();
+            lastAccountId = chunkLastAccountId;
+            pause(throttleInMillis);
+        } while (accountIds.size() == chunkSize);
+    }
+
+    /**
+     * Gives users' transactions room between the commits of an online batch job.
+     */
+    private void pause(long throttleInMillis) {
+        if (throttleInMillis > 0) {
+            try {
+                Thread.sleep(throttleInMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * One-time fees are left to {@link CustomerAccountBO#updateFee} as it must not touch the fee once it has been
+     * applied.
+     */
+    private boolean isAmountChangeOnly(FeeBO fee) {
+        return fee.getFeeChangeType().equals(FeeChangeType.AMOUNT_UPDATED) && fee.isPeriodic()
+                && fee instanceof AmountFeeBO;
     }
-}
\ No newline at end of file
+}
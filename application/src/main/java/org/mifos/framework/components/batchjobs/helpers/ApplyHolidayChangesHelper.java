@@ -33,6 +33,7 @@ import org.mifos.accounts.savings.persistence.GenericDaoHibernate;
 import org.mifos.application.holiday.business.Holiday;
 import org.mifos.application.holiday.persistence.HolidayDao;
 import org.mifos.application.holiday.persistence.HolidayDaoHibernate;
+import org.mifos.application.holiday.persistence.HolidayIndexCache;
 import org.mifos.application.holiday.util.helpers.RepaymentRuleTypes;
 import org.mifos.application.meeting.business.MeetingBO;
 import org.mifos.application.servicefacade.ApplicationContextProvider;
@@ -253,9 +254,8 @@ public class ApplyHolidayChangesHelper extends TaskHelper {
             return scheduledDateGeneration;
         }
 
-        List<Holiday> futureHolidays = getHolidayDao().findCurrentAndFutureOfficeHolidaysEarliestFirst(officeId);
         scheduledDateGeneration = new HolidayAndWorkingDaysAndMoratoriaScheduledDateGeneration(workingDays,
-                futureHolidays);
+                HolidayIndexCache.getCurrentAndFutureHolidays(officeId, getHolidayDao()));
         officeScheduledDateGenerationMap.put(officeId, scheduledDateGeneration);
 
         return scheduledDateGeneration;
@@ -268,6 +268,8 @@ public class ApplyHolidayChangesHelper extends TaskHelper {
         updateHoliday.markAsApplied();
         getHolidayDao().save(updateHoliday);
         StaticHibernateUtil.commitTransaction();
+        // the dao may be a test double, so make sure other batch jobs stop using the holidays cached before this one
+        HolidayIndexCache.invalidate();
     }
 
     private void initializeTaskGlobalParameters() {
@@ -21,107 +21,161 @@
 package org.mifos.framework.components.batchjobs.helpers;
 
 import java.util.ArrayList;
-import java.util.Collection;
 import java.util.Date;
 import java.util.List;
+import java.util.Map;
 
-import org.hibernate.Query;
 import org.joda.time.Days;
 import org.joda.time.LocalDate;
 import org.mifos.accounts.business.AccountPenaltiesEntity;
 import org.mifos.accounts.loan.business.LoanBO;
 import org.mifos.accounts.loan.business.LoanPenaltyScheduleEntity;
 import org.mifos.accounts.loan.business.LoanScheduleEntity;
+import org.mifos.accounts.loan.persistance.LegacyLoanDao;
 import org.mifos.accounts.penalties.business.AmountPenaltyBO;
 import org.mifos.accounts.penalties.business.RatePenaltyBO;
 import org.mifos.accounts.penalties.util.helpers.PenaltyPeriod;
-import org.mifos.application.NamedQueryConstants;
+import org.mifos.application.servicefacade.ApplicationContextProvider;
+import org.mifos.framework.components.batchjobs.BatchJobPartitionResult;
+import org.mifos.framework.components.batchjobs.PartitionedBatchJobExecutor;
 import org.mifos.framework.components.batchjobs.SchedulerConstants;
 import org.mifos.framework.components.batchjobs.TaskHelper;
+import org.mifos.framework.components.batchjobs.configuration.BatchJobConfigurationService;
+import org.mifos.framework.components.batchjobs.configuration.StandardBatchJobConfigurationService;
 import org.mifos.framework.components.batchjobs.exceptions.BatchJobException;
+import org.mifos.framework.exceptions.PersistenceException;
 import org.mifos.framework.hibernate.helper.StaticHibernateUtil;
+import org.mifos.framework.util.DateTimeService;
 import org.mifos.framework.util.helpers.Money;
 
 public class ApplyPenaltyToLoanAccountsHelper extends TaskHelper {
+
+    /**
+     * Default number of loan account ids read per page. Only ids are paged in, the loans themselves are loaded one at a
+     * time by the partitioned executor, which flushes, clears and commits as it goes.
+     */
+    static final int ACCOUNT_ID_PAGE_SIZE = 5000;
+
+    private BatchJobConfigurationService batchJobConfigurationService;
+    private int accountIdPageSize = ACCOUNT_ID_PAGE_SIZE;
     private LocalDate currentLocalDate;
     private Date currentDate;
 
+    public BatchJobConfigurationService getBatchJobConfigurationService() {
+        if (batchJobConfigurationService == null) {
+            return new StandardBatchJobConfigurationService();
+        }
+        return batchJobConfigurationService;
+    }
+
+    public void setBatchJobConfigurationService(BatchJobConfigurationService batchJobConfigurationService) {
+        this.batchJobConfigurationService = batchJobConfigurationService;
+    }
+
+    public void setAccountIdPageSize(int accountIdPageSize) {
+        this.accountIdPageSize = Math.max(1, accountIdPageSize);
+    }
+
     @Override
     public void execute(final long timeInMillis) throws BatchJobException {
+        long time1 = new DateTimeService().getCurrentDateTime().getMillis();
         setCurrentDates(timeInMillis);
         List<String> errorList = new ArrayList<String>();
-        List<LoanBO> loanAccounts;
-
-        try {
-            loanAccounts = getLoanAccounts();
-        } catch (Exception e) {
-            throw new BatchJobException(e);
-        }
 
-        if (loanAccounts != null && !loanAccounts.isEmpty()) {
-            Integer loanAccountId = null;
+        final LegacyLoanDao legacyLoanDao = ApplicationContextProvider.getBean(LegacyLoanDao.class);
+        PartitionedBatchJobExecutor executor = new PartitionedBatchJobExecutor("ApplyPenaltyToLoanAccountsTask",
+                getBatchJobConfigurationService());
+        PartitionedBatchJobExecutor.AccountProcessor processor = new PartitionedBatchJobExecutor.AccountProcessor() {
+            @Override
+            public void process(Integer accountId) throws Exception {
+                applyPenalties(legacyLoanDao, accountId);
+            }
+        };
 
+        Integer lastAccountId = Integer.valueOf(0);
+        int accountNumber = 0;
+        int pageSize;
+        do {
+            Map<Short, List<Integer>> accountIdsByOffice;
             try {
-                for (LoanBO loanAccount : loanAccounts) {
-                    loanAccountId = loanAccount.getAccountId();
-                    List<AccountPenaltiesEntity> penaltyEntities =new ArrayList<AccountPenaltiesEntity>(loanAccount.getAccountPenalties());
-
-                    for (AccountPenaltiesEntity penaltyEntity : penaltyEntities) {
-                        List<LoanScheduleEntity> lateInstallments = loanAccount.getDetailsOfLateInstallmentsPeriod(
-                                new LocalDate(penaltyEntity.getCreatedDate()), currentLocalDate);
-                        
-                        for (LoanScheduleEntity entity : lateInstallments) {
-                            
-                            //check grace period for installment period type
-                            if(penaltyEntity.getPenalty().getPeriodType().getPenaltyPeriod() == PenaltyPeriod.INSTALLMENTS
-                                    && penaltyEntity.hasPeriodType()) {
-                                if (lateInstallments.get(0).getInstallmentId().equals(entity.getInstallmentId())
-                                        && checkGracePeriodTypeInstallments(lateInstallments, penaltyEntity.getPenalty().getPeriodDuration())) {
-                                    continue;
-                                }
-                            }
-                            //check grace period for daily period type
-                            else if (penaltyEntity.getPenalty().getPeriodType().getPenaltyPeriod() == PenaltyPeriod.DAYS
-                                    && penaltyEntity.hasPeriodType()) {
-                                if (checkGracePeriodTypeDays(entity, penaltyEntity.getPenalty().getPeriodDuration())) {
-                                    continue;
-                                }
-                            }
-                            
-                            LoanPenaltyScheduleEntity penaltySchedule = entity.getPenaltyScheduleEntity(penaltyEntity.getPenalty().getPenaltyId());
-
-                            if (checkPeriod(penaltyEntity, new LocalDate(entity.getActionDate().getTime()))
-                                    || (penaltySchedule != null && penaltySchedule.isOn(currentLocalDate))) {
-                                continue;
-                            }
-
-                            if (penaltyEntity.isAmountPenalty()) {
-                                addAmountPenalty(penaltyEntity, loanAccount, entity);
-                            } else {
-                                addRatePenalty(penaltyEntity, loanAccount, entity);
-                            }
-                        }
-                    }
-                }
+                accountIdsByOffice = legacyLoanDao.getLoanAccountIdsWithLateInstallmentsByOffice(currentDate,
+                        lastAccountId, accountIdPageSize);
             } catch (Exception e) {
-                if (loanAccountId != null) {
-                    getLogger().error(String.format("ApplyPenaltyToLoanAccountsTask execute failed with exception %s: %s at loan account %s",
-                                    e.getClass().getName(), e.getMessage(), loanAccountId.toString()), e);
-
-                    errorList.add(loanAccountId.toString());
-                }
-
-                StaticHibernateUtil.rollbackTransaction();
+                throw new BatchJobException(e);
             } finally {
                 StaticHibernateUtil.closeSession();
             }
-        }
 
+            pageSize = 0;
+            for (List<Integer> accountIds : accountIdsByOffice.values()) {
+                pageSize += accountIds.size();
+                for (Integer accountId : accountIds) {
+                    if (accountId.intValue() > lastAccountId.intValue()) {
+                        lastAccountId = accountId;
+                    }
+                }
+            }
+            if (pageSize > 0) {
+                List<BatchJobPartitionResult> results = executor.execute(accountIdsByOffice, processor);
+                errorList.addAll(PartitionedBatchJobExecutor.failedAccountIds(results));
+                accountNumber += pageSize;
+            }
+        } while (pageSize == accountIdPageSize);
+
+        long duration = new DateTimeService().getCurrentDateTime().getMillis() - time1;
+        getLogger().info(
+                "ApplyPenaltyToLoanAccountsTask ran in " + duration + " milliseconds for " + accountNumber
+                        + " accounts");
         if (!errorList.isEmpty()) {
             throw new BatchJobException(SchedulerConstants.FAILURE, errorList);
         }
     }
 
+    void applyPenalties(LegacyLoanDao legacyLoanDao, Integer accountId) throws PersistenceException {
+        applyPenalties(legacyLoanDao.getAccount(accountId));
+    }
+
+    private void applyPenalties(final LoanBO loanAccount) {
+        List<AccountPenaltiesEntity> penaltyEntities = new ArrayList<AccountPenaltiesEntity>(loanAccount.getAccountPenalties());
+
+        for (AccountPenaltiesEntity penaltyEntity : penaltyEntities) {
+            List<LoanScheduleEntity> lateInstallments = loanAccount.getDetailsOfLateInstallmentsPeriod(
+                    new LocalDate(penaltyEntity.getCreatedDate()), currentLocalDate);
+
+            for (LoanScheduleEntity entity : lateInstallments) {
+
+                //check grace period for installment period type
+                if(penaltyEntity.getPenalty().getPeriodType().getPenaltyPeriod() == PenaltyPeriod.INSTALLMENTS
+                        && penaltyEntity.hasPeriodType()) {
+                    if (lateInstallments.get(0).getInstallmentId().equals(entity.getInstallmentId())
+                            && checkGracePeriodTypeInstallments(lateInstallments, penaltyEntity.getPenalty().getPeriodDuration())) {
+                        continue;
+                    }
+                }
+                //check grace period for daily period type
+                else if (penaltyEntity.getPenalty().getPeriodType().getPenaltyPeriod() == PenaltyPeriod.DAYS
+                        && penaltyEntity.hasPeriodType()) {
+                    if (checkGracePeriodTypeDays(entity, penaltyEntity.getPenalty().getPeriodDuration())) {
+                        continue;
+                    }
+                }
+
+                LoanPenaltyScheduleEntity penaltySchedule = entity.getPenaltyScheduleEntity(penaltyEntity.getPenalty().getPenaltyId());
+
+                if (checkPeriod(penaltyEntity, new LocalDate(entity.getActionDate().getTime()))
+                        || (penaltySchedule != null && penaltySchedule.isOn(currentLocalDate))) {
+                    continue;
+                }
+
+                if (penaltyEntity.isAmountPenalty()) {
+                    addAmountPenalty(penaltyEntity, loanAccount, entity);
+                } else {
+                    addRatePenalty(penaltyEntity, loanAccount, entity);
+                }
+            }
+        }
+    }
+
     private boolean checkPeriod(AccountPenaltiesEntity penaltyEntity, LocalDate installmentDate) {
         int days = Days.daysBetween(installmentDate, currentLocalDate).getDays();
         boolean check = false;
@@ -169,15 +223,6 @@ public class ApplyPenaltyToLoanAccountsHelper extends TaskHelper {
         if (charge != null && charge.isGreaterThanZero()) {
             loanAccount.applyPenalty(charge, loanScheduleEntity.getInstallmentId(), penaltyEntity, currentDate);
         }
-
-        try {
-            StaticHibernateUtil.startTransaction();
-            StaticHibernateUtil.getSessionTL().update(loanAccount);
-            StaticHibernateUtil.commitTransaction();
-        } catch (Exception e) {
-            getLogger().error(e.getMessage());
-            StaticHibernateUtil.rollbackTransaction();
-        }
     }
 
     private void addRatePenalty(final AccountPenaltiesEntity penaltyEntity, final LoanBO loanAccount,
@@ -204,15 +249,6 @@ public class ApplyPenaltyToLoanAccountsHelper extends TaskHelper {
         if (charge.isGreaterThanZero()) {
             loanAccount.applyPenalty(charge, loanScheduleEntity.getInstallmentId(), penaltyEntity, currentDate);
         }
-
-        try {
-            StaticHibernateUtil.startTransaction();
-            StaticHibernateUtil.getSessionTL().update(loanAccount);
-            StaticHibernateUtil.commitTransaction();
-        } catch (Exception e) {
-            getLogger().error(e.getMessage());
-            StaticHibernateUtil.rollbackTransaction();
-        }
     }
 
     private Money verifyLimits(final Money total, final Money charge, final Double min, final double max) {
@@ -228,23 +264,6 @@ public class ApplyPenaltyToLoanAccountsHelper extends TaskHelper {
         return cash;
     }
 
-    private List<LoanBO> getLoanAccounts() {
-        Query select = StaticHibernateUtil.getSessionTL().getNamedQuery(NamedQueryConstants.GET_ALL_LOAN_ACCOUNTS_WITH_PENALTIES);
-        select.setDate("currentDate", currentDate);
-
-        return castList(LoanBO.class, select.list());
-    }
-
-    private <T> List<T> castList(final Class<? extends T> clazz, final Collection<?> collection) {
-        List<T> results = new ArrayList<T>(collection.size());
-
-        for (Object item : collection) {
-            results.add(clazz.cast(item));
-        }
-
-        return results;
-    }
-
     private void setCurrentDates(long time) {
         currentLocalDate = new LocalDate(time);
         currentDate = new Date(time);
@@ -20,127 +20,114 @@
 
 package org.mifos.framework.components.batchjobs.helpers;
 
-import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.joda.time.Days;
 import org.mifos.accounts.business.AccountBO;
 import org.mifos.accounts.persistence.LegacyAccountDao;
 import org.mifos.accounts.savings.business.SavingsBO;
-import org.mifos.application.holiday.business.Holiday;
 import org.mifos.application.holiday.persistence.HolidayDao;
+import org.mifos.application.holiday.persistence.HolidayIndexCache;
 import org.mifos.application.servicefacade.ApplicationContextProvider;
+import org.mifos.calendar.HolidayIndex;
 import org.mifos.config.FiscalCalendarRules;
 import org.mifos.config.GeneralConfig;
 import org.mifos.customers.business.CustomerAccountBO;
+import org.mifos.framework.components.batchjobs.BatchJobPartitionResult;
+import org.mifos.framework.components.batchjobs.PartitionedBatchJobExecutor;
 import org.mifos.framework.components.batchjobs.SchedulerConstants;
 import org.mifos.framework.components.batchjobs.TaskHelper;
+import org.mifos.framework.components.batchjobs.configuration.BatchJobConfigurationService;
+import org.mifos.framework.components.batchjobs.configuration.StandardBatchJobConfigurationService;
 import org.mifos.framework.components.batchjobs.exceptions.BatchJobException;
 import org.mifos.framework.exceptions.PersistenceException;
-import org.mifos.framework.hibernate.helper.StaticHibernateUtil;
 import org.mifos.framework.util.DateTimeService;
 import org.mifos.schedule.ScheduledDateGeneration;
 import org.mifos.schedule.internal.HolidayAndWorkingDaysAndMoratoriaScheduledDateGeneration;
 
+/**
+ * Generates the next meetings of customer and savings accounts whose schedules are running out.
+ * <p>
+ * Accounts are processed per branch office by a {@link PartitionedBatchJobExecutor}, so offices can run in parallel
+ * and a failing account does not roll back the accounts of other chunks. Holidays are per office, so the holiday index
+ * shared through {@link HolidayIndexCache} and the schedule generator are looked up once per office. The accounts to process are selected by how many future
+ * meetings they have, so when the task is restarted the accounts committed by an earlier run are no longer selected
+ * and the task resumes where it stopped.
+ */
 public class GenerateMeetingsForCustomerAndSavingsHelper extends TaskHelper {
 
+    // jpw - hardcoded recordCommittingSize to 500 because now only accounts that need more schedules are returned
+    private static final int RECORD_COMMITTING_SIZE = 500;
+
     private HolidayDao holidayDao = ApplicationContextProvider.getBean(HolidayDao.class);
     private final LegacyAccountDao legacyAccountDao = ApplicationContextProvider.getBean(LegacyAccountDao.class);
 
+    private BatchJobConfigurationService batchJobConfigurationService;
+
     private List<Days> workingDays;
-    private Map<Short, List<Holiday>> officeCurrentAndFutureHolidays;
+    private ConcurrentMap<Short, ScheduledDateGeneration> officeScheduleGenerationStrategies;
 
     public GenerateMeetingsForCustomerAndSavingsHelper() {
         super();
     }
 
+    public BatchJobConfigurationService getBatchJobConfigurationService() {
+        if (batchJobConfigurationService == null) {
+            return new StandardBatchJobConfigurationService();
+        }
+        return batchJobConfigurationService;
+    }
+
+    public void setBatchJobConfigurationService(BatchJobConfigurationService batchJobConfigurationService) {
+        this.batchJobConfigurationService = batchJobConfigurationService;
+    }
+
     @Override
     public void execute(@SuppressWarnings("unused") final long timeInMillis) throws BatchJobException {
 
         workingDays = new FiscalCalendarRules().getWorkingDaysAsJodaTimeDays();
-        officeCurrentAndFutureHolidays = new HashMap<Short, List<Holiday>>();
+        officeScheduleGenerationStrategies = new ConcurrentHashMap<Short, ScheduledDateGeneration>();
 
         long taskStartTime = new DateTimeService().getCurrentDateTime().getMillis();
 
-        List<Integer> customerAndSavingsAccountIds = findActiveCustomerAndSavingsAccountIdsThatRequiredMeetingsToBeGenerated();
+        Map<Short, List<Integer>> accountIdsByOffice = findActiveCustomerAndSavingsAccountIdsThatRequiredMeetingsToBeGenerated();
 
-        int accountCount = customerAndSavingsAccountIds.size();
+        int accountCount = 0;
+        for (List<Integer> accountIds : accountIdsByOffice.values()) {
+            accountCount += accountIds.size();
+        }
         if (accountCount == 0) {
             return;
         }
 
-        List<String> errorList = new ArrayList<String>();
-        int currentRecordNumber = 0;
+        BatchJobConfigurationService configuration = getBatchJobConfigurationService();
         int outputIntervalForBatchJobs = GeneralConfig.getOutputIntervalForBatchJobs();
-        int batchSize = GeneralConfig.getBatchSizeForBatchJobs();
-        // jpw - hardcoded recordCommittingSize to 500 because now only accounts that need more schedules are returned
-        int recordCommittingSize = 500;
-
-        infoLogBatchParameters(accountCount, outputIntervalForBatchJobs, batchSize, recordCommittingSize);
+        int batchSize = configuration.getBatchSizeForBatchJobs();
+        int threadPoolSize = configuration.getThreadPoolSizeForBatchJobs();
+
+        infoLogBatchParameters(accountCount, accountIdsByOffice.size(), outputIntervalForBatchJobs, batchSize,
+                RECORD_COMMITTING_SIZE, threadPoolSize);
+
+        PartitionedBatchJobExecutor executor = new PartitionedBatchJobExecutor("GenerateMeetingsForCustomerAndSavings",
+                configuration, RECORD_COMMITTING_SIZE);
+        List<BatchJobPartitionResult> results = executor.execute(accountIdsByOffice,
+                new PartitionedBatchJobExecutor.AccountProcessor() {
+                    @Override
+                    public void process(Integer accountId) throws Exception {
+                        generateNextSetOfMeetingDates(accountId);
+                    }
+                });
 
-        long startTime = new DateTimeService().getCurrentDateTime().getMillis();
-        Integer currentAccountId = null;
         int updatedRecordCount = 0;
-
-        try {
-            StaticHibernateUtil.getSessionTL();
-            StaticHibernateUtil.startTransaction();
-
-            for (Integer accountId : customerAndSavingsAccountIds) {
-                currentRecordNumber++;
-                currentAccountId = accountId;
-                AccountBO accountBO = legacyAccountDao.getAccount(accountId);
-
-                List<Holiday> currentAndFutureHolidays = getOfficeCurrentAndFutureHolidays(accountBO.getOffice()
-                        .getOfficeId());
-                ScheduledDateGeneration scheduleGenerationStrategy = new HolidayAndWorkingDaysAndMoratoriaScheduledDateGeneration(
-                        workingDays, currentAndFutureHolidays);
-
-                if (accountBO instanceof CustomerAccountBO) {
-                    ((CustomerAccountBO) accountBO).generateNextSetOfMeetingDates(scheduleGenerationStrategy);
-                    updatedRecordCount++;
-                } else if (accountBO instanceof SavingsBO) {
-                    ((SavingsBO) accountBO).generateNextSetOfMeetingDates(workingDays, currentAndFutureHolidays);
-                    updatedRecordCount++;
-                }
-
-                if (currentRecordNumber % batchSize == 0) {
-                    StaticHibernateUtil.flushAndClearSession();
-                    getLogger().debug("completed HibernateUtil.flushAndClearSession()");
-                }
-                if (updatedRecordCount > 0) {
-                    if (updatedRecordCount % recordCommittingSize == 0) {
-                        StaticHibernateUtil.commitTransaction();
-                        StaticHibernateUtil.getSessionTL();
-                        StaticHibernateUtil.startTransaction();
-                    }
-                }
-
-                if (currentRecordNumber % outputIntervalForBatchJobs == 0) {
-                    long time = System.currentTimeMillis();
-                    String message = "" + currentRecordNumber + " processed, " + (accountCount - currentRecordNumber)
-                            + " remaining, " + updatedRecordCount + " updated, batch time: " + (time - startTime)
-                            + " ms";
-                    logMessage(message);
-                    startTime = time;
-                }
-            }
-            StaticHibernateUtil.commitTransaction();
-            long time = System.currentTimeMillis();
-            String message = "" + currentRecordNumber + " processed, " + (accountCount - currentRecordNumber)
-                    + " remaining, " + updatedRecordCount + " updated, batch time: " + (time - startTime) + " ms";
-            logMessage(message);
-
-        } catch (Exception e) {
-            logMessage("account " + currentAccountId.intValue() + " exception " + e.getMessage());
-            StaticHibernateUtil.rollbackTransaction();
-            errorList.add(currentAccountId.toString());
-            getLogger().error("Unable to generate schedules for account with ID " + currentAccountId, e);
-        } finally {
-            StaticHibernateUtil.closeSession();
+        for (BatchJobPartitionResult result : results) {
+            updatedRecordCount += result.getProcessedCount();
         }
+        List<String> errorList = PartitionedBatchJobExecutor.failedAccountIds(results);
+        logMessage("" + accountCount + " accounts in " + results.size() + " offices processed, " + updatedRecordCount
+                + " updated, " + errorList.size() + " failed");
 
         if (errorList.size() > 0) {
             throw new BatchJobException(SchedulerConstants.FAILURE, errorList);
@@ -151,44 +138,57 @@ public class GenerateMeetingsForCustomerAndSavingsHelper extends TaskHelper {
 
     }
 
-    private void infoLogBatchParameters(int accountCount, int outputIntervalForBatchJobs, int batchSize,
-            int recordCommittingSize) {
+    private void generateNextSetOfMeetingDates(Integer accountId) throws PersistenceException {
+        AccountBO accountBO = legacyAccountDao.getAccount(accountId);
+        Short officeId = accountBO.getOffice().getOfficeId();
+
+        if (accountBO instanceof CustomerAccountBO) {
+            ((CustomerAccountBO) accountBO).generateNextSetOfMeetingDates(getOfficeScheduleGenerationStrategy(officeId));
+        } else if (accountBO instanceof SavingsBO) {
+            ((SavingsBO) accountBO).generateNextSetOfMeetingDates(workingDays,
+                    getOfficeCurrentAndFutureHolidays(officeId).getHolidays());
+        }
+    }
+
+    private void infoLogBatchParameters(int accountCount, int officeCount, int outputIntervalForBatchJobs,
+            int batchSize, int recordCommittingSize, int threadPoolSize) {
         logMessage("Using parameters:" + "\n  OutputIntervalForBatchJobs: " + outputIntervalForBatchJobs
                 + "\n  BatchSizeForBatchJobs: " + batchSize + "\n  RecordCommittingSizeForBatchJobs: "
-                + recordCommittingSize);
-        String initial_message = "" + accountCount + " accounts to process, results output every "
-                + outputIntervalForBatchJobs + " accounts";
+                + recordCommittingSize + "\n  ThreadPoolSizeForBatchJobs: " + threadPoolSize);
+        String initial_message = "" + accountCount + " accounts in " + officeCount + " offices to process";
         logMessage(initial_message);
     }
 
-    private List<Integer> findActiveCustomerAndSavingsAccountIdsThatRequiredMeetingsToBeGenerated()
+    private Map<Short, List<Integer>> findActiveCustomerAndSavingsAccountIdsThatRequiredMeetingsToBeGenerated()
             throws BatchJobException {
-        List<Integer> customerAndSavingsAccountIds = new ArrayList<Integer>();
         try {
             long time1 = new DateTimeService().getCurrentDateTime().getMillis();
-            customerAndSavingsAccountIds = legacyAccountDao
-                    .getActiveCustomerAndSavingsAccountIdsForGenerateMeetingTask();
+            Map<Short, List<Integer>> accountIdsByOffice = legacyAccountDao
+                    .getActiveCustomerAndSavingsAccountIdsForGenerateMeetingTaskByOffice();
             long duration = new DateTimeService().getCurrentDateTime().getMillis() - time1;
-            logMessage("Time to execute the query " + duration + " . Got " + customerAndSavingsAccountIds.size()
-                    + " accounts.");
+            logMessage("Time to execute the query " + duration + " . Got accounts in " + accountIdsByOffice.size()
+                    + " offices.");
+            return accountIdsByOffice;
         } catch (PersistenceException e) {
             throw new BatchJobException(e);
         }
-        return customerAndSavingsAccountIds;
     }
 
-    private List<Holiday> getOfficeCurrentAndFutureHolidays(Short officeId) {
+    private HolidayIndex getOfficeCurrentAndFutureHolidays(Short officeId) {
+        return HolidayIndexCache.getCurrentAndFutureHolidays(officeId, holidayDao);
+    }
 
-        List<Holiday> currentAndFutureHolidays = officeCurrentAndFutureHolidays.get(officeId);
+    private ScheduledDateGeneration getOfficeScheduleGenerationStrategy(Short officeId) {
 
-        if (currentAndFutureHolidays != null) {
-            return currentAndFutureHolidays;
-        }
+        ScheduledDateGeneration scheduleGenerationStrategy = officeScheduleGenerationStrategies.get(officeId);
 
-        List<Holiday> futureHolidays = holidayDao.findCurrentAndFutureOfficeHolidaysEarliestFirst(officeId);
-        officeCurrentAndFutureHolidays.put(officeId, futureHolidays);
+        if (scheduleGenerationStrategy == null) {
+            scheduleGenerationStrategy = new HolidayAndWorkingDaysAndMoratoriaScheduledDateGeneration(workingDays,
+                    getOfficeCurrentAndFutureHolidays(officeId));
+            officeScheduleGenerationStrategies.put(officeId, scheduleGenerationStrategy);
+        }
 
-        return futureHolidays;
+        return scheduleGenerationStrategy;
     }
 
     private void logMessage(String finalMessage) {
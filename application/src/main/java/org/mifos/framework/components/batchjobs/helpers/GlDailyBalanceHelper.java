@@ -0,0 +1,48 @@
+/*
+ * Copyright (c) 2005-2011 Grameen Foundation USA
+ * All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * See also http://www.apache.org/licenses/LICENSE-2.0.html for an
+ * explanation of the license and how it is applied.
+ */
+
+package org.mifos.framework.components.batchjobs.helpers;
+
+import org.mifos.application.servicefacade.ApplicationContextProvider;
+import org.mifos.framework.components.batchjobs.TaskHelper;
+import org.mifos.framework.components.batchjobs.exceptions.BatchJobException;
+import org.mifos.platform.accounting.service.AccountingService;
+
+/**
+ * Folds the financial transactions of the completed days into gl_daily_balance, so that accounting exports read
+ * from it (AccountingRules.GlDailyBalances) only aggregate the transactions posted since. Each chunk of transactions
+ * is folded in its own short transaction, users are not locked out while it runs.
+ */
+public class GlDailyBalanceHelper extends TaskHelper {
+
+    public GlDailyBalanceHelper() {
+        super();
+    }
+
+    @Override
+    public void execute(long timeInMillis) throws BatchJobException {
+        try {
+            ApplicationContextProvider.getBean(AccountingService.class).refreshGlDailyBalances();
+        } catch (Exception e) {
+            throw new BatchJobException(e);
+        }
+    }
+
+}
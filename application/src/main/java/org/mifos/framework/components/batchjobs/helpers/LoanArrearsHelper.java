@@ -20,8 +20,8 @@
 
 package org.mifos.framework.components.batchjobs.helpers;
 
-import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 import org.mifos.accounts.loan.business.LoanBO;
 import org.mifos.accounts.loan.persistance.LegacyLoanDao;
@@ -29,81 +29,74 @@ import org.mifos.accounts.persistence.LegacyAccountDao;
 import org.mifos.accounts.productdefinition.persistence.LoanPrdPersistence;
 import org.mifos.accounts.util.helpers.AccountState;
 import org.mifos.application.servicefacade.ApplicationContextProvider;
-import org.mifos.config.GeneralConfig;
+import org.mifos.framework.components.batchjobs.BatchJobPartitionResult;
+import org.mifos.framework.components.batchjobs.PartitionedBatchJobExecutor;
 import org.mifos.framework.components.batchjobs.SchedulerConstants;
 import org.mifos.framework.components.batchjobs.TaskHelper;
+import org.mifos.framework.components.batchjobs.configuration.BatchJobConfigurationService;
+import org.mifos.framework.components.batchjobs.configuration.StandardBatchJobConfigurationService;
 import org.mifos.framework.components.batchjobs.exceptions.BatchJobException;
-import org.mifos.framework.hibernate.helper.StaticHibernateUtil;
 import org.mifos.framework.util.DateTimeService;
 
 public class LoanArrearsHelper extends TaskHelper {
 
+    private BatchJobConfigurationService batchJobConfigurationService;
+
     public LoanArrearsHelper() {
         super();
     }
 
+    public BatchJobConfigurationService getBatchJobConfigurationService() {
+        if (batchJobConfigurationService == null) {
+            return new StandardBatchJobConfigurationService();
+        }
+        return batchJobConfigurationService;
+    }
+
+    public void setBatchJobConfigurationService(BatchJobConfigurationService batchJobConfigurationService) {
+        this.batchJobConfigurationService = batchJobConfigurationService;
+    }
+
     @Override
     public void execute(long timeInMillis) throws BatchJobException {
         long time1 = new DateTimeService().getCurrentDateTime().getMillis();
-        LegacyAccountDao legacyAccountDao = ApplicationContextProvider.getBean(LegacyAccountDao.class);
-        List<String> errorList = new ArrayList<String>();
-        List<Integer> listAccountIds = null;
-        int accountNumber = 0;
+        Map<Short, List<Integer>> accountIdsByOffice = null;
         try {
             Short latenessDays = new LoanPrdPersistence().retrieveLatenessForPrd();
             long time3 = new DateTimeService().getCurrentDateTime().getMillis();
-            listAccountIds = ApplicationContextProvider.getBean(LegacyLoanDao.class).getLoanAccountsInArrearsInGoodStanding(latenessDays);
+            accountIdsByOffice = ApplicationContextProvider.getBean(LegacyLoanDao.class)
+                    .getLoanAccountsInArrearsInGoodStandingByOffice(latenessDays);
             long duration2 = new DateTimeService().getCurrentDateTime().getMillis() - time3;
-            accountNumber = listAccountIds.size();
+            int accountNumber = 0;
+            for (List<Integer> accountIds : accountIdsByOffice.values()) {
+                accountNumber += accountIds.size();
+            }
             getLogger().info(
-                    "LoanArrearsTask: getLoanAccountsInArrearsInGoodStanding ran in " + duration2 + " milliseconds"
-                            + " got " + accountNumber + " accounts to update.");
+                    "LoanArrearsTask: getLoanAccountsInArrearsInGoodStandingByOffice ran in " + duration2
+                            + " milliseconds" + " got " + accountNumber + " accounts in " + accountIdsByOffice.size()
+                            + " branches to update.");
         } catch (Exception e) {
             throw new BatchJobException(e);
         }
-        LoanBO loanBO = null;
-        int i = 1;
-        int batchSize = GeneralConfig.getBatchSizeForBatchJobs();
-        int recordCommittingSize = GeneralConfig.getRecordCommittingSizeForBatchJobs();
 
-        try {
-            long startTime = new DateTimeService().getCurrentDateTime().getMillis();
-            for (Integer accountId : listAccountIds) {
-                loanBO = (LoanBO) legacyAccountDao.getAccount(accountId);
-                assert (loanBO.getAccountState().getId().shortValue() == AccountState.LOAN_ACTIVE_IN_GOOD_STANDING
-                        .getValue().shortValue());
-
-                loanBO.handleArrears();
-                if (i % batchSize == 0) {
-                    StaticHibernateUtil.flushAndClearSession();
-                }
-                if (i % recordCommittingSize == 0) {
-                    StaticHibernateUtil.commitTransaction();
-                }
-                if (i % 1000 == 0) {
-                    long time = new DateTimeService().getCurrentDateTime().getMillis();
-                    getLogger().info(
-                            "1000 accounts updated in " + (time - startTime) + " milliseconds. There are "
-                                    + (accountNumber - i) + " more accounts to be updated.");
-                    startTime = time;
-                }
-                i++;
-            }
-            StaticHibernateUtil.commitTransaction();
-
-        } catch (Exception e) {
-            getLogger().debug("LoanArrearsTask " + e.getMessage());
-            StaticHibernateUtil.rollbackTransaction();
-            if (loanBO != null) {
-                errorList.add(loanBO.getAccountId().toString());
-            }
-        } finally {
-            StaticHibernateUtil.closeSession();
-        }
+        final LegacyAccountDao legacyAccountDao = ApplicationContextProvider.getBean(LegacyAccountDao.class);
+        PartitionedBatchJobExecutor executor = new PartitionedBatchJobExecutor("LoanArrearsTask",
+                getBatchJobConfigurationService());
+        List<BatchJobPartitionResult> results = executor.execute(accountIdsByOffice,
+                new PartitionedBatchJobExecutor.AccountProcessor() {
+                    @Override
+                    public void process(Integer accountId) throws Exception {
+                        LoanBO loanBO = (LoanBO) legacyAccountDao.getAccount(accountId);
+                        assert (loanBO.getAccountState().getId().shortValue() == AccountState.LOAN_ACTIVE_IN_GOOD_STANDING
+                                .getValue().shortValue());
+                        loanBO.handleArrears();
+                    }
+                });
 
         long time2 = new DateTimeService().getCurrentDateTime().getMillis();
         long duration = time2 - time1;
         getLogger().info("LoanArrearsTask ran in " + duration + " milliseconds");
+        List<String> errorList = PartitionedBatchJobExecutor.failedAccountIds(results);
         if (errorList.size() > 0) {
             throw new BatchJobException(SchedulerConstants.FAILURE, errorList);
         }
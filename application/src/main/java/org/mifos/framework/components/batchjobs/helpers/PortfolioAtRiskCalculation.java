@@ -34,7 +34,6 @@ public class PortfolioAtRiskCalculation {
     // calculated for loans in active in bad standing only
     public static double generatePortfolioAtRiskForTask(Integer groupId, Short branchId, String searchId)
             throws Exception {
-        double portfolioAtRisk = -1;
         CustomerPersistence customerPersistence = new CustomerPersistence();
 
         Money atRiskLoanAmount = customerPersistence.getTotalAmountForGroup(groupId,
@@ -52,6 +51,15 @@ public class PortfolioAtRiskCalculation {
         outstandingLoanAmount = outstandingLoanAmount.add(clientOutstandingLoanAmount);
         atRiskLoanAmount = atRiskLoanAmount.add(clientAtRiskLoanAmount);
 
+        return calculatePortfolioAtRisk(atRiskLoanAmount, outstandingLoanAmount);
+    }
+
+    /**
+     * Returns the share of the outstanding amount that is at risk, 0.0 if nothing is outstanding or at risk and -1 if
+     * the PAR can not be calculated.
+     */
+    public static double calculatePortfolioAtRisk(Money atRiskLoanAmount, Money outstandingLoanAmount) {
+        double portfolioAtRisk = -1;
         if (!outstandingLoanAmount.equals(new Money(outstandingLoanAmount.getCurrency()))) {
             portfolioAtRisk = atRiskLoanAmount.divide(outstandingLoanAmount).doubleValue();
         } else if (atRiskLoanAmount.equals(new Money(atRiskLoanAmount.getCurrency()))) {
@@ -21,25 +21,55 @@
 package org.mifos.framework.components.batchjobs.helpers;
 
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 import org.mifos.customers.group.BasicGroupInfo;
+import org.mifos.customers.group.GroupPortfolioAtRiskAmounts;
 import org.mifos.customers.group.persistence.GroupPersistence;
 import org.mifos.customers.persistence.CustomerPersistence;
 import org.mifos.framework.components.batchjobs.SchedulerConstants;
 import org.mifos.framework.components.batchjobs.TaskHelper;
+import org.mifos.framework.components.batchjobs.configuration.BatchJobConfigurationService;
+import org.mifos.framework.components.batchjobs.configuration.StandardBatchJobConfigurationService;
 import org.mifos.framework.components.batchjobs.exceptions.BatchJobException;
 import org.mifos.framework.hibernate.helper.StaticHibernateUtil;
 import org.mifos.framework.util.DateTimeService;
 
 public class PortfolioAtRiskHelper extends TaskHelper {
 
+    private BatchJobConfigurationService batchJobConfigurationService;
+
     public PortfolioAtRiskHelper() {
         super();
     }
 
+    public BatchJobConfigurationService getBatchJobConfigurationService() {
+        if (batchJobConfigurationService == null) {
+            return new StandardBatchJobConfigurationService();
+        }
+        return batchJobConfigurationService;
+    }
+
+    public void setBatchJobConfigurationService(BatchJobConfigurationService batchJobConfigurationService) {
+        this.batchJobConfigurationService = batchJobConfigurationService;
+    }
+
     @Override
     public void execute(long timeInMillis) throws BatchJobException {
+        if (getBatchJobConfigurationService().isSetBasedPortfolioAtRiskCalculationEnabled()) {
+            executeSetBased();
+        } else {
+            executePerGroup();
+        }
+    }
+
+    /**
+     * Calculates the PAR of every group with two queries per group and updates each group on its own.
+     */
+    void executePerGroup() throws BatchJobException {
 
         long time1 = new DateTimeService().getCurrentDateTime().getMillis();
         List<BasicGroupInfo> groupInfos = null;
@@ -104,4 +134,69 @@ public class PortfolioAtRiskHelper extends TaskHelper {
         }
     }
 
+    /**
+     * Calculates the PAR of all groups with one set based query and writes the results with JDBC batches.
+     */
+    void executeSetBased() throws BatchJobException {
+        long time1 = new DateTimeService().getCurrentDateTime().getMillis();
+        List<String> errorList = new ArrayList<String>();
+
+        List<BasicGroupInfo> groupInfos = null;
+        Map<Integer, GroupPortfolioAtRiskAmounts> amountsByGroupId;
+        try {
+            CustomerPersistence customerPersistence = new CustomerPersistence();
+            groupInfos = customerPersistence.getAllBasicGroupInfo();
+            amountsByGroupId = new HashMap<Integer, GroupPortfolioAtRiskAmounts>();
+            for (GroupPortfolioAtRiskAmounts amounts : customerPersistence.getPortfolioAtRiskAmountsForAllGroups()) {
+                amountsByGroupId.put(amounts.getGroupId(), amounts);
+            }
+        } catch (Exception e) {
+            StaticHibernateUtil.closeSession();
+            throw new BatchJobException(e);
+        }
+        getLogger().info(
+                "PortfolioAtRisk: got " + groupInfos.size() + " groups to process, " + amountsByGroupId.size()
+                        + " of them with active loans. Amounts calculated in "
+                        + (new DateTimeService().getCurrentDateTime().getMillis() - time1) + " milliseconds.");
+
+        Map<Integer, Double> portfolioAtRiskByGroupId = new LinkedHashMap<Integer, Double>();
+        for (BasicGroupInfo groupInfo : groupInfos) {
+            Integer groupId = groupInfo.getGroupId();
+            GroupPortfolioAtRiskAmounts amounts = amountsByGroupId.get(groupId);
+            double portfolioAtRisk = 0.0;
+            if (amounts != null) {
+                if (amounts.isCurrencyMismatch()) {
+                    getLogger().error("PortfolioAtRiskHelper: loans of group " + groupId + " use more than one currency");
+                    errorList.add(groupId.toString());
+                    continue;
+                }
+                portfolioAtRisk = PortfolioAtRiskCalculation.calculatePortfolioAtRisk(amounts.getAtRiskLoanAmount(),
+                        amounts.getOutstandingLoanAmount());
+            }
+            if (portfolioAtRisk > -1) {
+                portfolioAtRiskByGroupId.put(groupId, portfolioAtRisk);
+            }
+        }
+
+        try {
+            List<Integer> groupsNotUpdated = new GroupPersistence()
+                    .updateGroupInfoAndGroupPerformanceHistoryForPortfolioAtRisk(portfolioAtRiskByGroupId,
+                            getBatchJobConfigurationService().getBatchSizeForBatchJobs());
+            for (Integer groupId : groupsNotUpdated) {
+                getLogger().error("PortfolioAtRiskHelper: no group performance history for group " + groupId);
+                errorList.add(groupId.toString());
+            }
+        } catch (Exception e) {
+            getLogger().error("PortfolioAtRiskHelper set based update failed", e);
+            throw new BatchJobException(e);
+        }
+
+        long time2 = new DateTimeService().getCurrentDateTime().getMillis();
+        getLogger().info("PortfolioAtRiskTask (set based) ran in " + (time2 - time1) + " milliseconds");
+
+        if (errorList.size() > 0) {
+            throw new BatchJobException(SchedulerConstants.FAILURE, errorList);
+        }
+    }
+
 }
@@ -31,6 +31,8 @@ import org.mifos.config.Localization;
 import org.mifos.customers.personnel.util.helpers.PersonnelLevel;
 import org.mifos.framework.components.batchjobs.SchedulerConstants;
 import org.mifos.framework.components.batchjobs.TaskHelper;
+import org.mifos.framework.components.batchjobs.configuration.BatchJobConfigurationService;
+import org.mifos.framework.components.batchjobs.configuration.StandardBatchJobConfigurationService;
 import org.mifos.framework.components.batchjobs.exceptions.BatchJobException;
 import org.mifos.security.MifosUser;
 import org.mifos.service.BusinessRuleException;
@@ -44,11 +46,23 @@ import org.springframework.security.core.context.SecurityContextImpl;
 public class SavingsIntPostingHelper extends TaskHelper {
 
     private SavingsServiceFacade savingsServiceFacade = ApplicationContextProvider.getBean(SavingsServiceFacade.class);
+    private BatchJobConfigurationService batchJobConfigurationService;
 
     public SavingsIntPostingHelper() {
         super();
     }
 
+    public BatchJobConfigurationService getBatchJobConfigurationService() {
+        if (batchJobConfigurationService == null) {
+            return new StandardBatchJobConfigurationService();
+        }
+        return batchJobConfigurationService;
+    }
+
+    public void setBatchJobConfigurationService(BatchJobConfigurationService batchJobConfigurationService) {
+        this.batchJobConfigurationService = batchJobConfigurationService;
+    }
+
     @Override
     public void execute(final long scheduledFireTime) throws BatchJobException {
 
@@ -68,7 +82,8 @@ public class SavingsIntPostingHelper extends TaskHelper {
 
         List<String> errorList = new ArrayList<String>();
         try {
-            this.savingsServiceFacade.postInterestForLastPostingPeriod(dateOfBatchJob);
+            errorList.addAll(this.savingsServiceFacade.postInterestForLastPostingPeriodInChunks(dateOfBatchJob,
+                    getBatchJobConfigurationService().getRecordCommittingSizeForBatchJobs()));
         } catch (BusinessRuleException e) {
             errorList.add(e.getMessageKey());
         }
@@ -40,6 +40,7 @@ import org.mifos.customers.personnel.business.PersonnelBO;
 import org.mifos.framework.components.batchjobs.MifosScheduler;
 import org.mifos.framework.components.batchjobs.exceptions.TaskSystemException;
 import org.mifos.framework.components.mifosmenu.MenuRepository;
+import org.mifos.framework.hibernate.helper.ReferenceDataCache;
 import org.mifos.framework.hibernate.helper.StaticHibernateUtil;
 import org.mifos.framework.struts.plugin.helper.EntityMasterData;
 import org.mifos.framework.util.helpers.FilePaths;
@@ -120,6 +121,7 @@ public class StandardTestingService implements TestingService {
     @Override
     public void reinitializeCaches() {
         try {
+            ReferenceDataCache.evictAll();
             HierarchyManager.getInstance().init();
             AccountingRules.init();
             ActivityMapper.getInstance().init();
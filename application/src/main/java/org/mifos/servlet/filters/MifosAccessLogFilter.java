@@ -30,11 +30,24 @@ import javax.servlet.ServletRequest;
 import javax.servlet.ServletResponse;
 import javax.servlet.http.HttpServletRequest;
 
+import org.mifos.config.GeneralConfig;
+import org.mifos.framework.metrics.MetricsRegistry;
+import org.mifos.framework.metrics.RequestMetrics;
+import org.mifos.framework.metrics.SlowRequest;
+
 /**
- * Servlet Filter implementation class MifosLogFilter
+ * Servlet Filter implementation class MifosLogFilter. Records the latency and the number of statements and entity
+ * loads of each request under its transaction name in the {@link MetricsRegistry}.
  */
 public class MifosAccessLogFilter implements Filter {
 
+    /**
+     * Transaction names contain ids for some urls, so past this many names requests are recorded together.
+     */
+    static final int MAX_TRANSACTION_TIMERS = 500;
+    static final String TIMER_PREFIX = "request ";
+    static final String OTHER_TRANSACTIONS = TIMER_PREFIX + "(other)";
+
     /**
      * Default constructor.
      */
@@ -69,7 +82,17 @@ public class MifosAccessLogFilter implements Filter {
 
             httpRequest.setAttribute("mifos-txnname", newTxnName);
 
-            chain.doFilter(httpRequest, response);
+            if (RequestMetrics.current() != null) {
+                chain.doFilter(httpRequest, response);
+                return;
+            }
+            RequestMetrics requestMetrics = RequestMetrics.begin(newTxnName);
+            try {
+                chain.doFilter(httpRequest, response);
+            } finally {
+                RequestMetrics.end();
+                record(requestMetrics, System.currentTimeMillis() - requestMetrics.getStartTime());
+            }
             return;
         }
         chain.doFilter(request, response);
@@ -82,6 +105,19 @@ public class MifosAccessLogFilter implements Filter {
     public void init(FilterConfig fConfig) throws ServletException {
     }
 
+    private void record(RequestMetrics requestMetrics, long durationInMillis) {
+        MetricsRegistry metrics = MetricsRegistry.getInstance();
+        String timerName = TIMER_PREFIX + requestMetrics.getTransactionName();
+        if (!metrics.hasTimer(timerName) && metrics.getTimerCount() >= MAX_TRANSACTION_TIMERS) {
+            timerName = OTHER_TRANSACTIONS;
+        }
+        metrics.timer(timerName).record(durationInMillis, requestMetrics.getStatementCount());
+        metrics.counter(timerName + " entityLoads").addAndGet(requestMetrics.getEntityLoadCount());
+        if (durationInMillis >= GeneralConfig.getSlowRequestThresholdInMillis()) {
+            metrics.recordSlowRequest(new SlowRequest(requestMetrics, durationInMillis));
+        }
+    }
+
     private String makeTxnName(String requestURI, String inputName, String methodName) {
 
         String separator = " ";
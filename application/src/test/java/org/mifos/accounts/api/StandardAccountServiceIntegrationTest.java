@@ -21,6 +21,9 @@
 package org.mifos.accounts.api;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 
 import junit.framework.Assert;
@@ -31,6 +34,7 @@ import org.junit.Test;
 import org.mifos.accounts.AccountIntegrationTestCase;
 import org.mifos.accounts.business.AccountPaymentEntity;
 import org.mifos.accounts.business.AccountTrxnEntity;
+import org.mifos.accounts.financial.business.FinancialTransactionBO;
 import org.mifos.accounts.productdefinition.business.SavingsOfferingBO;
 import org.mifos.accounts.productdefinition.util.helpers.ApplicableTo;
 import org.mifos.accounts.productdefinition.util.helpers.InterestCalcType;
@@ -43,14 +47,19 @@ import org.mifos.application.meeting.business.MeetingBO;
 import org.mifos.application.meeting.util.helpers.MeetingType;
 import org.mifos.application.meeting.util.helpers.RecurrenceType;
 import org.mifos.application.servicefacade.ApplicationContextProvider;
+import org.mifos.config.GeneralConfig;
+import org.mifos.config.business.MifosConfigurationManager;
 import org.mifos.dto.domain.AccountPaymentParametersDto;
 import org.mifos.dto.domain.AccountReferenceDto;
+import org.mifos.dto.domain.BulkPaymentResultDto;
 import org.mifos.dto.domain.CustomerDto;
 import org.mifos.dto.domain.PaymentTypeDto;
 import org.mifos.dto.domain.UserReferenceDto;
 import org.mifos.framework.TestUtils;
 import org.mifos.framework.exceptions.PersistenceException;
+import org.mifos.framework.hibernate.helper.ReferenceDataCache;
 import org.mifos.framework.hibernate.helper.StaticHibernateUtil;
+import org.mifos.framework.metrics.RequestMetrics;
 import org.mifos.framework.util.DateTimeService;
 import org.mifos.framework.util.helpers.TestObjectFactory;
 import org.mifos.security.AuthenticationAuthorizationServiceFacade;
@@ -167,6 +176,120 @@ public class StandardAccountServiceIntegrationTest extends AccountIntegrationTes
         }
     }
 
+    @Test
+    public void testMakeBulkPaymentsCommitsEveryPayment() throws Exception {
+        List<BulkPaymentResultDto> results = makeBulkPayments(2, loanPayment(groupLoan.getAccountId(), "100",
+                new LocalDate()), loanPayment(clientLoan.getAccountId(), "200", new LocalDate()), loanPayment(groupLoan
+                .getAccountId(), "50", new LocalDate()));
+
+        Assert.assertEquals(3, results.size());
+        for (BulkPaymentResultDto result : results) {
+            Assert.assertTrue(result.isSuccessful());
+        }
+        TestObjectFactory.updateObject(groupLoan);
+        TestObjectFactory.updateObject(clientLoan);
+        Assert.assertEquals(2, groupLoan.getAccountPayments().size());
+        Assert.assertEquals(1, clientLoan.getAccountPayments().size());
+        Assert.assertEquals(200.0, clientLoan.getLastPmntAmnt(), 0.001);
+    }
+
+    @Test
+    public void testMakeBulkPaymentsLeavesOutOnlyTheFailedPaymentOfAChunk() throws Exception {
+        List<BulkPaymentResultDto> results = makeBulkPayments(2, loanPayment(groupLoan.getAccountId(), "100",
+                new LocalDate()), loanPayment(clientLoan.getAccountId(), "200", new LocalDate(1980, 1, 1)),
+                loanPayment(groupLoan.getAccountId(), "50", new LocalDate()));
+
+        Assert.assertEquals(3, results.size());
+        Assert.assertTrue(results.get(0).isSuccessful());
+        Assert.assertFalse(results.get(1).isSuccessful());
+        Assert.assertEquals(clientLoan.getAccountId(), results.get(1).getAccountId());
+        Assert.assertNotNull(results.get(1).getErrorMessage());
+        Assert.assertTrue(results.get(2).isSuccessful());
+        TestObjectFactory.updateObject(groupLoan);
+        TestObjectFactory.updateObject(clientLoan);
+        Assert.assertEquals(2, groupLoan.getAccountPayments().size());
+        Assert.assertEquals(0, clientLoan.getAccountPayments().size());
+    }
+
+    @Test
+    public void testBatchedAccountingEntriesOfABulkPaymentChunkMatchUnbatchedEntries() throws Exception {
+        makeBulkPayments(2, false, loanPayment(groupLoan.getAccountId(), "100", new LocalDate()), loanPayment(
+                groupLoan.getAccountId(), "50", new LocalDate()));
+        makeBulkPayments(2, true, loanPayment(clientLoan.getAccountId(), "100", new LocalDate()), loanPayment(
+                clientLoan.getAccountId(), "50", new LocalDate()));
+
+        List<String> unbatchedEntries = accountingEntriesOf(groupLoan.getAccountId());
+        Assert.assertFalse(unbatchedEntries.isEmpty());
+        Assert.assertEquals(unbatchedEntries, accountingEntriesOf(clientLoan.getAccountId()));
+    }
+
+    private List<BulkPaymentResultDto> makeBulkPayments(int commitSize, AccountPaymentParametersDto... payments) {
+        return makeBulkPayments(commitSize, GeneralConfig.getBatchedFinancialTransactionInserts(), payments);
+    }
+
+    private List<BulkPaymentResultDto> makeBulkPayments(int commitSize, boolean batchedFinancialTransactionInserts,
+            AccountPaymentParametersDto... payments) {
+        MifosConfigurationManager configMgr = MifosConfigurationManager.getInstance();
+        int configuredCommitSize = GeneralConfig.getBulkPaymentCommitSize();
+        boolean configuredBatchedInserts = GeneralConfig.getBatchedFinancialTransactionInserts();
+        configMgr.setProperty(GeneralConfig.BulkPaymentCommitSize, commitSize);
+        configMgr.setProperty(GeneralConfig.BatchedFinancialTransactionInserts, batchedFinancialTransactionInserts);
+        try {
+            return standardAccountService.makeBulkPayments(Arrays.asList(payments));
+        } finally {
+            configMgr.setProperty(GeneralConfig.BulkPaymentCommitSize, configuredCommitSize);
+            configMgr.setProperty(GeneralConfig.BatchedFinancialTransactionInserts, configuredBatchedInserts);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<String> accountingEntriesOf(Integer accountId) {
+        StaticHibernateUtil.flushAndClearSession();
+        List<FinancialTransactionBO> financialTransactions = StaticHibernateUtil.getSessionTL().createQuery(
+                "from FinancialTransactionBO financialTrxn where financialTrxn.accountTrxn.account.accountId = :accountId")
+                .setInteger("accountId", accountId).list();
+        List<String> entries = new ArrayList<String>();
+        for (FinancialTransactionBO financialTransaction : financialTransactions) {
+            entries.add(financialTransaction.getFinancialAction().getId() + " "
+                    + financialTransaction.getGlcode().getGlcodeId() + " " + financialTransaction.getDebitCreditFlag()
+                    + " " + financialTransaction.getPostedAmount() + " " + financialTransaction.getBalanceAmount()
+                    + " " + financialTransaction.getActionDate() + " "
+                    + (financialTransaction.getRelatedFinancialTrxn() == null));
+        }
+        Collections.sort(entries);
+        return entries;
+    }
+
+    private AccountPaymentParametersDto loanPayment(Integer accountId, String amount, LocalDate paymentDate) {
+        return new AccountPaymentParametersDto(new UserReferenceDto(groupLoan.getPersonnel().getPersonnelId()),
+                new AccountReferenceDto(accountId), new BigDecimal(amount), paymentDate, defaultPaymentType, "");
+    }
+
+    @Test
+    public void testMakePaymentReadsReferenceDataFromTheSecondLevelCache() throws Exception {
+        ReferenceDataCache.evictAll();
+        int statementsWithEmptyCache = countStatementsOfPayment(loanPayment(groupLoan.getAccountId(), "100",
+                new LocalDate()));
+        int statementsWithWarmCache = countStatementsOfPayment(loanPayment(groupLoan.getAccountId(), "50",
+                new LocalDate()));
+
+        Assert.assertTrue("statements with warm cache: " + statementsWithWarmCache + ", with empty cache: "
+                + statementsWithEmptyCache, statementsWithWarmCache < statementsWithEmptyCache);
+        TestObjectFactory.updateObject(groupLoan);
+        Assert.assertEquals(2, groupLoan.getAccountPayments().size());
+    }
+
+    private int countStatementsOfPayment(AccountPaymentParametersDto payment) throws Exception {
+        StaticHibernateUtil.closeSession();
+        RequestMetrics requestMetrics = RequestMetrics.begin("loanRepayment");
+        try {
+            standardAccountService.makePayment(payment);
+            return requestMetrics.getStatementCount();
+        } finally {
+            RequestMetrics.end();
+        }
+    }
+
     @Test
     public void testValidateValidPayment() throws Exception {
         String paymentAmount = "10";
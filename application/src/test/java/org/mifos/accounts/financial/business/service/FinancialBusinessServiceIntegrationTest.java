@@ -251,4 +251,44 @@ public class FinancialBusinessServiceIntegrationTest extends MifosIntegrationTes
         }
     }
 
+    @Test
+    public void testBatchedAccountingEntriesAreInsertedWhenBatchIsWritten() throws Exception {
+        loan = getLoanAccount();
+        loan.setUserContext(TestUtils.makeUser());
+        AccountPaymentEntity accountPaymentEntity = new AccountPaymentEntity(loan, TestUtils.createMoney(630), null,
+                null, new PaymentTypeEntity(Short.valueOf("1")), new Date(System.currentTimeMillis()));
+        FinancialBusinessService financialBusinessService = new FinancialBusinessService();
+        AccountActionDateEntity accountActionDateEntity = loan.getAccountActionDate(Short.valueOf("1"));
+        PersonnelBO personnel = legacyPersonnelDao.getPersonnel(loan.getUserContext().getId());
+        LoanTrxnDetailEntity loanTrxnDetailEntity = new LoanTrxnDetailEntity(accountPaymentEntity,
+                AccountActionTypes.WRITEOFF, accountActionDateEntity.getInstallmentId(), accountActionDateEntity
+                        .getActionDate(), personnel, new Date(System.currentTimeMillis()),
+                ((LoanScheduleEntity) accountActionDateEntity).getPrincipal(), "Loan Written Off", null,
+                ((LoanScheduleEntity) accountActionDateEntity).getPrincipal(), new Money(getCurrency()), new Money(
+                        getCurrency()), new Money(getCurrency()), new Money(getCurrency()), null, null);
+
+        accountPaymentEntity.addAccountTrxn(loanTrxnDetailEntity);
+        AccountTestUtils.addAccountPayment(accountPaymentEntity, loan);
+        FinancialTransactionBatch batch = FinancialTransactionBatch.begin();
+        try {
+            financialBusinessService.buildAccountingEntries(loanTrxnDetailEntity);
+            Assert.assertEquals(0, loanTrxnDetailEntity.getFinancialTransactions().size());
+            Assert.assertEquals(2, batch.getFinancialTransactions().size());
+
+            StaticHibernateUtil.startTransaction();
+            StaticHibernateUtil.getSessionTL().saveOrUpdate(loan);
+            Assert.assertEquals(2, batch.write(StaticHibernateUtil.getSessionTL()));
+            StaticHibernateUtil.commitTransaction();
+        } finally {
+            FinancialTransactionBatch.end();
+        }
+        Assert.assertNull(FinancialTransactionBatch.current());
+
+        Long saved = (Long) StaticHibernateUtil.getSessionTL().createQuery(
+                "select count(*) from FinancialTransactionBO financialTrxn "
+                        + "where financialTrxn.accountTrxn.accountTrxnId = :accountTrxnId").setInteger(
+                "accountTrxnId", loanTrxnDetailEntity.getAccountTrxnId()).uniqueResult();
+        Assert.assertEquals(Long.valueOf(2), saved);
+    }
+
 }
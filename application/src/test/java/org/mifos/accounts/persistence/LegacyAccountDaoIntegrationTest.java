@@ -24,9 +24,11 @@ import static org.hamcrest.CoreMatchers.is;
 import static org.junit.Assert.assertThat;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import junit.framework.Assert;
@@ -378,21 +380,23 @@ public class LegacyAccountDaoIntegrationTest extends AccountIntegrationTestCase
     }
 
     @Test
-    public void testGetActiveCustomerAndSavingsAccountIdsForGenerateMeetingTaskShouldReturnNothing() throws Exception {
+    public void testGetActiveCustomerAndSavingsAccountIdsForGenerateMeetingTaskByOfficeShouldReturnNothing()
+            throws Exception {
         // Superclass creates a center, a group, and a client that start meeting today
         // They should have 10 current or future meeting dates. Savings account should also have 10 deposit installments
         // so should not be retrieved.
 
         savingsBO = new SavingsTestHelper().createSavingsAccount(createSavingsOffering("qqqqq"), group,
                 AccountState.SAVINGS_ACTIVE, TestUtils.makeUser());
-        List<Integer> accountIds = legacyAccountDao.getActiveCustomerAndSavingsAccountIdsForGenerateMeetingTask();
-        assertThat(accountIds.size(), is(0));
+        Map<Short, List<Integer>> accountIdsByOffice = legacyAccountDao
+                .getActiveCustomerAndSavingsAccountIdsForGenerateMeetingTaskByOffice();
+        assertThat(accountIdsByOffice.isEmpty(), is(true));
 
     }
 
 
     @Test
-    public void testGetActiveCustomerAndSavingsAccountIdsForGenerateMeetingTaskShouldReturnThreeCustomerAccounts()
+    public void testGetActiveCustomerAndSavingsAccountIdsForGenerateMeetingTaskByOfficeShouldReturnThreeCustomerAccounts()
             throws Exception {
 
         // Superclass creates a center, a group, and a client that start meeting today
@@ -400,7 +404,10 @@ public class LegacyAccountDaoIntegrationTest extends AccountIntegrationTestCase
         // Set time ahead 7 weeks to force regenerating customer schedules.
 
         new DateTimeService().setCurrentDateTime(new DateTime().plusWeeks(7));
-        List<Integer> accountIds = legacyAccountDao.getActiveCustomerAndSavingsAccountIdsForGenerateMeetingTask();
+        Map<Short, List<Integer>> accountIdsByOffice = legacyAccountDao
+                .getActiveCustomerAndSavingsAccountIdsForGenerateMeetingTaskByOffice();
+        assertThat(accountIdsByOffice.size(), is(1));
+        List<Integer> accountIds = accountIdsByOffice.get(center.getOffice().getOfficeId());
         assertThat(accountIds.size(), is(3));
         assertThat(accountIds.contains(center.getCustomerAccount().getAccountId()), is(true));
         assertThat(accountIds.contains(group.getCustomerAccount().getAccountId()), is(true));
@@ -408,7 +415,7 @@ public class LegacyAccountDaoIntegrationTest extends AccountIntegrationTestCase
     }
 
     @Test
-    public void testGetActiveCustomerAndSavingsAccountIdsForGenerateMeetingTaskShouldReturnThreeCustomerAccountsAndOneSavingsAccount()
+    public void testGetActiveCustomerAndSavingsAccountIdsForGenerateMeetingTaskByOfficeShouldReturnThreeCustomerAccountsAndOneSavingsAccount()
             throws Exception {
 
         // Superclass creates a center, a group, and a client that start meeting today
@@ -419,7 +426,10 @@ public class LegacyAccountDaoIntegrationTest extends AccountIntegrationTestCase
                 AccountState.SAVINGS_ACTIVE, TestUtils.makeUser());
 
         new DateTimeService().setCurrentDateTime(new DateTime().plusWeeks(7));
-        List<Integer> accountIds = legacyAccountDao.getActiveCustomerAndSavingsAccountIdsForGenerateMeetingTask();
+        Map<Short, List<Integer>> accountIdsByOffice = legacyAccountDao
+                .getActiveCustomerAndSavingsAccountIdsForGenerateMeetingTaskByOffice();
+        assertThat(accountIdsByOffice.size(), is(1));
+        List<Integer> accountIds = accountIdsByOffice.get(group.getOffice().getOfficeId());
         assertThat(accountIds.size(), is(4));
         assertThat(accountIds.contains(center.getCustomerAccount().getAccountId()), is(true));
         assertThat(accountIds.contains(group.getCustomerAccount().getAccountId()), is(true));
@@ -427,6 +437,27 @@ public class LegacyAccountDaoIntegrationTest extends AccountIntegrationTestCase
         assertThat(accountIds.contains(savingsBO.getAccountId()), is(true));
     }
 
+    @Test
+    public void testGetActiveCustomerAndSavingsAccountIdsForGenerateMeetingTaskByOfficeShouldListCustomerAccountsFirst()
+            throws Exception {
+
+        savingsBO = new SavingsTestHelper().createSavingsAccount(createSavingsOffering("qqqqq"), group,
+                AccountState.SAVINGS_ACTIVE, TestUtils.makeUser());
+
+        new DateTimeService().setCurrentDateTime(new DateTime().plusWeeks(7));
+        List<Integer> accountIds = legacyAccountDao
+                .getActiveCustomerAndSavingsAccountIdsForGenerateMeetingTaskByOffice().get(
+                        group.getOffice().getOfficeId());
+
+        List<Integer> customerAccountIds = new ArrayList<Integer>();
+        customerAccountIds.add(center.getCustomerAccount().getAccountId());
+        customerAccountIds.add(group.getCustomerAccount().getAccountId());
+        customerAccountIds.add(client.getCustomerAccount().getAccountId());
+        Collections.sort(customerAccountIds);
+        assertThat(accountIds.subList(0, 3), is(customerAccountIds));
+        assertThat(accountIds.get(3), is(savingsBO.getAccountId()));
+    }
+
     @Test
     public void testFindingAccountPaymentShouldReturnOnePayment() throws Exception {
         savingsBO = createSavingsAccount();
@@ -0,0 +1,75 @@
+/*
+ * Copyright (c) 2005-2011 Grameen Foundation USA
+ * All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * See also http://www.apache.org/licenses/LICENSE-2.0.html for an
+ * explanation of the license and how it is applied.
+ */
+
+package org.mifos.application.collectionsheet.persistence;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+import org.mifos.application.servicefacade.CollectionSheetLoanFeeDto;
+
+public class CollectionSheetDaoHibernateTest {
+
+    private static final Integer CLIENT_ID = Integer.valueOf(3);
+    private static final Integer OTHER_CLIENT_ID = Integer.valueOf(4);
+    private static final Integer FIRST_LOAN_ID = Integer.valueOf(10);
+    private static final Integer SECOND_LOAN_ID = Integer.valueOf(11);
+    private static final Integer OTHER_CLIENT_LOAN_ID = Integer.valueOf(12);
+
+    @Test
+    public void shouldKeepFeesOfEveryLoanOfACustomer() {
+
+        // setup
+        CollectionSheetLoanFeeDto firstLoanFee = loanFee(CLIENT_ID, FIRST_LOAN_ID, "10");
+        CollectionSheetLoanFeeDto secondLoanFee = loanFee(CLIENT_ID, SECOND_LOAN_ID, "20");
+        CollectionSheetLoanFeeDto secondLoanOtherFee = loanFee(CLIENT_ID, SECOND_LOAN_ID, "5");
+        CollectionSheetLoanFeeDto otherClientFee = loanFee(OTHER_CLIENT_ID, OTHER_CLIENT_LOAN_ID, "7");
+
+        Map<Integer, Map<Integer, List<CollectionSheetLoanFeeDto>>> feesByCustomerAndAccount = new HashMap<Integer, Map<Integer, List<CollectionSheetLoanFeeDto>>>();
+
+        // exercise test
+        CollectionSheetDaoHibernate.populateLoanFeesMap(feesByCustomerAndAccount, Arrays.asList(firstLoanFee,
+                secondLoanFee, otherClientFee, secondLoanOtherFee));
+
+        // verification
+        assertThat(feesByCustomerAndAccount.size(), is(2));
+        assertThat(feesByCustomerAndAccount.get(CLIENT_ID).size(), is(2));
+        assertThat(feesByCustomerAndAccount.get(CLIENT_ID).get(FIRST_LOAN_ID), is(Arrays.asList(firstLoanFee)));
+        assertThat(feesByCustomerAndAccount.get(CLIENT_ID).get(SECOND_LOAN_ID), is(Arrays.asList(secondLoanFee,
+                secondLoanOtherFee)));
+        assertThat(feesByCustomerAndAccount.get(OTHER_CLIENT_ID).get(OTHER_CLIENT_LOAN_ID), is(Arrays
+                .asList(otherClientFee)));
+    }
+
+    private CollectionSheetLoanFeeDto loanFee(Integer customerId, Integer accountId, String feeAmountDue) {
+        CollectionSheetLoanFeeDto loanFee = new CollectionSheetLoanFeeDto();
+        loanFee.setCustomerId(customerId);
+        loanFee.setAccountId(accountId);
+        loanFee.setFeeAmountDue(new BigDecimal(feeAmountDue));
+        return loanFee;
+    }
+}
@@ -0,0 +1,138 @@
+/*
+ * Copyright (c) 2005-2011 Grameen Foundation USA
+ * All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * See also http://www.apache.org/licenses/LICENSE-2.0.html for an
+ * explanation of the license and how it is applied.
+ */
+
+package org.mifos.application.servicefacade;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mifos.accounts.loan.business.LoanBO;
+import org.mifos.accounts.loan.persistance.LegacyLoanDao;
+import org.mifos.accounts.persistence.LegacyAccountDao;
+import org.mifos.accounts.savings.business.SavingsBO;
+import org.mifos.accounts.savings.persistence.SavingsDao;
+import org.mifos.customers.business.CustomerAccountBO;
+import org.mifos.customers.client.business.ClientBO;
+import org.mifos.customers.group.business.GroupBO;
+import org.mifos.customers.persistence.CustomerDao;
+import org.mifos.framework.exceptions.PersistenceException;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+/**
+ * I test {@link CollectionSheetPrefetchLookup}.
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class CollectionSheetPrefetchLookupTest {
+
+    private static final Integer GROUP_ID = Integer.valueOf(2);
+    private static final Integer CLIENT_ID = Integer.valueOf(3);
+    private static final Integer LOAN_ID = Integer.valueOf(10);
+    private static final Integer SAVINGS_ID = Integer.valueOf(11);
+    private static final Integer CUSTOMER_ACCOUNT_ID = Integer.valueOf(12);
+
+    // class under test
+    private CollectionSheetPrefetchLookup prefetchLookup;
+
+    // collaborators used for direct lookups
+    @Mock
+    private CustomerDao customerDao;
+    @Mock
+    private SavingsDao savingsDao;
+    @Mock
+    private LegacyLoanDao legacyLoanDao;
+    @Mock
+    private LegacyAccountDao legacyAccountDao;
+
+    @Mock
+    private GroupBO group;
+    @Mock
+    private ClientBO client;
+    @Mock
+    private LoanBO loan;
+    @Mock
+    private SavingsBO savings;
+    @Mock
+    private CustomerAccountBO customerAccount;
+
+    @Before
+    public void setupPrefetchedEntities() throws PersistenceException {
+
+        when(group.getCustomerId()).thenReturn(GROUP_ID);
+        when(client.getCustomerId()).thenReturn(CLIENT_ID);
+        when(loan.getAccountId()).thenReturn(LOAN_ID);
+        when(savings.getAccountId()).thenReturn(SAVINGS_ID);
+        when(customerAccount.getAccountId()).thenReturn(CUSTOMER_ACCOUNT_ID);
+
+        when(customerDao.findCustomerById(GROUP_ID)).thenReturn(group);
+        when(customerDao.findCustomerById(CLIENT_ID)).thenReturn(client);
+        when(legacyLoanDao.getAccount(LOAN_ID)).thenReturn(loan);
+        when(savingsDao.findById(SAVINGS_ID)).thenReturn(savings);
+        when(legacyAccountDao.getAccount(CUSTOMER_ACCOUNT_ID)).thenReturn(customerAccount);
+
+        prefetchLookup = new CollectionSheetPrefetchLookup();
+        // the hierarchy queries return plain entities for some queries and rows with the entity first for others
+        prefetchLookup.addCustomers(Arrays.<Object> asList(group, new Object[] { client, "joined" }));
+        prefetchLookup.addAccounts(Arrays.<Object> asList(loan, new Object[] { savings, "joined" }, customerAccount));
+    }
+
+    @Test
+    public void prefetchedCustomersShouldBeTheSameAsDirectLookups() {
+
+        assertThat(prefetchLookup.getCustomer(GROUP_ID), is(sameInstance(customerDao.findCustomerById(GROUP_ID))));
+        assertThat(prefetchLookup.getCustomer(CLIENT_ID), is(sameInstance(customerDao.findCustomerById(CLIENT_ID))));
+        assertThat(prefetchLookup.getCustomerCount(), is(2));
+    }
+
+    @Test
+    public void prefetchedAccountsShouldBeTheSameAsDirectLookups() throws PersistenceException {
+
+        assertThat(prefetchLookup.getAccount(LOAN_ID, LoanBO.class), is(sameInstance(legacyLoanDao
+                .getAccount(LOAN_ID))));
+        assertThat(prefetchLookup.getAccount(SAVINGS_ID, SavingsBO.class), is(sameInstance(savingsDao
+                .findById(SAVINGS_ID))));
+        assertThat(prefetchLookup.getAccount(CUSTOMER_ACCOUNT_ID, CustomerAccountBO.class),
+                is(sameInstance(legacyAccountDao.getAccount(CUSTOMER_ACCOUNT_ID))));
+        assertThat(prefetchLookup.getAccountCount(), is(3));
+    }
+
+    @Test
+    public void shouldLeaveAccountsOfAnotherTypeToDirectLookup() {
+
+        assertThat(prefetchLookup.getAccount(LOAN_ID, SavingsBO.class), is(nullValue()));
+        assertThat(prefetchLookup.getAccount(SAVINGS_ID, CustomerAccountBO.class), is(nullValue()));
+    }
+
+    @Test
+    public void shouldLeaveEntitiesThatWereNotPrefetchedToDirectLookup() {
+
+        assertThat(prefetchLookup.getCustomer(Integer.valueOf(99)), is(nullValue()));
+        assertThat(prefetchLookup.getAccount(Integer.valueOf(99), LoanBO.class), is(nullValue()));
+        assertThat(CollectionSheetPrefetchLookup.empty().getCustomer(CLIENT_ID), is(nullValue()));
+    }
+}
@@ -23,7 +23,10 @@ package org.mifos.application.servicefacade;
 import static org.hamcrest.CoreMatchers.is;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
+import java.util.List;
 
 import org.joda.time.DateTime;
 import org.joda.time.LocalDate;
@@ -32,10 +35,15 @@ import org.junit.Assert;
 import org.junit.Before;
 import org.junit.BeforeClass;
 import org.junit.Test;
+import org.mifos.accounts.financial.business.FinancialTransactionBO;
+import org.mifos.config.GeneralConfig;
+import org.mifos.config.business.MifosConfigurationManager;
 import org.mifos.core.MifosRuntimeException;
 import org.mifos.customers.center.business.CenterBO;
 import org.mifos.framework.MifosIntegrationTestCase;
+import org.mifos.framework.hibernate.helper.ReferenceDataCache;
 import org.mifos.framework.hibernate.helper.StaticHibernateUtil;
+import org.mifos.framework.metrics.RequestMetrics;
 import org.mifos.framework.util.DateTimeService;
 import org.mifos.framework.util.helpers.DateUtils;
 
@@ -273,6 +281,106 @@ public class CollectionSheetServiceImplIntegrationTest extends MifosIntegrationT
         }
     }
 
+    @Test
+    public void testRepaymentReadsReferenceDataFromTheSecondLevelCache() throws Exception {
+
+        SaveCollectionSheetDto saveCollectionSheet = saveCollectionSheetUtils.createSampleSaveCollectionSheet();
+        saveCollectionSheet(saveCollectionSheet);
+
+        Date firstRepaymentDate = incrementCurrentDate(7);
+        Date secondRepaymentDate = incrementCurrentDate(14);
+        saveCollectionSheetUtils.setNormalLoanRepayment();
+
+        initializeToFixedDateTime(firstRepaymentDate);
+        saveCollectionSheet = saveCollectionSheetUtils.assembleSaveCollectionSheetFromCreatedCenterHierarchy(DateUtils
+                .getLocalDateFromDate(firstRepaymentDate));
+        ReferenceDataCache.evictAll();
+        int statementsWithEmptyCache = countStatementsOfSaving(saveCollectionSheet);
+
+        initializeToFixedDateTime(secondRepaymentDate);
+        saveCollectionSheet = saveCollectionSheetUtils.assembleSaveCollectionSheetFromCreatedCenterHierarchy(DateUtils
+                .getLocalDateFromDate(secondRepaymentDate));
+        int statementsWithWarmCache = countStatementsOfSaving(saveCollectionSheet);
+
+        Assert.assertTrue("statements with warm cache: " + statementsWithWarmCache + ", with empty cache: "
+                + statementsWithEmptyCache, statementsWithWarmCache < statementsWithEmptyCache);
+    }
+
+    @Test
+    public void testBatchedAccountingEntriesMatchUnbatchedEntries() throws Exception {
+
+        List<String> unbatchedEntries = accountingEntriesOfDisbursalAndRepayment(saveCollectionSheetUtils, false);
+
+        TestSaveCollectionSheetUtils batchedSaveCollectionSheetUtils = new TestSaveCollectionSheetUtils("B");
+        List<String> batchedEntries;
+        try {
+            batchedEntries = accountingEntriesOfDisbursalAndRepayment(batchedSaveCollectionSheetUtils, true);
+        } finally {
+            batchedSaveCollectionSheetUtils.clearObjects();
+        }
+
+        Assert.assertFalse(unbatchedEntries.isEmpty());
+        Assert.assertEquals(unbatchedEntries, batchedEntries);
+    }
+
+    private List<String> accountingEntriesOfDisbursalAndRepayment(TestSaveCollectionSheetUtils utils,
+            boolean batchedFinancialTransactionInserts) throws Exception {
+        MifosConfigurationManager configMgr = MifosConfigurationManager.getInstance();
+        boolean configuredBatchedInserts = GeneralConfig.getBatchedFinancialTransactionInserts();
+        configMgr.setProperty(GeneralConfig.BatchedFinancialTransactionInserts, batchedFinancialTransactionInserts);
+        try {
+            new DateTimeService().resetToCurrentSystemDateTime();
+            saveCollectionSheet(utils.createSampleSaveCollectionSheet());
+
+            Date repaymentDate = incrementCurrentDate(7);
+            initializeToFixedDateTime(repaymentDate);
+            utils.setNormalLoanRepayment();
+            saveCollectionSheet(utils.assembleSaveCollectionSheetFromCreatedCenterHierarchy(DateUtils
+                    .getLocalDateFromDate(repaymentDate)));
+        } finally {
+            configMgr.setProperty(GeneralConfig.BatchedFinancialTransactionInserts, configuredBatchedInserts);
+        }
+        return accountingEntriesOf(utils.getClientLoan().getAccountId());
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<String> accountingEntriesOf(Integer accountId) {
+        StaticHibernateUtil.flushAndClearSession();
+        List<FinancialTransactionBO> financialTransactions = StaticHibernateUtil.getSessionTL().createQuery(
+                "from FinancialTransactionBO financialTrxn where financialTrxn.accountTrxn.account.accountId = :accountId")
+                .setInteger("accountId", accountId).list();
+        List<String> entries = new ArrayList<String>();
+        for (FinancialTransactionBO financialTransaction : financialTransactions) {
+            entries.add(financialTransaction.getFinancialAction().getId() + " "
+                    + financialTransaction.getGlcode().getGlcodeId() + " " + financialTransaction.getDebitCreditFlag()
+                    + " " + financialTransaction.getPostedAmount() + " " + financialTransaction.getBalanceAmount()
+                    + " " + financialTransaction.getActionDate() + " "
+                    + (financialTransaction.getRelatedFinancialTrxn() == null));
+        }
+        Collections.sort(entries);
+        return entries;
+    }
+
+    private int countStatementsOfSaving(SaveCollectionSheetDto saveCollectionSheet) {
+        StaticHibernateUtil.closeSession();
+        RequestMetrics requestMetrics = RequestMetrics.begin("saveCollectionSheet");
+        try {
+            CollectionSheetErrorsDto errors = saveCollectionSheet(saveCollectionSheet);
+            Assert.assertThat(errors.getLoanRepaymentAccountNumbers().size(), is(0));
+            return requestMetrics.getStatementCount();
+        } finally {
+            RequestMetrics.end();
+        }
+    }
+
+    private CollectionSheetErrorsDto saveCollectionSheet(SaveCollectionSheetDto saveCollectionSheet) {
+        try {
+            return collectionSheetService.saveCollectionSheet(saveCollectionSheet);
+        } catch (SaveCollectionSheetException e) {
+            throw new MifosRuntimeException(e.printInvalidSaveCollectionSheetReasons());
+        }
+    }
+
     private DateTime initializeToFixedDateTime(Date date) {
         LocalDate localDate = DateUtils.getLocalDateFromDate(date).plusDays(3);
         DateTime dateTime = new DateTime(localDate.getYear(), localDate.getMonthOfYear(), localDate.getDayOfMonth(), 0,
@@ -40,6 +40,8 @@ import org.mifos.accounts.loan.persistance.LegacyLoanDao;
 import org.mifos.accounts.persistence.LegacyAccountDao;
 import org.mifos.accounts.savings.persistence.SavingsDao;
 import org.mifos.application.collectionsheet.persistence.CollectionSheetDao;
+import org.mifos.config.GeneralConfig;
+import org.mifos.config.business.MifosConfigurationManager;
 import org.mifos.customers.api.CustomerLevel;
 import org.mifos.customers.client.business.AttendanceType;
 import org.mockito.Mock;
@@ -507,4 +509,161 @@ public class CollectionSheetServiceImplTest {
         assertThat(returnedDisbursement.getTotalDisbursement(), is(Double.valueOf("19.2")));
         assertThat(returnedDisbursement.getAmountDueAtDisbursement(), is(Double.valueOf("0.0")));
     }
+
+    @Test
+    public void shouldRetrieveLoanRepaymentsWithFeesAndCustomerAccountCollectionsInSinglePass() {
+
+        // setup
+        final LocalDate transactionDate = new LocalDate();
+
+        final Integer centerId = Integer.valueOf(3);
+        final Integer clientId = Integer.valueOf(4);
+        final String searchId = "1.1";
+        final Short branchId = Short.valueOf("6");
+        final Short attendance = AttendanceType.ABSENT.getValue();
+
+        final CollectionSheetCustomerDto center = new CollectionSheetCustomerDto(centerId, "center", CustomerLevel.CENTER
+                .getValue(), searchId, attendance, branchId);
+        final CollectionSheetCustomerDto client = new CollectionSheetCustomerDto(clientId, "client", CustomerLevel.CLIENT
+                .getValue(), searchId + ".1", attendance, branchId);
+        client.setParentCustomerId(centerId);
+
+        final List<CollectionSheetCustomerDto> customerHierarchyList = Arrays.asList(center, client);
+
+        final CustomerHierarchyParams customerHierarchyParams = new CustomerHierarchyParams(centerId, branchId,
+                searchId + ".%", transactionDate);
+
+        // two loans for the client, each with an outstanding fee
+        final Map<Integer, List<CollectionSheetCustomerLoanDto>> loanRepayments = new HashMap<Integer, List<CollectionSheetCustomerLoanDto>>();
+        final Map<Integer, List<CollectionSheetLoanFeeDto>> feesForLoanAccounts = new HashMap<Integer, List<CollectionSheetLoanFeeDto>>();
+        final List<CollectionSheetCustomerLoanDto> clientLoans = new ArrayList<CollectionSheetCustomerLoanDto>();
+        for (int accountId = 100; accountId < 102; accountId++) {
+            final CollectionSheetCustomerLoanDto loan = new CollectionSheetCustomerLoanDto();
+            loan.setAccountId(accountId);
+            loan.setPrincipalDue(BigDecimal.valueOf(Double.valueOf("25.2")));
+            clientLoans.add(loan);
+
+            final CollectionSheetLoanFeeDto loanFee = new CollectionSheetLoanFeeDto();
+            loanFee.setAccountId(accountId);
+            loanFee.setFeeAmountDue(BigDecimal.valueOf(Double.valueOf("13.1")));
+            feesForLoanAccounts.put(accountId, Arrays.asList(loanFee));
+        }
+        loanRepayments.put(clientId, clientLoans);
+        final Map<Integer, Map<Integer, List<CollectionSheetLoanFeeDto>>> loanFees = new HashMap<Integer, Map<Integer, List<CollectionSheetLoanFeeDto>>>();
+        loanFees.put(clientId, feesForLoanAccounts);
+
+        // customer account collection for the center
+        final CollectionSheetCustomerAccountCollectionDto accountCollection = new CollectionSheetCustomerAccountCollectionDto();
+        accountCollection.setAccountId(200);
+        accountCollection.setCurrencyId(Short.valueOf("2"));
+        accountCollection.setMiscFeesDue(BigDecimal.valueOf(Double.valueOf("12.0")));
+        final Map<Integer, List<CollectionSheetCustomerAccountCollectionDto>> accountCollections = new HashMap<Integer, List<CollectionSheetCustomerAccountCollectionDto>>();
+        accountCollections.put(centerId, Arrays.asList(accountCollection));
+
+        final CustomerHierarchyAccountsDto hierarchyAccounts = new CustomerHierarchyAccountsDto(loanRepayments,
+                loanFees, new HashMap<Integer, List<CollectionSheetCustomerLoanDto>>(), accountCollections,
+                new HashMap<Integer, List<CollectionSheetCustomerAccountCollectionDto>>());
+
+        // stubbing
+        when(collectionSheetDao.findCustomerHierarchy(centerId, transactionDate)).thenReturn(customerHierarchyList);
+        when(collectionSheetDao.findAccountsForWholeCustomerHierarchy(customerHierarchyParams)).thenReturn(
+                hierarchyAccounts);
+
+        // exercise test
+        final CollectionSheetDto collectionSheet = retrieveCollectionSheetInSinglePass(centerId, transactionDate);
+
+        // verifications
+        assertThat(collectionSheet.getCollectionSheetCustomer().size(), is(2));
+
+        final CollectionSheetCustomerDto hierarchyRoot = collectionSheet.getCollectionSheetCustomer().get(0);
+        assertThat(hierarchyRoot.getCollectionSheetCustomerLoan().size(), is(0));
+        assertThat(hierarchyRoot.getCollectionSheetCustomerAccount().getAccountId(), is(200));
+        assertThat(hierarchyRoot.getCollectionSheetCustomerAccount().getTotalCustomerAccountCollectionFee(), is(Double
+                .valueOf("12.0")));
+
+        final CollectionSheetCustomerDto returnedClient = collectionSheet.getCollectionSheetCustomer().get(1);
+        assertThat(returnedClient.getCollectionSheetCustomerLoan().size(), is(2));
+        assertThat(returnedClient.getCollectionSheetCustomerLoan().get(0).getTotalRepaymentDue(), is(Double
+                .valueOf("38.3")));
+        assertThat(returnedClient.getCollectionSheetCustomerLoan().get(1).getTotalRepaymentDue(), is(Double
+                .valueOf("38.3")));
+    }
+
+    @Test
+    public void shouldRetrieveCenterIndividualSavingsAccountsForEachClientInSinglePass() {
+
+        // setup
+        final LocalDate transactionDate = new LocalDate();
+
+        final Integer centerId = Integer.valueOf(3);
+        final Integer groupId = Integer.valueOf(4);
+        final String searchId = "1.1";
+        final Short branchId = Short.valueOf("6");
+        final Short attendance = AttendanceType.ABSENT.getValue();
+
+        final List<CollectionSheetCustomerDto> customerHierarchyList = new ArrayList<CollectionSheetCustomerDto>();
+        customerHierarchyList.add(new CollectionSheetCustomerDto(centerId, "center", CustomerLevel.CENTER.getValue(),
+                searchId, attendance, branchId));
+        final CollectionSheetCustomerDto group = new CollectionSheetCustomerDto(groupId, "group", CustomerLevel.GROUP
+                .getValue(), searchId + ".1", attendance, branchId);
+        group.setParentCustomerId(centerId);
+        customerHierarchyList.add(group);
+        for (int clientId = 5; clientId < 8; clientId++) {
+            final CollectionSheetCustomerDto client = new CollectionSheetCustomerDto(clientId, "client",
+                    CustomerLevel.CLIENT.getValue(), searchId + ".1." + clientId, attendance, branchId);
+            client.setParentCustomerId(groupId);
+            customerHierarchyList.add(client);
+        }
+
+        final CustomerHierarchyParams customerHierarchyParams = new CustomerHierarchyParams(centerId, branchId,
+                searchId + ".%", transactionDate);
+
+        // one center savings account, paid by each client individually
+        final CollectionSheetCustomerSavingsAccountDto centerSavingsAccount = new CollectionSheetCustomerSavingsAccountDto();
+        centerSavingsAccount.setCustomerId(centerId);
+        centerSavingsAccount.setAccountId(24);
+        centerSavingsAccount.setCustomerLevelId(CustomerLevel.CENTER.getValue());
+        final List<CollectionSheetCustomerSavingsAccountDto> allSavingsAccounts = Arrays.asList(centerSavingsAccount);
+
+        final CustomerHierarchyAccountsDto hierarchyAccounts = new CustomerHierarchyAccountsDto(
+                new HashMap<Integer, List<CollectionSheetCustomerLoanDto>>(),
+                new HashMap<Integer, Map<Integer, List<CollectionSheetLoanFeeDto>>>(),
+                new HashMap<Integer, List<CollectionSheetCustomerLoanDto>>(),
+                new HashMap<Integer, List<CollectionSheetCustomerAccountCollectionDto>>(),
+                new HashMap<Integer, List<CollectionSheetCustomerAccountCollectionDto>>());
+
+        // stubbing
+        when(collectionSheetDao.findCustomerHierarchy(centerId, transactionDate)).thenReturn(customerHierarchyList);
+        when(collectionSheetDao.findAccountsForWholeCustomerHierarchy(customerHierarchyParams)).thenReturn(
+                hierarchyAccounts);
+        when(collectionSheetDao.findAllSavingAccountsForCustomerHierarchy(customerHierarchyParams)).thenReturn(
+                allSavingsAccounts);
+
+        // exercise test
+        final CollectionSheetDto collectionSheet = retrieveCollectionSheetInSinglePass(centerId, transactionDate);
+
+        // verifications
+        final List<CollectionSheetCustomerDto> customers = collectionSheet.getCollectionSheetCustomer();
+        assertThat(customers.size(), is(5));
+        assertThat(customers.get(0).getCollectionSheetCustomerSaving().size(), is(1));
+        assertThat(customers.get(0).getIndividualSavingAccounts().size(), is(0));
+        assertThat(customers.get(1).getIndividualSavingAccounts().size(), is(0));
+        for (CollectionSheetCustomerDto client : customers.subList(2, 5)) {
+            assertThat(client.getCollectionSheetCustomerSaving().size(), is(0));
+            assertThat(client.getIndividualSavingAccounts().size(), is(1));
+            assertThat(client.getIndividualSavingAccounts().get(0).getAccountId(), is(24));
+        }
+    }
+
+    private CollectionSheetDto retrieveCollectionSheetInSinglePass(final Integer customerId,
+            final LocalDate transactionDate) {
+        final MifosConfigurationManager configMgr = MifosConfigurationManager.getInstance();
+        final Boolean configuredValue = GeneralConfig.getSinglePassCollectionSheetRetrieval();
+        configMgr.setProperty(GeneralConfig.SinglePassCollectionSheetRetrieval, Boolean.TRUE);
+        try {
+            return collectionSheetService.retrieveCollectionSheet(customerId, transactionDate);
+        } finally {
+            configMgr.setProperty(GeneralConfig.SinglePassCollectionSheetRetrieval, configuredValue);
+        }
+    }
 }
@@ -19,12 +19,15 @@
  */
 package org.mifos.application.servicefacade;
 
+import static org.mockito.Matchers.anyInt;
 import static org.mockito.Matchers.anyLong;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 import org.joda.time.LocalDate;
@@ -39,6 +42,7 @@ import org.mifos.accounts.savings.persistence.SavingsDao;
 import org.mifos.application.holiday.persistence.HolidayDao;
 import org.mifos.application.master.business.MifosCurrency;
 import org.mifos.builders.MifosUserBuilder;
+import org.mifos.core.MifosRuntimeException;
 import org.mifos.customers.persistence.CustomerDao;
 import org.mifos.customers.personnel.persistence.PersonnelDao;
 import org.mifos.framework.TestUtils;
@@ -121,6 +125,27 @@ public class SavingsServiceFacadeWebTierTest {
         verify(savingsDao, never()).findById(anyLong());
     }
     
+    @Test
+    public void shouldReportAccountsThatFailInterestPostingAndCarryOnWithTheNextChunk() {
+
+        // setup
+        LocalDate dateOfBatchJob = new LocalDate();
+        List<Integer> pendingAccounts = Arrays.asList(1, 2, 3);
+
+        // stubbing
+        when(savingsDao.retrieveAllActiveAndInActiveSavingsAccountsPendingInterestPostingOn(dateOfBatchJob)).thenReturn(pendingAccounts);
+        when(savingsDao.findById(anyInt())).thenThrow(new MifosRuntimeException("unable to load account"));
+        when(savingsDao.findById(anyLong())).thenThrow(new MifosRuntimeException("unable to load account"));
+
+        // exercise test
+        List<String> failedAccounts = savingsServiceFacade.postInterestForLastPostingPeriodInChunks(dateOfBatchJob, 2);
+
+        // verification
+        Assert.assertEquals(Arrays.asList("1", "2", "3"), failedAccounts);
+        verify(savingsDao, times(2)).findById(anyInt());
+        verify(transactionHelper, never()).commitTransaction();
+    }
+
     /**
      * Tests result set offset calculation used in the limit clause (limit 0, 10).
      * For this test, we are on page 1 and each page has 10 items. The offset should be 0.
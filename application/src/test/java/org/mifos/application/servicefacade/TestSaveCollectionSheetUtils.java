@@ -117,10 +117,20 @@ public class TestSaveCollectionSheetUtils {
 
     private CollectionSheetService collectionSheetService;
     private MifosCurrency currency;
+    private final String namePrefix;
 
     public TestSaveCollectionSheetUtils() {
+        this("");
+    }
+
+    /**
+     * @param namePrefix put in front of the names of the customers, fee and loan product, so that more than one
+     *            sample center hierarchy can be created in a test
+     */
+    public TestSaveCollectionSheetUtils(String namePrefix) {
         collectionSheetService = ApplicationContextProvider.getBean(CollectionSheetService.class);
         currency = Money.getDefaultCurrency();
+        this.namePrefix = namePrefix;
     }
 
     /**
@@ -173,28 +183,28 @@ public class TestSaveCollectionSheetUtils {
         IntegrationTestObjectMother.saveMeeting(weeklyMeeting);
 
         center = new CenterBuilder().withNumberOfExistingCustomersInOffice(3).with(weeklyMeeting).withName(
-                "Center").with(sampleBranchOffice()).withLoanOfficer(testUser()).build();
+                namePrefix + "Center").with(sampleBranchOffice()).withLoanOfficer(testUser()).build();
         IntegrationTestObjectMother.createCenter(center, weeklyMeeting);
 
 
-        group = new GroupBuilder().withMeeting(weeklyMeeting).withName("Group").withOffice(sampleBranchOffice())
-                .withLoanOfficer(testUser()).withParentCustomer(center).build();
+        group = new GroupBuilder().withMeeting(weeklyMeeting).withName(namePrefix + "Group").withOffice(
+                sampleBranchOffice()).withLoanOfficer(testUser()).withParentCustomer(center).build();
         IntegrationTestObjectMother.createGroup(group, weeklyMeeting);
 
         AmountFeeBO weeklyPeriodicFeeForFirstClients = new FeeBuilder().appliesToClientsOnly().withFeeAmount("87.0")
-                .withName("First Client Weekly Periodic Fee").withSameRecurrenceAs(weeklyMeeting).with(
+                .withName(namePrefix + "First Client Weekly Periodic Fee").withSameRecurrenceAs(weeklyMeeting).with(
                         sampleBranchOffice()).build();
         IntegrationTestObjectMother.saveFee(weeklyPeriodicFeeForFirstClients);
 
         client = new ClientBuilder().withMeeting(weeklyMeeting).withName(
-                "Client 1").withOffice(sampleBranchOffice()).withLoanOfficer(testUser()).withParentCustomer(group)
+                namePrefix + "Client 1").withOffice(sampleBranchOffice()).withLoanOfficer(testUser()).withParentCustomer(group)
                 .buildForIntegrationTests();
         IntegrationTestObjectMother.createClient(client, weeklyMeeting);
 
         MeetingBO loanMeeting = TestObjectFactory.createLoanMeeting(client.getCustomerMeeting().getMeeting());
 
-        LoanOfferingBO loanOffering = TestObjectFactory.createLoanOffering("Loan", ApplicableTo.CLIENTS, date,
-                PrdStatus.LOAN_ACTIVE, 1200.0, 1.2, 12, InterestType.FLAT, loanMeeting);
+        LoanOfferingBO loanOffering = TestObjectFactory.createLoanOffering(namePrefix + "Loan", namePrefix + "L",
+                ApplicableTo.CLIENTS, date, PrdStatus.LOAN_ACTIVE, 1200.0, 1.2, 12, InterestType.FLAT, loanMeeting);
         
         SecurityContext securityContext = new SecurityContextImpl();
         MifosUser principal = new MifosUserBuilder().nonLoanOfficer().withAdminRole().build();
@@ -0,0 +1,136 @@
+/*
+ * Copyright (c) 2005-2011 Grameen Foundation USA
+ * All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * See also http://www.apache.org/licenses/LICENSE-2.0.html for an
+ * explanation of the license and how it is applied.
+ */
+
+package org.mifos.calendar;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.joda.time.DateTime;
+import org.joda.time.Days;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mifos.application.holiday.business.Holiday;
+import org.mifos.application.holiday.util.helpers.RepaymentRuleTypes;
+import org.mifos.domain.builders.HolidayBuilder;
+import org.mifos.schedule.ScheduledEvent;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+@RunWith(MockitoJUnitRunner.class)
+public class HolidayIndexTest {
+
+    private static final DateTime MONDAY = new DateTime(2011, 3, 7, 0, 0, 0, 0);
+
+    @Mock
+    private ScheduledEvent scheduledEvent;
+
+    @Mock
+    private Holiday holidayWithoutDates;
+
+    private List<Days> workingDays;
+    private Holiday mondayToTuesday;
+    private Holiday wednesdayToThursday;
+    private Holiday mondayToFridayMoratorium;
+
+    @Before
+    public void setupAndInjectDependencies() {
+
+        workingDays = Arrays.asList(DayOfWeek.mondayAsDay(), DayOfWeek.tuesdayAsDay(), DayOfWeek.wednesdayAsDay(),
+                DayOfWeek.thursdayAsDay(), DayOfWeek.fridayAsDay());
+
+        mondayToTuesday = new HolidayBuilder().from(MONDAY).to(MONDAY.plusDays(1)).withNextWorkingDayRule().build();
+        wednesdayToThursday = new HolidayBuilder().from(MONDAY.plusDays(2)).to(MONDAY.plusDays(3))
+                .withNextWorkingDayRule().build();
+        mondayToFridayMoratorium = new HolidayBuilder().from(MONDAY).to(MONDAY.plusDays(4))
+                .withRepaymentMoratoriumRule().build();
+    }
+
+    @Test
+    public void whenAdjustingOutOfAHolidayLandsInALaterHolidayTheDateShouldBeAdjustedAgain() {
+
+        HolidayIndex holidays = new HolidayIndex(Arrays.asList(mondayToTuesday, wednesdayToThursday));
+
+        DateTime adjustedDate = holidays.adjust(MONDAY.plusDays(1), workingDays, scheduledEvent);
+
+        assertThat(adjustedDate, is(MONDAY.plusDays(4)));
+    }
+
+    @Test
+    public void whenHolidaysAreNotInDateOrderEachHolidayShouldOnlyBeAppliedInListOrder() {
+
+        HolidayIndex holidays = new HolidayIndex(Arrays.asList(wednesdayToThursday, mondayToTuesday));
+
+        DateTime adjustedDate = holidays.adjust(MONDAY.plusDays(1), workingDays, scheduledEvent);
+
+        assertThat(adjustedDate, is(MONDAY.plusDays(2)));
+    }
+
+    @Test
+    public void dateBeforeBetweenOrAfterHolidaysShouldNotBeEnclosed() {
+
+        HolidayIndex holidays = new HolidayIndex(Arrays.asList(mondayToTuesday, wednesdayToThursday));
+
+        assertThat(holidays.isEnclosedByAHoliday(MONDAY.minusDays(1)), is(false));
+        assertThat(holidays.isEnclosedByAHoliday(MONDAY.plusDays(3)), is(true));
+        assertThat(holidays.isEnclosedByAHoliday(MONDAY.plusDays(4)), is(false));
+        assertThat(holidays.adjust(MONDAY.plusDays(4), workingDays, scheduledEvent), is(MONDAY.plusDays(4)));
+    }
+
+    @Test
+    public void shouldFindTheLastOfOverlappingHolidaysEnclosingADate() {
+
+        HolidayIndex holidays = new HolidayIndex(Arrays.asList(mondayToTuesday, mondayToFridayMoratorium,
+                wednesdayToThursday));
+
+        assertThat(holidays.getLastHolidayEnclosing(MONDAY), is(mondayToFridayMoratorium));
+        assertThat(holidays.getLastHolidayEnclosing(MONDAY.plusDays(2)), is(wednesdayToThursday));
+        assertThat(holidays.getLastHolidayEnclosing(MONDAY.plusDays(7)), is(nullValue()));
+    }
+
+    @Test
+    public void shouldMatchRepaymentRuleOfAnyEnclosingHoliday() {
+
+        HolidayIndex holidays = new HolidayIndex(Arrays.asList(mondayToTuesday, mondayToFridayMoratorium));
+
+        assertThat(holidays.isEnclosedByAHolidayWithRepaymentRule(MONDAY,
+                RepaymentRuleTypes.REPAYMENT_MORATORIUM), is(true));
+        assertThat(holidays.isEnclosedByAHolidayWithRepaymentRule(MONDAY.plusDays(4),
+                RepaymentRuleTypes.NEXT_WORKING_DAY), is(false));
+    }
+
+    @Test
+    public void holidaysWithoutDatesShouldStillBeChecked() {
+
+        DateTime friday = MONDAY.plusDays(4);
+        HolidayIndex holidays = new HolidayIndex(Arrays.asList(mondayToTuesday, holidayWithoutDates));
+
+        when(holidayWithoutDates.encloses(friday.toDate())).thenReturn(true);
+        when(holidayWithoutDates.adjust(friday, workingDays, scheduledEvent)).thenReturn(friday.plusDays(3));
+
+        assertThat(holidays.adjust(friday, workingDays, scheduledEvent), is(friday.plusDays(3)));
+    }
+}
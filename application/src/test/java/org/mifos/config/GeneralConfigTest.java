@@ -99,4 +99,19 @@ public class GeneralConfigTest extends TestCase {
 
     }
 
+    public void testGetThreadPoolSizeForBatchJobs() {
+        int configuredValue = GeneralConfig.getThreadPoolSizeForBatchJobs();
+        MifosConfigurationManager configMgr = MifosConfigurationManager.getInstance();
+        int currentValue = 4;
+        configMgr.setProperty(GeneralConfig.ThreadPoolSizeForBatchJobs, currentValue);
+       Assert.assertEquals(currentValue, GeneralConfig.getThreadPoolSizeForBatchJobs());
+        configMgr.clearProperty(GeneralConfig.ThreadPoolSizeForBatchJobs);
+        int defaultValue = GeneralConfig.getThreadPoolSizeForBatchJobs();
+        int expectedDefaultValue = 1;
+       Assert.assertEquals(defaultValue, expectedDefaultValue);
+        // save it back
+        configMgr.setProperty(GeneralConfig.ThreadPoolSizeForBatchJobs, configuredValue);
+
+    }
+
 }
@@ -0,0 +1,78 @@
+/*
+ * Copyright (c) 2005-2011 Grameen Foundation USA
+ * All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * See also http://www.apache.org/licenses/LICENSE-2.0.html for an
+ * explanation of the license and how it is applied.
+ */
+
+package org.mifos.config.cache;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Test;
+import org.mifos.framework.cache.BoundedCacheRegion;
+import org.mifos.framework.cache.CacheLoader;
+import org.mifos.framework.cache.CacheRegion;
+
+public class OfficeCacheTest {
+
+    private static final Key LATENESS_DAYS = new Key((short) 1, "LatenessDays");
+
+    private final CacheRegion<Key, Object> region = new BoundedCacheRegion<Key, Object>("officeConfiguration", 10, 0);
+
+    @Test
+    public void shouldLookUpKeysIgnoringCase() {
+        Map<Key, Object> elements = new HashMap<Key, Object>();
+        elements.put(LATENESS_DAYS, Short.valueOf((short) 10));
+
+        OfficeCache officeCache = new OfficeCache(region, elements);
+
+        assertThat(officeCache.getElement(new Key((short) 1, "latenessdays")), is((Object) Short.valueOf((short) 10)));
+        assertThat(officeCache.getElement(new Key((short) 2, "LatenessDays")), is(nullValue()));
+    }
+
+    @Test
+    public void shouldReloadAfterInvalidation() {
+        final Map<Key, Object> elements = new HashMap<Key, Object>();
+        elements.put(LATENESS_DAYS, Short.valueOf((short) 10));
+        CacheLoader<Key, Object> loader = new CacheLoader<Key, Object>() {
+            @Override
+            public Map<Key, Object> loadAll() {
+                return elements;
+            }
+        };
+        OfficeCache officeCache = new OfficeCache(region, new HashMap<Key, Object>(elements), loader);
+
+        elements.put(LATENESS_DAYS, Short.valueOf((short) 20));
+        assertThat(officeCache.getElement(LATENESS_DAYS), is((Object) Short.valueOf((short) 10)));
+
+        officeCache.invalidate();
+        assertThat(officeCache.getElement(LATENESS_DAYS), is((Object) Short.valueOf((short) 20)));
+    }
+
+    @Test
+    public void shouldNotCacheMissingConfiguration() {
+        Map<Key, Object> elements = new HashMap<Key, Object>();
+        elements.put(LATENESS_DAYS, null);
+
+        assertThat(new OfficeCache(region, elements).getElement(LATENESS_DAYS), is(nullValue()));
+    }
+}
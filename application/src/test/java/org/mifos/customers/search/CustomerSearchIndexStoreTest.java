@@ -0,0 +1,118 @@
+/*
+ * Copyright (c) 2005-2011 Grameen Foundation USA
+ * All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * See also http://www.apache.org/licenses/LICENSE-2.0.html for an
+ * explanation of the license and how it is applied.
+ */
+
+package org.mifos.customers.search;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class CustomerSearchIndexStoreTest {
+
+    private File directory;
+    private CustomerSearchIndexStore store;
+    private CustomerSearchIndex index;
+
+    @Before
+    public void setUp() {
+        directory = new File(System.getProperty("java.io.tmpdir") + "/customer-search-index-test");
+        deleteFiles();
+        store = new CustomerSearchIndexStore(directory);
+        index = new CustomerSearchIndex();
+        index.put(document(1, "Maria Lopez"));
+        index.put(document(2, "Mario Lopes"));
+    }
+
+    @After
+    public void tearDown() {
+        deleteFiles();
+    }
+
+    @Test
+    public void shouldReadBackCompactedIndex() {
+        store.compact(index);
+
+        CustomerSearchIndex loaded = load();
+        assertThat(loaded.size(), is(2));
+        assertThat(loaded.search("lop", CustomerSearchIndex.ALL_OFFICES, 10), is(Arrays.asList(1, 2)));
+        assertThat(store.getJournalRecords(), is(0));
+    }
+
+    @Test
+    public void shouldReplayJournalOverSnapshot() {
+        store.compact(index);
+        store.append(Arrays.asList(document(3, "Maria Garcia")), Arrays.asList(2));
+
+        CustomerSearchIndex loaded = load();
+        assertThat(loaded.search("mari", CustomerSearchIndex.ALL_OFFICES, 10), is(Arrays.asList(1, 3)));
+        assertThat(store.getJournalRecords(), is(2));
+    }
+
+    @Test
+    public void shouldIgnoreJournalRecordCutShort() throws IOException {
+        store.compact(index);
+        store.append(Arrays.asList(document(3, "Maria Garcia")), Collections.<Integer> emptyList());
+        FileOutputStream journal = new FileOutputStream(new File(directory, "customer-search.journal"), true);
+        journal.write(new byte[] { 1, 0, 0 });
+        journal.close();
+
+        assertThat(load().size(), is(3));
+    }
+
+    @Test
+    public void shouldRememberDirtyIndexUntilMarkedClean() {
+        store.compact(index);
+        store.markDirty();
+
+        assertThat(new CustomerSearchIndexStore(directory).isDirty(), is(true));
+
+        store.markClean();
+
+        assertThat(new CustomerSearchIndexStore(directory).isDirty(), is(false));
+    }
+
+    private CustomerSearchIndex load() {
+        CustomerSearchIndexStore reopened = new CustomerSearchIndexStore(directory);
+        CustomerSearchIndex loaded = new CustomerSearchIndex();
+        reopened.load(loaded);
+        store = reopened;
+        return loaded;
+    }
+
+    private CustomerSearchDocument document(int customerId, String name) {
+        return new CustomerSearchDocument.Builder(customerId, (short) 2).withName(name).build();
+    }
+
+    private void deleteFiles() {
+        new File(directory, "customer-search.idx").delete();
+        new File(directory, "customer-search.journal").delete();
+        new File(directory, "customer-search.dirty").delete();
+        directory.delete();
+    }
+}
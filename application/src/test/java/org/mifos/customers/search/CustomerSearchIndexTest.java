@@ -0,0 +1,121 @@
+/*
+ * Copyright (c) 2005-2011 Grameen Foundation USA
+ * All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * See also http://www.apache.org/licenses/LICENSE-2.0.html for an
+ * explanation of the license and how it is applied.
+ */
+
+package org.mifos.customers.search;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class CustomerSearchIndexTest {
+
+    private static final short BRANCH = 2;
+    private static final short OTHER_BRANCH = 3;
+
+    private CustomerSearchIndex index;
+
+    @Before
+    public void setUp() {
+        index = new CustomerSearchIndex();
+        index.put(new CustomerSearchDocument.Builder(1, BRANCH).withName("Maria Lopez").withName("Elena").build());
+        index.put(new CustomerSearchDocument.Builder(2, BRANCH).withName("Mario Lopes").build());
+        index.put(new CustomerSearchDocument.Builder(3, OTHER_BRANCH).withName("Mar\u00eda Garc\u00eda").build());
+    }
+
+    @Test
+    public void shouldFindCustomersByTheStartOfEveryWord() {
+        assertThat(index.search("mar lop", CustomerSearchIndex.ALL_OFFICES, 10), is(Arrays.asList(1, 2)));
+        assertThat(index.search("Maria", CustomerSearchIndex.ALL_OFFICES, 10), is(Arrays.asList(1, 3)));
+        assertThat(index.search("lopez maria", CustomerSearchIndex.ALL_OFFICES, 10), is(Arrays.asList(1)));
+        assertThat(index.search("garcia lopez", CustomerSearchIndex.ALL_OFFICES, 10), is(noCustomers()));
+    }
+
+    @Test
+    public void shouldFindCustomersByAnyPartOfTheirNames() {
+        assertThat(index.search("ari ope", CustomerSearchIndex.ALL_OFFICES, 10), is(Arrays.asList(1, 2)));
+        assertThat(index.search("%ia lo%", CustomerSearchIndex.ALL_OFFICES, 10), is(Arrays.asList(1)));
+        assertThat(index.search("len", CustomerSearchIndex.ALL_OFFICES, 10), is(Arrays.asList(1)));
+    }
+
+    @Test
+    public void shouldIgnoreCaseAndAccentsAsTheDatabaseDoes() {
+        assertThat(index.search("GARCIA", CustomerSearchIndex.ALL_OFFICES, 10), is(Arrays.asList(3)));
+        assertThat(index.search("mar\u00eda", CustomerSearchIndex.ALL_OFFICES, 10), is(Arrays.asList(1, 3)));
+    }
+
+    @Test
+    public void shouldLeaveSearchesWithoutWordsToTheDatabase() {
+        assertThat(index.search(" % ", CustomerSearchIndex.ALL_OFFICES, 10), is(nullValue()));
+    }
+
+    @Test
+    public void shouldOnlyReturnCustomersOfAcceptedOffices() {
+        CustomerSearchIndex.OfficeFilter otherBranch = new CustomerSearchIndex.OfficeFilter() {
+            @Override
+            public boolean accept(short officeId) {
+                return officeId == OTHER_BRANCH;
+            }
+        };
+        assertThat(index.search("maria", otherBranch, 10), is(Arrays.asList(3)));
+    }
+
+    @Test
+    public void shouldGiveUpWhenTooManyCustomersMatch() {
+        assertThat(index.search("mar", CustomerSearchIndex.ALL_OFFICES, 2), is(nullValue()));
+        assertThat(index.search("maria lopez", CustomerSearchIndex.ALL_OFFICES, 2), is(Arrays.asList(1)));
+    }
+
+    @Test
+    public void shouldReplaceTheTermsOfAChangedCustomer() {
+        index.put(new CustomerSearchDocument.Builder(1, BRANCH).withName("Maria Fernandez").build());
+
+        assertThat(index.search("lopez", CustomerSearchIndex.ALL_OFFICES, 10), is(noCustomers()));
+        assertThat(index.search("fern", CustomerSearchIndex.ALL_OFFICES, 10), is(Arrays.asList(1)));
+        assertThat(index.search("elena", CustomerSearchIndex.ALL_OFFICES, 10), is(noCustomers()));
+        assertThat(index.size(), is(3));
+    }
+
+    @Test
+    public void shouldForgetRemovedCustomers() {
+        index.remove(1);
+
+        assertThat(index.search("maria", CustomerSearchIndex.ALL_OFFICES, 10), is(Arrays.asList(3)));
+        assertThat(index.size(), is(2));
+    }
+
+    @Test
+    public void shouldMergeSortedCustomerIds() {
+        int[] a = { 1, 3, 5, 7 };
+        int[] b = { 2, 3, 7, 8 };
+        assertThat(Arrays.toString(CustomerSearchIndex.union(a, b)), is("[1, 2, 3, 5, 7, 8]"));
+        assertThat(Arrays.toString(CustomerSearchIndex.intersection(a, b)), is("[3, 7]"));
+    }
+
+    private List<Integer> noCustomers() {
+        return Collections.<Integer> emptyList();
+    }
+}
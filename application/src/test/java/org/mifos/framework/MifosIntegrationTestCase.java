@@ -44,6 +44,7 @@ import org.junit.After;
 import org.junit.Before;
 import org.junit.BeforeClass;
 import org.junit.runner.RunWith;
+import org.mifos.application.holiday.persistence.HolidayIndexCache;
 import org.mifos.application.master.business.MifosCurrency;
 import org.mifos.config.FiscalCalendarRules;
 import org.mifos.customers.office.business.OfficeBO;
@@ -54,6 +55,7 @@ import org.mifos.customers.personnel.util.helpers.PersonnelConstants;
 import org.mifos.framework.exceptions.PersistenceException;
 import org.mifos.framework.hibernate.helper.AuditInterceptorFactory;
 import org.mifos.framework.hibernate.helper.DatabaseDependentTest;
+import org.mifos.framework.hibernate.helper.ReferenceDataCache;
 import org.mifos.framework.hibernate.helper.StaticHibernateUtil;
 import org.mifos.framework.util.ConfigurationLocator;
 import org.mifos.framework.util.StandardTestingService;
@@ -119,6 +121,10 @@ public class MifosIntegrationTestCase {
         new TestCaseInitializer().initialize(sessionFactory);
         dbVerificationSetUp();
         DatabaseDependentTest.before(new AuditInterceptorFactory(), sessionFactory);
+        // holidays left by earlier tests are removed without going through the holiday dao
+        HolidayIndexCache.invalidate();
+        // as is reference data, which tests change with plain SQL
+        ReferenceDataCache.evictAll();
         Money.setDefaultCurrency(TestUtils.RUPEE);
     }
 
@@ -0,0 +1,134 @@
+/*
+ * Copyright (c) 2005-2011 Grameen Foundation USA
+ * All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * See also http://www.apache.org/licenses/LICENSE-2.0.html for an
+ * explanation of the license and how it is applied.
+ */
+
+package org.mifos.framework.cache;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class BoundedCacheRegionTest {
+
+    private long now;
+    private BoundedCacheRegion<String, Integer> region;
+
+    @Before
+    public void setup() {
+        now = 1000;
+        region = new BoundedCacheRegion<String, Integer>("test", 2, 100) {
+            @Override
+            protected long currentTimeMillis() {
+                return now;
+            }
+        };
+    }
+
+    @Test
+    public void shouldCountHitsAndMisses() {
+        region.put("a", 1);
+
+        assertThat(region.get("a"), is(1));
+        assertThat(region.get("b"), is(nullValue()));
+
+        CacheStatistics statistics = region.getStatistics();
+        assertThat(statistics.getHits(), is(1L));
+        assertThat(statistics.getMisses(), is(1L));
+        assertThat(statistics.getHitRatio(), is(0.5));
+    }
+
+    @Test
+    public void shouldEvictLeastRecentlyUsedEntryWhenFull() {
+        region.put("a", 1);
+        region.put("b", 2);
+        region.get("a");
+        region.put("c", 3);
+
+        assertThat(region.size(), is(2));
+        assertThat(region.get("b"), is(nullValue()));
+        assertThat(region.get("a"), is(1));
+        assertThat(region.get("c"), is(3));
+        assertThat(region.getStatistics().getEvictions(), is(1L));
+    }
+
+    @Test
+    public void shouldExpireEntriesAfterTimeToLive() {
+        region.put("a", 1);
+
+        now += 99;
+        assertThat(region.get("a"), is(1));
+
+        now += 1;
+        assertThat(region.get("a"), is(nullValue()));
+        assertThat(region.size(), is(0));
+        assertThat(region.getStatistics().getExpirations(), is(1L));
+    }
+
+    @Test
+    public void shouldNeverExpireEntriesWithoutTimeToLive() {
+        BoundedCacheRegion<String, Integer> eternal = new BoundedCacheRegion<String, Integer>("eternal", 2, 0) {
+            @Override
+            protected long currentTimeMillis() {
+                return now;
+            }
+        };
+        eternal.put("a", 1);
+
+        now = Long.MAX_VALUE - 1;
+        assertThat(eternal.get("a"), is(1));
+    }
+
+    @Test
+    public void shouldInvalidateEntries() {
+        region.put("a", 1);
+        region.put("b", 2);
+
+        region.invalidate("a");
+        assertThat(region.get("a"), is(nullValue()));
+        assertThat(region.get("b"), is(2));
+
+        region.invalidateAll();
+        assertThat(region.size(), is(0));
+        assertThat(region.getStatistics().getInvalidations(), is(2L));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldNotAcceptNullValues() {
+        region.put("a", null);
+    }
+
+    @Test
+    public void managerShouldReturnSameRegionForSameNameAndReportStatisticsByName() {
+        MifosCacheManager cacheManager = new MifosCacheManager();
+        CacheRegion<String, Integer> first = cacheManager.getOrCreateRegion("b-region", 10, 0);
+        CacheRegion<String, Integer> second = cacheManager.getOrCreateRegion("b-region", 20, 0);
+        cacheManager.getOrCreateRegion("a-region", 10, 0);
+        first.put("a", 1);
+
+        assertThat(second.get("a"), is(1));
+        assertThat(cacheManager.getStatistics().get(0).getRegionName(), is("a-region"));
+        assertThat(cacheManager.getStatistics().get(1).getSize(), is(1));
+
+        cacheManager.invalidateAll();
+        assertThat(first.size(), is(0));
+    }
+}
@@ -0,0 +1,153 @@
+/*
+ * Copyright (c) 2005-2011 Grameen Foundation USA
+ * All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * See also http://www.apache.org/licenses/LICENSE-2.0.html for an
+ * explanation of the license and how it is applied.
+ */
+
+package org.mifos.framework.components.audit.persistence;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.sql.Date;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.Test;
+import org.mifos.framework.components.audit.business.AuditLog;
+
+public class AuditLogWriterTest {
+
+    @Test
+    public void shouldWriteQueuedAuditLogsInBatchesBeforeShuttingDown() {
+        RecordingAuditLogWriter writer = new RecordingAuditLogWriter(10, 2);
+
+        for (int i = 0; i < 5; i++) {
+            assertThat(writer.offer(auditLog(i)), is(true));
+        }
+        writer.shutdown();
+
+        assertThat(writer.batched.size(), is(5));
+        assertThat(writer.largestBatch <= 2, is(true));
+        assertThat(writer.synchronous.isEmpty(), is(true));
+    }
+
+    @Test
+    public void shouldWriteQueuedAuditLogsFromShutdownHook() {
+        RecordingAuditLogWriter writer = new RecordingAuditLogWriter(10, 2);
+        for (int i = 0; i < 5; i++) {
+            writer.offer(auditLog(i));
+        }
+        Thread shutdownHook = writer.getShutdownHook();
+
+        shutdownHook.run();
+
+        assertThat(writer.batched.size(), is(5));
+        assertThat(writer.offer(auditLog(6)), is(false));
+    }
+
+    @Test
+    public void shouldUnregisterShutdownHookWhenShutDown() {
+        RecordingAuditLogWriter writer = new RecordingAuditLogWriter(10, 2);
+        writer.offer(auditLog(1));
+        Thread shutdownHook = writer.getShutdownHook();
+
+        writer.shutdown();
+
+        assertThat(writer.getShutdownHook() == null, is(true));
+        assertThat(Runtime.getRuntime().removeShutdownHook(shutdownHook), is(false));
+    }
+
+    @Test
+    public void shouldRefuseAuditLogsOnceShutDown() {
+        RecordingAuditLogWriter writer = new RecordingAuditLogWriter(10, 2);
+        writer.shutdown();
+
+        assertThat(writer.offer(auditLog(1)), is(false));
+    }
+
+    @Test
+    public void shouldRefuseAuditLogsWhenQueueIsFull() throws Exception {
+        final CountDownLatch writing = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        RecordingAuditLogWriter writer = new RecordingAuditLogWriter(1, 1) {
+            @Override
+            protected void writeBatch(List<AuditLog> batch) {
+                writing.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                super.writeBatch(batch);
+            }
+        };
+
+        assertThat(writer.offer(auditLog(1)), is(true));
+        writing.await();
+        assertThat(writer.offer(auditLog(2)), is(true));
+        assertThat(writer.offer(auditLog(3)), is(false));
+
+        release.countDown();
+        writer.shutdown();
+        assertThat(writer.batched.size(), is(2));
+    }
+
+    @Test
+    public void shouldWriteAuditLogsOneByOneWhenBatchFails() {
+        RecordingAuditLogWriter writer = new RecordingAuditLogWriter(10, 10) {
+            @Override
+            protected void writeBatch(List<AuditLog> batch) {
+                throw new RuntimeException("batch failed");
+            }
+        };
+
+        writer.offer(auditLog(1));
+        writer.offer(auditLog(2));
+        writer.shutdown();
+
+        assertThat(writer.synchronous.size(), is(2));
+    }
+
+    private AuditLog auditLog(int entityId) {
+        return new AuditLog(entityId, Short.valueOf((short) 1), "mifos", new Date(0), Short.valueOf((short) 1));
+    }
+
+    private static class RecordingAuditLogWriter extends AuditLogWriter {
+
+        final List<AuditLog> batched = Collections.synchronizedList(new ArrayList<AuditLog>());
+        final List<AuditLog> synchronous = Collections.synchronizedList(new ArrayList<AuditLog>());
+        volatile int largestBatch;
+
+        RecordingAuditLogWriter(int queueCapacity, int batchSize) {
+            super(queueCapacity, batchSize);
+        }
+
+        @Override
+        protected void writeBatch(List<AuditLog> batch) {
+            largestBatch = Math.max(largestBatch, batch.size());
+            batched.addAll(batch);
+        }
+
+        @Override
+        protected void writeSynchronously(AuditLog auditLog) {
+            synchronous.add(auditLog);
+        }
+    }
+}
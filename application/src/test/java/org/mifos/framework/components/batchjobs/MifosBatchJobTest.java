@@ -0,0 +1,77 @@
+/*
+ * Copyright (c) 2005-2011 Grameen Foundation USA
+ * All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * See also http://www.apache.org/licenses/LICENSE-2.0.html for an
+ * explanation of the license and how it is applied.
+ */
+
+package org.mifos.framework.components.batchjobs;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.After;
+import org.junit.Test;
+
+public class MifosBatchJobTest {
+
+    @After
+    public void finishJob() {
+        MifosBatchJob.batchJobFinished();
+    }
+
+    @Test
+    public void exclusiveAccessSettingBelongsToTheJobThatMadeIt() throws Exception {
+        final CountDownLatch exclusiveJobStarted = new CountDownLatch(1);
+        final CountDownLatch onlineJobChecked = new CountDownLatch(1);
+        Thread exclusiveJob = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                MifosBatchJob.batchJobStarted();
+                exclusiveJobStarted.countDown();
+                try {
+                    onlineJobChecked.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    MifosBatchJob.batchJobFinished();
+                }
+            }
+        });
+        exclusiveJob.start();
+        exclusiveJobStarted.await();
+
+        try {
+            MifosBatchJob.batchJobStarted();
+            MifosBatchJob.batchJobRequiresExclusiveAccess(false);
+
+            assertThat(MifosBatchJob.isOnlineBatchJobRunning(), is(true));
+            assertThat(MifosBatchJob.isExclusiveAccessRequired(), is(false));
+            assertThat(MifosBatchJob.isBatchJobRunningThatRequiresExclusiveAccess(), is(true));
+        } finally {
+            onlineJobChecked.countDown();
+            exclusiveJob.join();
+        }
+
+        assertThat(MifosBatchJob.isBatchJobRunningThatRequiresExclusiveAccess(), is(false));
+        assertThat(MifosBatchJob.isOnlineBatchJobRunning(), is(true));
+
+        MifosBatchJob.batchJobFinished();
+        assertThat(MifosBatchJob.isBatchJobRunning(), is(false));
+    }
+}
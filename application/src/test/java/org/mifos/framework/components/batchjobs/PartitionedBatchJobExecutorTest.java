@@ -0,0 +1,257 @@
+/*
+ * Copyright (c) 2005-2011 Grameen Foundation USA
+ * All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * See also http://www.apache.org/licenses/LICENSE-2.0.html for an
+ * explanation of the license and how it is applied.
+ */
+
+package org.mifos.framework.components.batchjobs;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.hibernate.StaleObjectStateException;
+import org.junit.Test;
+
+public class PartitionedBatchJobExecutorTest {
+
+    @Test
+    public void failingAccountIsRecordedAndRestOfChunkIsReplayed() throws Exception {
+        RecordingExecutor executor = new RecordingExecutor(1, 2, 10);
+        Map<Short, List<Integer>> partitions = new LinkedHashMap<Short, List<Integer>>();
+        partitions.put(Short.valueOf((short) 1), Arrays.asList(1, 2, 3, 4));
+
+        final List<Integer> processed = Collections.synchronizedList(new ArrayList<Integer>());
+        List<BatchJobPartitionResult> results = executor.execute(partitions,
+                new PartitionedBatchJobExecutor.AccountProcessor() {
+                    @Override
+                    public void process(Integer accountId) throws Exception {
+                        if (accountId.intValue() == 3) {
+                            throw new Exception("bad account");
+                        }
+                        processed.add(accountId);
+                    }
+                });
+
+        assertThat(results.size(), is(1));
+        assertThat(results.get(0).getProcessedCount(), is(3));
+        assertThat(results.get(0).getFailedAccountIds(), is(Arrays.asList(3)));
+        assertThat(processed, is(Arrays.asList(1, 2, 1, 2, 4)));
+        assertThat(executor.rollbacks, is(1));
+        assertThat(PartitionedBatchJobExecutor.failedAccountIds(results), is(Arrays.asList("3")));
+    }
+
+    @Test
+    public void committedChunksAreNotReplayedAfterFailure() throws Exception {
+        RecordingExecutor executor = new RecordingExecutor(1, 1, 2);
+        Map<Short, List<Integer>> partitions = new LinkedHashMap<Short, List<Integer>>();
+        partitions.put(Short.valueOf((short) 1), Arrays.asList(1, 2, 3, 4));
+
+        final List<Integer> processed = Collections.synchronizedList(new ArrayList<Integer>());
+        List<BatchJobPartitionResult> results = executor.execute(partitions,
+                new PartitionedBatchJobExecutor.AccountProcessor() {
+                    @Override
+                    public void process(Integer accountId) throws Exception {
+                        if (accountId.intValue() == 4) {
+                            throw new Exception("bad account");
+                        }
+                        processed.add(accountId);
+                    }
+                });
+
+        assertThat(results.get(0).getProcessedCount(), is(3));
+        assertThat(processed, is(Arrays.asList(1, 2, 3, 3)));
+    }
+
+    @Test
+    public void partitionsAreProcessedConcurrentlyAndReportedInOrder() throws Exception {
+        RecordingExecutor executor = new RecordingExecutor(3, 40, 1000);
+        Map<Short, List<Integer>> partitions = new LinkedHashMap<Short, List<Integer>>();
+        partitions.put(Short.valueOf((short) 1), Arrays.asList(1, 2));
+        partitions.put(Short.valueOf((short) 2), Arrays.asList(3));
+        partitions.put(Short.valueOf((short) 3), Arrays.asList(4, 5, 6));
+
+        List<BatchJobPartitionResult> results = executor.execute(partitions,
+                new PartitionedBatchJobExecutor.AccountProcessor() {
+                    @Override
+                    public void process(@SuppressWarnings("unused") Integer accountId) {
+                        // nothing to do
+                    }
+                });
+
+        assertThat(results.size(), is(3));
+        assertThat((Short) results.get(0).getPartitionKey(), is(Short.valueOf((short) 1)));
+        assertThat(results.get(2).getProcessedCount(), is(3));
+        assertThat(PartitionedBatchJobExecutor.failedAccountIds(results).isEmpty(), is(true));
+    }
+
+    @Test
+    public void concurrentlyChangedAccountIsRetriedAtEndOfPartition() throws Exception {
+        RecordingExecutor executor = new RecordingExecutor(1, 10, 10);
+        Map<Short, List<Integer>> partitions = new LinkedHashMap<Short, List<Integer>>();
+        partitions.put(Short.valueOf((short) 1), Arrays.asList(1, 2, 3));
+
+        final List<Integer> processed = Collections.synchronizedList(new ArrayList<Integer>());
+        List<BatchJobPartitionResult> results = executor.execute(partitions,
+                new PartitionedBatchJobExecutor.AccountProcessor() {
+                    private boolean conflicted = false;
+
+                    @Override
+                    public void process(Integer accountId) throws Exception {
+                        if (accountId.intValue() == 2 && !conflicted) {
+                            conflicted = true;
+                            throw new StaleObjectStateException("LoanBO", accountId);
+                        }
+                        processed.add(accountId);
+                    }
+                });
+
+        assertThat(results.get(0).getProcessedCount(), is(3));
+        assertThat(results.get(0).getFailedAccountIds().isEmpty(), is(true));
+        assertThat(processed, is(Arrays.asList(1, 1, 3, 2)));
+    }
+
+    @Test
+    public void accountThatKeepsConflictingIsRecordedAsFailed() throws Exception {
+        RecordingExecutor executor = new RecordingExecutor(1, 10, 10);
+        Map<Short, List<Integer>> partitions = new LinkedHashMap<Short, List<Integer>>();
+        partitions.put(Short.valueOf((short) 1), Arrays.asList(1, 2));
+
+        List<BatchJobPartitionResult> results = executor.execute(partitions,
+                new PartitionedBatchJobExecutor.AccountProcessor() {
+                    @Override
+                    public void process(Integer accountId) throws Exception {
+                        if (accountId.intValue() == 2) {
+                            throw new Exception(new StaleObjectStateException("LoanBO", accountId));
+                        }
+                    }
+                });
+
+        assertThat(results.get(0).getFailedAccountIds(), is(Arrays.asList(2)));
+        assertThat(executor.rollbacks, is(PartitionedBatchJobExecutor.MAX_CONFLICT_RETRIES + 1));
+    }
+
+    @Test
+    public void pausesAfterEachCommit() throws Exception {
+        RecordingExecutor executor = new RecordingExecutor(1, 1, 2);
+        Map<Short, List<Integer>> partitions = new LinkedHashMap<Short, List<Integer>>();
+        partitions.put(Short.valueOf((short) 1), Arrays.asList(1, 2, 3, 4, 5));
+
+        executor.execute(partitions, new PartitionedBatchJobExecutor.AccountProcessor() {
+            @Override
+            public void process(@SuppressWarnings("unused") Integer accountId) {
+                // nothing to do
+            }
+        });
+
+        assertThat(executor.pauses, is(2));
+    }
+
+    @Test
+    public void failingFlushIsBlamedOnTheAccountThatCausedIt() throws Exception {
+        final RecordingExecutor executor = new RecordingExecutor(1, 2, 4);
+        executor.unflushableAccountId = Integer.valueOf(1);
+        Map<Short, List<Integer>> partitions = new LinkedHashMap<Short, List<Integer>>();
+        partitions.put(Short.valueOf((short) 1), Arrays.asList(1, 2, 3, 4, 5, 6));
+
+        List<BatchJobPartitionResult> results = executor.execute(partitions,
+                new PartitionedBatchJobExecutor.AccountProcessor() {
+                    @Override
+                    public void process(Integer accountId) {
+                        executor.pending.add(accountId);
+                    }
+                });
+
+        assertThat(results.get(0).getFailedAccountIds(), is(Arrays.asList(1)));
+        assertThat(results.get(0).getProcessedCount(), is(5));
+        assertThat(executor.committed, is(Arrays.asList(2, 3, 4, 5, 6)));
+    }
+
+    @Test
+    public void failingFinalCommitIsBlamedOnTheAccountThatCausedIt() throws Exception {
+        final RecordingExecutor executor = new RecordingExecutor(1, 10, 10);
+        executor.unflushableAccountId = Integer.valueOf(2);
+        Map<Short, List<Integer>> partitions = new LinkedHashMap<Short, List<Integer>>();
+        partitions.put(Short.valueOf((short) 1), Arrays.asList(1, 2, 3));
+
+        List<BatchJobPartitionResult> results = executor.execute(partitions,
+                new PartitionedBatchJobExecutor.AccountProcessor() {
+                    @Override
+                    public void process(Integer accountId) {
+                        executor.pending.add(accountId);
+                    }
+                });
+
+        assertThat(results.get(0).getFailedAccountIds(), is(Arrays.asList(2)));
+        assertThat(results.get(0).getProcessedCount(), is(2));
+        assertThat(executor.committed, is(Arrays.asList(1, 3)));
+    }
+
+    private static class RecordingExecutor extends PartitionedBatchJobExecutor {
+
+        int rollbacks;
+        int pauses;
+        Integer unflushableAccountId;
+        final List<Integer> pending = new ArrayList<Integer>();
+        final List<Integer> committed = new ArrayList<Integer>();
+
+        RecordingExecutor(int threadPoolSize, int batchSize, int recordCommittingSize) {
+            super("test", threadPoolSize, batchSize, recordCommittingSize);
+        }
+
+        @Override
+        protected void startTransaction() {
+            // no session in unit tests
+        }
+
+        @Override
+        protected void flushAndClearSession() {
+            if (pending.contains(unflushableAccountId)) {
+                throw new IllegalStateException("constraint violation");
+            }
+        }
+
+        @Override
+        protected void commitTransaction() {
+            flushAndClearSession();
+            committed.addAll(pending);
+            pending.clear();
+        }
+
+        @Override
+        protected synchronized void rollbackAndCloseSession() {
+            rollbacks++;
+            pending.clear();
+        }
+
+        @Override
+        protected synchronized void pause() {
+            pauses++;
+        }
+
+        @Override
+        protected void closeSession() {
+            // no session in unit tests
+        }
+    }
+}
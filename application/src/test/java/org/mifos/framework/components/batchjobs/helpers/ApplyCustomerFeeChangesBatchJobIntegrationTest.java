@@ -21,6 +21,7 @@
 package org.mifos.framework.components.batchjobs.helpers;
 
 import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
 import static org.junit.Assert.assertThat;
 import static org.mifos.framework.util.helpers.IntegrationTestObjectMother.sampleBranchOffice;
 import static org.mifos.framework.util.helpers.IntegrationTestObjectMother.testUser;
@@ -37,10 +38,12 @@ import org.junit.Ignore;
 import org.junit.Test;
 import org.mifos.accounts.business.AccountActionDateEntity;
 import org.mifos.accounts.fees.business.AmountFeeBO;
+import org.mifos.accounts.fees.business.service.FeeService;
 import org.mifos.accounts.fees.persistence.FeeDao;
 import org.mifos.accounts.fees.util.helpers.FeeChangeType;
 import org.mifos.accounts.fees.util.helpers.FeeStatus;
 import org.mifos.application.master.business.MifosCurrency;
+import org.mifos.application.servicefacade.ApplicationContextProvider;
 import org.mifos.application.meeting.business.MeetingBO;
 import org.mifos.customers.business.CustomerScheduleEntity;
 import org.mifos.customers.center.business.CenterBO;
@@ -48,8 +51,10 @@ import org.mifos.customers.persistence.CustomerDao;
 import org.mifos.domain.builders.CenterBuilder;
 import org.mifos.domain.builders.FeeBuilder;
 import org.mifos.domain.builders.MeetingBuilder;
+import org.mifos.dto.domain.FeeUpdateRequest;
 import org.mifos.framework.MifosIntegrationTestCase;
 import org.mifos.framework.TestUtils;
+import org.mifos.framework.hibernate.helper.StaticHibernateUtil;
 import org.mifos.framework.util.StandardTestingService;
 import org.mifos.framework.util.helpers.IntegrationTestObjectMother;
 import org.mifos.framework.util.helpers.Money;
@@ -141,6 +146,52 @@ public class ApplyCustomerFeeChangesBatchJobIntegrationTest extends MifosIntegra
         assertThatFutureScheduleHasFeesDueOf(center.getCustomerAccount().getAccountActionDates(), 52.0);
     }
 
+    @Test
+    public void givenFeeChangeWasAlreadyAppliedUpToAccountShouldResumeAfterItAndClearProgress() throws Exception {
+
+        weeklyPeriodicFeeForCenterOnly.setFeeAmount(TestUtils.createMoney("52"));
+        weeklyPeriodicFeeForCenterOnly.updateFeeChangeType(FeeChangeType.AMOUNT_UPDATED);
+        IntegrationTestObjectMother.saveFee(weeklyPeriodicFeeForCenterOnly);
+        long timeInMillis = new Date().getTime();
+
+        center = customerDao.findCenterBySystemId(center.getGlobalCustNum());
+        Short feeId = weeklyPeriodicFeeForCenterOnly.getFeeId();
+        StaticHibernateUtil.startTransaction();
+        feeDao.saveFeeChangeProgress(feeId, center.getCustomerAccount().getAccountId());
+        StaticHibernateUtil.commitTransaction();
+
+        // exercise test
+        applyCustomerFeeChanges.execute(timeInMillis);
+
+        // verification
+        center = customerDao.findCenterBySystemId(center.getGlobalCustNum());
+        assertThatEachScheduleHasFeesDueOf(center.getCustomerAccount().getAccountActionDates(), 100.0);
+        assertThat(feeDao.findById(feeId).getFeeChangeType(), is(FeeChangeType.NOT_UPDATED));
+        assertThat(feeDao.findFeeChangeProgress(feeId), is(nullValue()));
+    }
+
+    @Test
+    public void givenFeeIsUpdatedAfterAPartialRunShouldApplyTheNewChangeFromTheFirstAccount() throws Exception {
+
+        center = customerDao.findCenterBySystemId(center.getGlobalCustNum());
+        Short feeId = weeklyPeriodicFeeForCenterOnly.getFeeId();
+        StaticHibernateUtil.startTransaction();
+        feeDao.saveFeeChangeProgress(feeId, center.getCustomerAccount().getAccountId());
+        StaticHibernateUtil.commitTransaction();
+
+        FeeService feeService = ApplicationContextProvider.getBean(FeeService.class);
+        feeService.update(new FeeUpdateRequest(feeId, TestUtils.RUPEE.getCurrencyId(), "52", FeeStatus.ACTIVE
+                .getValue(), null), TestUtils.makeUser());
+        assertThat(feeDao.findFeeChangeProgress(feeId), is(nullValue()));
+
+        // exercise test
+        applyCustomerFeeChanges.execute(new Date().getTime());
+
+        // verification
+        center = customerDao.findCenterBySystemId(center.getGlobalCustNum());
+        assertThatFutureScheduleHasFeesDueOf(center.getCustomerAccount().getAccountActionDates(), 52.0);
+    }
+
     @Test
     public void givenFeeStatusIsChangedToInactiveShouldRemoveAnyFeesAssociatedWithUpcomingAndFutureInstallments() throws Exception {
 
@@ -0,0 +1,142 @@
+/*
+ * Copyright (c) 2005-2011 Grameen Foundation USA
+ * All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * See also http://www.apache.org/licenses/LICENSE-2.0.html for an
+ * explanation of the license and how it is applied.
+ */
+
+package org.mifos.framework.components.batchjobs.helpers;
+
+import java.util.Calendar;
+import java.util.Collections;
+import java.util.Date;
+import java.util.GregorianCalendar;
+import java.util.HashSet;
+import java.util.Set;
+
+import junit.framework.Assert;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mifos.accounts.business.AccountActionDateEntity;
+import org.mifos.accounts.business.AccountPenaltiesEntity;
+import org.mifos.accounts.financial.business.GLCodeEntity;
+import org.mifos.accounts.loan.business.LoanBO;
+import org.mifos.accounts.loan.business.LoanBOTestUtils;
+import org.mifos.accounts.loan.persistance.LegacyLoanDao;
+import org.mifos.accounts.penalties.business.AmountPenaltyBO;
+import org.mifos.accounts.penalties.business.PenaltyBO;
+import org.mifos.accounts.penalties.business.PenaltyCategoryEntity;
+import org.mifos.accounts.penalties.business.PenaltyFrequencyEntity;
+import org.mifos.accounts.penalties.business.PenaltyPeriodEntity;
+import org.mifos.accounts.penalties.util.helpers.PenaltyCategory;
+import org.mifos.accounts.penalties.util.helpers.PenaltyFrequency;
+import org.mifos.accounts.penalties.util.helpers.PenaltyPeriod;
+import org.mifos.accounts.productdefinition.business.LoanOfferingBO;
+import org.mifos.accounts.util.helpers.AccountState;
+import org.mifos.application.meeting.business.MeetingBO;
+import org.mifos.customers.business.CustomerBO;
+import org.mifos.customers.util.helpers.CustomerStatus;
+import org.mifos.framework.MifosIntegrationTestCase;
+import org.mifos.framework.TestUtils;
+import org.mifos.framework.components.batchjobs.exceptions.BatchJobException;
+import org.mifos.framework.exceptions.PersistenceException;
+import org.mifos.framework.hibernate.helper.StaticHibernateUtil;
+import org.mifos.framework.util.helpers.IntegrationTestObjectMother;
+import org.mifos.framework.util.helpers.TestObjectFactory;
+
+public class ApplyPenaltyToLoanAccountsHelperIntegrationTest extends MifosIntegrationTestCase {
+
+    private LoanBO firstLoan;
+    private LoanBO failingLoan;
+    private LoanBO lastLoan;
+
+    @Before
+    public void setUp() throws Exception {
+        Date startDate = new Date(System.currentTimeMillis());
+        MeetingBO meeting = TestObjectFactory.createMeeting(TestObjectFactory.getTypicalMeeting());
+        CustomerBO center = TestObjectFactory.createWeeklyFeeCenter("Penalty Center", meeting);
+        CustomerBO group = TestObjectFactory.createWeeklyFeeGroupUnderCenter("Penalty Group",
+                CustomerStatus.GROUP_ACTIVE, center);
+        LoanOfferingBO loanOffering = TestObjectFactory.createLoanOffering("Penalty Loan", "PENL", startDate, meeting);
+        PenaltyBO penalty = IntegrationTestObjectMother.createPenalty(new AmountPenaltyBO(TestUtils.makeUser(),
+                "Late Penalty", new PenaltyCategoryEntity(PenaltyCategory.LOAN), new PenaltyPeriodEntity(
+                        PenaltyPeriod.NONE), null, 1.0, 50.0, new PenaltyFrequencyEntity(PenaltyFrequency.MONTHLY),
+                (GLCodeEntity) TestObjectFactory.getObject(GLCodeEntity.class, Short.valueOf("42")), TestUtils
+                        .createMoney(10.0)));
+
+        firstLoan = createLateLoanWithPenalty("42429001", group, loanOffering, penalty, startDate);
+        failingLoan = createLateLoanWithPenalty("42429002", group, loanOffering, penalty, startDate);
+        lastLoan = createLateLoanWithPenalty("42429003", group, loanOffering, penalty, startDate);
+        StaticHibernateUtil.flushSession();
+    }
+
+    @Test
+    public void shouldPageThroughLateLoansAndReportOnlyTheFailingAccount() throws Exception {
+        RecordingHelper helper = new RecordingHelper(failingLoan.getAccountId());
+        helper.setAccountIdPageSize(2);
+
+        try {
+            helper.execute(System.currentTimeMillis());
+            Assert.fail("the failing account should have been reported");
+        } catch (BatchJobException e) {
+            Assert.assertEquals(failingLoan.getAccountId().toString(), e.getErrorMessage());
+        }
+
+        Assert.assertTrue(helper.penalizedAccountIds.contains(firstLoan.getAccountId()));
+        Assert.assertTrue(helper.penalizedAccountIds.contains(lastLoan.getAccountId()));
+        Assert.assertFalse(helper.penalizedAccountIds.contains(failingLoan.getAccountId()));
+    }
+
+    private LoanBO createLateLoanWithPenalty(String globalAccountNum, CustomerBO customer,
+            LoanOfferingBO loanOffering, PenaltyBO penalty, Date startDate) throws Exception {
+        LoanBO loan = TestObjectFactory.createLoanAccount(globalAccountNum, customer,
+                AccountState.LOAN_ACTIVE_IN_GOOD_STANDING, startDate, loanOffering);
+        Calendar lateDate = new GregorianCalendar();
+        lateDate.add(Calendar.DAY_OF_MONTH, -10);
+        for (AccountActionDateEntity actionDate : loan.getAccountActionDates()) {
+            LoanBOTestUtils.setActionDate(actionDate, new java.sql.Date(lateDate.getTimeInMillis()));
+            break;
+        }
+        loan.addAccountPenalty(new AccountPenaltiesEntity(loan, penalty, 10.0));
+        loan.update();
+        IntegrationTestObjectMother.saveLoanAccount(loan);
+        return loan;
+    }
+
+    /**
+     * Applies penalties as the task does, except for one account which always fails, and records the accounts it
+     * applied penalties to.
+     */
+    private static class RecordingHelper extends ApplyPenaltyToLoanAccountsHelper {
+
+        private final Integer failingAccountId;
+        final Set<Integer> penalizedAccountIds = Collections.synchronizedSet(new HashSet<Integer>());
+
+        RecordingHelper(Integer failingAccountId) {
+            this.failingAccountId = failingAccountId;
+        }
+
+        @Override
+        void applyPenalties(LegacyLoanDao legacyLoanDao, Integer accountId) throws PersistenceException {
+            if (failingAccountId.equals(accountId)) {
+                throw new PersistenceException("account " + accountId + " cannot be penalized");
+            }
+            super.applyPenalties(legacyLoanDao, accountId);
+            penalizedAccountIds.add(accountId);
+        }
+    }
+}
@@ -0,0 +1,158 @@
+/*
+ * Copyright (c) 2005-2011 Grameen Foundation USA
+ * All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * See also http://www.apache.org/licenses/LICENSE-2.0.html for an
+ * explanation of the license and how it is applied.
+ */
+
+package org.mifos.framework.components.batchjobs.helpers;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Collections;
+import java.util.Date;
+import java.util.GregorianCalendar;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mifos.accounts.business.AccountActionDateEntity;
+import org.mifos.accounts.business.AccountBO;
+import org.mifos.accounts.loan.business.LoanBO;
+import org.mifos.accounts.loan.business.LoanBOTestUtils;
+import org.mifos.accounts.productdefinition.business.LoanOfferingBO;
+import org.mifos.accounts.productdefinition.util.helpers.ApplicableTo;
+import org.mifos.accounts.productdefinition.util.helpers.InterestType;
+import org.mifos.accounts.productdefinition.util.helpers.PrdStatus;
+import org.mifos.accounts.util.helpers.AccountState;
+import org.mifos.application.meeting.business.MeetingBO;
+import org.mifos.customers.business.CustomerBO;
+import org.mifos.customers.group.business.GroupBO;
+import org.mifos.customers.util.helpers.CustomerStatus;
+import org.mifos.framework.MifosIntegrationTestCase;
+import org.mifos.framework.components.batchjobs.configuration.StandardBatchJobConfigurationService;
+import org.mifos.framework.hibernate.helper.StaticHibernateUtil;
+import org.mifos.framework.util.helpers.TestObjectFactory;
+
+/**
+ * Compares the set based PAR calculation with the per group loop on a seeded set of groups. The PAR of the groups is
+ * cleared before each calculation, so both have to write every group. Their speed is compared by
+ * PortfolioAtRiskBenchmark in the benchmarks module.
+ */
+public class PortfolioAtRiskSetBasedCalculationIntegrationTest extends MifosIntegrationTestCase {
+
+    private static final int NUMBER_OF_GROUPS = 6;
+    private static final String CLEARED = "-1";
+
+    private final List<Integer> groupIds = new ArrayList<Integer>();
+
+    @Before
+    public void setUp() throws Exception {
+        Date startDate = new Date(System.currentTimeMillis());
+        MeetingBO meeting = TestObjectFactory.createMeeting(TestObjectFactory.getTypicalMeeting());
+        CustomerBO center = TestObjectFactory.createWeeklyFeeCenter("PAR Center", meeting);
+        LoanOfferingBO groupLoanOffering = TestObjectFactory.createLoanOffering("PAR Group Loan", "PARG", startDate,
+                meeting);
+        LoanOfferingBO clientLoanOffering = TestObjectFactory.createLoanOffering("PAR Client Loan", "PARC",
+                ApplicableTo.CLIENTS, startDate, PrdStatus.LOAN_ACTIVE, 300.0, 1.2, 3, InterestType.FLAT, meeting);
+
+        for (int i = 0; i < NUMBER_OF_GROUPS; i++) {
+            CustomerBO group = TestObjectFactory.createWeeklyFeeGroupUnderCenter("PAR Group " + i,
+                    CustomerStatus.GROUP_ACTIVE, center);
+            CustomerBO client = TestObjectFactory.createClient("PAR Client " + i, CustomerStatus.CLIENT_ACTIVE, group);
+            LoanBO groupLoan = (LoanBO) TestObjectFactory.createLoanAccount("4242314" + i, group,
+                    AccountState.LOAN_ACTIVE_IN_GOOD_STANDING, startDate, groupLoanOffering);
+            LoanBO clientLoan = (LoanBO) TestObjectFactory.createLoanAccount("4242777" + i, client,
+                    AccountState.LOAN_ACTIVE_IN_GOOD_STANDING, startDate, clientLoanOffering);
+            // put the loans of every other group, and the client loan of every third group, in arrears
+            if (i % 2 == 0) {
+                moveIntoArrears(groupLoan);
+            }
+            if (i % 3 == 0) {
+                moveIntoArrears(clientLoan);
+            }
+            groupIds.add(group.getCustomerId());
+        }
+        StaticHibernateUtil.flushSession();
+    }
+
+    @Test
+    public void setBasedCalculationMatchesPerGroupCalculation() throws Exception {
+        PortfolioAtRiskHelper helper = new PortfolioAtRiskHelper();
+
+        clearPortfolioAtRisk();
+        helper.executePerGroup();
+        Map<Integer, String> perGroupResults = readPortfolioAtRisk();
+
+        clearPortfolioAtRisk();
+        helper.setBatchJobConfigurationService(new SetBasedConfiguration());
+        helper.execute(System.currentTimeMillis());
+        Map<Integer, String> setBasedResults = readPortfolioAtRisk();
+
+        // the fixture has groups with and without loans in arrears
+        assertFalse(perGroupResults.containsValue(CLEARED));
+        assertTrue(perGroupResults.containsValue("0"));
+        assertTrue(new HashSet<String>(perGroupResults.values()).size() > 1);
+        assertEquals(perGroupResults, setBasedResults);
+    }
+
+    private void clearPortfolioAtRisk() {
+        StaticHibernateUtil.startTransaction();
+        StaticHibernateUtil.getSessionTL().createSQLQuery(
+                "update group_perf_history set portfolio_at_risk = " + CLEARED + " where customer_id in (:groupIds)")
+                .setParameterList("groupIds", groupIds).executeUpdate();
+        StaticHibernateUtil.commitTransaction();
+        assertEquals(Collections.singleton(CLEARED), new HashSet<String>(readPortfolioAtRisk().values()));
+    }
+
+    private Map<Integer, String> readPortfolioAtRisk() {
+        StaticHibernateUtil.flushAndClearSession();
+        Map<Integer, String> portfolioAtRisk = new LinkedHashMap<Integer, String>();
+        for (Integer groupId : groupIds) {
+            GroupBO group = (GroupBO) TestObjectFactory.getCustomer(groupId);
+            portfolioAtRisk.put(groupId, group.getGroupPerformanceHistory().getPortfolioAtRisk().getAmount()
+                    .stripTrailingZeros().toPlainString());
+        }
+        return portfolioAtRisk;
+    }
+
+    private void moveIntoArrears(AccountBO account) throws Exception {
+        Calendar currentDateCalendar = new GregorianCalendar();
+        currentDateCalendar.add(Calendar.DAY_OF_MONTH, -7);
+        for (AccountActionDateEntity accountActionDateEntity : account.getAccountActionDates()) {
+            LoanBOTestUtils.setActionDate(accountActionDateEntity, new java.sql.Date(currentDateCalendar
+                    .getTimeInMillis()));
+            break;
+        }
+        ((LoanBO) account).handleArrears();
+        TestObjectFactory.updateObject(account);
+    }
+
+    private static class SetBasedConfiguration extends StandardBatchJobConfigurationService {
+
+        @Override
+        public boolean isSetBasedPortfolioAtRiskCalculationEnabled() {
+            return true;
+        }
+    }
+}
@@ -26,7 +26,10 @@ import java.util.GregorianCalendar;
 
 import junit.framework.Assert;
 
+import org.hibernate.type.StandardBasicTypes;
+import org.hibernate.type.Type;
 import org.junit.Test;
+import org.mifos.customers.business.CustomerSearchDto;
 import org.mifos.framework.MifosIntegrationTestCase;
 
 @SuppressWarnings("unchecked")
@@ -66,14 +69,35 @@ public class HibernateHelperIntegrationTest extends MifosIntegrationTestCase {
 
     @Test
     public void testDTOBuilderGetValue() {
-        DTOBuilder dtoBuilder = new DTOBuilder();
-        Assert.assertEquals("string", dtoBuilder.getValue("string", "string"));
+        Assert.assertEquals("string", DTOBuilder.getValue("string", "string"));
         Long l = System.currentTimeMillis();
         Date date = new Date(l);
         Calendar c = new GregorianCalendar();
-        Calendar cal = (Calendar) dtoBuilder.getValue(new Date(l), "date");
+        Calendar cal = (Calendar) DTOBuilder.getValue(new Date(l), "date");
         c.setTime(date);
         Assert.assertEquals(c.getTime(), cal.getTime());
+        Assert.assertNull(DTOBuilder.getValue(null, "date"));
+    }
+
+    @Test
+    public void testDTOBuilderBuildDTO() throws Exception {
+        QueryInputs queryInputs = new QueryInputs();
+        queryInputs.setPath(CustomerSearchDto.class.getName());
+        queryInputs.setAliasNames(new String[] { "customerId", "branchName", "customerType" });
+        queryInputs.setTypes(new Type[] { StandardBasicTypes.INTEGER, StandardBasicTypes.STRING,
+                StandardBasicTypes.SHORT });
+        DTOBuilder dtoBuilder = new DTOBuilder();
+        dtoBuilder.setInputs(queryInputs);
+
+        CustomerSearchDto first = (CustomerSearchDto) dtoBuilder.buildDTO(new Object[] { 1, "Branch", (short) 3 });
+        CustomerSearchDto second = (CustomerSearchDto) dtoBuilder.buildDTO(new Object[] { 2, null, (short) 1 });
+
+        Assert.assertEquals(1, first.getCustomerId());
+        Assert.assertEquals("Branch", first.getBranchName());
+        Assert.assertEquals(3, first.getCustomerType());
+        Assert.assertEquals(2, second.getCustomerId());
+        Assert.assertNull(second.getBranchName());
+        Assert.assertEquals(1, second.getCustomerType());
     }
 
 }
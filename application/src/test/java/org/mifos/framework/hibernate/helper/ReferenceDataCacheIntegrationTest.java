@@ -0,0 +1,73 @@
+/*
+ * Copyright (c) 2005-2011 Grameen Foundation USA
+ * All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * See also http://www.apache.org/licenses/LICENSE-2.0.html for an
+ * explanation of the license and how it is applied.
+ */
+
+package org.mifos.framework.hibernate.helper;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import org.hibernate.Session;
+import org.junit.After;
+import org.junit.Test;
+import org.mifos.accounts.business.AccountStateEntity;
+import org.mifos.accounts.util.helpers.AccountState;
+import org.mifos.framework.MifosIntegrationTestCase;
+import org.mifos.framework.metrics.RequestMetrics;
+
+public class ReferenceDataCacheIntegrationTest extends MifosIntegrationTestCase {
+
+    @After
+    public void endRequest() {
+        RequestMetrics.end();
+    }
+
+    @Test
+    public void shouldReadCachedReferenceDataInLaterSessionsWithoutQuerying() {
+        loadAccountState();
+        StaticHibernateUtil.closeSession();
+
+        RequestMetrics requestMetrics = RequestMetrics.begin("test");
+        AccountStateEntity accountState = loadAccountState();
+
+        assertThat(accountState.getId(), is(AccountState.LOAN_ACTIVE_IN_BAD_STANDING.getValue()));
+        assertThat(requestMetrics.getStatementCount(), is(0));
+    }
+
+    @Test
+    public void shouldQueryAgainAfterEviction() {
+        loadAccountState();
+        StaticHibernateUtil.closeSession();
+        ReferenceDataCache.evictAll();
+
+        RequestMetrics requestMetrics = RequestMetrics.begin("test");
+        loadAccountState();
+
+        assertThat(requestMetrics.getStatementCount() > 0, is(true));
+    }
+
+    private AccountStateEntity loadAccountState() {
+        Session session = StaticHibernateUtil.getSessionTL();
+        AccountStateEntity accountState = (AccountStateEntity) session.get(AccountStateEntity.class,
+                AccountState.LOAN_ACTIVE_IN_BAD_STANDING.getValue());
+        accountState.getLookUpValue().getLookUpValueLocales().size();
+        accountState.getFlagSet().size();
+        return accountState;
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright (c) 2005-2011 Grameen Foundation USA
+ * All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * See also http://www.apache.org/licenses/LICENSE-2.0.html for an
+ * explanation of the license and how it is applied.
+ */
+
+package org.mifos.framework.metrics;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+import java.util.List;
+
+import org.junit.Test;
+
+public class MetricsRegistryTest {
+
+    private final MetricsRegistry registry = new MetricsRegistry();
+
+    @Test
+    public void shouldReturnSameTimerForSameName() {
+        assertThat(registry.timer("a"), is(sameInstance(registry.timer("a"))));
+    }
+
+    @Test
+    public void shouldAccumulateRecordedTimes() {
+        MetricTimer timer = registry.timer("a");
+
+        timer.record(10, 3);
+        timer.record(30, 5);
+
+        assertThat(timer.getCount(), is(2L));
+        assertThat(timer.getTotalTimeInMillis(), is(40L));
+        assertThat(timer.getMaxTimeInMillis(), is(30L));
+        assertThat(timer.getTotalItems(), is(8L));
+        assertThat(timer.getMeanTimeInMillis(), is(20.0));
+    }
+
+    @Test
+    public void shouldListTimersByNameAndResetThem() {
+        registry.timer("b").record(5);
+        registry.timer("a").record(7);
+
+        List<MetricTimer> timers = registry.getTimers();
+        assertThat(timers.get(0).getName(), is("a"));
+        assertThat(timers.get(1).getName(), is("b"));
+
+        registry.reset();
+        assertThat(registry.timer("a").getCount(), is(0L));
+        assertThat(registry.timer("b").getMaxTimeInMillis(), is(0L));
+    }
+
+    @Test
+    public void shouldCountDurationsInHistogramBuckets() {
+        MetricTimer timer = registry.timer("a");
+
+        timer.record(5);
+        timer.record(10);
+        timer.record(11);
+        timer.record(60000);
+
+        long[] histogram = timer.getHistogram();
+        assertThat(histogram.length, is(timer.getBucketBoundsInMillis().length + 1));
+        assertThat(histogram[0], is(2L));
+        assertThat(histogram[1], is(1L));
+        assertThat(histogram[histogram.length - 1], is(1L));
+    }
+
+    @Test
+    public void shouldKeepLatestSlowRequestsFirst() {
+        for (int i = 0; i < MetricsRegistry.MAX_SLOW_REQUESTS + 5; i++) {
+            registry.recordSlowRequest(new SlowRequest(new RequestMetrics("request" + i, 0), i));
+        }
+
+        List<SlowRequest> slowRequests = registry.getSlowRequests();
+        assertThat(slowRequests.size(), is(MetricsRegistry.MAX_SLOW_REQUESTS));
+        assertThat(slowRequests.get(0).getTransactionName(), is("request" + (MetricsRegistry.MAX_SLOW_REQUESTS + 4)));
+
+        registry.reset();
+        assertThat(registry.getSlowRequests().isEmpty(), is(true));
+    }
+
+    @Test
+    public void shouldAccumulateCounters() {
+        registry.counter("b").addAndGet(3);
+        registry.counter("a").incrementAndGet();
+        registry.counter("b").addAndGet(2);
+
+        assertThat(registry.getCounters().keySet().iterator().next(), is("a"));
+        assertThat(registry.getCounters().get("b"), is(5L));
+    }
+}
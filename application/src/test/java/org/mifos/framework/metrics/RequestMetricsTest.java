@@ -0,0 +1,69 @@
+/*
+ * Copyright (c) 2005-2011 Grameen Foundation USA
+ * All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * See also http://www.apache.org/licenses/LICENSE-2.0.html for an
+ * explanation of the license and how it is applied.
+ */
+
+package org.mifos.framework.metrics;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+import org.junit.After;
+import org.junit.Test;
+
+public class RequestMetricsTest {
+
+    @After
+    public void endRequest() {
+        RequestMetrics.end();
+    }
+
+    @Test
+    public void shouldIgnoreStatementsOutsideOfRequest() {
+        RequestMetrics.statementPrepared("select 1");
+        RequestMetrics.entityLoaded();
+
+        assertThat(RequestMetrics.current(), is(nullValue()));
+    }
+
+    @Test
+    public void shouldCountStatementsAndEntityLoadsOfCurrentRequest() {
+        RequestMetrics requestMetrics = RequestMetrics.begin("/clients.ftl");
+
+        RequestMetrics.statementPrepared("select 1");
+        RequestMetrics.statementPrepared("select 2");
+        RequestMetrics.entityLoaded();
+
+        assertThat(requestMetrics.getStatementCount(), is(2));
+        assertThat(requestMetrics.getEntityLoadCount(), is(1));
+        assertThat(requestMetrics.getStatements().get(1), is("select 2"));
+    }
+
+    @Test
+    public void shouldKeepOnlyFirstStatements() {
+        RequestMetrics requestMetrics = RequestMetrics.begin("/clients.ftl");
+
+        for (int i = 0; i < RequestMetrics.MAX_RECORDED_STATEMENTS + 10; i++) {
+            RequestMetrics.statementPrepared("select " + i);
+        }
+
+        assertThat(requestMetrics.getStatementCount(), is(RequestMetrics.MAX_RECORDED_STATEMENTS + 10));
+        assertThat(requestMetrics.getStatements().size(), is(RequestMetrics.MAX_RECORDED_STATEMENTS));
+    }
+}
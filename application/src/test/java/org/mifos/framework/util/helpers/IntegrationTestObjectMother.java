@@ -49,6 +49,7 @@ import org.mifos.application.holiday.business.Holiday;
 import org.mifos.application.holiday.business.HolidayBO;
 import org.mifos.application.holiday.business.service.HolidayService;
 import org.mifos.application.holiday.persistence.HolidayDao;
+import org.mifos.application.holiday.persistence.HolidayIndexCache;
 import org.mifos.application.master.business.FundCodeEntity;
 import org.mifos.application.meeting.business.MeetingBO;
 import org.mifos.application.servicefacade.ApplicationContextProvider;
@@ -426,6 +427,7 @@ public class IntegrationTestObjectMother {
 //            StaticHibernateUtil.startTransaction();
             genericDao.createOrUpdate(holiday);
             StaticHibernateUtil.flushSession();
+            HolidayIndexCache.invalidate();
         } catch (Exception e) {
             throw new MifosRuntimeException(e);
         }
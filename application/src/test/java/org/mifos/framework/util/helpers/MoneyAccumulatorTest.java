@@ -0,0 +1,129 @@
+/*
+ * Copyright (c) 2005-2011 Grameen Foundation USA
+ * All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * See also http://www.apache.org/licenses/LICENSE-2.0.html for an
+ * explanation of the license and how it is applied.
+ */
+
+package org.mifos.framework.util.helpers;
+
+import static org.mifos.framework.TestUtils.EURO;
+import static org.mifos.framework.TestUtils.RUPEE;
+
+import java.math.BigDecimal;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+import org.mifos.core.CurrencyMismatchException;
+
+public class MoneyAccumulatorTest {
+
+    @Test
+    public void testAddAndSubtractGiveSameResultAsMoney() {
+        String[] amounts = { "0.1", "1234.567", "-99.9999999999999", "0.0000000000001", "9999999.999", "-0.5" };
+        Money expected = new Money(RUPEE);
+        MoneyAccumulator accumulator = new MoneyAccumulator(RUPEE);
+        for (String amount : amounts) {
+            expected = expected.add(new Money(RUPEE, amount)).subtract(new Money(RUPEE, "0.3333333333333"));
+            accumulator.add(new Money(RUPEE, amount)).subtract(new Money(RUPEE, "0.3333333333333"));
+        }
+        Assert.assertEquals(expected, accumulator.toMoney());
+        Assert.assertEquals(expected.getAmount(), accumulator.getAmount());
+    }
+
+    @Test
+    public void testAddProductGivesSameResultAsMoney() {
+        Money balance = new Money(RUPEE, "1523.3333333333333");
+        Money expected = new Money(RUPEE).add(balance.multiply(31)).add(balance.multiply(-2));
+
+        MoneyAccumulator runningBalance = MoneyAccumulator.from(balance);
+        MoneyAccumulator total = new MoneyAccumulator(RUPEE).addProduct(runningBalance, 31).addProduct(runningBalance, -2);
+
+        Assert.assertEquals(expected.getAmount(), total.getAmount());
+        Assert.assertEquals(balance, runningBalance.toMoney());
+    }
+
+    @Test
+    public void testLargeTotalsStayInMinorUnits() {
+        Money dailyBalance = new Money(RUPEE, "150000.1230123456789");
+        Money expected = new Money(RUPEE);
+        MoneyAccumulator accumulator = new MoneyAccumulator(RUPEE);
+        for (int day = 0; day < 365; day++) {
+            expected = expected.add(dailyBalance.multiply(day % 7 + 1));
+            accumulator.addProduct(MoneyAccumulator.from(dailyBalance), day % 7 + 1);
+        }
+
+        Assert.assertEquals(expected.getAmount(), accumulator.getAmount());
+        Assert.assertFalse(accumulator.isBigDecimalBacked());
+    }
+
+    @Test
+    public void testLargeSingleAmountsStayInMinorUnits() {
+        Money deposit = new Money(RUPEE, "5000000.1234567890123");
+        Money withdrawal = new Money(RUPEE, "-2500000.5");
+        Money expected = deposit.subtract(withdrawal).add(withdrawal);
+
+        MoneyAccumulator accumulator = MoneyAccumulator.from(deposit).subtract(withdrawal).add(withdrawal);
+
+        Assert.assertEquals(expected.getAmount(), accumulator.getAmount());
+        Assert.assertFalse(accumulator.isBigDecimalBacked());
+    }
+
+    @Test
+    public void testFallsBackToBigDecimalWhenAmountOutgrowsLong() {
+        Money large = new Money(RUPEE, "900000000000000.5");
+        Money expected = large.multiply(1000).add(large).multiply(1000);
+
+        MoneyAccumulator accumulator = MoneyAccumulator.from(large).multiply(1000).add(large).multiply(1000);
+
+        Assert.assertTrue(accumulator.isBigDecimalBacked());
+        Assert.assertEquals(expected.getAmount(), accumulator.getAmount());
+        Assert.assertTrue(accumulator.isGreaterThan(MoneyAccumulator.from(large)));
+        Assert.assertEquals(expected.negate().getAmount(),
+                new MoneyAccumulator(RUPEE).subtract(expected).getAmount());
+    }
+
+    @Test
+    public void testComparisons() {
+        MoneyAccumulator small = MoneyAccumulator.from(new Money(RUPEE, "-0.0000000000001"));
+        MoneyAccumulator zero = new MoneyAccumulator(RUPEE);
+
+        Assert.assertTrue(small.isLessThan(zero));
+        Assert.assertTrue(small.isLessThanZero());
+        Assert.assertTrue(zero.isZero());
+        Assert.assertTrue(zero.set(small).isLessThanZero());
+        Assert.assertEquals(0, zero.compareTo(small));
+        Assert.assertTrue(small.clear().isZero());
+    }
+
+    @Test
+    public void testNullIsIgnored() {
+        MoneyAccumulator accumulator = MoneyAccumulator.from(new Money(RUPEE, "10"));
+        accumulator.add((Money) null).subtract(null);
+        Assert.assertEquals(new Money(RUPEE, "10"), accumulator.toMoney());
+    }
+
+    @Test(expected = CurrencyMismatchException.class)
+    public void testAddWithDiffCurrencies() {
+        new MoneyAccumulator(RUPEE).add(new Money(EURO, "1"));
+    }
+
+    @Test
+    public void testGetAmountUsesInternalPrecision() {
+        Assert.assertEquals(new BigDecimal("12.3400000000000"), MoneyAccumulator.from(new Money(RUPEE, "12.34")).getAmount());
+    }
+}
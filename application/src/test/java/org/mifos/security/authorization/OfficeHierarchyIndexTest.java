@@ -0,0 +1,90 @@
+/*
+ * Copyright (c) 2005-2011 Grameen Foundation USA
+ * All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * See also http://www.apache.org/licenses/LICENSE-2.0.html for an
+ * explanation of the license and how it is applied.
+ */
+
+package org.mifos.security.authorization;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.Test;
+import org.mifos.security.util.OfficeCacheDto;
+
+public class OfficeHierarchyIndexTest {
+
+    private final OfficeCacheDto headOffice = new OfficeCacheDto(Short.valueOf("1"), null, "1.1.");
+    private final OfficeCacheDto areaOffice = new OfficeCacheDto(Short.valueOf("2"), Short.valueOf("1"), "1.1.1.");
+    private final OfficeCacheDto branchOne = new OfficeCacheDto(Short.valueOf("3"), Short.valueOf("2"), "1.1.1.1.");
+    private final OfficeCacheDto branchTen = new OfficeCacheDto(Short.valueOf("4"), Short.valueOf("2"), "1.1.1.10.");
+
+    @Test
+    public void officeShouldOnlyBeBelowItsAncestors() {
+
+        OfficeHierarchyIndex hierarchy = OfficeHierarchyIndex.of(Arrays.asList(headOffice, areaOffice, branchOne,
+                branchTen));
+
+        assertThat(hierarchy.isBelow(branchOne, headOffice), is(true));
+        assertThat(hierarchy.isBelow(branchOne, areaOffice), is(true));
+        assertThat(hierarchy.isBelow(areaOffice, branchOne), is(false));
+        assertThat(hierarchy.isBelow(branchTen, branchOne), is(false));
+    }
+
+    @Test
+    public void changingOfficesShouldNotAffectEarlierSnapshot() {
+
+        OfficeHierarchyIndex before = OfficeHierarchyIndex.of(Arrays.asList(headOffice, areaOffice));
+        OfficeCacheDto movedArea = new OfficeCacheDto(Short.valueOf("2"), Short.valueOf("1"), "1.1.2.");
+
+        OfficeHierarchyIndex after = before.withOffices(Arrays.asList(movedArea, branchOne));
+
+        assertThat(before.get(Short.valueOf("2")).getSearchId(), is("1.1.1."));
+        assertThat(before.get(Short.valueOf("3")), is(nullValue()));
+        assertThat(after.get(Short.valueOf("2")).getSearchId(), is("1.1.2."));
+        assertThat(after.get(Short.valueOf("3")), is(branchOne));
+        assertThat(after.size(), is(3));
+    }
+
+    @Test
+    public void movedOfficeShouldBeDroppedWithTheOfficesBelowIt() {
+
+        OfficeHierarchyIndex before = OfficeHierarchyIndex.of(Arrays.asList(headOffice, areaOffice, branchOne,
+                branchTen));
+
+        OfficeHierarchyIndex after = before.withoutOfficeAndDescendants(Short.valueOf("2"));
+
+        assertThat(after.get(Short.valueOf("2")), is(nullValue()));
+        assertThat(after.get(Short.valueOf("3")), is(nullValue()));
+        assertThat(after.get(Short.valueOf("4")), is(nullValue()));
+        assertThat(after.get(Short.valueOf("1")), is(headOffice));
+        assertThat(before.size(), is(4));
+        assertThat(before.withoutOfficeAndDescendants(Short.valueOf("5")), is(before));
+    }
+
+    @Test
+    public void emptySnapshotShouldNotKnowAnyOffice() {
+
+        OfficeHierarchyIndex hierarchy = OfficeHierarchyIndex.of(Collections.<OfficeCacheDto> emptyList());
+
+        assertThat(hierarchy.get(Short.valueOf("1")), is(nullValue()));
+    }
+}
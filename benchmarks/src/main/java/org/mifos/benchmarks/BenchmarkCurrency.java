@@ -0,0 +1,48 @@
+/*
+ * Copyright (c) 2005-2011 Grameen Foundation USA
+ * All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * See also http://www.apache.org/licenses/LICENSE-2.0.html for an
+ * explanation of the license and how it is applied.
+ */
+
+package org.mifos.benchmarks;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+import org.mifos.application.master.business.MifosCurrency;
+import org.mifos.config.AccountingRulesConstants;
+import org.mifos.config.business.MifosConfigurationManager;
+import org.mifos.framework.util.helpers.Money;
+
+/**
+ * Sets up the currency and rounding configuration the calculations read from {@link Money} and
+ * {@link org.mifos.config.AccountingRules}, mirroring what the application does on start up.
+ */
+public final class BenchmarkCurrency {
+
+    public static final MifosCurrency DEFAULT = new MifosCurrency((short) 2, "RUPEE", BigDecimal.valueOf(1.0), "INR");
+
+    private BenchmarkCurrency() {
+    }
+
+    public static MifosCurrency configure() {
+        Money.setDefaultCurrency(DEFAULT);
+        MifosConfigurationManager.getInstance().setProperty(AccountingRulesConstants.CURRENCY_ROUNDING_MODE,
+                RoundingMode.HALF_UP.toString());
+        return DEFAULT;
+    }
+}
@@ -0,0 +1,214 @@
+/*
+ * Copyright (c) 2005-2011 Grameen Foundation USA
+ * All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * See also http://www.apache.org/licenses/LICENSE-2.0.html for an
+ * explanation of the license and how it is applied.
+ */
+
+package org.mifos.benchmarks;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.joda.time.LocalDate;
+import org.mifos.application.collectionsheet.persistence.CollectionSheetDao;
+import org.mifos.application.servicefacade.CollectionSheetCustomerAccountCollectionDto;
+import org.mifos.application.servicefacade.CollectionSheetCustomerDto;
+import org.mifos.application.servicefacade.CollectionSheetCustomerLoanDto;
+import org.mifos.application.servicefacade.CollectionSheetCustomerSavingDto;
+import org.mifos.application.servicefacade.CollectionSheetCustomerSavingsAccountDto;
+import org.mifos.application.servicefacade.CollectionSheetLoanFeeDto;
+import org.mifos.application.servicefacade.CustomerHierarchyAccountsDto;
+import org.mifos.application.servicefacade.CustomerHierarchyParams;
+import org.mifos.customers.api.CustomerLevel;
+
+/**
+ * An in memory {@link CollectionSheetDao} for a center with groups of clients, each client with loans due, a fee
+ * on each loan, a customer account collection and savings accounts. It serves both retrieval paths from the same
+ * data, so benchmarks measure the assembly of the collection sheet rather than the database.
+ */
+public class CollectionSheetFixture implements CollectionSheetDao {
+
+    public static final Integer CENTER_ID = Integer.valueOf(1);
+    public static final Short BRANCH_ID = Short.valueOf("2");
+    public static final String CENTER_SEARCH_ID = "1.1";
+
+    private final List<CollectionSheetCustomerDto> customerHierarchy = new ArrayList<CollectionSheetCustomerDto>();
+    private final Map<Integer, List<CollectionSheetCustomerLoanDto>> loanRepayments = new HashMap<Integer, List<CollectionSheetCustomerLoanDto>>();
+    private final Map<Integer, Map<Integer, List<CollectionSheetLoanFeeDto>>> loanFees = new HashMap<Integer, Map<Integer, List<CollectionSheetLoanFeeDto>>>();
+    private final Map<Integer, List<CollectionSheetCustomerAccountCollectionDto>> accountCollections = new HashMap<Integer, List<CollectionSheetCustomerAccountCollectionDto>>();
+    private final Map<Integer, List<CollectionSheetCustomerSavingDto>> savingsDeposits = new HashMap<Integer, List<CollectionSheetCustomerSavingDto>>();
+    private final List<CollectionSheetCustomerSavingsAccountDto> savingsAccounts = new ArrayList<CollectionSheetCustomerSavingsAccountDto>();
+
+    private int nextAccountId = 1000;
+
+    public CollectionSheetFixture(int numberOfGroups, int clientsPerGroup, int loansPerClient) {
+        customerHierarchy.add(customer(CENTER_ID, null, CustomerLevel.CENTER, CENTER_SEARCH_ID));
+        savingsAccount(CENTER_ID, CustomerLevel.CENTER, true);
+
+        int customerId = CENTER_ID + 1;
+        for (int group = 1; group <= numberOfGroups; group++) {
+            Integer groupId = customerId++;
+            String groupSearchId = CENTER_SEARCH_ID + "." + group;
+            customerHierarchy.add(customer(groupId, CENTER_ID, CustomerLevel.GROUP, groupSearchId));
+            accountCollection(groupId);
+
+            for (int client = 1; client <= clientsPerGroup; client++) {
+                Integer clientId = customerId++;
+                customerHierarchy.add(customer(clientId, groupId, CustomerLevel.CLIENT, groupSearchId + "." + client));
+                accountCollection(clientId);
+                for (int loan = 0; loan < loansPerClient; loan++) {
+                    loanWithFeeDue(clientId);
+                }
+                savingsAccount(clientId, CustomerLevel.CLIENT, client % 2 == 0);
+            }
+        }
+    }
+
+    private CollectionSheetCustomerDto customer(Integer customerId, Integer parentCustomerId, CustomerLevel level,
+            String searchId) {
+        CollectionSheetCustomerDto customer = new CollectionSheetCustomerDto(customerId, "customer " + customerId,
+                level.getValue(), searchId, null, BRANCH_ID);
+        customer.setParentCustomerId(parentCustomerId);
+        return customer;
+    }
+
+    private void loanWithFeeDue(Integer clientId) {
+        Integer accountId = nextAccountId++;
+        CollectionSheetCustomerLoanDto loan = new CollectionSheetCustomerLoanDto();
+        loan.setCustomerId(clientId);
+        loan.setAccountId(accountId);
+        loan.setPrincipalDue(new BigDecimal("100.0"));
+        loan.setInterestDue(new BigDecimal("12.5"));
+        add(loanRepayments, clientId, loan);
+
+        CollectionSheetLoanFeeDto fee = new CollectionSheetLoanFeeDto();
+        fee.setCustomerId(clientId);
+        fee.setAccountId(accountId);
+        fee.setFeeAmountDue(new BigDecimal("5.0"));
+        Map<Integer, List<CollectionSheetLoanFeeDto>> feesByAccountId = loanFees.get(clientId);
+        if (feesByAccountId == null) {
+            feesByAccountId = new HashMap<Integer, List<CollectionSheetLoanFeeDto>>();
+            loanFees.put(clientId, feesByAccountId);
+        }
+        add(feesByAccountId, accountId, fee);
+    }
+
+    private void accountCollection(Integer customerId) {
+        CollectionSheetCustomerAccountCollectionDto accountCollection = new CollectionSheetCustomerAccountCollectionDto();
+        accountCollection.setCustomerId(customerId);
+        accountCollection.setAccountId(nextAccountId++);
+        accountCollection.setCurrencyId(Short.valueOf("2"));
+        accountCollection.setMiscFeesDue(new BigDecimal("1.0"));
+        add(accountCollections, customerId, accountCollection);
+    }
+
+    private void savingsAccount(Integer customerId, CustomerLevel level, boolean depositDue) {
+        Integer accountId = nextAccountId++;
+        CollectionSheetCustomerSavingsAccountDto savingsAccount = new CollectionSheetCustomerSavingsAccountDto();
+        savingsAccount.setCustomerId(customerId);
+        savingsAccount.setAccountId(accountId);
+        savingsAccount.setCustomerLevelId(level.getValue());
+        savingsAccount.setProductId(Short.valueOf("1"));
+        savingsAccount.setCurrencyId(Short.valueOf("2"));
+        savingsAccounts.add(savingsAccount);
+
+        if (depositDue) {
+            CollectionSheetCustomerSavingDto deposit = new CollectionSheetCustomerSavingDto();
+            deposit.setCustomerId(customerId);
+            deposit.setAccountId(accountId);
+            deposit.setDepositDue(new BigDecimal("10.0"));
+            add(savingsDeposits, customerId, deposit);
+        }
+    }
+
+    private static <T> void add(Map<Integer, List<T>> grouped, Integer key, T value) {
+        List<T> values = grouped.get(key);
+        if (values == null) {
+            values = new ArrayList<T>();
+            grouped.put(key, values);
+        }
+        values.add(value);
+    }
+
+    public int getNumberOfCustomers() {
+        return customerHierarchy.size();
+    }
+
+    @Override
+    public List<CollectionSheetCustomerDto> findCustomerHierarchy(Integer customerId, LocalDate transactionDate) {
+        return customerHierarchy;
+    }
+
+    @Override
+    public Map<Integer, List<CollectionSheetCustomerLoanDto>> findAllLoanRepaymentsForCustomerHierarchy(
+            Short branchId, String searchId, LocalDate transactionDate, Integer customerId) {
+        return loanRepayments;
+    }
+
+    @Override
+    public Map<Integer, Map<Integer, List<CollectionSheetLoanFeeDto>>> findOutstandingFeesForLoansOnCustomerHierarchy(
+            Short branchId, String searchId, LocalDate transactionDate, Integer customerId) {
+        return loanFees;
+    }
+
+    @Override
+    public Map<Integer, List<CollectionSheetCustomerAccountCollectionDto>> findAccountCollectionsOnCustomerAccount(
+            Short branchId, String searchId, LocalDate transactionDate, Integer customerId) {
+        return accountCollections;
+    }
+
+    @Override
+    public Map<Integer, List<CollectionSheetCustomerAccountCollectionDto>> findOutstandingFeesForCustomerAccountOnCustomerHierarchy(
+            Short branchId, String searchId, LocalDate transactionDate, Integer customerId) {
+        return new HashMap<Integer, List<CollectionSheetCustomerAccountCollectionDto>>();
+    }
+
+    @Override
+    public Map<Integer, List<CollectionSheetCustomerLoanDto>> findLoanDisbursementsForCustomerHierarchy(
+            Short branchId, String searchId, LocalDate transactionDate, Integer customerId) {
+        return new HashMap<Integer, List<CollectionSheetCustomerLoanDto>>();
+    }
+
+    @Override
+    public CustomerHierarchyAccountsDto findAccountsForWholeCustomerHierarchy(
+            CustomerHierarchyParams customerHierarchyParams) {
+        return new CustomerHierarchyAccountsDto(loanRepayments, loanFees,
+                new HashMap<Integer, List<CollectionSheetCustomerLoanDto>>(), accountCollections,
+                new HashMap<Integer, List<CollectionSheetCustomerAccountCollectionDto>>());
+    }
+
+    @Override
+    public Map<Integer, List<CollectionSheetCustomerSavingDto>> findSavingsDepositsforCustomerHierarchy(
+            CustomerHierarchyParams customerHierarchyParams) {
+        return savingsDeposits;
+    }
+
+    @Override
+    public Map<Integer, List<CollectionSheetCustomerSavingDto>> findAllSavingsAccountsPayableByIndividualClientsForCustomerHierarchy(
+            CustomerHierarchyParams customerHierarchyParams) {
+        return new HashMap<Integer, List<CollectionSheetCustomerSavingDto>>();
+    }
+
+    @Override
+    public List<CollectionSheetCustomerSavingsAccountDto> findAllSavingAccountsForCustomerHierarchy(
+            CustomerHierarchyParams customerHierarchyParams) {
+        return savingsAccounts;
+    }
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright (c) 2005-2011 Grameen Foundation USA
+ * All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * See also http://www.apache.org/licenses/LICENSE-2.0.html for an
+ * explanation of the license and how it is applied.
+ */
+
+package org.mifos.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.joda.time.LocalDate;
+import org.mifos.application.servicefacade.CollectionSheetDto;
+import org.mifos.application.servicefacade.CollectionSheetServiceImpl;
+import org.mifos.config.GeneralConfig;
+import org.mifos.config.business.MifosConfigurationManager;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Assembles the collection sheet of a center through the original path, which merges each customer with the
+ * savings accounts of the whole hierarchy, and through the single pass path, which looks them up by customer id.
+ * The data comes from a {@link CollectionSheetFixture} so the database round trips saved by the single pass
+ * queries are not part of the measurement.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class CollectionSheetRetrievalBenchmark {
+
+    @Param({ "false", "true" })
+    public boolean singlePass;
+
+    @Param({ "5", "40" })
+    public int numberOfGroups;
+
+    private final LocalDate transactionDate = new LocalDate(2011, 3, 7);
+    private CollectionSheetServiceImpl collectionSheetService;
+
+    @Setup
+    public void setUp() {
+        MifosConfigurationManager.getInstance().setProperty(GeneralConfig.SinglePassCollectionSheetRetrieval,
+                Boolean.valueOf(singlePass));
+        CollectionSheetFixture fixture = new CollectionSheetFixture(numberOfGroups, 10, 2);
+        collectionSheetService = new CollectionSheetServiceImpl(null, null, fixture);
+
+        int customers = retrieveCollectionSheet().getCollectionSheetCustomer().size();
+        if (customers != fixture.getNumberOfCustomers()) {
+            throw new IllegalStateException("Expected " + fixture.getNumberOfCustomers() + " customers but got "
+                    + customers);
+        }
+    }
+
+    @Benchmark
+    public CollectionSheetDto retrieveCollectionSheet() {
+        return collectionSheetService.retrieveCollectionSheet(CollectionSheetFixture.CENTER_ID, transactionDate);
+    }
+}
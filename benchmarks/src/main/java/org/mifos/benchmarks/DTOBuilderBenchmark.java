@@ -0,0 +1,117 @@
+/*
+ * Copyright (c) 2005-2011 Grameen Foundation USA
+ * All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * See also http://www.apache.org/licenses/LICENSE-2.0.html for an
+ * explanation of the license and how it is applied.
+ */
+package org.mifos.benchmarks;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
+
+import org.hibernate.type.StandardBasicTypes;
+import org.hibernate.type.Type;
+import org.mifos.customers.business.CustomerSearchDto;
+import org.mifos.framework.exceptions.HibernateSearchException;
+import org.mifos.framework.hibernate.helper.DTOBuilder;
+import org.mifos.framework.hibernate.helper.QueryInputs;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Builds a page of customer search results through {@link DTOBuilder}, which looks the DTO class and setters up once
+ * per query, and through a copy of the loop it used to run, which looked them up for every column of every row. A
+ * new builder is used for every page, as each search does. Times are per row.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class DTOBuilderBenchmark {
+
+    private static final int ROWS_PER_PAGE = 50;
+
+    private static final String[] ALIAS_NAMES = { "customerId", "centerName", "centerGlobalCustNum", "customerType",
+            "branchGlobalNum", "branchName", "loanOfficerName", "loanOffcerGlobalNum", "customerStatus", "groupName",
+            "groupGlobalCustNum", "clientName", "clientGlobalCustNum" };
+
+    private static final Type[] TYPES = { StandardBasicTypes.INTEGER, StandardBasicTypes.STRING,
+            StandardBasicTypes.STRING, StandardBasicTypes.SHORT, StandardBasicTypes.SHORT, StandardBasicTypes.STRING,
+            StandardBasicTypes.STRING, StandardBasicTypes.SHORT, StandardBasicTypes.SHORT, StandardBasicTypes.STRING,
+            StandardBasicTypes.STRING, StandardBasicTypes.STRING, StandardBasicTypes.STRING };
+
+    private QueryInputs queryInputs;
+    private Object[][] rows;
+
+    @Setup
+    public void setUp() throws Exception {
+        queryInputs = new QueryInputs();
+        queryInputs.setPath(CustomerSearchDto.class.getName());
+        queryInputs.setAliasNames(ALIAS_NAMES);
+        queryInputs.setTypes(TYPES);
+        rows = new Object[ROWS_PER_PAGE][];
+        for (int i = 0; i < ROWS_PER_PAGE; i++) {
+            rows[i] = new Object[] { i + 1, "Center " + i, "0002-00000000" + i, (short) 1, (short) 2, "Branch",
+                    "Loan Officer", (short) 3, (short) 3, "Group " + i, "0002-00000001" + i, "Client " + i,
+                    "0002-00000002" + i };
+        }
+
+        CustomerSearchDto built = (CustomerSearchDto) buildPage()[ROWS_PER_PAGE - 1];
+        CustomerSearchDto looked = (CustomerSearchDto) buildPageWithLookupPerRow()[ROWS_PER_PAGE - 1];
+        if (built.getCustomerId() != looked.getCustomerId() || !built.getClientName().equals(looked.getClientName())) {
+            throw new IllegalStateException("DTOBuilder and the per row lookup build different DTOs");
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS_PER_PAGE)
+    public Object[] buildPage() throws HibernateSearchException {
+        DTOBuilder dtoBuilder = new DTOBuilder();
+        dtoBuilder.setInputs(queryInputs);
+        Object[] page = new Object[ROWS_PER_PAGE];
+        for (int i = 0; i < ROWS_PER_PAGE; i++) {
+            page[i] = dtoBuilder.buildDTO(rows[i]);
+        }
+        return page;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS_PER_PAGE)
+    public Object[] buildPageWithLookupPerRow() throws Exception {
+        Object[] page = new Object[ROWS_PER_PAGE];
+        for (int i = 0; i < ROWS_PER_PAGE; i++) {
+            Object dtoObject = Class.forName(queryInputs.getPath()).newInstance();
+            for (int column = 0; column < rows[i].length; column++) {
+                Method setter = dtoObject.getClass().getMethod(
+                        "set" + Character.toUpperCase(ALIAS_NAMES[column].charAt(0)) + ALIAS_NAMES[column].substring(1),
+                        parameterType(TYPES[column]));
+                setter.invoke(dtoObject, rows[i][column]);
+            }
+            page[i] = dtoObject;
+        }
+        return page;
+    }
+
+    private static Class<?> parameterType(Type type) {
+        return "integer".equals(type.getName()) ? Integer.TYPE : "short".equals(type.getName()) ? Short.TYPE
+                : String.class;
+    }
+}
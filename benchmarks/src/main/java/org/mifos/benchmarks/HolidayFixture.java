@@ -0,0 +1,82 @@
+/*
+ * Copyright (c) 2005-2011 Grameen Foundation USA
+ * All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * See also http://www.apache.org/licenses/LICENSE-2.0.html for an
+ * explanation of the license and how it is applied.
+ */
+
+package org.mifos.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.joda.time.LocalDate;
+import org.mifos.application.holiday.business.Holiday;
+import org.mifos.application.holiday.business.HolidayBO;
+import org.mifos.application.holiday.util.helpers.RepaymentRuleTypes;
+import org.mifos.dto.domain.HolidayDetails;
+
+/**
+ * Builds the upcoming holidays of a branch: a mix of one day and multi day holidays every month using the
+ * different repayment rules, optionally with a repayment moratorium each quarter.
+ */
+public class HolidayFixture {
+
+    private static final RepaymentRuleTypes[] NON_MORATORIUM_RULES = { RepaymentRuleTypes.NEXT_WORKING_DAY,
+            RepaymentRuleTypes.SAME_DAY, RepaymentRuleTypes.NEXT_MEETING_OR_REPAYMENT };
+
+    private LocalDate from = new LocalDate(2011, 1, 1);
+    private int months = 24;
+    private boolean withMoratoria = false;
+
+    public List<Holiday> build() {
+        List<Holiday> holidays = new ArrayList<Holiday>();
+        for (int month = 0; month < months; month++) {
+            LocalDate startOfMonth = from.plusMonths(month);
+            RepaymentRuleTypes rule = NON_MORATORIUM_RULES[month % NON_MORATORIUM_RULES.length];
+
+            holidays.add(holiday("public holiday " + month, startOfMonth.plusDays(9), startOfMonth.plusDays(9), rule));
+            if (month % 2 == 0) {
+                holidays.add(holiday("festival " + month, startOfMonth.plusDays(20), startOfMonth.plusDays(23), rule));
+            }
+            if (withMoratoria && month % 3 == 1) {
+                holidays.add(holiday("moratorium " + month, startOfMonth.plusDays(14), startOfMonth.plusDays(28),
+                        RepaymentRuleTypes.REPAYMENT_MORATORIUM));
+            }
+        }
+        return holidays;
+    }
+
+    private Holiday holiday(String name, LocalDate fromDate, LocalDate thruDate, RepaymentRuleTypes rule) {
+        return new HolidayBO(new HolidayDetails(name, fromDate.toDateMidnight().toDate(), thruDate.toDateMidnight()
+                .toDate(), rule.getValue()));
+    }
+
+    public HolidayFixture from(LocalDate withFrom) {
+        this.from = withFrom;
+        return this;
+    }
+
+    public HolidayFixture forMonths(int withMonths) {
+        this.months = withMonths;
+        return this;
+    }
+
+    public HolidayFixture withMoratoria() {
+        this.withMoratoria = true;
+        return this;
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright (c) 2005-2011 Grameen Foundation USA
+ * All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * See also http://www.apache.org/licenses/LICENSE-2.0.html for an
+ * explanation of the license and how it is applied.
+ */
+
+package org.mifos.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.joda.time.LocalDate;
+import org.mifos.accounts.savings.interest.CalendarPeriod;
+import org.mifos.accounts.savings.interest.EndOfDayDetail;
+import org.mifos.accounts.savings.interest.InterestCalculationPeriodDetail;
+import org.mifos.application.master.business.MifosCurrency;
+import org.mifos.framework.util.helpers.Money;
+
+/**
+ * Builds an {@link InterestCalculationPeriodDetail} for a savings account with a deposit every few days and an
+ * occasional withdrawal, as a weekly collection sheet produces.
+ */
+public class InterestCalculationPeriodFixture {
+
+    private final MifosCurrency currency;
+    private LocalDate startDate = new LocalDate(2011, 1, 1);
+    private int days = 365;
+    private int daysBetweenActivity = 7;
+    private String deposit = "150.50";
+    private String withdrawal = "75.25";
+    private String startingBalance = "1000";
+
+    public InterestCalculationPeriodFixture(MifosCurrency currency) {
+        this.currency = currency;
+    }
+
+    public InterestCalculationPeriodDetail build() {
+        LocalDate endDate = startDate.plusDays(days - 1);
+        Money zero = Money.zero(currency);
+
+        List<EndOfDayDetail> endOfDayDetails = new ArrayList<EndOfDayDetail>();
+        int activity = 0;
+        for (LocalDate date = startDate; !date.isAfter(endDate); date = date.plusDays(daysBetweenActivity)) {
+            // every fourth activity is a withdrawal
+            boolean isWithdrawal = ++activity % 4 == 0;
+            Money deposits = isWithdrawal ? zero : new Money(currency, deposit);
+            Money withdrawals = isWithdrawal ? new Money(currency, withdrawal) : zero;
+            endOfDayDetails.add(new EndOfDayDetail(date, deposits, withdrawals, zero));
+        }
+
+        return InterestCalculationPeriodDetail.populatePeriodDetailBasedOnInterestCalculationInterval(
+                new CalendarPeriod(startDate, endDate), endOfDayDetails, new Money(currency, startingBalance));
+    }
+
+    public InterestCalculationPeriodFixture from(LocalDate withStartDate) {
+        this.startDate = withStartDate;
+        return this;
+    }
+
+    public InterestCalculationPeriodFixture forDays(int withDays) {
+        this.days = withDays;
+        return this;
+    }
+
+    public InterestCalculationPeriodFixture withActivityEvery(int withDaysBetweenActivity) {
+        this.daysBetweenActivity = withDaysBetweenActivity;
+        return this;
+    }
+
+    public InterestCalculationPeriodFixture withStartingBalance(String withStartingBalance) {
+        this.startingBalance = withStartingBalance;
+        return this;
+    }
+}
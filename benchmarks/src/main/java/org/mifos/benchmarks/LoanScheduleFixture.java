@@ -0,0 +1,99 @@
+/*
+ * Copyright (c) 2005-2011 Grameen Foundation USA
+ * All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * See also http://www.apache.org/licenses/LICENSE-2.0.html for an
+ * explanation of the license and how it is applied.
+ */
+
+package org.mifos.benchmarks;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import org.joda.time.Days;
+import org.joda.time.LocalDate;
+import org.mifos.accounts.loan.schedule.domain.Installment;
+import org.mifos.accounts.loan.schedule.domain.Schedule;
+
+/**
+ * Builds a declining balance {@link Schedule} with monthly installments of equal principal, the shape most loan
+ * products in production use.
+ */
+public class LoanScheduleFixture {
+
+    private static final int DAYS_IN_YEAR = 365;
+
+    private int numberOfInstallments = 12;
+    private BigDecimal loanAmount = new BigDecimal("10000");
+    private double annualInterestRate = 24;
+    private LocalDate disbursementDate = new LocalDate(2011, 1, 3);
+
+    public Schedule build() {
+        double dailyInterestRate = annualInterestRate / 100 / DAYS_IN_YEAR;
+        BigDecimal principalPerInstallment = loanAmount.divide(BigDecimal.valueOf(numberOfInstallments), 2,
+                RoundingMode.HALF_UP);
+
+        List<Installment> installments = new ArrayList<Installment>(numberOfInstallments);
+        BigDecimal outstandingPrincipal = loanAmount;
+        LocalDate previousDueDate = disbursementDate;
+        for (int installmentNumber = 1; installmentNumber <= numberOfInstallments; installmentNumber++) {
+            LocalDate dueDate = getDueDate(installmentNumber);
+            int days = Days.daysBetween(previousDueDate, dueDate).getDays();
+            BigDecimal interest = outstandingPrincipal.multiply(BigDecimal.valueOf(dailyInterestRate * days)).setScale(2,
+                    RoundingMode.HALF_UP);
+            BigDecimal principal = installmentNumber == numberOfInstallments ? outstandingPrincipal
+                    : principalPerInstallment;
+
+            installments.add(new Installment(installmentNumber, dueDate.toDateMidnight().toDate(), principal, interest,
+                    BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO));
+
+            outstandingPrincipal = outstandingPrincipal.subtract(principal);
+            previousDueDate = dueDate;
+        }
+        return new Schedule(disbursementDate.toDateMidnight().toDate(), dailyInterestRate, loanAmount, installments);
+    }
+
+    public Date getDueDateOf(int installmentNumber) {
+        return getDueDate(installmentNumber).toDateMidnight().toDate();
+    }
+
+    private LocalDate getDueDate(int installmentNumber) {
+        return disbursementDate.plusMonths(installmentNumber);
+    }
+
+    public LoanScheduleFixture withInstallments(int withNumberOfInstallments) {
+        this.numberOfInstallments = withNumberOfInstallments;
+        return this;
+    }
+
+    public LoanScheduleFixture withLoanAmount(String withLoanAmount) {
+        this.loanAmount = new BigDecimal(withLoanAmount);
+        return this;
+    }
+
+    public LoanScheduleFixture withAnnualInterestRate(double withAnnualInterestRate) {
+        this.annualInterestRate = withAnnualInterestRate;
+        return this;
+    }
+
+    public LoanScheduleFixture disbursedOn(LocalDate withDisbursementDate) {
+        this.disbursementDate = withDisbursementDate;
+        return this;
+    }
+}
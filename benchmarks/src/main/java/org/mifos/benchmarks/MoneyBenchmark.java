@@ -0,0 +1,128 @@
+/*
+ * Copyright (c) 2005-2011 Grameen Foundation USA
+ * All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * See also http://www.apache.org/licenses/LICENSE-2.0.html for an
+ * explanation of the license and how it is applied.
+ */
+
+package org.mifos.benchmarks;
+
+import java.math.BigDecimal;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.mifos.application.master.business.MifosCurrency;
+import org.mifos.framework.util.helpers.Money;
+import org.mifos.framework.util.helpers.MoneyAccumulator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Compares running totals kept in immutable {@link Money} with the same totals kept in a {@link MoneyAccumulator}.
+ * Each day's amount is a new {@link Money}, as it is when the amounts come from account activity. Run with
+ * <code>-prof gc</code> to compare allocation rates; {@link #checkRoundingParity()} refuses to run if the two ever
+ * disagree.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class MoneyBenchmark {
+
+    @Param({ "30", "365" })
+    public int numberOfDays;
+
+    private MifosCurrency currency;
+    private BigDecimal[] dailyAmounts;
+
+    @Setup
+    public void setUp() {
+        currency = BenchmarkCurrency.configure();
+        Random random = new Random(42);
+        dailyAmounts = new BigDecimal[numberOfDays];
+        for (int day = 0; day < numberOfDays; day++) {
+            // deposits and withdrawals with the odd fraction left over from interest calculations
+            String amount = (random.nextInt(200000) - 50000) + "." + random.nextInt(1000) + "0123456789";
+            dailyAmounts[day] = new BigDecimal(amount);
+        }
+        checkRoundingParity();
+    }
+
+    void checkRoundingParity() {
+        if (!sumWithMoney().equals(sumWithMoneyAccumulator())
+                || !balanceDaysWithMoney().equals(balanceDaysWithMoneyAccumulator())) {
+            throw new IllegalStateException("Money and MoneyAccumulator give different results");
+        }
+    }
+
+    @Benchmark
+    public Money sumWithMoney() {
+        Money total = Money.zero(currency);
+        for (BigDecimal amount : dailyAmounts) {
+            total = total.add(new Money(currency, amount));
+        }
+        return total;
+    }
+
+    @Benchmark
+    public Money sumWithMoneyAccumulator() {
+        MoneyAccumulator total = new MoneyAccumulator(currency);
+        for (BigDecimal amount : dailyAmounts) {
+            total.add(new Money(currency, amount));
+        }
+        return total.toMoney();
+    }
+
+    /**
+     * The running balance times days step of average balance interest calculation.
+     */
+    @Benchmark
+    public Money balanceDaysWithMoney() {
+        Money runningBalance = Money.zero(currency);
+        Money total = Money.zero(currency);
+        for (int day = 0; day < dailyAmounts.length; day++) {
+            runningBalance = runningBalance.add(new Money(currency, dailyAmounts[day]));
+            total = total.add(runningBalance.multiply(day % 7 + 1));
+        }
+        return total;
+    }
+
+    @Benchmark
+    public Money balanceDaysWithMoneyAccumulator() {
+        MoneyAccumulator runningBalance = new MoneyAccumulator(currency);
+        MoneyAccumulator total = new MoneyAccumulator(currency);
+        for (int day = 0; day < dailyAmounts.length; day++) {
+            runningBalance.add(new Money(currency, dailyAmounts[day]));
+            total.addProduct(runningBalance, day % 7 + 1);
+        }
+        return total.toMoney();
+    }
+
+    @Benchmark
+    public Money multiplyAndDivide() {
+        Money total = Money.zero(currency);
+        for (BigDecimal amount : dailyAmounts) {
+            Money interest = new Money(currency, amount).multiply(Double.valueOf(0.0675)).divide(Integer.valueOf(365));
+            total = total.add(interest);
+        }
+        return total;
+    }
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright (c) 2005-2011 Grameen Foundation USA
+ * All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * See also http://www.apache.org/licenses/LICENSE-2.0.html for an
+ * explanation of the license and how it is applied.
+ */
+
+package org.mifos.benchmarks;
+
+import java.io.InputStream;
+import java.io.StringReader;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+import org.xml.sax.EntityResolver;
+import org.xml.sax.InputSource;
+
+/**
+ * The named SQL queries of a Hibernate mapping file, for benchmarks that run the shipped SQL over plain JDBC rather
+ * than starting Hibernate. Named parameters are turned into JDBC parameters.
+ */
+public class NamedSqlQueries {
+
+    private static final Pattern NAMED_PARAMETER = Pattern.compile(":(\\w+)");
+
+    private final Map<String, String> queries = new HashMap<String, String>();
+
+    public NamedSqlQueries(String mappingResource) throws Exception {
+        InputStream mapping = NamedSqlQueries.class.getClassLoader().getResourceAsStream(mappingResource);
+        if (mapping == null) {
+            throw new IllegalArgumentException(mappingResource + " is not on the class path");
+        }
+        try {
+            DocumentBuilder builder = DocumentBuilderFactory.newInstance().newDocumentBuilder();
+            // the hibernate mapping DTD is not needed to read the queries, so it is not fetched
+            builder.setEntityResolver(new EntityResolver() {
+                @Override
+                public InputSource resolveEntity(String publicId, String systemId) {
+                    return new InputSource(new StringReader(""));
+                }
+            });
+            NodeList sqlQueries = builder.parse(mapping).getElementsByTagName("sql-query");
+            for (int i = 0; i < sqlQueries.getLength(); i++) {
+                Element sqlQuery = (Element) sqlQueries.item(i);
+                StringBuilder sql = new StringBuilder();
+                NodeList children = sqlQuery.getChildNodes();
+                for (int j = 0; j < children.getLength(); j++) {
+                    if (children.item(j).getNodeType() == org.w3c.dom.Node.CDATA_SECTION_NODE) {
+                        sql.append(children.item(j).getNodeValue());
+                    }
+                }
+                queries.put(sqlQuery.getAttribute("name"), sql.toString().trim());
+            }
+        } finally {
+            mapping.close();
+        }
+    }
+
+    public PreparedStatement prepare(Connection connection, String queryName) throws SQLException {
+        return connection.prepareStatement(NAMED_PARAMETER.matcher(getQuery(queryName)).replaceAll("?"));
+    }
+
+    /**
+     * Sets the parameters of a statement returned by {@link #prepare(Connection, String)} from their names.
+     */
+    public void bind(PreparedStatement statement, String queryName, Map<String, Object> parameters)
+            throws SQLException {
+        Matcher matcher = NAMED_PARAMETER.matcher(getQuery(queryName));
+        int index = 1;
+        while (matcher.find()) {
+            if (!parameters.containsKey(matcher.group(1))) {
+                throw new IllegalArgumentException("no value for parameter " + matcher.group(1) + " of " + queryName);
+            }
+            statement.setObject(index++, parameters.get(matcher.group(1)));
+        }
+    }
+
+    private String getQuery(String queryName) {
+        String query = queries.get(queryName);
+        if (query == null) {
+            throw new IllegalArgumentException("no sql query named " + queryName);
+        }
+        return query;
+    }
+}
@@ -0,0 +1,396 @@
+/*
+ * Copyright (c) 2005-2011 Grameen Foundation USA
+ * All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * See also http://www.apache.org/licenses/LICENSE-2.0.html for an
+ * explanation of the license and how it is applied.
+ */
+
+package org.mifos.benchmarks;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares a whole run of the per group portfolio at risk calculation, eight queries and one committed update per
+ * group, with the set based one used when GeneralConfig.SetBasedPortfolioAtRiskCalculation is on, a single query
+ * and updates sent in JDBC batches committed one batch at a time. Both run the SQL shipped in CustomerBO.hbm.xml and
+ * the updates of GroupPersistence over plain JDBC.
+ * <p>
+ * The groups, clients and loans are seeded into an in memory H2 database in MySQL mode, so the benchmark needs no
+ * database of its own. H2 rather than HSQLDB because it picks the join order of the shipped queries by cost, as MySQL
+ * does. {@link #setUp()} clears the PAR of every group before each calculation and refuses to run if the two do
+ * not write the same PAR for every group.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class PortfolioAtRiskBenchmark {
+
+    private static final String MAPPING = "org/mifos/customers/business/CustomerBO.hbm.xml";
+    private static final Short ACTIVE_IN_GOOD_STANDING = Short.valueOf((short) 5);
+    private static final Short ACTIVE_IN_BAD_STANDING = Short.valueOf((short) 9);
+    private static final int CLIENTS_PER_GROUP = 10;
+    private static final int NUMBER_OF_BRANCHES = 10;
+    private static final double CLEARED = -1;
+
+    @Param({ "1000", "10000" })
+    public int numberOfGroups;
+
+    /**
+     * The shipped value of GeneralConfig.BatchSizeForBatchJobs.
+     */
+    @Param({ "100" })
+    public int batchSize;
+
+    private Connection connection;
+    private NamedSqlQueries queries;
+    private final List<GroupRow> groups = new ArrayList<GroupRow>();
+
+    @Setup
+    public void setUp() throws Exception {
+        Class.forName("org.h2.Driver");
+        connection = DriverManager.getConnection("jdbc:h2:mem:portfolioAtRisk;MODE=MySQL", "sa", "");
+        connection.setAutoCommit(false);
+        queries = new NamedSqlQueries(MAPPING);
+        seed();
+
+        clearPortfolioAtRisk();
+        perGroupCalculation();
+        Map<Integer, Double> perGroup = readPortfolioAtRisk();
+        clearPortfolioAtRisk();
+        setBasedCalculation();
+        Map<Integer, Double> setBased = readPortfolioAtRisk();
+        if (perGroup.containsValue(Double.valueOf(CLEARED)) || !perGroup.equals(setBased)) {
+            throw new IllegalStateException("The set based calculation disagrees with the per group one: " + perGroup
+                    + " " + setBased);
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws SQLException {
+        Statement shutdown = connection.createStatement();
+        try {
+            shutdown.execute("shutdown");
+        } finally {
+            connection.close();
+        }
+    }
+
+    /**
+     * PortfolioAtRiskHelper.executePerGroup().
+     */
+    @Benchmark
+    public int perGroupCalculation() throws SQLException {
+        PreparedStatement totalForGroup = queries.prepare(connection, "Customer.getTotalAmountForGroup");
+        PreparedStatement currenciesForGroup = queries.prepare(connection, "Customer.getLoanSummaryCurrenciesForGroup");
+        PreparedStatement totalForClients = queries.prepare(connection, "Customer.getTotalAmountForAllClientsOfGroup");
+        PreparedStatement currenciesForClients = queries.prepare(connection,
+                "Customer.getLoanSummaryCurrenciesForAllClientsOfGroup");
+        PreparedStatement updateGroup = connection
+                .prepareStatement("update customer set updated_by = ?, updated_date = ? where customer_id = ?");
+        PreparedStatement updateGroupPerformanceHistory = connection
+                .prepareStatement("update group_perf_history set portfolio_at_risk = ? where customer_id = ?");
+        try {
+            int updated = 0;
+            Date currentDate = new Date(System.currentTimeMillis());
+            for (GroupRow group : groups) {
+                BigDecimal atRisk = BigDecimal.ZERO;
+                BigDecimal outstanding = BigDecimal.ZERO;
+                for (Short accountState : new Short[] { ACTIVE_IN_BAD_STANDING, ACTIVE_IN_GOOD_STANDING }) {
+                    Map<String, Object> parameters = new HashMap<String, Object>();
+                    parameters.put("accountState", accountState);
+                    parameters.put("customerId", Integer.valueOf(group.groupId));
+                    parameters.put("officeId", Short.valueOf(group.branchId));
+                    parameters.put("searchId", group.searchId + ".%");
+
+                    readAll(currenciesForGroup, "Customer.getLoanSummaryCurrenciesForGroup", parameters);
+                    BigDecimal amount = sum(totalForGroup, "Customer.getTotalAmountForGroup", parameters);
+                    readAll(currenciesForClients, "Customer.getLoanSummaryCurrenciesForAllClientsOfGroup", parameters);
+                    amount = amount.add(sum(totalForClients, "Customer.getTotalAmountForAllClientsOfGroup",
+                            parameters));
+
+                    outstanding = outstanding.add(amount);
+                    if (accountState.equals(ACTIVE_IN_BAD_STANDING)) {
+                        atRisk = atRisk.add(amount);
+                    }
+                }
+                double portfolioAtRisk = portfolioAtRisk(atRisk, outstanding);
+                if (portfolioAtRisk > -1) {
+                    updateGroup.setShort(1, (short) 1);
+                    updateGroup.setDate(2, currentDate);
+                    updateGroup.setInt(3, group.groupId);
+                    updateGroup.executeUpdate();
+                    updateGroupPerformanceHistory.setDouble(1, portfolioAtRisk);
+                    updateGroupPerformanceHistory.setInt(2, group.groupId);
+                    updated += updateGroupPerformanceHistory.executeUpdate();
+                    connection.commit();
+                }
+            }
+            return updated;
+        } finally {
+            totalForGroup.close();
+            currenciesForGroup.close();
+            totalForClients.close();
+            currenciesForClients.close();
+            updateGroup.close();
+            updateGroupPerformanceHistory.close();
+        }
+    }
+
+    /**
+     * PortfolioAtRiskHelper.executeSetBased().
+     */
+    @Benchmark
+    public int setBasedCalculation() throws SQLException {
+        PreparedStatement allAmounts = queries.prepare(connection, "Customer.getPortfolioAtRiskAmountsForAllGroups");
+        Map<Integer, Double> portfolioAtRiskByGroupId = new LinkedHashMap<Integer, Double>();
+        try {
+            Map<Integer, BigDecimal[]> amountsByGroupId = new HashMap<Integer, BigDecimal[]>();
+            ResultSet rows = allAmounts.executeQuery();
+            while (rows.next()) {
+                amountsByGroupId.put(Integer.valueOf(rows.getInt("group_id")), new BigDecimal[] {
+                        rows.getBigDecimal("at_risk_amount"), rows.getBigDecimal("outstanding_amount") });
+            }
+            for (GroupRow group : groups) {
+                BigDecimal[] amounts = amountsByGroupId.get(Integer.valueOf(group.groupId));
+                double portfolioAtRisk = amounts == null ? 0.0 : portfolioAtRisk(amounts[0], amounts[1]);
+                if (portfolioAtRisk > -1) {
+                    portfolioAtRiskByGroupId.put(Integer.valueOf(group.groupId), Double.valueOf(portfolioAtRisk));
+                }
+            }
+        } finally {
+            allAmounts.close();
+        }
+
+        PreparedStatement updateGroup = connection
+                .prepareStatement("update customer set updated_by = ?, updated_date = ? where customer_id = ?");
+        PreparedStatement updateGroupPerformanceHistory = connection
+                .prepareStatement("update group_perf_history set portfolio_at_risk = ? where customer_id = ?");
+        try {
+            int updated = 0;
+            int inBatch = 0;
+            Date currentDate = new Date(System.currentTimeMillis());
+            for (Map.Entry<Integer, Double> portfolioAtRisk : portfolioAtRiskByGroupId.entrySet()) {
+                updateGroup.setShort(1, (short) 1);
+                updateGroup.setDate(2, currentDate);
+                updateGroup.setInt(3, portfolioAtRisk.getKey().intValue());
+                updateGroup.addBatch();
+                updateGroupPerformanceHistory.setDouble(1, portfolioAtRisk.getValue().doubleValue());
+                updateGroupPerformanceHistory.setInt(2, portfolioAtRisk.getKey().intValue());
+                updateGroupPerformanceHistory.addBatch();
+                if (++inBatch == batchSize) {
+                    updated += executeBatches(updateGroup, updateGroupPerformanceHistory);
+                    inBatch = 0;
+                }
+            }
+            if (inBatch > 0) {
+                updated += executeBatches(updateGroup, updateGroupPerformanceHistory);
+            }
+            return updated;
+        } finally {
+            updateGroup.close();
+            updateGroupPerformanceHistory.close();
+        }
+    }
+
+    private int executeBatches(PreparedStatement updateGroup, PreparedStatement updateGroupPerformanceHistory)
+            throws SQLException {
+        updateGroup.executeBatch();
+        int updated = 0;
+        for (int rows : updateGroupPerformanceHistory.executeBatch()) {
+            updated += rows;
+        }
+        connection.commit();
+        return updated;
+    }
+
+    /**
+     * PortfolioAtRiskCalculation.calculatePortfolioAtRisk(Money, Money) at Money's internal precision.
+     */
+    private static double portfolioAtRisk(BigDecimal atRisk, BigDecimal outstanding) {
+        if (outstanding.signum() != 0) {
+            return atRisk.divide(outstanding, 13, RoundingMode.HALF_UP).doubleValue();
+        }
+        return atRisk.signum() == 0 ? 0.0 : -1;
+    }
+
+    /**
+     * Groups spread over the branches, each with a loan of its own and clients with a loan each. Every third loan is
+     * in bad standing.
+     */
+    private void seed() throws SQLException {
+        Statement ddl = connection.createStatement();
+        try {
+            ddl.execute("create table customer (customer_id integer primary key, customer_level_id smallint, "
+                    + "status_id smallint, branch_id smallint, search_id varchar(100), updated_by smallint, "
+                    + "updated_date date)");
+            ddl.execute("create index cust_search_idx on customer (branch_id, search_id)");
+            ddl.execute("create table account (account_id integer primary key, customer_id integer, "
+                    + "account_type_id smallint, account_state_id smallint)");
+            ddl.execute("create index account_customer_idx on account (customer_id)");
+            ddl.execute("create table loan_summary (account_id integer primary key, orig_principal decimal(21,4), "
+                    + "orig_principal_currency_id smallint, principal_paid decimal(21,4))");
+            ddl.execute("create table group_perf_history (customer_id integer primary key, "
+                    + "portfolio_at_risk decimal(21,4))");
+        } finally {
+            ddl.close();
+        }
+
+        PreparedStatement customer = connection.prepareStatement("insert into customer "
+                + "(customer_id, customer_level_id, status_id, branch_id, search_id) values (?, ?, ?, ?, ?)");
+        PreparedStatement account = connection.prepareStatement("insert into account "
+                + "(account_id, customer_id, account_type_id, account_state_id) values (?, ?, 1, ?)");
+        PreparedStatement loanSummary = connection.prepareStatement("insert into loan_summary "
+                + "(account_id, orig_principal, orig_principal_currency_id, principal_paid) values (?, ?, 2, ?)");
+        PreparedStatement groupPerformanceHistory = connection.prepareStatement("insert into group_perf_history "
+                + "(customer_id, portfolio_at_risk) values (?, 0)");
+        try {
+            int customerId = 0;
+            int accountId = 0;
+            for (int group = 0; group < numberOfGroups; group++) {
+                short branchId = (short) (group % NUMBER_OF_BRANCHES + 1);
+                String groupSearchId = "1." + branchId + "." + (group / NUMBER_OF_BRANCHES + 1);
+                GroupRow groupRow = new GroupRow(++customerId, branchId, groupSearchId);
+                groups.add(groupRow);
+                insertCustomer(customer, groupRow.groupId, 2, 9, branchId, groupSearchId);
+                groupPerformanceHistory.setInt(1, groupRow.groupId);
+                groupPerformanceHistory.executeUpdate();
+                insertLoan(account, loanSummary, ++accountId, groupRow.groupId);
+
+                for (int client = 1; client <= CLIENTS_PER_GROUP; client++) {
+                    int clientId = ++customerId;
+                    insertCustomer(customer, clientId, 1, 3, branchId, groupSearchId + "." + client);
+                    insertLoan(account, loanSummary, ++accountId, clientId);
+                }
+            }
+            connection.commit();
+        } finally {
+            customer.close();
+            account.close();
+            loanSummary.close();
+            groupPerformanceHistory.close();
+        }
+    }
+
+    private static void insertCustomer(PreparedStatement customer, int customerId, int levelId, int statusId,
+            short branchId, String searchId) throws SQLException {
+        customer.setInt(1, customerId);
+        customer.setShort(2, (short) levelId);
+        customer.setShort(3, (short) statusId);
+        customer.setShort(4, branchId);
+        customer.setString(5, searchId);
+        customer.executeUpdate();
+    }
+
+    private static void insertLoan(PreparedStatement account, PreparedStatement loanSummary, int accountId,
+            int customerId) throws SQLException {
+        account.setInt(1, accountId);
+        account.setInt(2, customerId);
+        account.setShort(3, accountId % 3 == 0 ? ACTIVE_IN_BAD_STANDING : ACTIVE_IN_GOOD_STANDING);
+        account.executeUpdate();
+        loanSummary.setInt(1, accountId);
+        loanSummary.setBigDecimal(2, BigDecimal.valueOf(1000 + accountId % 7 * 250));
+        loanSummary.setBigDecimal(3, BigDecimal.valueOf(accountId % 5 * 100));
+        loanSummary.executeUpdate();
+    }
+
+    private void clearPortfolioAtRisk() throws SQLException {
+        Statement clear = connection.createStatement();
+        try {
+            clear.executeUpdate("update group_perf_history set portfolio_at_risk = " + CLEARED);
+            connection.commit();
+        } finally {
+            clear.close();
+        }
+    }
+
+    private Map<Integer, Double> readPortfolioAtRisk() throws SQLException {
+        Statement select = connection.createStatement();
+        try {
+            Map<Integer, Double> portfolioAtRisk = new TreeMap<Integer, Double>();
+            ResultSet rows = select.executeQuery("select customer_id, portfolio_at_risk from group_perf_history");
+            while (rows.next()) {
+                portfolioAtRisk.put(Integer.valueOf(rows.getInt(1)), Double.valueOf(rows.getDouble(2)));
+            }
+            return portfolioAtRisk;
+        } finally {
+            select.close();
+        }
+    }
+
+    private void readAll(PreparedStatement statement, String queryName, Map<String, Object> parameters)
+            throws SQLException {
+        queries.bind(statement, queryName, parameters);
+        ResultSet rows = statement.executeQuery();
+        while (rows.next()) {
+            rows.getObject(1);
+        }
+        rows.close();
+    }
+
+    private BigDecimal sum(PreparedStatement statement, String queryName, Map<String, Object> parameters)
+            throws SQLException {
+        queries.bind(statement, queryName, parameters);
+        ResultSet rows = statement.executeQuery();
+        try {
+            return rows.next() && rows.getBigDecimal(1) != null ? rows.getBigDecimal(1) : BigDecimal.ZERO;
+        } finally {
+            rows.close();
+        }
+    }
+
+    private static class GroupRow {
+        final int groupId;
+        final short branchId;
+        final String searchId;
+
+        GroupRow(int groupId, short branchId, String searchId) {
+            this.groupId = groupId;
+            this.branchId = branchId;
+            this.searchId = searchId;
+        }
+    }
+}
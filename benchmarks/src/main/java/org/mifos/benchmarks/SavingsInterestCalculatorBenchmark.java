@@ -0,0 +1,77 @@
+/*
+ * Copyright (c) 2005-2011 Grameen Foundation USA
+ * All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * See also http://www.apache.org/licenses/LICENSE-2.0.html for an
+ * explanation of the license and how it is applied.
+ */
+
+package org.mifos.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.mifos.accounts.productdefinition.util.helpers.InterestCalcType;
+import org.mifos.accounts.savings.interest.InterestCalculationPeriodDetail;
+import org.mifos.accounts.savings.interest.InterestCalculationPeriodResult;
+import org.mifos.accounts.savings.interest.InterestCalculator;
+import org.mifos.accounts.savings.interest.SavingsInterestCalculatorFactory;
+import org.mifos.accounts.savings.interest.SavingsInterestDetail;
+import org.mifos.application.master.business.MifosCurrency;
+import org.mifos.framework.util.helpers.Money;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Interest for one calculation period of a savings account, for each of the {@link InterestCalculator}s
+ * {@link SavingsInterestCalculatorFactory} can create.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class SavingsInterestCalculatorBenchmark {
+
+    @Param({ "AVERAGE_BALANCE", "MINIMUM_BALANCE" })
+    public String interestCalcType;
+
+    @Param({ "30", "365" })
+    public int periodInDays;
+
+    @Param({ "1", "7" })
+    public int daysBetweenActivity;
+
+    private InterestCalculator interestCalculator;
+    private InterestCalculationPeriodDetail periodDetail;
+
+    @Setup
+    public void setUp() {
+        MifosCurrency currency = BenchmarkCurrency.configure();
+        SavingsInterestDetail interestDetail = new SavingsInterestDetail(InterestCalcType.valueOf(interestCalcType),
+                Double.valueOf(6.75), 365, new Money(currency, "100"));
+        interestCalculator = SavingsInterestCalculatorFactory.create(interestDetail);
+        periodDetail = new InterestCalculationPeriodFixture(currency).forDays(periodInDays)
+                .withActivityEvery(daysBetweenActivity).build();
+    }
+
+    @Benchmark
+    public InterestCalculationPeriodResult calculateInterestForPeriod() {
+        return interestCalculator.calculateSavingsDetailsForPeriod(periodDetail);
+    }
+}
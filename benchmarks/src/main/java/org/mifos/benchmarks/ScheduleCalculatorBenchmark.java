@@ -0,0 +1,94 @@
+/*
+ * Copyright (c) 2005-2011 Grameen Foundation USA
+ * All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * See also http://www.apache.org/licenses/LICENSE-2.0.html for an
+ * explanation of the license and how it is applied.
+ */
+
+package org.mifos.benchmarks;
+
+import java.math.BigDecimal;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+import org.joda.time.DateTime;
+import org.mifos.accounts.loan.business.RepaymentResultsHolder;
+import org.mifos.accounts.loan.schedule.calculation.ScheduleCalculator;
+import org.mifos.accounts.loan.schedule.domain.Schedule;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * {@link ScheduleCalculator} changes the schedule it is given, so every benchmark builds a fresh one;
+ * {@link #buildSchedule()} measures that cost on its own so it can be subtracted.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ScheduleCalculatorBenchmark {
+
+    @Param({ "12", "52" })
+    public int numberOfInstallments;
+
+    private final ScheduleCalculator scheduleCalculator = new ScheduleCalculator();
+    private LoanScheduleFixture fixture;
+    private Date firstDueDate;
+    private Date tenDaysAfterThirdDueDate;
+    private Date midTerm;
+    private BigDecimal installmentAmount;
+
+    @Setup
+    public void setUp() {
+        BenchmarkCurrency.configure();
+        fixture = new LoanScheduleFixture().withInstallments(numberOfInstallments).withLoanAmount("10000")
+                .withAnnualInterestRate(24);
+        firstDueDate = fixture.getDueDateOf(1);
+        tenDaysAfterThirdDueDate = new DateTime(fixture.getDueDateOf(3)).plusDays(10).toDate();
+        midTerm = new DateTime(fixture.getDueDateOf(numberOfInstallments / 2)).plusDays(3).toDate();
+        installmentAmount = fixture.build().getInstallments().get(1).getTotalDue();
+    }
+
+    @Benchmark
+    public Schedule buildSchedule() {
+        return fixture.build();
+    }
+
+    @Benchmark
+    public Schedule applyPaymentOnTime() {
+        Schedule schedule = fixture.build();
+        scheduleCalculator.applyPayment(schedule, installmentAmount, firstDueDate);
+        return schedule;
+    }
+
+    @Benchmark
+    public Schedule applyLatePaymentCoveringOverdueInstallments() {
+        Schedule schedule = fixture.build();
+        scheduleCalculator.applyPayment(schedule, installmentAmount.multiply(BigDecimal.valueOf(3)),
+                tenDaysAfterThirdDueDate);
+        return schedule;
+    }
+
+    @Benchmark
+    public RepaymentResultsHolder computeRepaymentAmount() {
+        return scheduleCalculator.computeRepaymentAmount(fixture.build(), midTerm);
+    }
+}
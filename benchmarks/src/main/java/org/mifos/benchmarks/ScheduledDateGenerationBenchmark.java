@@ -0,0 +1,100 @@
+/*
+ * Copyright (c) 2005-2011 Grameen Foundation USA
+ * All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * See also http://www.apache.org/licenses/LICENSE-2.0.html for an
+ * explanation of the license and how it is applied.
+ */
+
+package org.mifos.benchmarks;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.joda.time.DateTime;
+import org.joda.time.Days;
+import org.joda.time.LocalDate;
+import org.mifos.application.holiday.business.Holiday;
+import org.mifos.application.meeting.util.helpers.RecurrenceType;
+import org.mifos.calendar.DayOfWeek;
+import org.mifos.schedule.ScheduledDateGeneration;
+import org.mifos.schedule.ScheduledEvent;
+import org.mifos.schedule.ScheduledEventFactory;
+import org.mifos.schedule.internal.HolidayAndWorkingDaysAndMoratoriaScheduledDateGeneration;
+import org.mifos.schedule.internal.HolidayAndWorkingDaysScheduledDateGeneration;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Two years of meeting dates for a branch with a realistic number of holidays, with and without repayment
+ * moratoria.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ScheduledDateGenerationBenchmark {
+
+    private static final LocalDate FIRST_MEETING = new LocalDate(2011, 1, 3);
+
+    @Param({ "holidays", "moratoria" })
+    public String variant;
+
+    private ScheduledDateGeneration scheduledDateGeneration;
+    private ScheduledEvent weeklyOnMonday;
+    private ScheduledEvent monthlyOnTheTenth;
+    private DateTime lastScheduledDate;
+
+    @Setup
+    public void setUp() {
+        BenchmarkCurrency.configure();
+        List<Days> workingDays = Arrays.asList(DayOfWeek.mondayAsDay(), DayOfWeek.tuesdayAsDay(),
+                DayOfWeek.wednesdayAsDay(), DayOfWeek.thursdayAsDay(), DayOfWeek.fridayAsDay());
+
+        if ("moratoria".equals(variant)) {
+            List<Holiday> holidays = new HolidayFixture().from(FIRST_MEETING).forMonths(24).withMoratoria().build();
+            scheduledDateGeneration = new HolidayAndWorkingDaysAndMoratoriaScheduledDateGeneration(workingDays, holidays);
+        } else {
+            List<Holiday> holidays = new HolidayFixture().from(FIRST_MEETING).forMonths(24).build();
+            scheduledDateGeneration = new HolidayAndWorkingDaysScheduledDateGeneration(workingDays, holidays);
+        }
+
+        weeklyOnMonday = ScheduledEventFactory.createScheduledEvent(RecurrenceType.WEEKLY, 1, DayOfWeek.monday(), 0, 0);
+        monthlyOnTheTenth = ScheduledEventFactory.createScheduledEvent(RecurrenceType.MONTHLY, 1, 0, 10, 0);
+        lastScheduledDate = FIRST_MEETING.toDateTimeAtStartOfDay();
+    }
+
+    @Benchmark
+    public List<DateTime> weeklyMeetingsForTwoYears() {
+        return scheduledDateGeneration.generateScheduledDates(104, lastScheduledDate, weeklyOnMonday, false);
+    }
+
+    @Benchmark
+    public List<DateTime> monthlyMeetingsForTwoYears() {
+        return scheduledDateGeneration.generateScheduledDates(24, lastScheduledDate, monthlyOnTheTenth, false);
+    }
+
+    @Benchmark
+    public List<DateTime> weeklyCustomerMeetingsThroughTwoYears() {
+        return scheduledDateGeneration.generateScheduledDatesThrough(lastScheduledDate,
+                lastScheduledDate.plusYears(2), weeklyOnMonday, true);
+    }
+}
@@ -19,8 +19,17 @@
  */
 package org.mifos.platform.rest.controller;
 
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
 import org.mifos.application.admin.servicefacade.AdminServiceFacade;
+import org.mifos.config.GeneralConfig;
+import org.mifos.customers.search.CustomerSearchIndexer;
 import org.mifos.dto.domain.AcceptedPaymentTypeDto;
+import org.mifos.framework.cache.MifosCacheManager;
+import org.mifos.framework.hibernate.helper.ReferenceDataCache;
+import org.mifos.framework.metrics.MetricsRegistry;
 import org.springframework.stereotype.Controller;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.RequestMapping;
@@ -51,4 +60,53 @@ public class AdminRESTController {
     AcceptedPaymentTypeDto getAcceptedPaymentTypes(HttpServletRequest request) {
       return adminServiceFacade.retrieveAcceptedPaymentTypes();
     }
+
+    @RequestMapping(value = "admin/customer-search-index/rebuild", method = RequestMethod.POST)
+    public @ResponseBody
+    Map<String, String> rebuildCustomerSearchIndex() {
+        Map<String, String> map = new HashMap<String, String>();
+        if (!GeneralConfig.getCustomerSearchIndex()) {
+            map.put("status", "disabled");
+            return map;
+        }
+        CustomerSearchIndexer indexer = CustomerSearchIndexer.getInstance();
+        indexer.start();
+        map.put("status", indexer.startRebuild() ? "started" : "running");
+        map.put("customers", Integer.toString(indexer.getIndex().size()));
+        return map;
+    }
+
+    @RequestMapping(value = "admin/metrics", method = RequestMethod.GET)
+    public @ResponseBody
+    Map<String, Object> getMetrics() {
+        MetricsRegistry metrics = MetricsRegistry.getInstance();
+        Map<String, Object> map = new LinkedHashMap<String, Object>();
+        map.put("timers", metrics.getTimers());
+        map.put("counters", metrics.getCounters());
+        map.put("slowRequests", metrics.getSlowRequests());
+        map.put("caches", MifosCacheManager.getInstance().getStatistics());
+        return map;
+    }
+
+    @RequestMapping(value = "admin/metrics/reset", method = RequestMethod.POST)
+    public @ResponseBody
+    Map<String, String> resetMetrics() {
+        MetricsRegistry.getInstance().reset();
+        Map<String, String> map = new HashMap<String, String>();
+        map.put("status", "success");
+        return map;
+    }
+
+    /**
+     * For reference data changed directly in the database.
+     */
+    @RequestMapping(value = "admin/cache/evict", method = RequestMethod.POST)
+    public @ResponseBody
+    Map<String, String> evictCaches() {
+        MifosCacheManager.getInstance().invalidateAll();
+        ReferenceDataCache.evictAll();
+        Map<String, String> map = new HashMap<String, String>();
+        map.put("status", "success");
+        return map;
+    }
 }
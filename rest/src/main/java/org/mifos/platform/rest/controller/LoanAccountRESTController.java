@@ -25,19 +25,29 @@ import java.text.ParseException;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import org.codehaus.jackson.JsonParser;
 import org.codehaus.jackson.map.JsonMappingException;
 import org.codehaus.jackson.map.ObjectMapper;
 import org.codehaus.jackson.map.SerializationConfig;
+import org.codehaus.jackson.type.TypeReference;
 import org.joda.time.DateTime;
 import org.joda.time.LocalDate;
 import org.mifos.accounts.api.AccountService;
 import org.mifos.accounts.loan.business.LoanBO;
 import org.mifos.accounts.loan.persistance.LoanDao;
+import org.mifos.accounts.productdefinition.business.LoanAmountOption;
+import org.mifos.accounts.productdefinition.business.LoanOfferingBO;
+import org.mifos.accounts.productdefinition.business.LoanOfferingInstallmentRange;
+import org.mifos.accounts.productdefinition.persistence.LoanProductDao;
 import org.mifos.accounts.servicefacade.AccountServiceFacade;
+import org.mifos.accounts.util.helpers.AccountState;
+import org.mifos.application.meeting.business.MeetingBO;
+import org.mifos.application.meeting.util.helpers.WeekDay;
 import org.mifos.application.servicefacade.CreationAccountPenaltyDto;
 import org.mifos.application.servicefacade.CreationFeeDto;
 import org.mifos.application.servicefacade.CreationGLIMAccountsDto;
@@ -46,13 +56,22 @@ import org.mifos.application.servicefacade.LoanAccountServiceFacade;
 import org.mifos.clientportfolio.newloan.applicationservice.CreateGlimLoanAccount;
 import org.mifos.clientportfolio.newloan.applicationservice.CreateLoanAccount;
 import org.mifos.clientportfolio.newloan.applicationservice.GroupMemberAccountDto;
+import org.mifos.clientportfolio.newloan.domain.LoanScheduleQuote;
+import org.mifos.clientportfolio.newloan.domain.LoanScheduleQuoteInstallment;
+import org.mifos.clientportfolio.newloan.domain.LoanScheduleQuoteRequest;
+import org.mifos.clientportfolio.newloan.domain.service.LoanScheduleQuoteService;
+import org.mifos.config.AccountingRules;
 import org.mifos.core.MifosRuntimeException;
 import org.mifos.customers.business.CustomerBO;
+import org.mifos.customers.persistence.CustomerDao;
 import org.mifos.customers.personnel.persistence.PersonnelDao;
 import org.mifos.dto.domain.AccountPaymentParametersDto;
 import org.mifos.dto.domain.AccountReferenceDto;
 import org.mifos.dto.domain.ApplicableCharge;
+import org.mifos.dto.domain.BulkPaymentResultDto;
 import org.mifos.dto.domain.CustomerDto;
+import org.mifos.dto.domain.LoanAccountReferenceDto;
+import org.mifos.dto.domain.LoanCreationInstallmentDto;
 import org.mifos.dto.domain.LoanInstallmentDetailsDto;
 import org.mifos.dto.domain.LoanRepaymentScheduleItemDto;
 import org.mifos.dto.domain.PaymentTypeDto;
@@ -101,6 +120,15 @@ public class LoanAccountRESTController {
     @Autowired
     private PersonnelDao personnelDao;
 
+    @Autowired
+    private LoanProductDao loanProductDao;
+
+    @Autowired
+    private LoanScheduleQuoteService loanScheduleQuoteService;
+
+    @Autowired
+    private CustomerDao customerDao;
+
     @RequestMapping(value = "/account/loan/num-{globalAccountNum}/repay", method = RequestMethod.POST)
     public @ResponseBody
     Map<String, String> repay(@PathVariable String globalAccountNum, @RequestParam BigDecimal amount,
@@ -163,6 +191,106 @@ public class LoanAccountRESTController {
         return map;
     }
 
+    /**
+     * Repays many loans at once. The request is a JSON list of repayments with the same fields as the parameters of
+     * {@link #repay}, plus globalAccountNum. Each repayment succeeds or fails on its own, repayments of loans that are
+     * not active fail as they do for {@link #repay}.
+     */
+    @RequestMapping(value = "/account/loan/repay/bulk", method = RequestMethod.POST)
+    public @ResponseBody
+    Map<String, Object> bulkRepay(@RequestBody String request) throws Exception {
+        List<Map<String, String>> repayments = new ObjectMapper().readValue(request,
+                new TypeReference<List<Map<String, String>>>() { });
+
+        Set<String> globalAccountNums = new HashSet<String>();
+        for (Map<String, String> repayment : repayments) {
+            if (repayment != null && repayment.get("globalAccountNum") != null) {
+                globalAccountNums.add(repayment.get("globalAccountNum"));
+            }
+        }
+        Map<String, LoanAccountReferenceDto> loans = accountService
+                .lookupLoanAccountsFromGlobalAccountNumbers(globalAccountNums);
+
+        MifosUser user = (MifosUser) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+        UserReferenceDto userDto = new UserReferenceDto((short) user.getUserId());
+        List<PaymentTypeDto> loanPaymentTypes = accountService.getLoanPaymentTypes();
+        LocalDate today = new LocalDate();
+
+        List<Map<String, String>> results = new ArrayList<Map<String, String>>();
+        List<AccountPaymentParametersDto> payments = new ArrayList<AccountPaymentParametersDto>();
+        List<Map<String, String>> paymentResults = new ArrayList<Map<String, String>>();
+        for (Map<String, String> repayment : repayments) {
+            Map<String, String> result = new HashMap<String, String>();
+            results.add(result);
+            if (repayment == null) {
+                result.put("status", "failure");
+                result.put("error", "repayment not specified");
+                continue;
+            }
+            String globalAccountNum = repayment.get("globalAccountNum");
+            result.put("globalAccountNum", globalAccountNum);
+
+            LoanAccountReferenceDto loan = globalAccountNum == null ? null : loans.get(globalAccountNum);
+            if (loan == null) {
+                result.put("status", "failure");
+                result.put("error", "loan not found");
+                continue;
+            }
+            try {
+                if (!AccountState.fromShort(loan.getAccountStateId()).isActiveLoanAccountState()) {
+                    throw new ParamValidationException(ErrorMessage.NOT_ACTIVE_ACCOUNT);
+                }
+                validateRequiredRepaymentFields(repayment);
+                BigDecimal amount = new BigDecimal(repayment.get("amount"));
+                validateAmount(amount);
+
+                LocalDate paymentDate = today;
+                if (repayment.get("paymentDate") != null && !repayment.get("paymentDate").isEmpty()) {
+                    paymentDate = validateDateString(repayment.get("paymentDate"), format).toLocalDate();
+                }
+                LocalDate receiptDate = null;
+                if (repayment.get("receiptDate") != null && !repayment.get("receiptDate").isEmpty()) {
+                    receiptDate = validateDateString(repayment.get("receiptDate"), format).toLocalDate();
+                }
+                PaymentTypeDto paymentType = new PaymentTypeDto(Short.valueOf(repayment.get("paymentModeId")), "");
+                validatePaymentTypeId(paymentType, loanPaymentTypes);
+
+                CustomerDto customer = new CustomerDto();
+                customer.setCustomerId(loan.getCustomerId());
+                payments.add(new AccountPaymentParametersDto(userDto, new AccountReferenceDto(loan.getAccountId()),
+                        amount, paymentDate, paymentType, globalAccountNum, receiptDate, repayment.get("receiptId"),
+                        customer));
+                paymentResults.add(result);
+            } catch (NumberFormatException e) {
+                result.put("status", "failure");
+                result.put("error", "invalid number " + e.getMessage());
+            } catch (ParamValidationException e) {
+                result.put("status", "failure");
+                result.put("error", e.getMessage());
+            }
+        }
+
+        List<BulkPaymentResultDto> paymentOutcomes = accountService.makeBulkPayments(payments);
+        int successful = 0;
+        for (int i = 0; i < paymentOutcomes.size(); i++) {
+            Map<String, String> result = paymentResults.get(i);
+            if (paymentOutcomes.get(i).isSuccessful()) {
+                result.put("status", "success");
+                successful++;
+            } else {
+                result.put("status", "failure");
+                result.put("error", paymentOutcomes.get(i).getErrorMessage());
+            }
+        }
+
+        Map<String, Object> map = new HashMap<String, Object>();
+        map.put("status", "success");
+        map.put("successfulPayments", successful);
+        map.put("failedPayments", results.size() - successful);
+        map.put("payments", results);
+        return map;
+    }
+
     @RequestMapping(value = "/account/loan/num-{globalAccountNum}/fullrepay", method = RequestMethod.POST)
     public @ResponseBody
     Map<String, String> fullRepay(@PathVariable String globalAccountNum,
@@ -424,6 +552,61 @@ public class LoanAccountRESTController {
         return loanAccountServiceFacade.retrieveLoanRepaymentSchedule(globalAccountNum, new DateTime().toDate());
     }
 
+    /**
+     * Repayment schedule of a loan of the product that is not created. Repayments follow the frequency of the product,
+     * on the given mifos week day or day of the month, else on the day of the week or month of the disbursement. The
+     * terms must be within the limits of the product for the next loan of the customer, or for a first loan of the
+     * product when no customer is given.
+     */
+    @RequestMapping(value = "/account/loan/quote", method = RequestMethod.GET)
+    public @ResponseBody
+    List<LoanCreationInstallmentDto> quoteLoanSchedule(@RequestParam Integer productId, @RequestParam Short officeId,
+            @RequestParam BigDecimal amount, @RequestParam Integer installments, @RequestParam String disbursementDate,
+            @RequestParam(required = false) Double interestRate, @RequestParam(required = false) Integer graceDuration,
+            @RequestParam(required = false) Short weekDay, @RequestParam(required = false) Short dayOfMonth,
+            @RequestParam(required = false) Short weekOfMonth, @RequestParam(required = false) Integer customerId)
+            throws Exception {
+
+        validateAmount(amount);
+        if (installments <= 0) {
+            throw new ParamValidationException(ErrorMessage.INVALID_NUMBER_OF_INSTALLMENTS);
+        }
+        LoanOfferingBO loanProduct = loanProductDao.findById(productId);
+        if (loanProduct == null || loanProduct.isPrinDueLastInst()) {
+            throw new ParamValidationException(ErrorMessage.INVALID_PRODUCT_ID);
+        }
+        LocalDate disbursement = validateDateString(disbursementDate, format).toLocalDate();
+
+        Double rate = interestRate == null ? loanProduct.getDefInterestRate() : interestRate;
+        int grace = graceDuration == null ? loanProduct.getGracePeriodDuration().intValue() : graceDuration.intValue();
+        validateQuoteTerms(loanProduct, customerId, amount, installments.intValue(), rate, grace);
+
+        MeetingBO productMeeting = loanProduct.getLoanOfferingMeetingValue();
+        int dayOfWeek = disbursement.getDayOfWeek();
+        if (weekDay != null) {
+            dayOfWeek = WeekDay.getJodaDayOfWeekThatMatchesMifosWeekDay(weekDay);
+        }
+        int day = dayOfMonth == null ? disbursement.getDayOfMonth() : dayOfMonth.intValue();
+        int week = weekOfMonth == null ? 0 : weekOfMonth.intValue();
+
+        LoanScheduleQuoteRequest request = new LoanScheduleQuoteRequest(officeId, loanProduct.getCurrency(), amount,
+                rate, installments, disbursement, loanProduct.getInterestType(), loanProduct.getGraceType(), grace,
+                loanProduct.isVariableInstallmentsAllowed(), AccountingRules.getNumberOfInterestDays().intValue(),
+                productMeeting.getRecurrenceType(), productMeeting.getRecurAfter().intValue(), dayOfWeek, day, week);
+
+        LoanScheduleQuote quote = loanScheduleQuoteService.quote(request);
+
+        Short digitsAfterDecimal = AccountingRules.getDigitsAfterDecimal();
+        List<LoanCreationInstallmentDto> schedule = new ArrayList<LoanCreationInstallmentDto>();
+        for (LoanScheduleQuoteInstallment installment : quote.getInstallments()) {
+            schedule.add(new LoanCreationInstallmentDto(installment.getInstallmentNumber(), installment.getDueDate(),
+                    Double.valueOf(installment.getPrincipal().toString(digitsAfterDecimal)),
+                    Double.valueOf(installment.getInterest().toString(digitsAfterDecimal)), Double.valueOf(0.0),
+                    Double.valueOf(0.0), Double.valueOf(installment.getTotal().toString(digitsAfterDecimal))));
+        }
+        return schedule;
+    }
+
     @RequestMapping(value = "/account/loan/create", method = RequestMethod.POST)
     public @ResponseBody
     Map<String, String> createLoanAccount(@RequestBody String request) throws Throwable {
@@ -516,6 +699,51 @@ public class LoanAccountRESTController {
         }
     }
 
+    /**
+     * Same limits as the loan account form applies when a loan is created.
+     */
+    private void validateQuoteTerms(LoanOfferingBO loanProduct, Integer customerId, BigDecimal amount,
+            int installments, Double interestRate, int graceDuration) throws ParamValidationException {
+        Money lastLoanAmount = new Money(loanProduct.getCurrency());
+        Short lastLoanCycle = Short.valueOf((short) 0);
+        if (customerId != null) {
+            CustomerBO customer = customerDao.findCustomerById(customerId);
+            if (customer == null) {
+                throw new ParamValidationException(ErrorMessage.INVALID_CUSTOMER_ID);
+            }
+            lastLoanAmount = customer.getMaxLoanAmount(loanProduct);
+            lastLoanCycle = customer.getMaxLoanCycleForProduct(loanProduct);
+        }
+
+        LoanAmountOption eligibleLoanAmount = loanProduct.eligibleLoanAmount(lastLoanAmount, lastLoanCycle);
+        if (amount.doubleValue() < eligibleLoanAmount.getMinLoanAmount()
+                || amount.doubleValue() > eligibleLoanAmount.getMaxLoanAmount()) {
+            throw new ParamValidationException(ErrorMessage.LOAN_AMOUNT_OUT_OF_RANGE);
+        }
+        LoanOfferingInstallmentRange eligibleNoOfInstall = loanProduct.eligibleNoOfInstall(lastLoanAmount,
+                lastLoanCycle);
+        if (installments < eligibleNoOfInstall.getMinNoOfInstall().intValue()
+                || installments > eligibleNoOfInstall.getMaxNoOfInstall().intValue()) {
+            throw new ParamValidationException(ErrorMessage.NUMBER_OF_INSTALLMENTS_OUT_OF_RANGE);
+        }
+        if (interestRate < loanProduct.getMinInterestRate() || interestRate > loanProduct.getMaxInterestRate()) {
+            throw new ParamValidationException(ErrorMessage.INTEREST_RATE_OUT_OF_RANGE);
+        }
+        if (graceDuration < 0 || graceDuration > loanProduct.getGracePeriodDuration().intValue()
+                || graceDuration >= installments) {
+            throw new ParamValidationException(ErrorMessage.INVALID_GRACE_DURATION);
+        }
+    }
+
+    private void validateRequiredRepaymentFields(Map<String, String> repayment) throws ParamValidationException {
+        if (repayment.get("amount") == null || repayment.get("amount").trim().isEmpty()) {
+            throw new ParamValidationException(ErrorMessage.INVALID_AMOUNT);
+        }
+        if (repayment.get("paymentModeId") == null || repayment.get("paymentModeId").trim().isEmpty()) {
+            throw new ParamValidationException(ErrorMessage.INVALID_PAYMENT_TYPE_ID);
+        }
+    }
+
     private void validateAmount(BigDecimal amount) throws ParamValidationException {
         if (amount != null && amount.compareTo(BigDecimal.ZERO) <= 0) {
             throw new ParamValidationException(ErrorMessage.NON_NEGATIVE_AMOUNT);
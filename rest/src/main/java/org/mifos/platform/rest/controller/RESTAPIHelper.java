@@ -34,6 +34,12 @@ public class RESTAPIHelper {
         public static final String INVALID_MFI_DATE = "mfiJoiningDate is mandatory";
         public static final String INVALID_GLIM_AMOUNT = "individual amont must be equal glim amount";
         public static final String INVALID_CUSTOMER_STATUS = "invalid customer status";
+        public static final String INVALID_NUMBER_OF_INSTALLMENTS = "number of installments must be greater than 0";
+        public static final String INVALID_CUSTOMER_ID = "invalid customer Id";
+        public static final String LOAN_AMOUNT_OUT_OF_RANGE = "amount is outside the range allowed by the loan product";
+        public static final String NUMBER_OF_INSTALLMENTS_OUT_OF_RANGE = "number of installments is outside the range allowed by the loan product";
+        public static final String INTEREST_RATE_OUT_OF_RANGE = "interest rate is outside the range allowed by the loan product";
+        public static final String INVALID_GRACE_DURATION = "grace duration must be less than the number of installments and not greater than in the loan product";
     }
 
     @JsonIgnoreProperties(ignoreUnknown = true)
@@ -0,0 +1,177 @@
+/*
+ * Copyright (c) 2005-2011 Grameen Foundation USA
+ * All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * See also http://www.apache.org/licenses/LICENSE-2.0.html for an
+ * explanation of the license and how it is applied.
+ */
+package org.mifos.platform.rest.controller;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Matchers.anyCollection;
+import static org.mockito.Matchers.anyList;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mifos.accounts.api.AccountService;
+import org.mifos.accounts.util.helpers.AccountState;
+import org.mifos.config.Localization;
+import org.mifos.customers.personnel.util.helpers.PersonnelLevel;
+import org.mifos.dto.domain.AccountPaymentParametersDto;
+import org.mifos.dto.domain.BulkPaymentResultDto;
+import org.mifos.dto.domain.LoanAccountReferenceDto;
+import org.mifos.dto.domain.PaymentTypeDto;
+import org.mifos.security.MifosUser;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+@RunWith(MockitoJUnitRunner.class)
+public class LoanAccountRESTControllerTest {
+
+    private static final String LOAN = "000100000000011";
+    private static final String OTHER_LOAN = "000100000000012";
+    private static final String CLOSED_LOAN = "000100000000013";
+
+    private LoanAccountRESTController controller;
+
+    @Mock
+    private AccountService accountService;
+
+    @Before
+    public void setUp() throws Exception {
+        controller = new LoanAccountRESTController();
+        ReflectionTestUtils.setField(controller, "accountService", accountService);
+
+        MifosUser user = new MifosUser(1, Short.valueOf("1"), PersonnelLevel.LOAN_OFFICER.getValue(),
+                new ArrayList<Short>(), "mifos", "testmifos".getBytes(), true, true, true, true,
+                new ArrayList<GrantedAuthority>(), Localization.ENGLISH_LOCALE_ID);
+        SecurityContextHolder.getContext().setAuthentication(new TestingAuthenticationToken(user, user));
+
+        Short active = AccountState.LOAN_ACTIVE_IN_GOOD_STANDING.getValue();
+        Short closed = AccountState.LOAN_CLOSED_OBLIGATIONS_MET.getValue();
+        Map<String, LoanAccountReferenceDto> loans = new HashMap<String, LoanAccountReferenceDto>();
+        loans.put(LOAN, new LoanAccountReferenceDto(11, 21, active));
+        loans.put(OTHER_LOAN, new LoanAccountReferenceDto(12, 22, active));
+        loans.put(CLOSED_LOAN, new LoanAccountReferenceDto(13, 23, closed));
+        when(accountService.lookupLoanAccountsFromGlobalAccountNumbers(anyCollection())).thenReturn(loans);
+        when(accountService.getLoanPaymentTypes()).thenReturn(
+                Arrays.asList(new PaymentTypeDto(Short.valueOf("1"), "Cash")));
+    }
+
+    @After
+    public void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public void bulkRepayShouldReportInvalidRepaymentsWithoutMakingThem() throws Exception {
+        when(accountService.makeBulkPayments(anyList())).thenReturn(Arrays.asList(BulkPaymentResultDto.success(11)));
+
+        Map<String, Object> response = controller.bulkRepay("["
+                + "{\"globalAccountNum\": \"" + LOAN + "\", \"amount\": \"100\", \"paymentModeId\": \"1\"}, "
+                + "{\"globalAccountNum\": \"" + OTHER_LOAN + "\", \"paymentModeId\": \"1\"}, "
+                + "{\"globalAccountNum\": \"" + OTHER_LOAN + "\", \"amount\": \"10\"}, "
+                + "{\"globalAccountNum\": \"" + OTHER_LOAN + "\", \"amount\": \"ten\", \"paymentModeId\": \"1\"}, "
+                + "{\"globalAccountNum\": \"" + OTHER_LOAN + "\", \"amount\": \"10\", \"paymentModeId\": \"9\"}, "
+                + "{\"globalAccountNum\": \"999\", \"amount\": \"10\", \"paymentModeId\": \"1\"}, "
+                + "{\"amount\": \"10\", \"paymentModeId\": \"1\"}, "
+                + "null]");
+
+        assertThat((Integer) response.get("successfulPayments"), is(1));
+        assertThat((Integer) response.get("failedPayments"), is(7));
+        List<Map<String, String>> results = (List<Map<String, String>>) response.get("payments");
+        assertThat(results.size(), is(8));
+        assertThat(results.get(0).get("status"), is("success"));
+        assertThat(results.get(1).get("error"), is(RESTAPIHelper.ErrorMessage.INVALID_AMOUNT));
+        assertThat(results.get(2).get("error"), is(RESTAPIHelper.ErrorMessage.INVALID_PAYMENT_TYPE_ID));
+        assertThat(results.get(3).get("status"), is("failure"));
+        assertThat(results.get(4).get("error"), is(RESTAPIHelper.ErrorMessage.INVALID_PAYMENT_TYPE_ID));
+        assertThat(results.get(5).get("error"), is("loan not found"));
+        assertThat(results.get(6).get("error"), is("loan not found"));
+        assertThat(results.get(7).get("status"), is("failure"));
+
+        ArgumentCaptor<List> payments = ArgumentCaptor.forClass(List.class);
+        verify(accountService).makeBulkPayments(payments.capture());
+        assertThat(payments.getValue().size(), is(1));
+        AccountPaymentParametersDto payment = (AccountPaymentParametersDto) payments.getValue().get(0);
+        assertThat(payment.getAccountId(), is(11));
+        assertThat(payment.getPaymentAmount(), is(new BigDecimal("100")));
+        assertThat(payment.getCustomer().getCustomerId(), is(21));
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public void bulkRepayShouldNotRepayLoansThatAreNotActive() throws Exception {
+        when(accountService.makeBulkPayments(anyList())).thenReturn(Arrays.asList(BulkPaymentResultDto.success(12)));
+
+        Map<String, Object> response = controller.bulkRepay("["
+                + "{\"globalAccountNum\": \"" + CLOSED_LOAN + "\", \"amount\": \"100\", \"paymentModeId\": \"1\"}, "
+                + "{\"globalAccountNum\": \"" + OTHER_LOAN + "\", \"amount\": \"50\", \"paymentModeId\": \"1\"}]");
+
+        assertThat((Integer) response.get("successfulPayments"), is(1));
+        assertThat((Integer) response.get("failedPayments"), is(1));
+        List<Map<String, String>> results = (List<Map<String, String>>) response.get("payments");
+        assertThat(results.get(0).get("globalAccountNum"), is(CLOSED_LOAN));
+        assertThat(results.get(0).get("status"), is("failure"));
+        assertThat(results.get(0).get("error"), is(RESTAPIHelper.ErrorMessage.NOT_ACTIVE_ACCOUNT));
+        assertThat(results.get(1).get("status"), is("success"));
+
+        ArgumentCaptor<List> payments = ArgumentCaptor.forClass(List.class);
+        verify(accountService).makeBulkPayments(payments.capture());
+        assertThat(payments.getValue().size(), is(1));
+        AccountPaymentParametersDto payment = (AccountPaymentParametersDto) payments.getValue().get(0);
+        assertThat(payment.getAccountId(), is(12));
+        assertThat(payment.getCustomer().getCustomerId(), is(22));
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public void bulkRepayShouldReportTheOutcomeOfEachPaymentMade() throws Exception {
+        when(accountService.makeBulkPayments(anyList())).thenReturn(
+                Arrays.asList(BulkPaymentResultDto.failure(11, "errors.invalidTxndate"), BulkPaymentResultDto
+                        .success(12)));
+
+        Map<String, Object> response = controller.bulkRepay("["
+                + "{\"globalAccountNum\": \"" + LOAN + "\", \"amount\": \"100\", \"paymentModeId\": \"1\"}, "
+                + "{\"globalAccountNum\": \"" + OTHER_LOAN + "\", \"amount\": \"50\", \"paymentModeId\": \"1\"}]");
+
+        assertThat((Integer) response.get("successfulPayments"), is(1));
+        assertThat((Integer) response.get("failedPayments"), is(1));
+        List<Map<String, String>> results = (List<Map<String, String>>) response.get("payments");
+        assertThat(results.get(0).get("globalAccountNum"), is(LOAN));
+        assertThat(results.get(0).get("status"), is("failure"));
+        assertThat(results.get(0).get("error"), is("errors.invalidTxndate"));
+        assertThat(results.get(1).get("globalAccountNum"), is(OTHER_LOAN));
+        assertThat(results.get(1).get("status"), is("success"));
+    }
+}
@@ -92,6 +92,9 @@ public interface SavingsServiceFacade {
     @PreAuthorize("isFullyAuthenticated()")
     void postInterestForLastPostingPeriod(LocalDate dateOfBatchJob);
 
+    @PreAuthorize("isFullyAuthenticated()")
+    List<String> postInterestForLastPostingPeriodInChunks(LocalDate dateOfBatchJob, int chunkSize);
+
     @PreAuthorize("isFullyAuthenticated() and hasRole('ROLE_CAN_MAKE_SAVINGS_DEPOSIT_OR_WITHDRAWAL')")
     DepositWithdrawalReferenceDto retrieveDepositWithdrawalReferenceData(Long savingsId, Integer customerId);
 
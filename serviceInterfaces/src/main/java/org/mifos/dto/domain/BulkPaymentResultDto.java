@@ -0,0 +1,61 @@
+/*
+ * Copyright (c) 2005-2011 Grameen Foundation USA
+ * All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * See also http://www.apache.org/licenses/LICENSE-2.0.html for an
+ * explanation of the license and how it is applied.
+ */
+
+package org.mifos.dto.domain;
+
+import java.io.Serializable;
+
+/**
+ * The outcome of one payment of a bulk payment, in the order the payments were given.
+ */
+@SuppressWarnings("PMD")
+@edu.umd.cs.findbugs.annotations.SuppressWarnings(value="SE_NO_SERIALVERSIONID", justification="should disable at filter level and also for pmd - not important for us")
+public class BulkPaymentResultDto implements Serializable {
+
+    private final Integer accountId;
+    private final boolean successful;
+    private final String errorMessage;
+
+    public BulkPaymentResultDto(Integer accountId, boolean successful, String errorMessage) {
+        this.accountId = accountId;
+        this.successful = successful;
+        this.errorMessage = errorMessage;
+    }
+
+    public static BulkPaymentResultDto success(Integer accountId) {
+        return new BulkPaymentResultDto(accountId, true, null);
+    }
+
+    public static BulkPaymentResultDto failure(Integer accountId, String errorMessage) {
+        return new BulkPaymentResultDto(accountId, false, errorMessage);
+    }
+
+    public Integer getAccountId() {
+        return this.accountId;
+    }
+
+    public boolean isSuccessful() {
+        return this.successful;
+    }
+
+    public String getErrorMessage() {
+        return this.errorMessage;
+    }
+}
@@ -0,0 +1,53 @@
+/*
+ * Copyright (c) 2005-2011 Grameen Foundation USA
+ * All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * See also http://www.apache.org/licenses/LICENSE-2.0.html for an
+ * explanation of the license and how it is applied.
+ */
+
+package org.mifos.dto.domain;
+
+import java.io.Serializable;
+
+/**
+ * A loan account found by its global account number, with what is needed to pay into it without loading it.
+ */
+@SuppressWarnings("PMD")
+@edu.umd.cs.findbugs.annotations.SuppressWarnings(value="SE_NO_SERIALVERSIONID", justification="should disable at filter level and also for pmd - not important for us")
+public class LoanAccountReferenceDto implements Serializable {
+
+    private final Integer accountId;
+    private final Integer customerId;
+    private final Short accountStateId;
+
+    public LoanAccountReferenceDto(Integer accountId, Integer customerId, Short accountStateId) {
+        this.accountId = accountId;
+        this.customerId = customerId;
+        this.accountStateId = accountStateId;
+    }
+
+    public Integer getAccountId() {
+        return this.accountId;
+    }
+
+    public Integer getCustomerId() {
+        return this.customerId;
+    }
+
+    public Short getAccountStateId() {
+        return this.accountStateId;
+    }
+}